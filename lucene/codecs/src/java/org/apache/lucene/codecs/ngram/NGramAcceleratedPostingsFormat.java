@@ -0,0 +1,654 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.ngram;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.FieldsConsumer;
+import org.apache.lucene.codecs.FieldsProducer;
+import org.apache.lucene.codecs.NormsProducer;
+import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.Fields;
+import org.apache.lucene.index.FilterLeafReader.FilterTerms;
+import org.apache.lucene.index.FilteredTermsEnum;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Accountables;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.automaton.ByteRunAutomaton;
+import org.apache.lucene.util.automaton.CompiledAutomaton;
+
+/**
+ * <p>
+ * A {@link PostingsFormat} that speeds up {@link org.apache.lucene.search.AutomatonQuery}
+ * and its sub-classes such as {@link org.apache.lucene.search.WildcardQuery} and
+ * {@link org.apache.lucene.search.RegexpQuery} on high-cardinality fields, in
+ * particular for patterns that start with a wildcard. A choice of delegate
+ * PostingsFormat is used to record all postings data.
+ * </p>
+ * <p>
+ * Terms of each field are split into blocks of {@value #TERMS_PER_BLOCK}
+ * consecutive terms, and an ".ngi" file records, for every 3-gram of UTF-8
+ * bytes, the list of blocks that contain at least one term with this 3-gram.
+ * When {@link Terms#intersect} is called, the 3-grams that all terms accepted
+ * by the automaton must contain are extracted from the automaton, and only the
+ * blocks that contain all of them are visited. If no 3-gram can be extracted,
+ * or if too many blocks would need to be visited, the delegate is used.
+ * Since {@link org.apache.lucene.search.MultiTermQuery}s use {@link Terms#intersect}
+ * to enumerate matching terms, queries benefit from this format transparently.
+ * </p>
+ * <p>
+ * The index of a field is built in memory at flush and merge time, and the
+ * first term of every block is held in memory at search time.
+ * </p>
+ * <p>
+ * The format of the ngi file is as follows:
+ * </p>
+ * <ul>
+ * <li>NGramIndex (.ngi) --&gt; Header, DelegatePostingsFormatName,
+ * BlockList<sup>NumLists</sup>, NumFields, Field<sup>NumFields</sup>,
+ * DirectoryOffset, Footer</li>
+ * <li>BlockList --&gt; BlockDelta<sup>BlockCount</sup></li>
+ * <li>Field --&gt; FieldNumber, NumBlocks, BlockStartTerm<sup>NumBlocks</sup>,
+ * NumGrams, &lt;GramDelta, BlockListOffsetDelta, BlockCount&gt;<sup>NumGrams</sup></li>
+ * <li>Header --&gt; {@link CodecUtil#writeIndexHeader IndexHeader}</li>
+ * <li>DelegatePostingsFormatName --&gt; {@link DataOutput#writeString(String)
+ * String} The name of a ServiceProvider registered {@link PostingsFormat}</li>
+ * <li>BlockStartTerm --&gt; Length as {@link DataOutput#writeVInt VInt}, followed
+ * by the bytes of the first term of the block</li>
+ * <li>BlockListOffsetDelta, DirectoryOffset --&gt; {@link DataOutput#writeVLong VLong}
+ * and {@link DataOutput#writeLong Uint64}</li>
+ * <li>NumFields, FieldNumber, NumBlocks, NumGrams, GramDelta, BlockCount,
+ * BlockDelta --&gt; {@link DataOutput#writeVInt VInt}</li>
+ * <li>Footer --&gt; {@link CodecUtil#writeFooter CodecFooter}</li>
+ * </ul>
+ * @lucene.experimental
+ */
+public final class NGramAcceleratedPostingsFormat extends PostingsFormat {
+
+  public static final String NGRAM_CODEC_NAME = "NGramAccelerated";
+  public static final int VERSION_START = 0;
+  public static final int VERSION_CURRENT = VERSION_START;
+
+  /** Extension of the n-gram index file */
+  static final String NGRAM_EXTENSION = "ngi";
+
+  /** Number of bytes per gram. */
+  static final int GRAM_LENGTH = 3;
+
+  /** Number of consecutive terms per block. */
+  public static final int TERMS_PER_BLOCK = 32;
+
+  /** The delegate is used if more than 1/MAX_BLOCKS_RATIO of blocks need to be visited. */
+  static final int MAX_BLOCKS_RATIO = 4;
+
+  private final PostingsFormat delegatePostingsFormat;
+
+  /**
+   * Creates n-gram indices for all fields that use this format. This
+   * PostingsFormat delegates to a choice of delegate PostingsFormat for
+   * encoding all postings data.
+   *
+   * @param delegatePostingsFormat
+   *          The PostingsFormat that records all postings data.
+   */
+  public NGramAcceleratedPostingsFormat(PostingsFormat delegatePostingsFormat) {
+    super(NGRAM_CODEC_NAME);
+    this.delegatePostingsFormat = delegatePostingsFormat;
+  }
+
+  // Used only by core Lucene at read-time via Service Provider instantiation -
+  // do not use at Write-time in application code.
+  public NGramAcceleratedPostingsFormat() {
+    super(NGRAM_CODEC_NAME);
+    this.delegatePostingsFormat = null;
+  }
+
+  @Override
+  public FieldsConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
+    if (delegatePostingsFormat == null) {
+      throw new UnsupportedOperationException("Error - " + getClass().getName()
+          + " has been constructed without a choice of PostingsFormat");
+    }
+    FieldsConsumer fieldsConsumer = delegatePostingsFormat.fieldsConsumer(state);
+    boolean success = false;
+    try {
+      FieldsConsumer consumer = new NGramFieldsConsumer(fieldsConsumer, state, delegatePostingsFormat.getName());
+      success = true;
+      return consumer;
+    } finally {
+      if (success == false) {
+        IOUtils.closeWhileHandlingException(fieldsConsumer);
+      }
+    }
+  }
+
+  @Override
+  public FieldsProducer fieldsProducer(SegmentReadState state) throws IOException {
+    return new NGramFieldsProducer(state);
+  }
+
+  /** Per-field n-gram index, held in memory except for the block lists. */
+  static final class FieldIndex implements Accountable {
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(FieldIndex.class);
+    private static final long BYTES_REF_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(BytesRef.class);
+
+    final BytesRef[] blockStartTerms;
+    final int[] grams;
+    final int[] blockCounts;
+    final long[] offsets;
+
+    FieldIndex(BytesRef[] blockStartTerms, int[] grams, int[] blockCounts, long[] offsets) {
+      this.blockStartTerms = blockStartTerms;
+      this.grams = grams;
+      this.blockCounts = blockCounts;
+      this.offsets = offsets;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      long bytes = BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(grams) + RamUsageEstimator.sizeOf(blockCounts)
+          + RamUsageEstimator.sizeOf(offsets) + RamUsageEstimator.shallowSizeOf(blockStartTerms);
+      for (BytesRef term : blockStartTerms) {
+        bytes += BYTES_REF_RAM_BYTES_USED + RamUsageEstimator.sizeOf(term.bytes);
+      }
+      return bytes;
+    }
+  }
+
+  static final class NGramFieldsProducer extends FieldsProducer {
+    private final IndexInput ngramIn;
+    private final FieldsProducer delegateFieldsProducer;
+    private final Map<String,FieldIndex> indexByFieldName = new HashMap<>();
+
+    NGramFieldsProducer(SegmentReadState state) throws IOException {
+      String ngramFileName = IndexFileNames.segmentFileName(
+          state.segmentInfo.name, state.segmentSuffix, NGRAM_EXTENSION);
+      IndexInput in = null;
+      FieldsProducer delegate = null;
+      boolean success = false;
+      try {
+        in = state.directory.openInput(ngramFileName, state.context);
+        CodecUtil.checkIndexHeader(in, NGRAM_CODEC_NAME, VERSION_START, VERSION_CURRENT,
+            state.segmentInfo.getId(), state.segmentSuffix);
+        PostingsFormat delegatePostingsFormat = PostingsFormat.forName(in.readString());
+        // checks the length and the footer, the full checksum is verified by checkIntegrity
+        CodecUtil.retrieveChecksum(in);
+        delegate = delegatePostingsFormat.fieldsProducer(state);
+
+        in.seek(in.length() - CodecUtil.footerLength() - Long.BYTES);
+        in.seek(in.readLong());
+        final int numFields = in.readVInt();
+        for (int i = 0; i < numFields; ++i) {
+          final FieldInfo fieldInfo = state.fieldInfos.fieldInfo(in.readVInt());
+          final BytesRef[] blockStartTerms = new BytesRef[in.readVInt()];
+          for (int j = 0; j < blockStartTerms.length; ++j) {
+            final BytesRef term = new BytesRef(in.readVInt());
+            in.readBytes(term.bytes, 0, term.bytes.length);
+            term.length = term.bytes.length;
+            blockStartTerms[j] = term;
+          }
+          final int numGrams = in.readVInt();
+          final int[] grams = new int[numGrams];
+          final int[] blockCounts = new int[numGrams];
+          final long[] offsets = new long[numGrams];
+          int gram = 0;
+          long offset = 0;
+          for (int j = 0; j < numGrams; ++j) {
+            gram += in.readVInt();
+            offset += in.readVLong();
+            grams[j] = gram;
+            blockCounts[j] = in.readVInt();
+            offsets[j] = offset;
+          }
+          indexByFieldName.put(fieldInfo.name, new FieldIndex(blockStartTerms, grams, blockCounts, offsets));
+        }
+        this.ngramIn = in;
+        this.delegateFieldsProducer = delegate;
+        success = true;
+      } finally {
+        if (success == false) {
+          IOUtils.closeWhileHandlingException(in, delegate);
+        }
+      }
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return delegateFieldsProducer.iterator();
+    }
+
+    @Override
+    public void close() throws IOException {
+      IOUtils.close(ngramIn, delegateFieldsProducer);
+    }
+
+    @Override
+    public Terms terms(String field) throws IOException {
+      Terms terms = delegateFieldsProducer.terms(field);
+      FieldIndex index = indexByFieldName.get(field);
+      if (terms == null || index == null) {
+        return terms;
+      }
+      return new NGramAcceleratedTerms(terms, index, ngramIn);
+    }
+
+    @Override
+    public int size() {
+      return delegateFieldsProducer.size();
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      long sizeInBytes = delegateFieldsProducer.ramBytesUsed();
+      for (Map.Entry<String,FieldIndex> entry : indexByFieldName.entrySet()) {
+        sizeInBytes += entry.getKey().length() * Character.BYTES;
+        sizeInBytes += entry.getValue().ramBytesUsed();
+      }
+      return sizeInBytes;
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+      List<Accountable> resources = new ArrayList<>();
+      resources.addAll(Accountables.namedAccountables("field", indexByFieldName));
+      resources.add(Accountables.namedAccountable("delegate", delegateFieldsProducer));
+      return Collections.unmodifiableList(resources);
+    }
+
+    @Override
+    public void checkIntegrity() throws IOException {
+      delegateFieldsProducer.checkIntegrity();
+      CodecUtil.checksumEntireFile(ngramIn);
+    }
+
+    @Override
+    public String toString() {
+      return getClass().getSimpleName() + "(fields=" + indexByFieldName.size() + ",delegate=" + delegateFieldsProducer + ")";
+    }
+  }
+
+  static final class NGramAcceleratedTerms extends FilterTerms {
+    private final FieldIndex index;
+    private final IndexInput ngramIn;
+
+    NGramAcceleratedTerms(Terms in, FieldIndex index, IndexInput ngramIn) {
+      super(in);
+      this.index = index;
+      this.ngramIn = ngramIn;
+    }
+
+    @Override
+    public TermsEnum intersect(CompiledAutomaton compiled, BytesRef startTerm) throws IOException {
+      if (compiled.type == CompiledAutomaton.AUTOMATON_TYPE.NORMAL) {
+        final int[] candidateBlocks = getCandidateBlocks(compiled);
+        if (candidateBlocks != null) {
+          if (candidateBlocks.length == 0) {
+            return TermsEnum.EMPTY;
+          }
+          return new CandidateBlocksTermsEnum(in.iterator(), index.blockStartTerms, candidateBlocks,
+              compiled.runAutomaton, startTerm);
+        }
+      }
+      return in.intersect(compiled, startTerm);
+    }
+
+    /**
+     * Return the sorted blocks that may contain terms that are accepted by the
+     * automaton, or {@code null} if the delegate should be used.
+     */
+    int[] getCandidateBlocks(CompiledAutomaton compiled) throws IOException {
+      final int[] requiredGrams = RequiredNGrams.compute(compiled.automaton, GRAM_LENGTH);
+      if (requiredGrams.length == 0) {
+        return null;
+      }
+      final int maxBlocks = index.blockStartTerms.length / MAX_BLOCKS_RATIO;
+      final int[] ords = new int[requiredGrams.length];
+      for (int i = 0; i < requiredGrams.length; ++i) {
+        final int ord = Arrays.binarySearch(index.grams, requiredGrams[i]);
+        if (ord < 0) {
+          // no term contains this gram
+          return new int[0];
+        }
+        ords[i] = ord;
+      }
+      // start from the rarest gram
+      int rarest = ords[0];
+      for (int ord : ords) {
+        if (index.blockCounts[ord] < index.blockCounts[rarest]) {
+          rarest = ord;
+        }
+      }
+      if (index.blockCounts[rarest] > maxBlocks) {
+        return null;
+      }
+      final IndexInput in = ngramIn.clone();
+      int[] blocks = readBlocks(in, rarest);
+      int numBlocks = blocks.length;
+      for (int ord : ords) {
+        if (ord == rarest || numBlocks == 0) {
+          continue;
+        }
+        numBlocks = retainAll(blocks, numBlocks, readBlocks(in, ord));
+      }
+      return Arrays.copyOf(blocks, numBlocks);
+    }
+
+    private int[] readBlocks(IndexInput in, int ord) throws IOException {
+      in.seek(index.offsets[ord]);
+      final int[] blocks = new int[index.blockCounts[ord]];
+      int block = 0;
+      for (int i = 0; i < blocks.length; ++i) {
+        block += in.readVInt();
+        blocks[i] = block;
+      }
+      return blocks;
+    }
+
+    /** Retain the first {@code numBlocks} entries of {@code blocks} that also occur in {@code other}. */
+    private static int retainAll(int[] blocks, int numBlocks, int[] other) {
+      int newNumBlocks = 0;
+      for (int i = 0, j = 0; i < numBlocks && j < other.length; ) {
+        if (blocks[i] < other[j]) {
+          i++;
+        } else if (blocks[i] > other[j]) {
+          j++;
+        } else {
+          blocks[newNumBlocks++] = blocks[i];
+          i++;
+          j++;
+        }
+      }
+      return newNumBlocks;
+    }
+  }
+
+  /**
+   * A {@link TermsEnum} that only visits terms of the candidate blocks, and
+   * returns those that are accepted by the automaton.
+   */
+  static final class CandidateBlocksTermsEnum extends FilteredTermsEnum {
+    private final BytesRef[] blockStartTerms;
+    private final int[] candidateBlocks;
+    private final ByteRunAutomaton runAutomaton;
+    private final BytesRef startTerm;
+    private int upto; // index of the current candidate block in candidateBlocks
+
+    CandidateBlocksTermsEnum(TermsEnum tenum, BytesRef[] blockStartTerms, int[] candidateBlocks,
+        ByteRunAutomaton runAutomaton, BytesRef startTerm) {
+      super(tenum, true);
+      this.blockStartTerms = blockStartTerms;
+      this.candidateBlocks = candidateBlocks;
+      this.runAutomaton = runAutomaton;
+      this.startTerm = startTerm;
+      this.upto = -1;
+    }
+
+    @Override
+    protected BytesRef nextSeekTerm(BytesRef currentTerm) throws IOException {
+      while (++upto < candidateBlocks.length) {
+        final int block = candidateBlocks[upto];
+        if (startTerm != null && block + 1 < blockStartTerms.length
+            && blockStartTerms[block + 1].compareTo(startTerm) <= 0) {
+          // all terms of this block are before the start term
+          continue;
+        }
+        BytesRef seekTerm = blockStartTerms[block];
+        if (startTerm != null && seekTerm.compareTo(startTerm) < 0) {
+          seekTerm = startTerm;
+        }
+        if (currentTerm != null && seekTerm.compareTo(currentTerm) <= 0) {
+          // can only happen when seeking to the start term
+          continue;
+        }
+        return seekTerm;
+      }
+      return null;
+    }
+
+    @Override
+    protected AcceptStatus accept(BytesRef term) throws IOException {
+      // move to the candidate block that contains this term
+      while (true) {
+        final int block = candidateBlocks[upto];
+        if (block + 1 == blockStartTerms.length || term.compareTo(blockStartTerms[block + 1]) < 0) {
+          break;
+        }
+        if (upto + 1 == candidateBlocks.length) {
+          return AcceptStatus.END;
+        }
+        if (candidateBlocks[upto + 1] != block + 1) {
+          return AcceptStatus.NO_AND_SEEK;
+        }
+        upto++;
+      }
+      if (startTerm != null && term.compareTo(startTerm) <= 0) {
+        return AcceptStatus.NO;
+      }
+      if (runAutomaton.run(term.bytes, term.offset, term.length)) {
+        return AcceptStatus.YES;
+      }
+      return AcceptStatus.NO;
+    }
+  }
+
+  final class NGramFieldsConsumer extends FieldsConsumer {
+    private final FieldsConsumer delegateFieldsConsumer;
+    private final SegmentWriteState state;
+    private final IndexOutput ngramOut;
+    private final List<FieldMetadata> fields = new ArrayList<>();
+    // (gram << 32) | block pairs of the current field, deduplicated within each block
+    private long[] pairs = new long[16];
+    private int numPairs;
+    private boolean closed;
+
+    NGramFieldsConsumer(FieldsConsumer fieldsConsumer, SegmentWriteState state, String delegatePostingsFormatName) throws IOException {
+      this.delegateFieldsConsumer = fieldsConsumer;
+      this.state = state;
+      String ngramFileName = IndexFileNames.segmentFileName(
+          state.segmentInfo.name, state.segmentSuffix, NGRAM_EXTENSION);
+      ngramOut = state.directory.createOutput(ngramFileName, state.context);
+      boolean success = false;
+      try {
+        CodecUtil.writeIndexHeader(ngramOut, NGRAM_CODEC_NAME, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+        // remember the name of the postings format we will delegate to
+        ngramOut.writeString(delegatePostingsFormatName);
+        success = true;
+      } finally {
+        if (success == false) {
+          IOUtils.closeWhileHandlingException(ngramOut);
+        }
+      }
+    }
+
+    @Override
+    public void write(Fields fields, NormsProducer norms) throws IOException {
+      // Delegate must write first: it may have opened files
+      // on creating the class
+      delegateFieldsConsumer.write(fields, norms);
+
+      for (String field : fields) {
+        Terms terms = fields.terms(field);
+        if (terms == null) {
+          continue;
+        }
+        writeField(state.fieldInfos.fieldInfo(field), terms.iterator());
+      }
+    }
+
+    private void writeField(FieldInfo fieldInfo, TermsEnum termsEnum) throws IOException {
+      List<BytesRef> blockStartTerms = new ArrayList<>();
+      numPairs = 0;
+      int[] blockGrams = new int[16];
+      int numBlockGrams = 0;
+      int numTerms = 0;
+
+      PostingsEnum postingsEnum = null;
+      for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+        // only count terms that the delegate wrote, ie. that have at least one doc
+        postingsEnum = termsEnum.postings(postingsEnum, PostingsEnum.NONE);
+        if (postingsEnum.nextDoc() == DocIdSetIterator.NO_MORE_DOCS) {
+          continue;
+        }
+        if (numTerms % TERMS_PER_BLOCK == 0) {
+          if (numBlockGrams > 0) {
+            addBlock(blockStartTerms.size() - 1, blockGrams, numBlockGrams);
+            numBlockGrams = 0;
+          }
+          blockStartTerms.add(BytesRef.deepCopyOf(term));
+        }
+        numTerms++;
+        for (int i = 0; i + GRAM_LENGTH <= term.length; ++i) {
+          blockGrams = ArrayUtil.grow(blockGrams, numBlockGrams + 1);
+          blockGrams[numBlockGrams++] = RequiredNGrams.encode(term.bytes, term.offset + i, GRAM_LENGTH);
+        }
+      }
+      if (numBlockGrams > 0) {
+        addBlock(blockStartTerms.size() - 1, blockGrams, numBlockGrams);
+      }
+      if (blockStartTerms.isEmpty()) {
+        return;
+      }
+
+      // blocks are added in order, so this sorts by gram, then block
+      Arrays.sort(pairs, 0, numPairs);
+      FieldMetadata metadata = new FieldMetadata(fieldInfo, blockStartTerms.toArray(new BytesRef[0]));
+      for (int i = 0; i < numPairs; ) {
+        final int gram = (int) (pairs[i] >>> 32);
+        final long offset = ngramOut.getFilePointer();
+        int previousBlock = 0;
+        int count = 0;
+        for (; i < numPairs && (int) (pairs[i] >>> 32) == gram; ++i) {
+          final int block = (int) pairs[i];
+          ngramOut.writeVInt(block - previousBlock);
+          previousBlock = block;
+          count++;
+        }
+        metadata.add(gram, count, offset);
+      }
+      fields.add(metadata);
+    }
+
+    /** Sort and deduplicate the grams of a block and append them to {@code pairs}. */
+    private void addBlock(int block, int[] blockGrams, int numBlockGrams) {
+      Arrays.sort(blockGrams, 0, numBlockGrams);
+      pairs = ArrayUtil.grow(pairs, numPairs + numBlockGrams);
+      for (int i = 0; i < numBlockGrams; ++i) {
+        if (i == 0 || blockGrams[i] != blockGrams[i - 1]) {
+          pairs[numPairs++] = ((long) blockGrams[i] << 32) | block;
+        }
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      boolean success = false;
+      try {
+        delegateFieldsConsumer.close();
+
+        final long directoryOffset = ngramOut.getFilePointer();
+        ngramOut.writeVInt(fields.size());
+        for (FieldMetadata metadata : fields) {
+          ngramOut.writeVInt(metadata.fieldInfo.number);
+          ngramOut.writeVInt(metadata.blockStartTerms.length);
+          for (BytesRef term : metadata.blockStartTerms) {
+            ngramOut.writeVInt(term.length);
+            ngramOut.writeBytes(term.bytes, term.offset, term.length);
+          }
+          ngramOut.writeVInt(metadata.numGrams);
+          int previousGram = 0;
+          long previousOffset = 0;
+          for (int i = 0; i < metadata.numGrams; ++i) {
+            ngramOut.writeVInt(metadata.grams[i] - previousGram);
+            ngramOut.writeVLong(metadata.offsets[i] - previousOffset);
+            ngramOut.writeVInt(metadata.blockCounts[i]);
+            previousGram = metadata.grams[i];
+            previousOffset = metadata.offsets[i];
+          }
+        }
+        ngramOut.writeLong(directoryOffset);
+        CodecUtil.writeFooter(ngramOut);
+        success = true;
+      } finally {
+        if (success) {
+          IOUtils.close(ngramOut);
+        } else {
+          IOUtils.closeWhileHandlingException(ngramOut);
+        }
+        fields.clear();
+        pairs = null;
+      }
+    }
+  }
+
+  /** Metadata of a field that is buffered until the end of the file. */
+  private static final class FieldMetadata {
+    final FieldInfo fieldInfo;
+    final BytesRef[] blockStartTerms;
+    int[] grams = new int[8];
+    int[] blockCounts = new int[8];
+    long[] offsets = new long[8];
+    int numGrams;
+
+    FieldMetadata(FieldInfo fieldInfo, BytesRef[] blockStartTerms) {
+      this.fieldInfo = fieldInfo;
+      this.blockStartTerms = blockStartTerms;
+    }
+
+    void add(int gram, int blockCount, long offset) {
+      grams = ArrayUtil.grow(grams, numGrams + 1);
+      blockCounts = ArrayUtil.grow(blockCounts, numGrams + 1);
+      offsets = ArrayUtil.grow(offsets, numGrams + 1);
+      grams[numGrams] = gram;
+      blockCounts[numGrams] = blockCount;
+      offsets[numGrams] = offset;
+      numGrams++;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "NGramAcceleratedPostingsFormat(" + delegatePostingsFormat + ")";
+  }
+}
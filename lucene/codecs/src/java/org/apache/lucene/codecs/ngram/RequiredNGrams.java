@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.ngram;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.Transition;
+
+/**
+ * Computes the set of byte n-grams that every string accepted by a binary
+ * automaton must contain.
+ * <p>
+ * This walks the product of the automaton with the last {@code n-1} bytes
+ * that were read on single-byte transitions (any transition that accepts a
+ * range of bytes forgets them), and solves, as a greatest fixed point, the
+ * set of n-grams that appear on all paths from a state to an accept state.
+ */
+final class RequiredNGrams {
+
+  /** Maximum number of (state, context) pairs to explore before giving up. */
+  static final int MAX_PRODUCT_STATES = 10000;
+
+  private RequiredNGrams() {}
+
+  /** Encode the {@code n} bytes of {@code bytes} starting at {@code offset} as an int. */
+  static int encode(byte[] bytes, int offset, int n) {
+    int gram = 0;
+    for (int i = 0; i < n; ++i) {
+      gram = (gram << 8) | (bytes[offset + i] & 0xFF);
+    }
+    return gram;
+  }
+
+  /**
+   * Return the sorted n-grams that all strings that are accepted by the given
+   * deterministic binary automaton contain, or an empty array if there are
+   * none or if the automaton is too complex to be analyzed.
+   */
+  static int[] compute(Automaton automaton, int n) {
+    if (n < 1 || n > 3) {
+      throw new IllegalArgumentException("n must be in [1, 3], got " + n);
+    }
+    if (automaton.getNumStates() == 0) {
+      return new int[0];
+    }
+
+    // Explore the product automaton. A context is encoded as (length << 24) | bytes.
+    final Map<Long,Integer> ids = new HashMap<>();
+    final List<long[]> edges = new ArrayList<>(); // per product state: pairs of (target id, gram or -1)
+    final List<Boolean> accept = new ArrayList<>();
+    final List<Long> queue = new ArrayList<>();
+    final Transition t = new Transition();
+
+    ids.put(key(0, 0), 0);
+    queue.add(key(0, 0));
+    for (int p = 0; p < queue.size(); ++p) {
+      final long key = queue.get(p);
+      final int state = (int) (key >>> 32);
+      final int context = (int) key;
+      final int contextLength = context >>> 24;
+      final int contextBytes = context & 0xFFFFFF;
+      accept.add(automaton.isAccept(state));
+
+      final int numTransitions = automaton.initTransition(state, t);
+      final long[] stateEdges = new long[numTransitions];
+      for (int i = 0; i < numTransitions; ++i) {
+        automaton.getNextTransition(t);
+        int gram = -1;
+        int nextContext = 0;
+        if (t.min == t.max) {
+          final int bytes = (contextBytes << 8) | t.min;
+          if (contextLength == n - 1) {
+            gram = bytes & mask(n);
+            nextContext = ((n - 1) << 24) | (bytes & mask(n - 1));
+          } else {
+            nextContext = ((contextLength + 1) << 24) | (bytes & mask(contextLength + 1));
+          }
+        }
+        final long targetKey = key(t.dest, nextContext);
+        Integer target = ids.get(targetKey);
+        if (target == null) {
+          if (ids.size() >= MAX_PRODUCT_STATES) {
+            return new int[0];
+          }
+          target = ids.size();
+          ids.put(targetKey, target);
+          queue.add(targetKey);
+        }
+        stateEdges[i] = ((long) target << 32) | (gram & 0xFFFFFFFFL);
+      }
+      edges.add(stateEdges);
+    }
+
+    // Greatest fixed point, null means "top": no accepted string goes through this state
+    final int numStates = queue.size();
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    final Set<Integer>[] required = new Set[numStates];
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (int p = numStates - 1; p >= 0; --p) {
+        Set<Integer> newRequired;
+        if (accept.get(p)) {
+          newRequired = new HashSet<>();
+        } else {
+          newRequired = null;
+          for (long edge : edges.get(p)) {
+            final Set<Integer> targetRequired = required[(int) (edge >>> 32)];
+            if (targetRequired == null) {
+              continue;
+            }
+            final int gram = (int) edge;
+            if (newRequired == null) {
+              newRequired = new HashSet<>(targetRequired);
+              if (gram != -1) {
+                newRequired.add(gram);
+              }
+            } else {
+              newRequired.removeIf(g -> g != gram && targetRequired.contains(g) == false);
+            }
+          }
+        }
+        if (newRequired != null && newRequired.equals(required[p]) == false) {
+          required[p] = newRequired;
+          changed = true;
+        }
+      }
+    }
+
+    if (required[0] == null) {
+      return new int[0];
+    }
+    return required[0].stream().mapToInt(Integer::intValue).sorted().toArray();
+  }
+
+  private static long key(int state, int context) {
+    return ((long) state << 32) | (context & 0xFFFFFFFFL);
+  }
+
+  private static int mask(int numBytes) {
+    return (int) ((1L << (8 * numBytes)) - 1);
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.ngram;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.BasePostingsFormatTestCase;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.CompiledAutomaton;
+import org.apache.lucene.util.automaton.RegExp;
+
+/**
+ * Basic tests for NGramAcceleratedPostingsFormat
+ */
+public class TestNGramAcceleratedPostingsFormat extends BasePostingsFormatTestCase {
+  private final Codec codec = TestUtil.alwaysPostingsFormat(new NGramAcceleratedPostingsFormat(TestUtil.getDefaultPostingsFormat()));
+
+  @Override
+  protected Codec getCodec() {
+    return codec;
+  }
+
+  public void testIntersect() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setCodec(codec);
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir, iwc);
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("f", randomTerm(), Field.Store.NO));
+      w.addDocument(doc);
+      if (rarely()) {
+        w.deleteDocuments(new Term("f", randomTerm()));
+      }
+    }
+    DirectoryReader reader = w.getReader();
+    w.close();
+
+    final int iters = atLeast(50);
+    for (int iter = 0; iter < iters; ++iter) {
+      final Automaton automaton;
+      if (random().nextBoolean()) {
+        automaton = WildcardQuery.toAutomaton(new Term("f", "*" + randomTerm().substring(1) + "*"));
+      } else {
+        automaton = new RegExp(".*(" + randomTerm() + "|" + randomTerm() + ").*").toAutomaton();
+      }
+      CompiledAutomaton compiled = new CompiledAutomaton(automaton);
+      for (LeafReaderContext ctx : reader.leaves()) {
+        Terms terms = ctx.reader().terms("f");
+        if (terms == null) {
+          continue;
+        }
+        BytesRef startTerm = random().nextInt(5) == 0 ? new BytesRef(randomTerm()) : null;
+        assertEquals(bruteForceIntersect(terms, compiled, startTerm), toList(terms.intersect(compiled, startTerm)));
+      }
+    }
+    reader.close();
+    dir.close();
+  }
+
+  public void testCandidateBlocks() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setCodec(codec);
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir, iwc);
+    for (int i = 0; i < 1000; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("f", String.format(Locale.ROOT, "term%04d", i), Field.Store.NO));
+      w.addDocument(doc);
+    }
+    Document doc = new Document();
+    doc.add(new StringField("f", "needle-xyz", Field.Store.NO));
+    w.addDocument(doc);
+    w.forceMerge(1);
+    DirectoryReader reader = w.getReader();
+    w.close();
+
+    NGramAcceleratedPostingsFormat.NGramAcceleratedTerms terms =
+        (NGramAcceleratedPostingsFormat.NGramAcceleratedTerms) getOnlyLeafReader(reader).terms("f");
+    CompiledAutomaton needle = new CompiledAutomaton(WildcardQuery.toAutomaton(new Term("f", "*xyz")));
+    assertEquals(1, terms.getCandidateBlocks(needle).length);
+    assertEquals(Collections.singletonList(new BytesRef("needle-xyz")), toList(terms.intersect(needle, null)));
+
+    CompiledAutomaton missing = new CompiledAutomaton(WildcardQuery.toAutomaton(new Term("f", "*abc*")));
+    assertEquals(0, terms.getCandidateBlocks(missing).length);
+    assertEquals(Collections.emptyList(), toList(terms.intersect(missing, null)));
+
+    // matches most blocks, the delegate is used
+    CompiledAutomaton common = new CompiledAutomaton(WildcardQuery.toAutomaton(new Term("f", "term*")));
+    assertNull(terms.getCandidateBlocks(common));
+    assertEquals(1000, toList(terms.intersect(common, null)).size());
+
+    reader.close();
+    dir.close();
+  }
+
+  private static String randomTerm() {
+    // small alphabet so that grams are shared across many terms
+    final int length = TestUtil.nextInt(random(), 3, 8);
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < length; ++i) {
+      sb.append((char) ('a' + random().nextInt(5)));
+    }
+    return sb.toString();
+  }
+
+  private static List<BytesRef> toList(TermsEnum termsEnum) throws Exception {
+    List<BytesRef> result = new ArrayList<>();
+    for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+      result.add(BytesRef.deepCopyOf(term));
+    }
+    return result;
+  }
+
+  private static List<BytesRef> bruteForceIntersect(Terms terms, CompiledAutomaton compiled, BytesRef startTerm) throws Exception {
+    List<BytesRef> result = new ArrayList<>();
+    for (BytesRef term : toList(terms.iterator())) {
+      if ((startTerm == null || term.compareTo(startTerm) > 0)
+          && compiled.runAutomaton.run(term.bytes, term.offset, term.length)) {
+        result.add(term);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.ngram;
+
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.CompiledAutomaton;
+import org.apache.lucene.util.automaton.RegExp;
+
+public class TestRequiredNGrams extends LuceneTestCase {
+
+  private static int[] grams(String... grams) {
+    int[] result = new int[grams.length];
+    for (int i = 0; i < grams.length; ++i) {
+      byte[] bytes = grams[i].getBytes(StandardCharsets.UTF_8);
+      result[i] = RequiredNGrams.encode(bytes, 0, bytes.length);
+    }
+    Arrays.sort(result);
+    return result;
+  }
+
+  private static int[] compute(Automaton automaton) {
+    CompiledAutomaton compiled = new CompiledAutomaton(automaton);
+    assertEquals(CompiledAutomaton.AUTOMATON_TYPE.NORMAL, compiled.type);
+    return RequiredNGrams.compute(compiled.automaton, 3);
+  }
+
+  public void testWildcard() {
+    assertArrayEquals(grams("abc", "bcd"), compute(WildcardQuery.toAutomaton(new Term("f", "*abcd*"))));
+    assertArrayEquals(grams("abc", "xyz"), compute(WildcardQuery.toAutomaton(new Term("f", "*abc?xyz"))));
+    assertArrayEquals(grams(), compute(WildcardQuery.toAutomaton(new Term("f", "*ab*"))));
+  }
+
+  public void testRegexp() {
+    assertArrayEquals(grams("bar"), compute(new RegExp("(foo|foa)bar").toAutomaton()));
+    assertArrayEquals(grams("err", "rro", "ror"), compute(new RegExp(".*(error)+.*").toAutomaton()));
+    assertArrayEquals(grams(), compute(new RegExp("foo|bar").toAutomaton()));
+    assertArrayEquals(grams(), compute(new RegExp("ab*c").toAutomaton()));
+    assertArrayEquals(grams(), compute(new RegExp("[a-z]{3,}").toAutomaton()));
+  }
+
+  public void testNonAscii() {
+    assertArrayEquals(grams("ét"), compute(WildcardQuery.toAutomaton(new Term("f", "*ét*"))));
+  }
+}
@@ -172,6 +172,10 @@ final class DefaultIndexingChain extends DocConsumer {
       }
       termsHash.flush(fieldsToFlush, state, sortMap, normsMergeInstance);
     }
+    if (docWriter.recycleBlocks) {
+      // postings are written: release the buffers so that they may be reused
+      termsHash.reset();
+    }
     if (docState.infoStream.isEnabled("IW")) {
       docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write postings and finish vectors");
     }
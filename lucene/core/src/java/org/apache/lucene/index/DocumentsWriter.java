@@ -130,6 +130,8 @@ final class DocumentsWriter implements Closeable, Accountable {
   final DocumentsWriterPerThreadPool perThreadPool;
   final FlushPolicy flushPolicy;
   final DocumentsWriterFlushControl flushControl;
+  /** Free indexing buffer blocks, or {@code null} if blocks are not reused. */
+  final IndexingBlockRecycler blockRecycler;
   private long lastSeqNo;
   
   DocumentsWriter(FlushNotifications flushNotifications, int indexCreatedVersionMajor, AtomicLong pendingNumDocs, boolean enableTestPoints,
@@ -149,6 +151,8 @@ final class DocumentsWriter implements Closeable, Accountable {
     this.segmentNameSupplier = segmentNameSupplier;
     this.enableTestPoints = enableTestPoints;
     this.flushNotifications = flushNotifications;
+    final long maxRecycledBytes = (long) (config.getMaxRecycledBufferMB() * 1024 * 1024);
+    this.blockRecycler = maxRecycledBytes > 0 ? new IndexingBlockRecycler(maxRecycledBytes) : null;
   }
   
   long deleteQueries(final Query... queries) throws IOException {
@@ -424,7 +428,7 @@ final class DocumentsWriter implements Closeable, Accountable {
       final FieldInfos.Builder infos = new FieldInfos.Builder(globalFieldNumberMap);
       state.dwpt = new DocumentsWriterPerThread(indexCreatedVersionMajor, segmentNameSupplier.get(), directoryOrig,
                                                 directory, config, infoStream, deleteQueue, infos,
-                                                pendingNumDocs, enableTestPoints);
+                                                pendingNumDocs, enableTestPoints, blockRecycler);
     }
   }
 
@@ -747,6 +751,10 @@ final class DocumentsWriter implements Closeable, Accountable {
 
   @Override
   public long ramBytesUsed() {
-    return flushControl.ramBytesUsed();
+    long bytes = flushControl.ramBytesUsed();
+    if (blockRecycler != null) {
+      bytes += blockRecycler.ramBytesUsed();
+    }
+    return bytes;
   }
 }
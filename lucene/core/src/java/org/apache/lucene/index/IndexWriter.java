@@ -33,6 +33,9 @@ import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -2859,13 +2862,48 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
    *           if addIndexes would cause the index to exceed {@link #MAX_DOCS}
    */
   public long addIndexes(CodecReader... readers) throws IOException {
+    return addIndexes(null, 1, readers);
+  }
+
+  /**
+   * Merges the provided indexes into this index, like {@link #addIndexes(CodecReader...)},
+   * except that the readers are split into up to {@code maxSegmentCount} groups of
+   * similar sizes, and that every group is merged into its own new segment. If an
+   * executor is provided, groups are merged concurrently, which allows offline index
+   * assembly to scale with the number of cores. Otherwise groups are merged one after
+   * the other on the calling thread.
+   *
+   * <p>
+   * New segments are only added to the index once all groups have been merged
+   * successfully. Documents of a single reader always end up in the same segment, in
+   * the same order, but the order of documents across readers is not preserved when
+   * {@code maxSegmentCount} is greater than 1.
+   *
+   * @param executor the executor to merge groups on, or {@code null} to merge on the calling thread
+   * @param maxSegmentCount the maximum number of segments to create, must be &gt;= 1
+   * @param readers the readers to add
+   *
+   * @return The <a href="#sequence_number">sequence number</a>
+   * for this operation
+   *
+   * @throws CorruptIndexException
+   *           if the index is corrupt
+   * @throws IOException
+   *           if there is a low-level IO error
+   * @throws IllegalArgumentException
+   *           if addIndexes would cause the index to exceed {@link #MAX_DOCS}
+   * @lucene.experimental
+   */
+  public long addIndexes(ExecutorService executor, int maxSegmentCount, CodecReader... readers) throws IOException {
     ensureOpen();
 
+    if (maxSegmentCount < 1) {
+      throw new IllegalArgumentException("maxSegmentCount must be >= 1, got " + maxSegmentCount);
+    }
+
     // long so we can detect int overflow:
     long numDocs = 0;
 
-    Sort indexSort = config.getIndexSort();
-
     long seqNo;
 
     try {
@@ -2874,8 +2912,6 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
       }
       flush(false, true);
 
-      String mergedName = newSegmentName();
-
       for (CodecReader leaf : readers) {
         numDocs += leaf.numDocs();
         validateMergeReader(leaf);
@@ -2884,75 +2920,63 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
       // Best-effort up front check:
       testReserveDocs(numDocs);
 
-      final IOContext context = new IOContext(new MergeInfo(Math.toIntExact(numDocs), -1, false, UNBOUNDED_MAX_MERGE_SEGMENTS));
-
-      // TODO: somehow we should fix this merge so it's
-      // abortable so that IW.close(false) is able to stop it
-      TrackingDirectoryWrapper trackingDir = new TrackingDirectoryWrapper(directory);
-
-      // We set the min version to null for now, it will be set later by SegmentMerger
-      SegmentInfo info = new SegmentInfo(directoryOrig, Version.LATEST, null, mergedName, -1,
-                                         false, codec, Collections.emptyMap(), StringHelper.randomId(), new HashMap<>(), config.getIndexSort());
-
-      SegmentMerger merger = new SegmentMerger(Arrays.asList(readers), info, infoStream, trackingDir,
-                                               globalFieldNumberMap, 
-                                               context);
-
-      if (!merger.shouldMerge()) {
-        return docWriter.deleteQueue.getNextSequenceNumber();
-      }
-
-      merger.merge();                // merge 'em
-
-      SegmentCommitInfo infoPerCommit = new SegmentCommitInfo(info, 0, -1L, -1L, -1L);
-
-      info.setFiles(new HashSet<>(trackingDir.getCreatedFiles()));
-      trackingDir.clearCreatedFiles();
-                                         
-      setDiagnostics(info, SOURCE_ADDINDEXES_READERS);
-
-      final MergePolicy mergePolicy = config.getMergePolicy();
-      boolean useCompoundFile;
-      synchronized(this) { // Guard segmentInfos
-        if (stopMerges) {
-          // Safe: these files must exist
-          deleteNewFiles(infoPerCommit.files());
-
-          return docWriter.deleteQueue.getNextSequenceNumber();
-        }
-        ensureOpen();
-        useCompoundFile = mergePolicy.useCompoundFile(segmentInfos, infoPerCommit, this);
-      }
-
-      // Now create the compound file if needed
-      if (useCompoundFile) {
-        Collection<String> filesToDelete = infoPerCommit.files();
-        TrackingDirectoryWrapper trackingCFSDir = new TrackingDirectoryWrapper(directory);
-        // TODO: unlike merge, on exception we arent sniping any trash cfs files here?
-        // createCompoundFile tries to cleanup, but it might not always be able to...
+      final List<List<CodecReader>> groups = groupReaders(readers, maxSegmentCount);
+      final List<SegmentCommitInfo> newSegments = new ArrayList<>();
+      if (executor == null || groups.size() <= 1) {
+        boolean success = false;
         try {
-          createCompoundFile(infoStream, trackingCFSDir, info, context, this::deleteNewFiles);
+          for (List<CodecReader> group : groups) {
+            SegmentCommitInfo infoPerCommit = addIndexesSegment(group);
+            if (infoPerCommit != null) {
+              newSegments.add(infoPerCommit);
+            }
+          }
+          success = true;
         } finally {
-          // delete new non cfs files directly: they were never
-          // registered with IFD
-          deleteNewFiles(filesToDelete);
+          if (success == false) {
+            for (SegmentCommitInfo infoPerCommit : newSegments) {
+              deleteNewFiles(infoPerCommit.files());
+            }
+          }
+        }
+      } else {
+        final List<Future<SegmentCommitInfo>> futures = new ArrayList<>();
+        for (List<CodecReader> group : groups) {
+          futures.add(executor.submit(() -> addIndexesSegment(group)));
+        }
+        // wait for all groups, even if one of them failed, so that we can clean up
+        Throwable th = null;
+        for (Future<SegmentCommitInfo> future : futures) {
+          try {
+            SegmentCommitInfo infoPerCommit = future.get();
+            if (infoPerCommit != null) {
+              newSegments.add(infoPerCommit);
+            }
+          } catch (InterruptedException e) {
+            th = IOUtils.useOrSuppress(th, new ThreadInterruptedException(e));
+          } catch (ExecutionException e) {
+            th = IOUtils.useOrSuppress(th, e.getCause());
+          }
+        }
+        if (th != null) {
+          for (SegmentCommitInfo infoPerCommit : newSegments) {
+            deleteNewFiles(infoPerCommit.files());
+          }
+          throw IOUtils.rethrowAlways(th);
         }
-        info.setUseCompoundFile(true);
       }
 
-      // Have codec write SegmentInfo.  Must do this after
-      // creating CFS so that 1) .si isn't slurped into CFS,
-      // and 2) .si reflects useCompoundFile=true change
-      // above:
-      codec.segmentInfoFormat().write(trackingDir, info, context);
-
-      info.addFiles(trackingDir.getCreatedFiles());
+      if (newSegments.isEmpty()) {
+        return docWriter.deleteQueue.getNextSequenceNumber();
+      }
 
-      // Register the new segment
+      // Register the new segments
       synchronized(this) {
         if (stopMerges) {
           // Safe: these files must exist
-          deleteNewFiles(infoPerCommit.files());
+          for (SegmentCommitInfo infoPerCommit : newSegments) {
+            deleteNewFiles(infoPerCommit.files());
+          }
 
           return docWriter.deleteQueue.getNextSequenceNumber();
         }
@@ -2961,7 +2985,9 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
         // Now reserve the docs, just before we update SIS:
         reserveDocs(numDocs);
       
-        segmentInfos.add(infoPerCommit);
+        for (SegmentCommitInfo infoPerCommit : newSegments) {
+          segmentInfos.add(infoPerCommit);
+        }
         seqNo = docWriter.deleteQueue.getNextSequenceNumber();
         checkpoint();
       }
@@ -2974,6 +3000,123 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
     return seqNo;
   }
 
+  /**
+   * Split readers into at most {@code maxGroupCount} groups with similar numbers of
+   * documents, preserving the order of readers within each group.
+   */
+  static List<List<CodecReader>> groupReaders(CodecReader[] readers, int maxGroupCount) {
+    final int numGroups = Math.min(maxGroupCount, readers.length);
+    if (numGroups <= 1) {
+      return Collections.singletonList(Arrays.asList(readers));
+    }
+    // assign the largest readers first, each one to the smallest group
+    final Integer[] order = new Integer[readers.length];
+    for (int i = 0; i < readers.length; ++i) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Integer.compare(readers[b].maxDoc(), readers[a].maxDoc()));
+    final long[] groupSizes = new long[numGroups];
+    final int[] readerToGroup = new int[readers.length];
+    for (int reader : order) {
+      int smallest = 0;
+      for (int group = 1; group < numGroups; ++group) {
+        if (groupSizes[group] < groupSizes[smallest]) {
+          smallest = group;
+        }
+      }
+      readerToGroup[reader] = smallest;
+      groupSizes[smallest] += readers[reader].maxDoc();
+    }
+    final List<List<CodecReader>> groups = new ArrayList<>(numGroups);
+    for (int group = 0; group < numGroups; ++group) {
+      groups.add(new ArrayList<>());
+    }
+    for (int reader = 0; reader < readers.length; ++reader) {
+      groups.get(readerToGroup[reader]).add(readers[reader]);
+    }
+    return groups;
+  }
+
+  /**
+   * Merge the given readers into a new segment, which is not registered in the
+   * index yet. Returns {@code null} if the merged segment would be empty or if the
+   * writer is being closed.
+   */
+  private SegmentCommitInfo addIndexesSegment(List<CodecReader> readers) throws IOException {
+    String mergedName = newSegmentName();
+
+    long numDocs = 0;
+    for (CodecReader leaf : readers) {
+      numDocs += leaf.numDocs();
+    }
+
+    final IOContext context = new IOContext(new MergeInfo(Math.toIntExact(numDocs), -1, false, UNBOUNDED_MAX_MERGE_SEGMENTS));
+
+    // TODO: somehow we should fix this merge so it's
+    // abortable so that IW.close(false) is able to stop it
+    TrackingDirectoryWrapper trackingDir = new TrackingDirectoryWrapper(directory);
+
+    // We set the min version to null for now, it will be set later by SegmentMerger
+    SegmentInfo info = new SegmentInfo(directoryOrig, Version.LATEST, null, mergedName, -1,
+                                       false, codec, Collections.emptyMap(), StringHelper.randomId(), new HashMap<>(), config.getIndexSort());
+
+    SegmentMerger merger = new SegmentMerger(readers, info, infoStream, trackingDir,
+                                             globalFieldNumberMap, 
+                                             context);
+
+    if (!merger.shouldMerge()) {
+      return null;
+    }
+
+    merger.merge();                // merge 'em
+
+    SegmentCommitInfo infoPerCommit = new SegmentCommitInfo(info, 0, -1L, -1L, -1L);
+
+    info.setFiles(new HashSet<>(trackingDir.getCreatedFiles()));
+    trackingDir.clearCreatedFiles();
+                                       
+    setDiagnostics(info, SOURCE_ADDINDEXES_READERS);
+
+    final MergePolicy mergePolicy = config.getMergePolicy();
+    boolean useCompoundFile;
+    synchronized(this) { // Guard segmentInfos
+      if (stopMerges) {
+        // Safe: these files must exist
+        deleteNewFiles(infoPerCommit.files());
+
+        return null;
+      }
+      ensureOpen();
+      useCompoundFile = mergePolicy.useCompoundFile(segmentInfos, infoPerCommit, this);
+    }
+
+    // Now create the compound file if needed
+    if (useCompoundFile) {
+      Collection<String> filesToDelete = infoPerCommit.files();
+      TrackingDirectoryWrapper trackingCFSDir = new TrackingDirectoryWrapper(directory);
+      // TODO: unlike merge, on exception we arent sniping any trash cfs files here?
+      // createCompoundFile tries to cleanup, but it might not always be able to...
+      try {
+        createCompoundFile(infoStream, trackingCFSDir, info, context, this::deleteNewFiles);
+      } finally {
+        // delete new non cfs files directly: they were never
+        // registered with IFD
+        deleteNewFiles(filesToDelete);
+      }
+      info.setUseCompoundFile(true);
+    }
+
+    // Have codec write SegmentInfo.  Must do this after
+    // creating CFS so that 1) .si isn't slurped into CFS,
+    // and 2) .si reflects useCompoundFile=true change
+    // above:
+    codec.segmentInfoFormat().write(trackingDir, info, context);
+
+    info.addFiles(trackingDir.getCreatedFiles());
+
+    return infoPerCommit;
+  }
+
   /** Copies the segment files as-is into the IndexWriter's directory. */
   private SegmentCommitInfo copySegmentAsIs(SegmentCommitInfo info, String segName, IOContext context) throws IOException {
     
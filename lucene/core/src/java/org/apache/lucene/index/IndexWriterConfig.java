@@ -99,6 +99,10 @@ public final class IndexWriterConfig extends LiveIndexWriterConfig {
   // be forced to aggressively move all state to disk.
   public final static boolean DEFAULT_READER_POOLING = true;
 
+  /** Default value is 0, which disables reuse of indexing buffer blocks.
+   *  Change using {@link #setMaxRecycledBufferMB(double)}. */
+  public static final double DEFAULT_MAX_RECYCLED_BUFFER_MB = 0;
+
   /** Default value is 1945. Change using {@link #setRAMPerThreadHardLimitMB(int)} */
   public static final int DEFAULT_RAM_PER_THREAD_HARD_LIMIT_MB = 1945;
   
@@ -362,6 +366,31 @@ public final class IndexWriterConfig extends LiveIndexWriterConfig {
   public int getRAMPerThreadHardLimitMB() {
     return perThreadHardLimitMB;
   }
+
+  /**
+   * Expert: Sets the maximum amount of memory that may be held by free indexing
+   * buffer blocks. When a {@link DocumentsWriterPerThread} is flushed, the
+   * blocks that held its in-memory postings are kept, up to this limit, and
+   * reused by the next {@link DocumentsWriterPerThread}s instead of being
+   * reallocated. This reduces allocation rates and garbage collection pressure
+   * when indexing at high throughput, at the cost of retaining this amount of
+   * memory for the lifetime of the {@link IndexWriter}. Memory held for reuse
+   * is reported by {@link IndexWriter#ramBytesUsed()} but does not count
+   * against the {@link #setRAMBufferSizeMB(double) RAM buffer}.
+   * <p>
+   * This setting is read when the {@link IndexWriter} is created. The default
+   * is {@link #DEFAULT_MAX_RECYCLED_BUFFER_MB}, which disables reuse.
+   *
+   * @throws IllegalArgumentException if the value is negative or not less
+   *         than 2048MB
+   */
+  public IndexWriterConfig setMaxRecycledBufferMB(double maxRecycledBufferMB) {
+    if (maxRecycledBufferMB < 0 || maxRecycledBufferMB >= 2048 || Double.isNaN(maxRecycledBufferMB)) {
+      throw new IllegalArgumentException("maxRecycledBufferMB must be >= 0 and less than 2048MB, got " + maxRecycledBufferMB);
+    }
+    this.maxRecycledBufferMB = maxRecycledBufferMB;
+    return this;
+  }
   
   @Override
   FlushPolicy getFlushPolicy() {
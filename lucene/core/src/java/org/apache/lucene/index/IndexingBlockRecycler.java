@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ByteBlockPool;
+import org.apache.lucene.util.Counter;
+import org.apache.lucene.util.IntBlockPool;
+
+/**
+ * A bounded, thread-safe pool of the byte and int blocks that back the
+ * in-memory postings of {@link DocumentsWriterPerThread}s. Blocks that are
+ * released by a {@link DocumentsWriterPerThread}, when its segment is flushed
+ * or when term vectors of a document are done, are kept here so that other
+ * {@link DocumentsWriterPerThread}s can reuse them instead of allocating new
+ * blocks. This avoids re-allocating and garbage-collecting the whole indexing
+ * buffer on every flush.
+ * <p>
+ * Blocks that are held by this pool are not accounted by any
+ * {@link DocumentsWriterPerThread}, only by {@link #ramBytesUsed()}.
+ */
+final class IndexingBlockRecycler implements Accountable {
+
+  private static final long BYTE_BLOCK_BYTES = ByteBlockPool.BYTE_BLOCK_SIZE;
+  private static final long INT_BLOCK_BYTES = (long) IntBlockPool.INT_BLOCK_SIZE * Integer.BYTES;
+
+  private final long maxBytes;
+  private final ArrayDeque<byte[]> freeByteBlocks = new ArrayDeque<>();
+  private final ArrayDeque<int[]> freeIntBlocks = new ArrayDeque<>();
+  private long bytes; // guarded by this
+
+  /** Create a pool that holds at most {@code maxBytes} bytes of free blocks. */
+  IndexingBlockRecycler(long maxBytes) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("maxBytes must be > 0, got " + maxBytes);
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  /** Return a zero-filled free byte block, or {@code null} if there is none. */
+  byte[] takeByteBlock() {
+    final byte[] block;
+    synchronized (this) {
+      block = freeByteBlocks.pollLast();
+      if (block == null) {
+        return null;
+      }
+      bytes -= BYTE_BLOCK_BYTES;
+    }
+    // slices rely on unused bytes being 0 to detect their end
+    Arrays.fill(block, (byte) 0);
+    return block;
+  }
+
+  /** Return a zero-filled free int block, or {@code null} if there is none. */
+  int[] takeIntBlock() {
+    final int[] block;
+    synchronized (this) {
+      block = freeIntBlocks.pollLast();
+      if (block == null) {
+        return null;
+      }
+      bytes -= INT_BLOCK_BYTES;
+    }
+    Arrays.fill(block, 0);
+    return block;
+  }
+
+  /** Add a byte block to this pool, unless it is full. */
+  synchronized void offerByteBlock(byte[] block) {
+    assert block.length == ByteBlockPool.BYTE_BLOCK_SIZE;
+    if (bytes + BYTE_BLOCK_BYTES <= maxBytes) {
+      freeByteBlocks.add(block);
+      bytes += BYTE_BLOCK_BYTES;
+    }
+  }
+
+  /** Add an int block to this pool, unless it is full. */
+  synchronized void offerIntBlock(int[] block) {
+    assert block.length == IntBlockPool.INT_BLOCK_SIZE;
+    if (bytes + INT_BLOCK_BYTES <= maxBytes) {
+      freeIntBlocks.add(block);
+      bytes += INT_BLOCK_BYTES;
+    }
+  }
+
+  @Override
+  public synchronized long ramBytesUsed() {
+    return bytes;
+  }
+
+  /**
+   * Return a new {@link ByteBlockPool.Allocator} that takes blocks from this
+   * pool and gives them back when they are recycled, and that tracks the bytes
+   * of the blocks it handed out in {@code bytesUsed}.
+   */
+  ByteBlockPool.Allocator newByteBlockAllocator(Counter bytesUsed) {
+    return new ByteBlockPool.Allocator(ByteBlockPool.BYTE_BLOCK_SIZE) {
+      @Override
+      public byte[] getByteBlock() {
+        byte[] block = takeByteBlock();
+        if (block == null) {
+          block = new byte[blockSize];
+        }
+        bytesUsed.addAndGet(blockSize);
+        return block;
+      }
+
+      @Override
+      public void recycleByteBlocks(byte[][] blocks, int start, int end) {
+        bytesUsed.addAndGet(-((end - start) * blockSize));
+        for (int i = start; i < end; i++) {
+          offerByteBlock(blocks[i]);
+          blocks[i] = null;
+        }
+      }
+    };
+  }
+
+  /**
+   * Return a new {@link IntBlockPool.Allocator} that takes blocks from this
+   * pool and gives them back when they are recycled, and that tracks the bytes
+   * of the blocks it handed out in {@code bytesUsed}.
+   */
+  IntBlockPool.Allocator newIntBlockAllocator(Counter bytesUsed) {
+    return new IntBlockPool.Allocator(IntBlockPool.INT_BLOCK_SIZE) {
+      @Override
+      public int[] getIntBlock() {
+        int[] block = takeIntBlock();
+        if (block == null) {
+          block = new int[blockSize];
+        }
+        bytesUsed.addAndGet(blockSize * Integer.BYTES);
+        return block;
+      }
+
+      @Override
+      public void recycleIntBlocks(int[][] blocks, int start, int end) {
+        bytesUsed.addAndGet(-((end - start) * blockSize * Integer.BYTES));
+        for (int i = start; i < end; i++) {
+          offerIntBlock(blocks[i]);
+          blocks[i] = null;
+        }
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return "IndexingBlockRecycler(maxBytes=" + maxBytes + ")";
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+import java.util.Collection;
+
+import org.apache.lucene.codecs.NormsProducer;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.IOSupplier;
+
+/**
+ * A {@link NormsProducer} that only opens the wrapped producer the first time
+ * that norms are needed, see {@link LazyProducer}.
+ */
+final class LazyNormsProducer extends NormsProducer {
+
+  private final LazyProducer<NormsProducer> in;
+
+  LazyNormsProducer(IOSupplier<NormsProducer> supplier) {
+    this.in = new LazyProducer<>(supplier, "NormsProducer");
+  }
+
+  @Override
+  public NumericDocValues getNorms(FieldInfo field) throws IOException {
+    return in.get().getNorms(field);
+  }
+
+  @Override
+  public void checkIntegrity() throws IOException {
+    in.get().checkIntegrity();
+  }
+
+  @Override
+  public NormsProducer getMergeInstance() throws IOException {
+    return in.get().getMergeInstance();
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return in.ramBytesUsed();
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    return in.getChildResources();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(" + in + ")";
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.IOSupplier;
+import org.apache.lucene.util.IOUtils;
+
+/**
+ * Holds a producer of a segment, such as a {@link org.apache.lucene.codecs.NormsProducer},
+ * that is only opened the first time that it is needed. This is only safe if the files of
+ * the segment can't be deleted until this holder is closed, see {@link SegmentCoreReaders}.
+ */
+final class LazyProducer<T extends Closeable & Accountable> implements Closeable, Accountable {
+
+  private final IOSupplier<T> supplier;
+  private final String name;
+  private volatile T in;
+  private boolean closed; // guarded by this
+
+  /**
+   * @param supplier opens the producer
+   * @param name name of the producer in error messages
+   */
+  LazyProducer(IOSupplier<T> supplier, String name) {
+    this.supplier = supplier;
+    this.name = name;
+  }
+
+  /** Return the producer, opening it if this is the first call. */
+  T get() throws IOException {
+    T in = this.in;
+    if (in == null) {
+      synchronized (this) {
+        in = this.in;
+        if (in == null) {
+          if (closed) {
+            throw new AlreadyClosedException("this " + name + " is closed");
+          }
+          this.in = in = Objects.requireNonNull(supplier.get());
+        }
+      }
+    }
+    return in;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    closed = true;
+    IOUtils.close(in);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    final T in = this.in;
+    return in == null ? 0 : in.ramBytesUsed();
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    final T in = this.in;
+    return in == null ? Collections.emptyList() : in.getChildResources();
+  }
+
+  @Override
+  public String toString() {
+    return String.valueOf(in);
+  }
+}
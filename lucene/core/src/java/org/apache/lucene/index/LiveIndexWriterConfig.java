@@ -91,6 +91,10 @@ public class LiveIndexWriterConfig {
    *  segment, after which the segment is forced to flush. */
   protected volatile int perThreadHardLimitMB;
 
+  /** Sets the maximum amount of RAM that may be held by free
+   *  indexing buffer blocks for reuse across segments. */
+  protected volatile double maxRecycledBufferMB;
+
   /** True if segment flushes should use compound file format */
   protected volatile boolean useCompoundFile = IndexWriterConfig.DEFAULT_USE_COMPOUND_FILE_SYSTEM;
   
@@ -132,6 +136,7 @@ public class LiveIndexWriterConfig {
     readerPooling = IndexWriterConfig.DEFAULT_READER_POOLING;
     indexerThreadPool = new DocumentsWriterPerThreadPool();
     perThreadHardLimitMB = IndexWriterConfig.DEFAULT_RAM_PER_THREAD_HARD_LIMIT_MB;
+    maxRecycledBufferMB = IndexWriterConfig.DEFAULT_MAX_RECYCLED_BUFFER_MB;
   }
   
   /** Returns the default analyzer to use for indexing documents. */
@@ -368,6 +373,16 @@ public class LiveIndexWriterConfig {
   public int getRAMPerThreadHardLimitMB() {
     return perThreadHardLimitMB;
   }
+
+  /**
+   * Returns the maximum amount of memory that may be held by free indexing
+   * buffer blocks so that they can be reused by future segments.
+   *
+   * @see IndexWriterConfig#setMaxRecycledBufferMB(double)
+   */
+  public double getMaxRecycledBufferMB() {
+    return maxRecycledBufferMB;
+  }
   
   /**
    * @see IndexWriterConfig#setFlushPolicy(FlushPolicy)
@@ -482,6 +497,7 @@ public class LiveIndexWriterConfig {
     sb.append("indexerThreadPool=").append(getIndexerThreadPool()).append("\n");
     sb.append("readerPooling=").append(getReaderPooling()).append("\n");
     sb.append("perThreadHardLimitMB=").append(getRAMPerThreadHardLimitMB()).append("\n");
+    sb.append("maxRecycledBufferMB=").append(getMaxRecycledBufferMB()).append("\n");
     sb.append("useCompoundFile=").append(getUseCompoundFile()).append("\n");
     sb.append("commitOnClose=").append(getCommitOnClose()).append("\n");
     sb.append("indexSort=").append(getIndexSort()).append("\n");
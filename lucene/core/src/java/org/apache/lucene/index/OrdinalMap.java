@@ -25,6 +25,7 @@ import java.util.List;
 
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Accountables;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.InPlaceMergeSorter;
@@ -170,6 +171,10 @@ public class OrdinalMap implements Accountable {
 
   private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(OrdinalMap.class);
 
+  // only store deltas as runs if that is this many times smaller than packed deltas,
+  // since looking up a run requires a binary search
+  private static final int RUNS_MIN_SAVINGS_RATIO = 8;
+
   /** Cache key of whoever asked for this awful thing */
   public final IndexReader.CacheKey owner;
   // globalOrd -> (globalOrd - segmentOrd) where segmentOrd is the the ordinal in the first segment that contains this term
@@ -199,6 +204,9 @@ public class OrdinalMap implements Accountable {
     }
     long[] ordDeltaBits = new long[subs.length];
     long[] segmentOrds = new long[subs.length];
+    // number of runs of equal deltas, and the delta of the last run, per segment
+    long[] numDeltaRuns = new long[subs.length];
+    long[] lastDeltas = new long[subs.length];
 
     // Just merge-sorts by term:
     PriorityQueue<TermsEnumIndex> queue = new PriorityQueue<TermsEnumIndex>(subs.length) {
@@ -239,6 +247,10 @@ public class OrdinalMap implements Accountable {
           globalOrdDelta = delta;
         }
         ordDeltaBits[segmentIndex] |= delta;
+        if (numDeltaRuns[segmentIndex] == 0 || lastDeltas[segmentIndex] != delta) {
+          numDeltaRuns[segmentIndex]++;
+          lastDeltas[segmentIndex] = delta;
+        }
 
         // for each per-segment ord, map it back to the global term; the while loop is needed
         // in case the incoming TermsEnums don't have compact ordinals (some ordinal values
@@ -284,11 +296,52 @@ public class OrdinalMap implements Accountable {
         // segment ords perfectly match global ordinals
         // likely in case of low cardinalities and large segments
         segmentToGlobalOrds[i] = LongValues.IDENTITY;
+      } else if (numDeltaRuns[i] == 1) {
+        // segment ords are all shifted by the same amount, typically
+        // because the segment holds a contiguous range of the global terms
+        final long delta = lastDeltas[i];
+        segmentToGlobalOrds[i] = new LongValues() {
+            @Override
+            public long get(long ord) {
+              return ord + delta;
+            }
+          };
+        ramBytesUsed += RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds[i]);
       } else {
         final int bitsRequired = ordDeltaBits[i] < 0 ? 64 : PackedInts.bitsRequired(ordDeltaBits[i]);
         final long monotonicBits = deltas.ramBytesUsed() * 8;
         final long packedBits = bitsRequired * deltas.size();
-        if (deltas.size() <= Integer.MAX_VALUE
+        final long runsBits = numDeltaRuns[i] * 2 * Long.SIZE;
+        if (numDeltaRuns[i] <= ArrayUtil.MAX_ARRAY_LENGTH
+            && runsBits * RUNS_MIN_SAVINGS_RATIO <= Math.min(packedBits, monotonicBits)) {
+          // near-identity mapping: deltas only change a few times, so store
+          // the first ord and the delta of every run of equal deltas instead
+          final int numRuns = (int) numDeltaRuns[i];
+          final long[] runStarts = new long[numRuns];
+          final long[] runDeltas = new long[numRuns];
+          final PackedLongValues.Iterator it = deltas.iterator();
+          int run = -1;
+          for (long ord = 0; it.hasNext(); ++ord) {
+            final long delta = it.next();
+            if (run == -1 || runDeltas[run] != delta) {
+              ++run;
+              runStarts[run] = ord;
+              runDeltas[run] = delta;
+            }
+          }
+          assert run == numRuns - 1;
+          segmentToGlobalOrds[i] = new LongValues() {
+              @Override
+              public long get(long ord) {
+                int run = Arrays.binarySearch(runStarts, ord);
+                if (run < 0) {
+                  run = -2 - run;
+                }
+                return ord + runDeltas[run];
+              }
+            };
+          ramBytesUsed += RamUsageEstimator.sizeOf(runStarts) + RamUsageEstimator.sizeOf(runDeltas);
+        } else if (deltas.size() <= Integer.MAX_VALUE
             && packedBits <= monotonicBits * (1 + acceptableOverheadRatio)) {
           // monotonic compression mostly adds overhead, let's keep the mapping in plain packed ints
           final int size = (int) deltas.size();
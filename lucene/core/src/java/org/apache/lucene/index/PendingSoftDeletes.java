@@ -26,6 +26,7 @@ import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.util.IOSupplier;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.MutableBits;
 
@@ -76,7 +77,13 @@ final class PendingSoftDeletes extends PendingDeletes {
       final DocIdSetIterator iterator = DocValuesFieldExistsQuery.getDocValuesDocIdSetIterator(field, reader);
       if (iterator != null) { // nothing is deleted we don't have a soft deletes field in this segment
         assert info.info.maxDoc() > 0 : "maxDoc is 0";
-        pendingDeleteCount += applySoftDeletes(iterator, getMutableBits());
+        final MutableBits bits = getMutableBits();
+        if (bits instanceof FixedBitSet) {
+          // documents that were soft-deleted by previous generations are already cleared
+          pendingDeleteCount += applySoftDeletesAdvancing(iterator, (FixedBitSet) bits);
+        } else {
+          pendingDeleteCount += applySoftDeletes(iterator, bits);
+        }
       }
       dvGeneration = info.getDocValuesGen();
     }
@@ -119,6 +126,36 @@ final class PendingSoftDeletes extends PendingDeletes {
     return newDeletes;
   }
 
+  /**
+   * Same as {@link #applySoftDeletes(DocIdSetIterator, MutableBits)}, but only
+   * visits documents that are still live by advancing the iterator to the next
+   * set bit. This is much faster when most documents that have a value are
+   * already deleted, e.g. when re-applying soft deletes on top of the live docs
+   * of a previous reader of the same segment. The iterator must support
+   * {@link DocIdSetIterator#advance(int)}.
+   */
+  static int applySoftDeletesAdvancing(DocIdSetIterator iterator, FixedBitSet bits) throws IOException {
+    assert iterator != null;
+    final int length = bits.length();
+    int newDeletes = 0;
+    int docID = -1;
+    while (docID + 1 < length) {
+      final int target = bits.nextSetBit(docID + 1);
+      if (target == DocIdSetIterator.NO_MORE_DOCS) {
+        break;
+      }
+      docID = iterator.advance(target);
+      if (docID == DocIdSetIterator.NO_MORE_DOCS) {
+        break;
+      }
+      if (bits.get(docID)) { // doc is live - clear it
+        bits.clear(docID);
+        newDeletes++;
+      }
+    }
+    return newDeletes;
+  }
+
   @Override
   void onDocValuesUpdate(String field, DocValuesFieldUpdates.Iterator iterator) throws IOException {
     if (this.field.equals(field)) {
@@ -116,8 +116,19 @@ final class SegmentCoreReaders {
       // TODO: since we don't write any norms file if there are no norms,
       // kinda jaky to assume the codec handles the case of no norms file at all gracefully?!
 
+      // Norms and points are only opened on first use when the segment is a
+      // compound file: the compound file is already open and keeps the bytes
+      // of the segment readable even if its files get deleted, so opening
+      // later sees the same data. This makes opening readers on segments that
+      // have many fields cheaper when only few of them are searched.
+      final boolean lazy = cfsReader != null;
+
       if (coreFieldInfos.hasNorms()) {
-        normsProducer = codec.normsFormat().normsProducer(segmentReadState);
+        if (lazy) {
+          normsProducer = new LazyNormsProducer(() -> codec.normsFormat().normsProducer(segmentReadState));
+        } else {
+          normsProducer = codec.normsFormat().normsProducer(segmentReadState);
+        }
         assert normsProducer != null;
       } else {
         normsProducer = null;
@@ -132,7 +143,11 @@ final class SegmentCoreReaders {
       }
 
       if (coreFieldInfos.hasPointValues()) {
-        pointsReader = codec.pointsFormat().fieldsReader(segmentReadState);
+        if (lazy) {
+          pointsReader = new LazyPointsReader(() -> codec.pointsFormat().fieldsReader(segmentReadState));
+        } else {
+          pointsReader = codec.pointsFormat().fieldsReader(segmentReadState);
+        }
       } else {
         pointsReader = null;
       }
@@ -167,8 +182,9 @@ final class SegmentCoreReaders {
     if (ref.decrementAndGet() == 0) {
       Throwable th = null;
       try (Closeable finalizer = this::notifyCoreClosedListeners){
+        // close the compound file last, lazy producers may read from it until they are closed
         IOUtils.close(termVectorsLocal, fieldsReaderLocal, fields, termVectorsReaderOrig, fieldsReaderOrig,
-                      cfsReader, normsProducer, pointsReader);
+                      normsProducer, pointsReader, cfsReader);
       }
     }
   }
@@ -46,7 +46,7 @@ public final class SoftDeletesDirectoryReaderWrapper extends FilterDirectoryRead
    * @param field the soft deletes field
    */
   public SoftDeletesDirectoryReaderWrapper(DirectoryReader in, String field) throws IOException {
-    this(in, new SoftDeletesSubReaderWrapper(Collections.emptyMap(), field));
+    this(in, new SoftDeletesSubReaderWrapper(Collections.emptyMap(), Collections.emptyMap(), field));
   }
 
   private SoftDeletesDirectoryReaderWrapper(DirectoryReader in, SoftDeletesSubReaderWrapper wrapper) throws IOException {
@@ -58,14 +58,18 @@ public final class SoftDeletesDirectoryReaderWrapper extends FilterDirectoryRead
   @Override
   protected DirectoryReader doWrapDirectoryReader(DirectoryReader in) throws IOException {
     Map<CacheKey, LeafReader> readerCache = new HashMap<>();
+    Map<CacheKey, SoftDeletesFilterLeafReader> coreCache = new HashMap<>();
     for (LeafReader reader : getSequentialSubReaders()) {
       // we try to reuse the life docs instances here if the reader cache key didn't change
       if (reader instanceof SoftDeletesFilterLeafReader && reader.getReaderCacheHelper() != null) {
         readerCache.put(((SoftDeletesFilterLeafReader) reader).reader.getReaderCacheHelper().getKey(), reader);
       }
-
+      // otherwise we try to only apply the deletes that are new since the previous reader of the same segment
+      if (reader instanceof SoftDeletesFilterLeafReader && reader.getCoreCacheHelper() != null) {
+        coreCache.put(reader.getCoreCacheHelper().getKey(), (SoftDeletesFilterLeafReader) reader);
+      }
     }
-    return new SoftDeletesDirectoryReaderWrapper(in, new SoftDeletesSubReaderWrapper(readerCache, field));
+    return new SoftDeletesDirectoryReaderWrapper(in, new SoftDeletesSubReaderWrapper(readerCache, coreCache, field));
   }
 
   @Override
@@ -75,12 +79,16 @@ public final class SoftDeletesDirectoryReaderWrapper extends FilterDirectoryRead
 
   private static class SoftDeletesSubReaderWrapper extends SubReaderWrapper {
     private final Map<CacheKey, LeafReader> mapping;
+    private final Map<CacheKey, SoftDeletesFilterLeafReader> coreMapping;
     private final String field;
 
-    public SoftDeletesSubReaderWrapper(Map<CacheKey, LeafReader> oldReadersCache, String field) {
+    public SoftDeletesSubReaderWrapper(Map<CacheKey, LeafReader> oldReadersCache,
+                                       Map<CacheKey, SoftDeletesFilterLeafReader> oldCoresCache, String field) {
       Objects.requireNonNull(field, "Field must not be null");
       assert oldReadersCache != null;
+      assert oldCoresCache != null;
       this.mapping = oldReadersCache;
+      this.coreMapping = oldCoresCache;
       this.field = field;
     }
 
@@ -92,6 +100,13 @@ public final class SoftDeletesDirectoryReaderWrapper extends FilterDirectoryRead
         return mapping.get(readerCacheHelper.getKey());
       }
       try {
+        CacheHelper coreCacheHelper = reader.getCoreCacheHelper();
+        if (coreCacheHelper != null && coreMapping.containsKey(coreCacheHelper.getKey())) {
+          LeafReader wrapped = wrapIncrementally(coreMapping.get(coreCacheHelper.getKey()), reader, field);
+          if (wrapped != null) {
+            return wrapped;
+          }
+        }
         return SoftDeletesDirectoryReaderWrapper.wrap(reader, field);
       } catch (IOException e) {
         throw new UncheckedIOException(e);
@@ -117,6 +132,58 @@ public final class SoftDeletesDirectoryReaderWrapper extends FilterDirectoryRead
       return new SoftDeletesFilterLeafReader(reader, bits, numDocs);
   }
 
+  /**
+   * Wraps a new reader of the same segment as {@code previous} by starting
+   * from the hard deletes of {@code reader}, carrying over the soft deletes of
+   * {@code previous} and then applying the new soft deletes. Soft deletes that
+   * were already applied are skipped, so that the cost depends on the number
+   * of live documents rather than on the number of soft-deleted documents.
+   * Hard deletes of {@code previous} are never carried over since they may
+   * have been rolled back. Returns {@code null} if the soft deletes of
+   * {@code reader} may not be a superset of the soft deletes of
+   * {@code previous}.
+   */
+  static LeafReader wrapIncrementally(SoftDeletesFilterLeafReader previous, LeafReader reader, String field) throws IOException {
+    if (previous.reader instanceof SegmentReader == false || reader instanceof SegmentReader == false) {
+      return null;
+    }
+    final SegmentReader previousSegmentReader = (SegmentReader) previous.reader;
+    final SegmentReader segmentReader = (SegmentReader) reader;
+    // an NRT reader may have soft deletes that were never committed and that a
+    // rollback discarded, in which case a commit may reuse the same generation
+    if (previousSegmentReader.isNRT && segmentReader.isNRT == false) {
+      return null;
+    }
+    // soft deletes only ever get added to a segment, unless the reader was opened on an older commit
+    if (segmentReader.getSegmentInfo().getDocValuesGen() < previousSegmentReader.getSegmentInfo().getDocValuesGen()) {
+      return null;
+    }
+    DocIdSetIterator iterator = DocValuesFieldExistsQuery.getDocValuesDocIdSetIterator(field, reader);
+    if (iterator == null) {
+      return null;
+    }
+    final Bits liveDocs = reader.getLiveDocs();
+    final FixedBitSet bits;
+    if (liveDocs != null) {
+      bits = SoftDeletesRetentionMergePolicy.cloneLiveDocs(liveDocs);
+    } else {
+      bits = new FixedBitSet(reader.maxDoc());
+      bits.set(0, reader.maxDoc());
+    }
+    // clear the documents that were soft-deleted in the previous reader: previous.bits | ~previousLiveDocs
+    final Bits previousLiveDocs = previous.reader.getLiveDocs();
+    if (previousLiveDocs == null) {
+      bits.and(previous.bits);
+    } else {
+      final FixedBitSet previousSoftLiveDocs = SoftDeletesRetentionMergePolicy.cloneLiveDocs(previousLiveDocs);
+      previousSoftLiveDocs.flip(0, previousSoftLiveDocs.length());
+      previousSoftLiveDocs.or(previous.bits);
+      bits.and(previousSoftLiveDocs);
+    }
+    PendingSoftDeletes.applySoftDeletesAdvancing(iterator, bits);
+    return new SoftDeletesFilterLeafReader(reader, bits, bits.cardinality());
+  }
+
   static final class SoftDeletesFilterLeafReader extends FilterLeafReader {
     private final LeafReader reader;
     private final FixedBitSet bits;
@@ -104,6 +104,26 @@ public class AutomatonQuery extends MultiTermQuery {
     this.compiled = new CompiledAutomaton(automaton, null, true, maxDeterminizedStates, isBinary);
   }
 
+  /**
+   * Expert: create a new AutomatonQuery from an {@link Automaton} that has
+   * already been compiled, for instance because it was found in an
+   * {@link org.apache.lucene.util.automaton.AutomatonCache}.
+   * 
+   * @param term Term containing field and possibly some pattern structure. The
+   *        term text is ignored.
+   * @param automaton Automaton to run, terms that are accepted are considered a
+   *        match.
+   * @param compiled the compiled form of {@code automaton}
+   * @param isBinary true if {@code automaton} is binary
+   */
+  protected AutomatonQuery(final Term term, Automaton automaton, CompiledAutomaton compiled, boolean isBinary) {
+    super(term.field());
+    this.term = term;
+    this.automaton = automaton;
+    this.automatonIsBinary = isBinary;
+    this.compiled = compiled;
+  }
+
   @Override
   protected TermsEnum getTermsEnum(Terms terms, AttributeSource atts) throws IOException {
     return compiled.getTermsEnum(terms);
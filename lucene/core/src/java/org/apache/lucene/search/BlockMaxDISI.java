@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+
+/**
+ * {@link DocIdSetIterator} that skips over blocks of documents whose
+ * {@link Scorer#getMaxScore(int) maximum score} is less than the minimum
+ * competitive score. Block boundaries and maximum scores are those of the
+ * given {@link Scorer}, which is expected to score the documents that the
+ * wrapped iterator produces.
+ */
+final class BlockMaxDISI extends DocIdSetIterator {
+
+  private final DocIdSetIterator in;
+  private final Scorer scorer;
+  private float minCompetitiveScore = 0;
+  private int upTo = -1;
+  private float maxScore;
+
+  BlockMaxDISI(DocIdSetIterator in, Scorer scorer) {
+    this.in = in;
+    this.scorer = scorer;
+  }
+
+  @Override
+  public int docID() {
+    return in.docID();
+  }
+
+  @Override
+  public int nextDoc() throws IOException {
+    return advance(docID() + 1);
+  }
+
+  @Override
+  public int advance(int target) throws IOException {
+    return in.advance(advanceTarget(target));
+  }
+
+  @Override
+  public long cost() {
+    return in.cost();
+  }
+
+  private int advanceTarget(int target) throws IOException {
+    if (minCompetitiveScore == 0 || target == NO_MORE_DOCS) {
+      // no potential for skipping
+      return target;
+    }
+
+    if (target > upTo) {
+      upTo = scorer.advanceShallow(target);
+      maxScore = scorer.getMaxScore(upTo);
+    }
+
+    while (true) {
+      assert upTo >= target;
+
+      if (maxScore >= minCompetitiveScore) {
+        return target;
+      }
+
+      if (upTo == NO_MORE_DOCS) {
+        return NO_MORE_DOCS;
+      }
+
+      target = upTo + 1;
+
+      upTo = scorer.advanceShallow(target);
+      maxScore = scorer.getMaxScore(upTo);
+    }
+  }
+
+  /** Skip blocks whose maximum score is less than {@code minScore} from now on. */
+  void setMinCompetitiveScore(float minScore) {
+    assert minScore >= minCompetitiveScore;
+    this.minCompetitiveScore = minScore;
+  }
+}
@@ -38,11 +38,6 @@ final class BooleanScorer extends BulkScorer {
   static final int SET_SIZE = 1 << (SHIFT - 6);
   static final int SET_MASK = SET_SIZE - 1;
 
-  static class Bucket {
-    double score;
-    int freq;
-  }
-
   private class BulkScorerAndDoc {
     final BulkScorer scorer;
     final long cost;
@@ -112,7 +107,11 @@ final class BooleanScorer extends BulkScorer {
 
   }
 
-  final Bucket[] buckets = new Bucket[SIZE];
+  // Scores and match counts of the documents of the current window, stored in
+  // parallel arrays rather than in per-doc objects so that accumulating them
+  // doesn't need to dereference pointers.
+  final double[] scores = new double[SIZE];
+  final int[] freqs = new int[SIZE];
   // This is basically an inlined FixedBitSet... seems to help with bound checks
   final long[] matching = new long[SET_SIZE];
 
@@ -121,6 +120,7 @@ final class BooleanScorer extends BulkScorer {
   final TailPriorityQueue tail;
   final FakeScorer fakeScorer = new FakeScorer();
   final int minShouldMatch;
+  final boolean needsScores;
   final long cost;
 
   final class OrCollector implements LeafCollector {
@@ -136,14 +136,93 @@ final class BooleanScorer extends BulkScorer {
       final int i = doc & MASK;
       final int idx = i >>> 6;
       matching[idx] |= 1L << i;
-      final Bucket bucket = buckets[i];
-      bucket.freq++;
-      bucket.score += scorer.score();
+      if (minShouldMatch > 1) {
+        freqs[i]++;
+      }
+      if (needsScores) {
+        scores[i] += scorer.score();
+      }
     }
   }
 
   final OrCollector orCollector = new OrCollector();
 
+  /** Replays the matches of the current window, which are recorded in {@link #matching}. */
+  final class WindowDocIdStream extends DocIdStream {
+    int base;
+    boolean consumed;
+
+    @Override
+    public void forEach(DocIdConsumer consumer) throws IOException {
+      assert consumed == false;
+      consumed = true;
+      final long[] matching = BooleanScorer.this.matching;
+      final FakeScorer fakeScorer = BooleanScorer.this.fakeScorer;
+      for (int idx = 0; idx < matching.length; idx++) {
+        long bits = matching[idx];
+        while (bits != 0L) {
+          int ntz = Long.numberOfTrailingZeros(bits);
+          int i = idx << 6 | ntz;
+          bits ^= 1L << ntz;
+          if (minShouldMatch > 1) {
+            final int freq = freqs[i];
+            freqs[i] = 0;
+            if (freq < minShouldMatch) {
+              scores[i] = 0;
+              continue;
+            }
+          }
+          final int doc = base | i;
+          fakeScorer.doc = doc;
+          fakeScorer.score = (float) scores[i];
+          scores[i] = 0;
+          consumer.accept(doc);
+        }
+      }
+    }
+
+    @Override
+    public int count() throws IOException {
+      if (minShouldMatch > 1) {
+        return super.count();
+      }
+      assert consumed == false;
+      consumed = true;
+      // all recorded docs match and scores are not needed
+      int count = 0;
+      for (long bits : matching) {
+        count += Long.bitCount(bits);
+      }
+      if (needsScores) {
+        clearScores();
+      }
+      return count;
+    }
+
+    /** Reset scores and freqs if the stream has not been consumed. */
+    void clearIfNotConsumed() {
+      if (consumed == false) {
+        consumed = true;
+        clearScores();
+      }
+    }
+
+    private void clearScores() {
+      for (int idx = 0; idx < matching.length; idx++) {
+        long bits = matching[idx];
+        while (bits != 0L) {
+          int ntz = Long.numberOfTrailingZeros(bits);
+          int i = idx << 6 | ntz;
+          bits ^= 1L << ntz;
+          scores[i] = 0;
+          freqs[i] = 0;
+        }
+      }
+    }
+  }
+
+  final WindowDocIdStream windowStream = new WindowDocIdStream();
+
   BooleanScorer(BooleanWeight weight, Collection<BulkScorer> scorers, int minShouldMatch, boolean needsScores) {
     if (minShouldMatch < 1 || minShouldMatch > scorers.size()) {
       throw new IllegalArgumentException("minShouldMatch should be within 1..num_scorers. Got " + minShouldMatch);
@@ -151,17 +230,16 @@ final class BooleanScorer extends BulkScorer {
     if (scorers.size() <= 1) {
       throw new IllegalArgumentException("This scorer can only be used with two scorers or more, got " + scorers.size());
     }
-    for (int i = 0; i < buckets.length; i++) {
-      buckets[i] = new Bucket();
-    }
     this.leads = new BulkScorerAndDoc[scorers.size()];
     this.head = new HeadPriorityQueue(scorers.size() - minShouldMatch + 1);
     this.tail = new TailPriorityQueue(minShouldMatch - 1);
     this.minShouldMatch = minShouldMatch;
+    this.needsScores = needsScores;
     for (BulkScorer scorer : scorers) {
       if (needsScores == false) {
-        // OrCollector calls score() all the time so we have to explicitly
-        // disable scoring in order to avoid decoding useless norms
+        // OrCollector doesn't call score() when scores are not needed, but
+        // windows that have a single matching scorer are collected directly,
+        // so we still explicitly disable scoring to avoid decoding useless norms
         scorer = BooleanWeight.disableScoring(scorer);
       }
       final BulkScorerAndDoc evicted = tail.insertWithOverflow(new BulkScorerAndDoc(scorer));
@@ -177,29 +255,15 @@ final class BooleanScorer extends BulkScorer {
     return cost;
   }
 
-  private void scoreDocument(LeafCollector collector, int base, int i) throws IOException {
-    final FakeScorer fakeScorer = this.fakeScorer;
-    final Bucket bucket = buckets[i];
-    if (bucket.freq >= minShouldMatch) {
-      fakeScorer.score = (float) bucket.score;
-      final int doc = base | i;
-      fakeScorer.doc = doc;
-      collector.collect(doc);
-    }
-    bucket.freq = 0;
-    bucket.score = 0;
-  }
-
   private void scoreMatches(LeafCollector collector, int base) throws IOException {
-    long matching[] = this.matching;
-    for (int idx = 0; idx < matching.length; idx++) {
-      long bits = matching[idx];
-      while (bits != 0L) {
-        int ntz = Long.numberOfTrailingZeros(bits);
-        int doc = idx << 6 | ntz;
-        scoreDocument(collector, base, doc);
-        bits ^= 1L << ntz;
-      }
+    final WindowDocIdStream stream = this.windowStream;
+    stream.base = base;
+    stream.consumed = false;
+    try {
+      collector.collect(stream);
+    } finally {
+      // make sure the next window starts from clean arrays
+      stream.clearIfNotConsumed();
     }
   }
 
@@ -77,4 +77,16 @@ public interface Collector {
    * Indicates what features are required from the scorer.
    */
   ScoreMode scoreMode();
+
+  /**
+   * Set the {@link Weight} that will be used to produce the scorers that will
+   * feed the {@link LeafCollector}s of this collector. This is called by
+   * {@link IndexSearcher} before the first call to
+   * {@link #getLeafCollector(LeafReaderContext)}, and may be used to get
+   * information about matches without scoring, for instance
+   * {@link Weight#count(LeafReaderContext)}. This is a no-op by default.
+   *
+   * @lucene.experimental
+   */
+  default void setWeight(Weight weight) {}
 }
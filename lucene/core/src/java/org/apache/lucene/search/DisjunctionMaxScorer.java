@@ -28,9 +28,11 @@ import org.apache.lucene.util.MathUtil;
  * for the other subqueries that generate the document.
  */
 final class DisjunctionMaxScorer extends DisjunctionScorer {
+  private final List<Scorer> subScorers;
   /* Multiplier applied to non-maximum-scoring subqueries for a document as they are summed into the result. */
   private final float tieBreakerMultiplier;
-  private final float maxScore;
+  /* Iterator that skips blocks that cannot be competitive, only set when scoreMode is TOP_SCORES. */
+  private final BlockMaxDISI blockMaxApproximation;
 
   /**
    * Creates a new instance of DisjunctionMaxScorer
@@ -42,36 +44,56 @@ final class DisjunctionMaxScorer extends DisjunctionScorer {
    *          document as they are summed into the result.
    * @param subScorers
    *          The sub scorers this Scorer should iterate on
+   * @param scoreMode
+   *          How the produced scores will be consumed.
    */
-  DisjunctionMaxScorer(Weight weight, float tieBreakerMultiplier, List<Scorer> subScorers, boolean needsScores) throws IOException {
-    super(weight, subScorers, needsScores);
+  DisjunctionMaxScorer(Weight weight, float tieBreakerMultiplier, List<Scorer> subScorers, ScoreMode scoreMode) throws IOException {
+    super(weight, subScorers, scoreMode.needsScores());
+    this.subScorers = subScorers;
     this.tieBreakerMultiplier = tieBreakerMultiplier;
     if (tieBreakerMultiplier < 0 || tieBreakerMultiplier > 1) {
       throw new IllegalArgumentException("tieBreakerMultiplier must be in [0, 1]");
     }
-
-    float scoreMax = 0;
-    double otherScoreSum = 0;
-    for (Scorer scorer : subScorers) {
-      float subScore = scorer.getMaxScore(DocIdSetIterator.NO_MORE_DOCS);
-      if (subScore >= scoreMax) {
-        otherScoreSum += scoreMax;
-        scoreMax = subScore;
-      } else {
-        otherScoreSum += subScore;
-      }
+    if (scoreMode == ScoreMode.TOP_SCORES) {
+      TwoPhaseIterator twoPhase = super.twoPhaseIterator();
+      DocIdSetIterator approximation = twoPhase == null ? super.iterator() : twoPhase.approximation();
+      this.blockMaxApproximation = new BlockMaxDISI(approximation, this);
+    } else {
+      this.blockMaxApproximation = null;
     }
+  }
 
-    if (tieBreakerMultiplier == 0) {
-      this.maxScore = scoreMax;
+  @Override
+  public DocIdSetIterator iterator() {
+    if (blockMaxApproximation == null) {
+      return super.iterator();
+    }
+    TwoPhaseIterator twoPhase = twoPhaseIterator();
+    if (twoPhase == null) {
+      return blockMaxApproximation;
     } else {
-      // The error of sums depends on the order in which values are summed up. In
-      // order to avoid this issue, we compute an upper bound of the value that
-      // the sum may take. If the max relative error is b, then it means that two
-      // sums are always within 2*b of each other.
-      otherScoreSum *= (1 + 2 * MathUtil.sumRelativeErrorBound(subScorers.size() - 1));
-      this.maxScore = (float) (scoreMax + otherScoreSum * tieBreakerMultiplier);
+      return TwoPhaseIterator.asDocIdSetIterator(twoPhase);
+    }
+  }
+
+  @Override
+  public TwoPhaseIterator twoPhaseIterator() {
+    final TwoPhaseIterator twoPhase = super.twoPhaseIterator();
+    if (blockMaxApproximation == null || twoPhase == null) {
+      return twoPhase;
     }
+    // same verification, but on top of an approximation that skips non-competitive blocks
+    return new TwoPhaseIterator(blockMaxApproximation) {
+      @Override
+      public boolean matches() throws IOException {
+        return twoPhase.matches();
+      }
+
+      @Override
+      public float matchCost() {
+        return twoPhase.matchCost();
+      }
+    };
   }
 
   @Override
@@ -90,8 +112,55 @@ final class DisjunctionMaxScorer extends DisjunctionScorer {
     return (float) (scoreMax + otherScoreSum * tieBreakerMultiplier);
   }
 
+  @Override
+  public int advanceShallow(int target) throws IOException {
+    int min = DocIdSetIterator.NO_MORE_DOCS;
+    for (Scorer scorer : subScorers) {
+      final int doc = scorer.docID();
+      if (doc <= target) {
+        min = Math.min(min, scorer.advanceShallow(target));
+      } else if (doc != DocIdSetIterator.NO_MORE_DOCS) {
+        // this scorer has no matches until its current doc, which may be in a later block
+        min = Math.min(min, doc - 1);
+      }
+    }
+    return min;
+  }
+
   @Override
   public float getMaxScore(int upTo) throws IOException {
-    return maxScore;
+    float scoreMax = 0;
+    double otherScoreSum = 0;
+    for (Scorer scorer : subScorers) {
+      if (scorer.docID() <= upTo) {
+        float subScore = scorer.getMaxScore(upTo);
+        if (subScore >= scoreMax) {
+          otherScoreSum += scoreMax;
+          scoreMax = subScore;
+        } else {
+          otherScoreSum += subScore;
+        }
+      }
+    }
+
+    if (tieBreakerMultiplier == 0) {
+      return scoreMax;
+    } else {
+      // The error of sums depends on the order in which values are summed up. In
+      // order to avoid this issue, we compute an upper bound of the value that
+      // the sum may take. If the max relative error is b, then it means that two
+      // sums are always within 2*b of each other.
+      otherScoreSum *= (1 + 2 * MathUtil.sumRelativeErrorBound(subScorers.size() - 1));
+      return (float) (scoreMax + otherScoreSum * tieBreakerMultiplier);
+    }
+  }
+
+  @Override
+  public void setMinCompetitiveScore(float minScore) {
+    assert blockMaxApproximation != null;
+    // Only skip blocks of the disjunction as a whole: propagating the min score
+    // to sub scorers would make them skip their own non-competitive matches,
+    // so a hit could be reported with a lower score than its actual score
+    blockMaxApproximation.setMinCompetitiveScore(minScore);
   }
 }
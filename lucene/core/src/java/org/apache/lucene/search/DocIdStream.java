@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import java.io.IOException;
+
+/**
+ * A stream of matching doc IDs, in increasing order, that is passed to
+ * {@link LeafCollector#collect(DocIdStream)} by {@link BulkScorer}s that
+ * collect documents by batches. A stream may only be consumed once, either
+ * with {@link #forEach(DocIdConsumer)} or with {@link #count()}.
+ *
+ * @lucene.experimental
+ */
+public abstract class DocIdStream {
+
+  /** Consumer of doc IDs. */
+  @FunctionalInterface
+  public interface DocIdConsumer {
+    /** Consume the given doc ID. */
+    void accept(int doc) throws IOException;
+  }
+
+  /** Sole constructor, for invocation by sub classes. */
+  protected DocIdStream() {}
+
+  /**
+   * Call {@code consumer} on all doc IDs of this stream, in order. The
+   * {@link Scorer} that was passed to {@link LeafCollector#setScorer(Scorer)}
+   * is positioned on the doc ID that is being consumed.
+   */
+  public abstract void forEach(DocIdConsumer consumer) throws IOException;
+
+  /**
+   * Return the number of doc IDs of this stream. The default implementation
+   * consumes all doc IDs, but sub classes may compute it more efficiently.
+   */
+  public int count() throws IOException {
+    int[] count = new int[1];
+    forEach(doc -> count[0]++);
+    return count[0];
+  }
+}
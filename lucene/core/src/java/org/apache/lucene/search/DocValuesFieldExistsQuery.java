@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.util.Objects;
 
 import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
@@ -71,6 +72,17 @@ public final class DocValuesFieldExistsQuery extends Query {
         return new ConstantScoreScorer(this, score(), iterator);
       }
 
+      @Override
+      public int count(LeafReaderContext context) throws IOException {
+        FieldInfo fieldInfo = context.reader().getFieldInfos().fieldInfo(field);
+        if (fieldInfo == null || fieldInfo.getDocValuesType() == DocValuesType.NONE) {
+          return 0;
+        }
+        // doc values do not record the number of docs that have a value, and
+        // the cost of their iterators is only an estimate
+        return -1;
+      }
+
       @Override
       public boolean isCacheable(LeafReaderContext ctx) {
         return DocValues.isCacheable(ctx, field);
@@ -24,6 +24,7 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.util.AttributeSource;
+import org.apache.lucene.util.automaton.AutomatonCache;
 import org.apache.lucene.util.automaton.LevenshteinAutomata;
 
 /** Implements the fuzzy search query. The similarity measurement
@@ -62,6 +63,7 @@ public class FuzzyQuery extends MultiTermQuery {
   private final boolean transpositions;
   private final int prefixLength;
   private final Term term;
+  private final AutomatonCache automatonCache;
   
   /**
    * Create a new FuzzyQuery that will match terms with an edit distance 
@@ -80,6 +82,28 @@ public class FuzzyQuery extends MultiTermQuery {
    *        Levenshtein algorithm.
    */
   public FuzzyQuery(Term term, int maxEdits, int prefixLength, int maxExpansions, boolean transpositions) {
+    this(term, maxEdits, prefixLength, maxExpansions, transpositions, null);
+  }
+
+  /**
+   * Create a new FuzzyQuery that will match terms with an edit distance 
+   * of at most <code>maxEdits</code> to <code>term</code>, and that looks
+   * up its Levenshtein automata in the given {@link AutomatonCache}.
+   * 
+   * @param term the term to search for
+   * @param maxEdits must be {@code >= 0} and {@code <=} {@link LevenshteinAutomata#MAXIMUM_SUPPORTED_DISTANCE}.
+   * @param prefixLength length of common (non-fuzzy) prefix
+   * @param maxExpansions the maximum number of terms to match. If this number is
+   *  greater than {@link BooleanQuery#getMaxClauseCount} when the query is rewritten, 
+   *  then the maxClauseCount will be used instead.
+   * @param transpositions true if transpositions should be treated as a primitive
+   *        edit operation. If this is false, comparisons will implement the classic
+   *        Levenshtein algorithm.
+   * @param automatonCache cache of automata that is shared across queries, or
+   *        {@code null} to build automata for every query
+   */
+  public FuzzyQuery(Term term, int maxEdits, int prefixLength, int maxExpansions, boolean transpositions,
+      AutomatonCache automatonCache) {
     super(term.field());
     
     if (maxEdits < 0 || maxEdits > LevenshteinAutomata.MAXIMUM_SUPPORTED_DISTANCE) {
@@ -97,6 +121,7 @@ public class FuzzyQuery extends MultiTermQuery {
     this.prefixLength = prefixLength;
     this.transpositions = transpositions;
     this.maxExpansions = maxExpansions;
+    this.automatonCache = automatonCache;
     setRewriteMethod(new MultiTermQuery.TopTermsBlendedFreqScoringRewrite(maxExpansions));
   }
   
@@ -151,7 +176,7 @@ public class FuzzyQuery extends MultiTermQuery {
     if (maxEdits == 0 || prefixLength >= term.text().length()) {  // can only match if it's exact
       return new SingleTermsEnum(terms.iterator(), term.bytes());
     }
-    return new FuzzyTermsEnum(terms, atts, getTerm(), maxEdits, prefixLength, transpositions);
+    return new FuzzyTermsEnum(terms, atts, getTerm(), maxEdits, prefixLength, transpositions, automatonCache);
   }
   
   /**
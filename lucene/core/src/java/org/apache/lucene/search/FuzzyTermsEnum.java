@@ -32,11 +32,15 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.UnicodeUtil;
 import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.AutomatonCache;
 import org.apache.lucene.util.automaton.CompiledAutomaton;
 import org.apache.lucene.util.automaton.LevenshteinAutomata;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 
 /** Subclass of TermsEnum for enumerating all terms that are similar
  * to the specified filter term.
@@ -100,6 +104,28 @@ public final class FuzzyTermsEnum extends TermsEnum {
    */
   public FuzzyTermsEnum(Terms terms, AttributeSource atts, Term term, 
       final int maxEdits, final int prefixLength, boolean transpositions) throws IOException {
+    this(terms, atts, term, maxEdits, prefixLength, transpositions, null);
+  }
+
+  /**
+   * Constructor for enumeration of all terms from specified <code>reader</code> which share a prefix of
+   * length <code>prefixLength</code> with <code>term</code> and which have at most {@code maxEdits} edits.
+   * The Levenshtein automata are looked up in the given {@link AutomatonCache} if it is not null.
+   * 
+   * @param terms Delivers terms.
+   * @param atts {@link AttributeSource} created by the rewrite method of {@link MultiTermQuery}
+   * thats contains information about competitive boosts during rewrite. It is also used
+   * to cache DFAs between segment transitions.
+   * @param term Pattern term.
+   * @param maxEdits Maximum edit distance.
+   * @param prefixLength Length of required common prefix. Default value is 0.
+   * @param transpositions True if a transposition should count as a single edit.
+   * @param automatonCache Cache of automata shared across queries, may be null.
+   * @throws IOException if there is a low-level IO error
+   */
+  public FuzzyTermsEnum(Terms terms, AttributeSource atts, Term term, 
+      final int maxEdits, final int prefixLength, boolean transpositions,
+      AutomatonCache automatonCache) throws IOException {
     if (maxEdits < 0 || maxEdits > LevenshteinAutomata.MAXIMUM_SUPPORTED_DISTANCE) {
       throw new IllegalArgumentException("max edits must be 0.." + LevenshteinAutomata.MAXIMUM_SUPPORTED_DISTANCE + ", inclusive; got: " + maxEdits);
     }
@@ -132,15 +158,14 @@ public final class FuzzyTermsEnum extends TermsEnum {
 
     CompiledAutomaton[] prevAutomata = dfaAtt.automata();
     if (prevAutomata == null) {
-      prevAutomata = new CompiledAutomaton[maxEdits+1];
-
-      LevenshteinAutomata builder = 
-        new LevenshteinAutomata(UnicodeUtil.newString(termText, realPrefixLength, termText.length - realPrefixLength), transpositions);
-
-      String prefix = UnicodeUtil.newString(termText, 0, realPrefixLength);
-      for (int i = 0; i <= maxEdits; i++) {
-        Automaton a = builder.toAutomaton(i, prefix);
-        prevAutomata[i] = new CompiledAutomaton(a, true, false);
+      if (automatonCache == null) {
+        prevAutomata = buildAutomata(termText, realPrefixLength, maxEdits, transpositions);
+      } else {
+        // cached values must be immutable, so the cache holds an unmodifiable list that is copied
+        final List<CompiledAutomaton> cached = automatonCache.get(
+            new LevenshteinAutomataKey(utf16, realPrefixLength, maxEdits, transpositions),
+            () -> Collections.unmodifiableList(Arrays.asList(buildAutomata(termText, realPrefixLength, maxEdits, transpositions))));
+        prevAutomata = cached.toArray(new CompiledAutomaton[cached.size()]);
       }
 
       // first segment computes the automata, and we share with subsequent segments via this Attribute:
@@ -153,6 +178,52 @@ public final class FuzzyTermsEnum extends TermsEnum {
     bottomChanged(null);
   }
   
+  private static CompiledAutomaton[] buildAutomata(int[] termText, int prefixLength, int maxEdits, boolean transpositions) {
+    CompiledAutomaton[] automata = new CompiledAutomaton[maxEdits+1];
+
+    LevenshteinAutomata builder = 
+      new LevenshteinAutomata(UnicodeUtil.newString(termText, prefixLength, termText.length - prefixLength), transpositions);
+
+    String prefix = UnicodeUtil.newString(termText, 0, prefixLength);
+    for (int i = 0; i <= maxEdits; i++) {
+      Automaton a = builder.toAutomaton(i, prefix);
+      automata[i] = new CompiledAutomaton(a, true, false);
+    }
+    return automata;
+  }
+
+  /** Key of the Levenshtein automata of a term in an {@link AutomatonCache}. */
+  private static final class LevenshteinAutomataKey {
+    private final String text;
+    private final int prefixLength;
+    private final int maxEdits;
+    private final boolean transpositions;
+
+    LevenshteinAutomataKey(String text, int prefixLength, int maxEdits, boolean transpositions) {
+      this.text = text;
+      this.prefixLength = prefixLength;
+      this.maxEdits = maxEdits;
+      this.transpositions = transpositions;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == null || obj.getClass() != getClass()) {
+        return false;
+      }
+      LevenshteinAutomataKey other = (LevenshteinAutomataKey) obj;
+      return text.equals(other.text)
+          && prefixLength == other.prefixLength
+          && maxEdits == other.maxEdits
+          && transpositions == other.transpositions;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(text, prefixLength, maxEdits, transpositions);
+    }
+  }
+
   /**
    * return an automata-based enum for matching up to editDistance from
    * lastTerm, if possible
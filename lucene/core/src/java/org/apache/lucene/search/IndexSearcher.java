@@ -331,7 +331,8 @@ public class IndexSearcher {
       return count;
     }
 
-    // general case: create a collecor and count matches
+    // general case: create a collector and count matches, TotalHitCountCollector
+    // does not iterate over matches of leaves that support Weight#count
     final CollectorManager<TotalHitCountCollector, Integer> collectorManager = new CollectorManager<TotalHitCountCollector, Integer>() {
 
       @Override
@@ -606,6 +607,8 @@ public class IndexSearcher {
   protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector)
       throws IOException {
 
+    collector.setWeight(weight);
+
     // TODO: should we make this
     // threaded...?  the Collector could be sync'd?
     // always use single thread:
@@ -82,6 +82,12 @@ import org.apache.lucene.util.RoaringDocIdSet;
  * It is better to not perform heavy computations in these methods though since
  * they are called synchronously and under a lock.
  *
+ * Collectors that only count hits, such as the one used by
+ * {@link IndexSearcher#count(Query)}, go through the cache like any other
+ * search when the {@link QueryCachingPolicy} decides to cache the query.
+ * Otherwise, they may get the number of matches of a segment from
+ * {@link Weight#count(LeafReaderContext)} without iterating over them.
+ *
  * @see QueryCachingPolicy
  * @lucene.experimental
  */
@@ -683,6 +689,22 @@ public class LRUQueryCache implements QueryCache, Accountable {
       return in.matches(context, doc);
     }
 
+    @Override
+    public int count(LeafReaderContext context) throws IOException {
+      if (used.compareAndSet(false, true)) {
+        policy.onUse(getQuery());
+      }
+
+      if (in.isCacheable(context)
+          && shouldCache(context)
+          && context.reader().getCoreCacheHelper() != null
+          && policy.shouldCache(in.getQuery())) {
+        // the matches of this leaf are cached or should be: count them through the cache
+        return -1;
+      }
+      return in.count(context);
+    }
+
     private boolean cacheEntryHasReasonableWorstCaseSize(int maxDoc) {
       // The worst-case (dense) is a bit set which needs one bit per document
       final long worstCaseRamUsage = maxDoc / 8;
@@ -93,4 +93,18 @@ public interface LeafCollector {
    */
   void collect(int doc) throws IOException;
 
+  /**
+   * Bulk-collect doc IDs. This is called instead of {@link #collect(int)} by
+   * {@link BulkScorer}s that find matches by batches of documents, so that
+   * collectors that do not need to look at every hit, like
+   * {@link TotalHitCountCollector}, can process a whole batch at once. The
+   * default implementation calls {@link #collect(int)} on every doc ID of the
+   * stream.
+   *
+   * @lucene.experimental
+   */
+  default void collect(DocIdStream stream) throws IOException {
+    stream.forEach(this::collect);
+  }
+
 }
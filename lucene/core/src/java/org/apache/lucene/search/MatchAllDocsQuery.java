@@ -40,6 +40,11 @@ public final class MatchAllDocsQuery extends Query {
         return new ConstantScoreScorer(this, score(), DocIdSetIterator.all(context.reader().maxDoc()));
       }
 
+      @Override
+      public int count(LeafReaderContext context) {
+        return context.reader().numDocs();
+      }
+
       @Override
       public boolean isCacheable(LeafReaderContext ctx) {
         return true;
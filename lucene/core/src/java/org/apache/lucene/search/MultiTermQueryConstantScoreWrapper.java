@@ -145,6 +145,10 @@ final class MultiTermQueryConstantScoreWrapper<Q extends MultiTermQuery> extends
 
         final List<TermAndState> collectedTerms = new ArrayList<>();
         if (collectTerms(context, termsEnum, collectedTerms)) {
+          if (collectedTerms.isEmpty()) {
+            // no matching terms in this segment
+            return new WeightOrDocIdSet((DocIdSet) null);
+          }
           // build a boolean query
           BooleanQuery.Builder bq = new BooleanQuery.Builder();
           for (TermAndState t : collectedTerms) {
@@ -240,25 +240,14 @@ public abstract class PointRangeQuery extends Query {
           throw new IllegalArgumentException("field=\"" + field + "\" was indexed with bytesPerDim=" + values.getBytesPerDimension() + " but this query has bytesPerDim=" + bytesPerDim);
         }
 
-        boolean allDocsMatch;
-        if (values.getDocCount() == reader.maxDoc()) {
-          final byte[] fieldPackedLower = values.getMinPackedValue();
-          final byte[] fieldPackedUpper = values.getMaxPackedValue();
-          allDocsMatch = true;
-          for (int i = 0; i < numDims; ++i) {
-            int offset = i * bytesPerDim;
-            if (StringHelper.compare(bytesPerDim, lowerPoint, offset, fieldPackedLower, offset) > 0
-                || StringHelper.compare(bytesPerDim, upperPoint, offset, fieldPackedUpper, offset) < 0) {
-              allDocsMatch = false;
-              break;
-            }
-          }
-        } else {
-          allDocsMatch = false;
+        if (matchesNone(values)) {
+          // the query range does not intersect the range of values of this segment, skip it
+          // before building any iterator
+          return null;
         }
 
         final Weight weight = this;
-        if (allDocsMatch) {
+        if (matchesAll(reader, values)) {
           // all docs have a value and all points are within bounds, so everything matches
           return new ScorerSupplier() {
             @Override
@@ -313,6 +302,57 @@ public abstract class PointRangeQuery extends Query {
         }
       }
 
+      /** Whether the range of values of the segment is disjoint from the query range. */
+      private boolean matchesNone(PointValues values) throws IOException {
+        final byte[] fieldPackedLower = values.getMinPackedValue();
+        final byte[] fieldPackedUpper = values.getMaxPackedValue();
+        for (int i = 0; i < numDims; ++i) {
+          int offset = i * bytesPerDim;
+          if (StringHelper.compare(bytesPerDim, lowerPoint, offset, fieldPackedUpper, offset) > 0
+              || StringHelper.compare(bytesPerDim, upperPoint, offset, fieldPackedLower, offset) < 0) {
+            return true;
+          }
+        }
+        return false;
+      }
+
+      /** Whether all docs of the segment have a value and the range of values of the segment is within the query range. */
+      private boolean matchesAll(LeafReader reader, PointValues values) throws IOException {
+        if (values.getDocCount() != reader.maxDoc()) {
+          return false;
+        }
+        final byte[] fieldPackedLower = values.getMinPackedValue();
+        final byte[] fieldPackedUpper = values.getMaxPackedValue();
+        for (int i = 0; i < numDims; ++i) {
+          int offset = i * bytesPerDim;
+          if (StringHelper.compare(bytesPerDim, lowerPoint, offset, fieldPackedLower, offset) > 0
+              || StringHelper.compare(bytesPerDim, upperPoint, offset, fieldPackedUpper, offset) < 0) {
+            return false;
+          }
+        }
+        return true;
+      }
+
+      @Override
+      public int count(LeafReaderContext context) throws IOException {
+        LeafReader reader = context.reader();
+        PointValues values = reader.getPointValues(field);
+        if (values == null) {
+          return 0;
+        }
+        if (values.getNumDimensions() != numDims || values.getBytesPerDimension() != bytesPerDim) {
+          // let the scorer report the error
+          return -1;
+        }
+        if (matchesNone(values)) {
+          return 0;
+        }
+        if (matchesAll(reader, values)) {
+          return reader.numDocs();
+        }
+        return -1;
+      }
+
       @Override
       public Scorer scorer(LeafReaderContext context) throws IOException {
         ScorerSupplier scorerSupplier = scorerSupplier(context);
@@ -17,9 +17,13 @@
 package org.apache.lucene.search;
 
 
+import java.util.Objects;
+
 import org.apache.lucene.index.Term;
 import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.AutomatonCache;
 import org.apache.lucene.util.automaton.AutomatonProvider;
+import org.apache.lucene.util.automaton.CompiledAutomaton;
 import org.apache.lucene.util.automaton.Operations;
 import org.apache.lucene.util.automaton.RegExp;
 
@@ -109,6 +113,75 @@ public class RegexpQuery extends AutomatonQuery {
                        provider, maxDeterminizedStates), maxDeterminizedStates);
   }
 
+  /**
+   * Constructs a query for terms matching <code>term</code>, looking up the
+   * compiled automaton of the regular expression in the given cache if it is
+   * not null.
+   * 
+   * @param term regular expression.
+   * @param flags optional RegExp features from {@link RegExp}
+   * @param maxDeterminizedStates maximum number of states that compiling the
+   *  automaton for the regexp can result in.  Set higher to allow more complex
+   *  queries and lower to prevent memory exhaustion.
+   * @param automatonCache cache of automata that is shared across queries, or
+   *        {@code null} to build the automaton for every query
+   */
+  public RegexpQuery(Term term, int flags, int maxDeterminizedStates, AutomatonCache automatonCache) {
+    this(term, compile(term.text(), flags, maxDeterminizedStates, automatonCache));
+  }
+
+  private RegexpQuery(Term term, CompiledRegexp compiledRegexp) {
+    super(term, compiledRegexp.automaton, compiledRegexp.compiled, false);
+  }
+
+  private static CompiledRegexp compile(String regexp, int flags, int maxDeterminizedStates, AutomatonCache automatonCache) {
+    if (automatonCache == null) {
+      return new CompiledRegexp(regexp, flags, maxDeterminizedStates);
+    }
+    return automatonCache.get(new RegexpKey(regexp, flags, maxDeterminizedStates),
+        () -> new CompiledRegexp(regexp, flags, maxDeterminizedStates));
+  }
+
+  /** The automata of a regular expression. */
+  private static final class CompiledRegexp {
+    final Automaton automaton;
+    final CompiledAutomaton compiled;
+
+    CompiledRegexp(String regexp, int flags, int maxDeterminizedStates) {
+      automaton = new RegExp(regexp, flags).toAutomaton(defaultProvider, maxDeterminizedStates);
+      compiled = new CompiledAutomaton(automaton, null, true, maxDeterminizedStates, false);
+    }
+  }
+
+  /** Key of the automata of a regular expression in an {@link AutomatonCache}. */
+  private static final class RegexpKey {
+    private final String regexp;
+    private final int flags;
+    private final int maxDeterminizedStates;
+
+    RegexpKey(String regexp, int flags, int maxDeterminizedStates) {
+      this.regexp = regexp;
+      this.flags = flags;
+      this.maxDeterminizedStates = maxDeterminizedStates;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == null || obj.getClass() != getClass()) {
+        return false;
+      }
+      RegexpKey other = (RegexpKey) obj;
+      return regexp.equals(other.regexp)
+          && flags == other.flags
+          && maxDeterminizedStates == other.maxDeterminizedStates;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(regexp, flags, maxDeterminizedStates);
+    }
+  }
+
   /** Returns the regexp of this query wrapped in a Term. */
   public Term getRegexp() {
     return term;
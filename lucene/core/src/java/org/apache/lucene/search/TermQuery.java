@@ -131,6 +131,19 @@ public class TermQuery extends Query {
       }
     }
 
+    @Override
+    public int count(LeafReaderContext context) throws IOException {
+      final TermsEnum termsEnum = getTermsEnum(context);
+      if (termsEnum == null) {
+        return 0;
+      }
+      if (context.reader().hasDeletions()) {
+        // docFreq also counts deleted documents
+        return -1;
+      }
+      return termsEnum.docFreq();
+    }
+
     @Override
     public boolean isCacheable(LeafReaderContext ctx) {
       return true;
@@ -17,7 +17,12 @@
 package org.apache.lucene.search;
 
 
+import java.io.IOException;
+
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.AttributeSource;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.automaton.Automata;
 import org.apache.lucene.util.automaton.Automaton;
@@ -85,6 +90,31 @@ public class TermRangeQuery extends AutomatonQuery {
     return Automata.makeBinaryInterval(lowerTerm, includeLower, upperTerm, includeUpper);
   }
 
+  @Override
+  protected TermsEnum getTermsEnum(Terms terms, AttributeSource atts) throws IOException {
+    // Skip the intersection entirely if the range does not overlap with the
+    // terms of this segment, the min and max terms are cheap to retrieve
+    if (lowerTerm != null) {
+      final BytesRef max = terms.getMax();
+      if (max != null) {
+        final int cmp = max.compareTo(lowerTerm);
+        if (cmp < 0 || (cmp == 0 && includeLower == false)) {
+          return TermsEnum.EMPTY;
+        }
+      }
+    }
+    if (upperTerm != null) {
+      final BytesRef min = terms.getMin();
+      if (min != null) {
+        final int cmp = min.compareTo(upperTerm);
+        if (cmp > 0 || (cmp == 0 && includeUpper == false)) {
+          return TermsEnum.EMPTY;
+        }
+      }
+    }
+    return super.getTermsEnum(terms, atts);
+  }
+
   /**
    * Factory that creates a new TermRangeQuery using Strings for term text.
    */
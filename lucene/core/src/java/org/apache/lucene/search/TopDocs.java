@@ -22,9 +22,24 @@ import org.apache.lucene.util.PriorityQueue;
  * IndexSearcher#search(Query,int)}. */
 public class TopDocs {
 
+  /** How {@link TopDocs#totalHits} relates to the actual number of hits. */
+  public enum TotalHitsRelation {
+    /** The total hit count is equal to {@link TopDocs#totalHits}. */
+    EQUAL_TO,
+    /** The total hit count is greater than or equal to {@link TopDocs#totalHits}. */
+    GREATER_THAN_OR_EQUAL_TO
+  }
+
   /** The total number of hits for the query. */
   public long totalHits;
 
+  /**
+   * Whether {@link #totalHits} is the exact hit count or a lower bound of it.
+   * This is {@link TotalHitsRelation#EQUAL_TO} unless the collector was
+   * configured to stop counting hits accurately above a threshold.
+   */
+  public TotalHitsRelation totalHitsRelation = TotalHitsRelation.EQUAL_TO;
+
   /** The top hits for the query. */
   public ScoreDoc[] scoreDocs;
 
@@ -267,6 +282,7 @@ public class TopDocs {
     }
 
     long totalHitCount = 0;
+    TotalHitsRelation totalHitsRelation = TotalHitsRelation.EQUAL_TO;
     int availHitCount = 0;
     float maxScore = Float.MIN_VALUE;
     for(int shardIDX=0;shardIDX<shardHits.length;shardIDX++) {
@@ -274,6 +290,9 @@ public class TopDocs {
       // totalHits can be non-zero even if no hits were
       // collected, when searchAfter was used:
       totalHitCount += shard.totalHits;
+      if (shard.totalHitsRelation == TotalHitsRelation.GREATER_THAN_OR_EQUAL_TO) {
+        totalHitsRelation = TotalHitsRelation.GREATER_THAN_OR_EQUAL_TO;
+      }
       if (shard.scoreDocs != null && shard.scoreDocs.length > 0) {
         availHitCount += shard.scoreDocs.length;
         queue.add(new ShardRef(shardIDX, setShardIndex == false));
@@ -319,10 +338,13 @@ public class TopDocs {
       }
     }
 
+    final TopDocs topDocs;
     if (sort == null) {
-      return new TopDocs(totalHitCount, hits, maxScore);
+      topDocs = new TopDocs(totalHitCount, hits, maxScore);
     } else {
-      return new TopFieldDocs(totalHitCount, hits, sort.getSort(), maxScore);
+      topDocs = new TopFieldDocs(totalHitCount, hits, sort.getSort(), maxScore);
     }
+    topDocs.totalHitsRelation = totalHitsRelation;
+    return topDocs;
   }
 }
@@ -47,6 +47,9 @@ public abstract class TopDocsCollector<T extends ScoreDoc> implements Collector
 
   /** The total number of documents that the collector encountered. */
   protected int totalHits;
+
+  /** Whether {@link #totalHits} is exact or a lower bound of the number of matches. */
+  protected TopDocs.TotalHitsRelation totalHitsRelation = TopDocs.TotalHitsRelation.EQUAL_TO;
   
   protected TopDocsCollector(PriorityQueue<T> pq) {
     this.pq = pq;
@@ -76,6 +79,14 @@ public abstract class TopDocsCollector<T extends ScoreDoc> implements Collector
   public int getTotalHits() {
     return totalHits;
   }
+
+  /**
+   * Whether {@link #getTotalHits()} is the exact number of documents that
+   * matched this query, or a lower bound of it.
+   */
+  public TopDocs.TotalHitsRelation getTotalHitsRelation() {
+    return totalHitsRelation;
+  }
   
   /** The number of valid PQ entries */
   protected int topDocsSize() {
@@ -50,14 +50,17 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
   private static class SimpleTopScoreDocCollector extends TopScoreDocCollector {
 
     private final int numHits;
-    private final boolean trackTotalHits;
+    private final int totalHitsThreshold;
+    private final boolean estimateTotalHits;
     private int sumMaxDoc;
     private int maxCollectedExactly = -1;
+    private boolean minCompetitiveScoreSet;
 
-    SimpleTopScoreDocCollector(int numHits, boolean trackTotalHits) {
+    SimpleTopScoreDocCollector(int numHits, int totalHitsThreshold, boolean estimateTotalHits) {
       super(numHits);
       this.numHits = numHits;
-      this.trackTotalHits = trackTotalHits;
+      this.totalHitsThreshold = totalHitsThreshold;
+      this.estimateTotalHits = estimateTotalHits;
     }
 
     @Override
@@ -70,13 +73,7 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
         @Override
         public void setScorer(Scorer scorer) throws IOException {
           super.setScorer(scorer);
-          if (trackTotalHits == false
-              && pqTop != null
-              && pqTop.score != Float.NEGATIVE_INFINITY) {
-            // since we tie-break on doc id and collect in doc id order, we can require
-            // the next float
-            scorer.setMinCompetitiveScore(Math.nextUp(pqTop.score));
-          }
+          updateMinCompetitiveScore(scorer);
         }
 
         @Override
@@ -88,6 +85,11 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
 
           totalHits++;
           if (score <= pqTop.score) {
+            if (minCompetitiveScoreSet == false) {
+              // we just reached totalHitsThreshold, we can start setting the min
+              // competitive score now
+              updateMinCompetitiveScore(scorer);
+            }
             // Since docs are returned in-order (i.e., increasing doc Id), a document
             // with equal score to pqTop.score cannot compete since HitQueue favors
             // documents with lower doc Ids. Therefore reject those docs too.
@@ -96,24 +98,42 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
           pqTop.doc = doc + docBase;
           pqTop.score = score;
           pqTop = pq.updateTop();
-          if (trackTotalHits == false && pqTop.score != Float.NEGATIVE_INFINITY) { // -Infinity is the score of sentinels
-            // since we tie-break on doc id and collect in doc id order, we can require
-            // the next float
-            scorer.setMinCompetitiveScore(Math.nextUp(pqTop.score));
-            if (maxCollectedExactly < 0) {
-              assert totalHits == numHits;
-              maxCollectedExactly = doc + docBase;
-            }
+          if (updateMinCompetitiveScore(scorer) && estimateTotalHits && maxCollectedExactly < 0) {
+            assert totalHits == numHits;
+            maxCollectedExactly = doc + docBase;
           }
         }
 
       };
     }
 
+    /**
+     * Tell the scorer that only hits that may compete with the bottom of the
+     * queue are needed, once the queue is full and more than
+     * {@code totalHitsThreshold} hits have been counted. Returns whether the
+     * min competitive score was set.
+     */
+    private boolean updateMinCompetitiveScore(Scorer scorer) {
+      if (totalHits > totalHitsThreshold
+          && pqTop != null
+          && pqTop.score != Float.NEGATIVE_INFINITY) { // -Infinity is the score of sentinels
+        // since we tie-break on doc id and collect in doc id order, we can require
+        // the next float
+        scorer.setMinCompetitiveScore(Math.nextUp(pqTop.score));
+        minCompetitiveScoreSet = true;
+        if (estimateTotalHits == false) {
+          // non-competitive hits may be skipped from now on
+          totalHitsRelation = TopDocs.TotalHitsRelation.GREATER_THAN_OR_EQUAL_TO;
+        }
+        return true;
+      }
+      return false;
+    }
+
     @Override
     public TopDocs topDocs() {
       TopDocs topDocs = super.topDocs();
-      if (trackTotalHits == false && maxCollectedExactly >= 0) {
+      if (estimateTotalHits && maxCollectedExactly >= 0) {
         // assume matches are evenly spread in the doc id space
         // this may be completely off
         long totalHitsEstimate = (long) numHits * sumMaxDoc / (maxCollectedExactly + 1);
@@ -126,7 +146,7 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
 
     @Override
     public ScoreMode scoreMode() {
-      return trackTotalHits ? ScoreMode.COMPLETE : ScoreMode.TOP_SCORES;
+      return totalHitsThreshold == Integer.MAX_VALUE ? ScoreMode.COMPLETE : ScoreMode.TOP_SCORES;
     }
   }
 
@@ -218,7 +238,46 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
     }
 
     if (after == null) {
-      return new SimpleTopScoreDocCollector(numHits, trackTotalHits);
+      if (trackTotalHits) {
+        return new SimpleTopScoreDocCollector(numHits, Integer.MAX_VALUE, false);
+      } else {
+        return new SimpleTopScoreDocCollector(numHits, 0, true);
+      }
+    } else {
+      return new PagingTopScoreDocCollector(numHits, after);
+    }
+  }
+
+  /**
+   * Creates a new {@link TopScoreDocCollector} given the number of hits to
+   * collect, the bottom of the previous page, and the number of hits to count
+   * accurately.
+   *
+   * <p>Hits are counted accurately up to {@code totalHitsThreshold}. Past this
+   * threshold, the collector lets the scorer skip documents that cannot
+   * compete, and {@link TopDocs#totalHits} becomes a lower bound of the hit
+   * count, as indicated by {@link TopDocs#totalHitsRelation} being
+   * {@link TopDocs.TotalHitsRelation#GREATER_THAN_OR_EQUAL_TO}. Pass
+   * {@link Integer#MAX_VALUE} to always count hits accurately.
+   * <p><b>NOTE</b>: Hits are always counted accurately when {@code after} is
+   * not {@code null}.
+   * <p><b>NOTE</b>: The instances returned by this method
+   * pre-allocate a full array of length
+   * <code>numHits</code>, and fill the array with sentinel
+   * objects.
+   */
+  public static TopScoreDocCollector create(int numHits, ScoreDoc after, int totalHitsThreshold) {
+
+    if (numHits <= 0) {
+      throw new IllegalArgumentException("numHits must be > 0; please use TotalHitCountCollector if you just need the total hit count");
+    }
+
+    if (totalHitsThreshold < 0) {
+      throw new IllegalArgumentException("totalHitsThreshold must be >= 0, got " + totalHitsThreshold);
+    }
+
+    if (after == null) {
+      return new SimpleTopScoreDocCollector(numHits, totalHitsThreshold, false);
     } else {
       return new PagingTopScoreDocCollector(numHits, after);
     }
@@ -252,7 +311,9 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
       maxScore = pq.pop().score;
     }
 
-    return new TopDocs(totalHits, results, maxScore);
+    TopDocs topDocs = new TopDocs(totalHits, results, maxScore);
+    topDocs.totalHitsRelation = totalHitsRelation;
+    return topDocs;
   }
 
   @Override
@@ -16,12 +16,18 @@
  */
 package org.apache.lucene.search;
 
+import java.io.IOException;
+
+import org.apache.lucene.index.LeafReaderContext;
 
 /**
- * Just counts the total number of hits.
+ * Just counts the total number of hits. Leaves whose number of matches can be
+ * computed efficiently with {@link Weight#count(LeafReaderContext)} are not
+ * collected at all.
  */
 
 public class TotalHitCountCollector extends SimpleCollector {
+  private Weight weight;
   private int totalHits;
 
   /** Returns how many hits matched the search. */
@@ -29,11 +35,30 @@ public class TotalHitCountCollector extends SimpleCollector {
     return totalHits;
   }
 
+  @Override
+  public void setWeight(Weight weight) {
+    this.weight = weight;
+  }
+
+  @Override
+  protected void doSetNextReader(LeafReaderContext context) throws IOException {
+    final int leafCount = weight == null ? -1 : weight.count(context);
+    if (leafCount != -1) {
+      totalHits += leafCount;
+      throw new CollectionTerminatedException();
+    }
+  }
+
   @Override
   public void collect(int doc) {
     totalHits++;
   }
 
+  @Override
+  public void collect(DocIdStream stream) throws IOException {
+    totalHits += stream.count();
+  }
+
   @Override
   public ScoreMode scoreMode() {
     return ScoreMode.COMPLETE_NO_SCORES;
@@ -109,6 +109,21 @@ public abstract class Weight implements SegmentCacheable {
    */
   public abstract Explanation explain(LeafReaderContext context, int doc) throws IOException;
 
+  /**
+   * Counts the number of live documents that match this {@link Weight} in the
+   * given leaf, or returns {@code -1} if the count cannot be computed
+   * efficiently, typically without iterating over matches. This is used by
+   * collectors that only need hit counts, such as
+   * {@link TotalHitCountCollector}.
+   * <p>
+   * The default implementation returns {@code -1}.
+   *
+   * @lucene.experimental
+   */
+  public int count(LeafReaderContext context) throws IOException {
+    return -1;
+  }
+
   /** The query that this concerns. */
   public final Query getQuery() {
     return parentQuery;
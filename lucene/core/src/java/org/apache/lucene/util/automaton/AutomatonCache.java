@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.automaton;
+
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, thread-safe, least-recently-used cache of compiled automata.
+ * <p>
+ * Building {@link LevenshteinAutomata}, parsing {@link RegExp}s and
+ * {@link Operations#determinize determinizing} automata can take a
+ * significant share of the time it takes to run queries that are cheap
+ * otherwise, like fuzzy queries on small indices or auto-completion
+ * queries. A single instance of this class can be shared by many queries,
+ * such as {@link org.apache.lucene.search.FuzzyQuery} and
+ * {@link org.apache.lucene.search.RegexpQuery}, in order to only build
+ * the automata of a given pattern once.
+ * <p>
+ * Keys must implement {@link Object#equals} and {@link Object#hashCode},
+ * and identify the type of the cached value as well as all the parameters
+ * that the value depends on. Values must be immutable. Two threads that
+ * look up the same missing key concurrently may both build the value.
+ *
+ * @lucene.experimental
+ */
+public final class AutomatonCache {
+
+  private final int maxSize;
+  private final Map<Object,Object> cache;
+  // these fields are guarded by this
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  /**
+   * Create a new cache that holds at most {@code maxSize} entries.
+   */
+  public AutomatonCache(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be > 0, got " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.cache = new LinkedHashMap<Object,Object>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object,Object> eldest) {
+        if (size() > AutomatonCache.this.maxSize) {
+          evictionCount++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Return the value that is associated with the given key, calling
+   * {@code builder} and caching its result if it is not cached yet.
+   * The value that is associated with {@code key} must be of type {@code T}.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T get(Object key, Supplier<T> builder) {
+    Objects.requireNonNull(key);
+    synchronized (this) {
+      final Object value = cache.get(key);
+      if (value != null) {
+        hitCount++;
+        return (T) value;
+      }
+      missCount++;
+    }
+    // build outside of the lock, this may be costly
+    final T value = Objects.requireNonNull(builder.get());
+    synchronized (this) {
+      final Object previous = cache.putIfAbsent(key, value);
+      return previous == null ? value : (T) previous;
+    }
+  }
+
+  /** Return the maximum number of entries of this cache. */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /** Return the number of entries in this cache. */
+  public synchronized int getCacheSize() {
+    return cache.size();
+  }
+
+  /** Return the number of lookups that found a cached value. */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /** Return the number of lookups that had to build the value. */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /** Return the number of entries that have been evicted to stay under the maximum size. */
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /** Remove all entries from this cache. Statistics are not reset. */
+  public synchronized void clear() {
+    cache.clear();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "AutomatonCache(maxSize=" + maxSize + ",size=" + cache.size() + ",hits=" + hitCount
+        + ",misses=" + missCount + ",evictions=" + evictionCount + ")";
+  }
+}
@@ -21,7 +21,11 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.codecs.Codec;
@@ -49,6 +53,7 @@ import org.apache.lucene.store.MockDirectoryWrapper;
 import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.TestUtil;
 
 public class TestAddIndexes extends LuceneTestCase {
@@ -1238,6 +1243,111 @@ public class TestAddIndexes extends LuceneTestCase {
     d1.close();
   }
 
+  public void testConcurrentAddIndexes() throws Exception {
+    final int numSources = TestUtil.nextInt(random(), 2, 6);
+    final List<Directory> sources = new ArrayList<>();
+    final List<DirectoryReader> readers = new ArrayList<>();
+    final List<CodecReader> leaves = new ArrayList<>();
+    int numDocs = 0;
+    for (int i = 0; i < numSources; ++i) {
+      Directory src = newDirectory();
+      RandomIndexWriter w = new RandomIndexWriter(random(), src);
+      final int numSourceDocs = atLeast(10);
+      for (int j = 0; j < numSourceDocs; ++j) {
+        Document doc = new Document();
+        doc.add(new StringField("id", Integer.toString(numDocs++), Field.Store.YES));
+        doc.add(new NumericDocValuesField("dv", j));
+        doc.add(new IntPoint("point", j));
+        w.addDocument(doc);
+      }
+      DirectoryReader reader = w.getReader();
+      w.close();
+      sources.add(src);
+      readers.add(reader);
+      for (LeafReaderContext ctx : reader.leaves()) {
+        leaves.add((CodecReader) ctx.reader());
+      }
+    }
+
+    final int maxSegmentCount = TestUtil.nextInt(random(), 1, 4);
+    final ExecutorService executor = random().nextBoolean() ? null
+        : Executors.newFixedThreadPool(TestUtil.nextInt(random(), 1, 3), new NamedThreadFactory("TestAddIndexes"));
+    Directory dest = newDirectory();
+    IndexWriter w = new IndexWriter(dest, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+    try {
+      w.addIndexes(executor, maxSegmentCount, leaves.toArray(new CodecReader[0]));
+    } finally {
+      if (executor != null) {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+      }
+    }
+    w.commit();
+
+    DirectoryReader reader = DirectoryReader.open(dest);
+    assertEquals(Math.min(maxSegmentCount, leaves.size()), reader.leaves().size());
+    assertEquals(numDocs, reader.numDocs());
+    for (int i = 0; i < numDocs; ++i) {
+      assertEquals(1, reader.docFreq(new Term("id", Integer.toString(i))));
+    }
+    reader.close();
+    w.close();
+
+    IOUtils.close(readers);
+    IOUtils.close(sources);
+    dest.close();
+  }
+
+  public void testGroupReaders() throws Exception {
+    int[] sizes = new int[] {10, 1, 4, 3, 2};
+    List<Directory> dirs = new ArrayList<>();
+    List<DirectoryReader> directoryReaders = new ArrayList<>();
+    CodecReader[] readers = new CodecReader[sizes.length];
+    for (int i = 0; i < readers.length; ++i) {
+      Directory dir = newDirectory();
+      IndexWriter w = new IndexWriter(dir, new IndexWriterConfig(new MockAnalyzer(random())));
+      for (int j = 0; j < sizes[i]; ++j) {
+        w.addDocument(new Document());
+      }
+      DirectoryReader reader = DirectoryReader.open(w);
+      w.close();
+      dirs.add(dir);
+      directoryReaders.add(reader);
+      readers[i] = (CodecReader) getOnlyLeafReader(reader);
+    }
+
+    List<List<CodecReader>> groups = IndexWriter.groupReaders(readers, 1);
+    assertEquals(1, groups.size());
+    assertEquals(Arrays.asList(readers), groups.get(0));
+
+    groups = IndexWriter.groupReaders(readers, 2);
+    assertEquals(2, groups.size());
+    assertEquals(Arrays.asList(readers[0]), groups.get(0));
+    assertEquals(Arrays.asList(readers[1], readers[2], readers[3], readers[4]), groups.get(1));
+
+    groups = IndexWriter.groupReaders(readers, 3);
+    assertEquals(3, groups.size());
+    assertEquals(Arrays.asList(readers[0]), groups.get(0));
+    assertEquals(Arrays.asList(readers[1], readers[2]), groups.get(1));
+    assertEquals(Arrays.asList(readers[3], readers[4]), groups.get(2));
+
+    groups = IndexWriter.groupReaders(readers, 10);
+    assertEquals(5, groups.size());
+
+    IOUtils.close(directoryReaders);
+    IOUtils.close(dirs);
+  }
+
+  public void testIllegalMaxSegmentCount() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+        () -> w.addIndexes(null, 0, new CodecReader[0]));
+    assertEquals("maxSegmentCount must be >= 1, got 0", e.getMessage());
+    w.close();
+    dir.close();
+  }
+
   // Currently it's impossible to end up with a segment with all documents
   // deleted, as such segments are dropped. Still, to validate that addIndexes
   // works with such segments, or readers that end up in such state, we fake an
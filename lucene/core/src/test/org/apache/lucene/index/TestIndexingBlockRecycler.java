@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.ByteBlockPool;
+import org.apache.lucene.util.Counter;
+import org.apache.lucene.util.IntBlockPool;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestIndexingBlockRecycler extends LuceneTestCase {
+
+  public void testReuseBlocks() {
+    IndexingBlockRecycler recycler = new IndexingBlockRecycler(2 * ByteBlockPool.BYTE_BLOCK_SIZE);
+    Counter bytesUsed = Counter.newCounter();
+    ByteBlockPool.Allocator allocator = recycler.newByteBlockAllocator(bytesUsed);
+    byte[][] blocks = new byte[3][];
+    for (int i = 0; i < blocks.length; ++i) {
+      blocks[i] = allocator.getByteBlock();
+      blocks[i][0] = 42;
+    }
+    assertEquals(3 * ByteBlockPool.BYTE_BLOCK_SIZE, bytesUsed.get());
+    byte[][] allocated = blocks.clone();
+    allocator.recycleByteBlocks(blocks, 0, blocks.length);
+    assertEquals(0, bytesUsed.get());
+    assertNull(blocks[0]);
+    // only two blocks fit in the recycler
+    assertEquals(2 * ByteBlockPool.BYTE_BLOCK_SIZE, recycler.ramBytesUsed());
+
+    byte[] block = allocator.getByteBlock();
+    assertEquals(ByteBlockPool.BYTE_BLOCK_SIZE, bytesUsed.get());
+    assertEquals(ByteBlockPool.BYTE_BLOCK_SIZE, recycler.ramBytesUsed());
+    assertSame(allocated[1], block);
+    // recycled blocks are zero-filled
+    for (byte b : block) {
+      assertEquals(0, b);
+    }
+  }
+
+  public void testReuseIntBlocks() {
+    final int intBlockBytes = IntBlockPool.INT_BLOCK_SIZE * Integer.BYTES;
+    IndexingBlockRecycler recycler = new IndexingBlockRecycler(intBlockBytes);
+    Counter bytesUsed = Counter.newCounter();
+    IntBlockPool.Allocator allocator = recycler.newIntBlockAllocator(bytesUsed);
+    int[][] blocks = new int[][] { allocator.getIntBlock() };
+    int[] first = blocks[0];
+    first[3] = 7;
+    assertEquals(intBlockBytes, bytesUsed.get());
+    allocator.recycleIntBlocks(blocks, 0, 1);
+    assertEquals(0, bytesUsed.get());
+    assertEquals(intBlockBytes, recycler.ramBytesUsed());
+    int[] block = allocator.getIntBlock();
+    assertSame(first, block);
+    assertEquals(0, block[3]);
+    assertEquals(0, recycler.ramBytesUsed());
+  }
+
+  public void testIllegalMaxBytes() {
+    expectThrows(IllegalArgumentException.class, () -> new IndexingBlockRecycler(0));
+    expectThrows(IllegalArgumentException.class, () -> new IndexWriterConfig().setMaxRecycledBufferMB(-1));
+    expectThrows(IllegalArgumentException.class, () -> new IndexWriterConfig().setMaxRecycledBufferMB(2048));
+  }
+
+  public void testIndexWithRecycledBlocks() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setMaxBufferedDocs(TestUtil.nextInt(random(), 2, 20));
+    iwc.setMaxRecycledBufferMB(4);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    FieldType vectorsType = new FieldType(TextField.TYPE_NOT_STORED);
+    vectorsType.setStoreTermVectors(true);
+    vectorsType.setStoreTermVectorPositions(true);
+    final int numDocs = atLeast(200);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+      doc.add(new TextField("body", "doc " + (i % 7) + " " + TestUtil.randomSimpleString(random()), Field.Store.NO));
+      doc.add(new Field("vectors", "some text " + (i % 3), vectorsType));
+      w.addDocument(doc);
+    }
+    assertTrue(w.docWriter.blockRecycler.ramBytesUsed() > 0);
+    assertTrue(w.docWriter.blockRecycler.ramBytesUsed() <= 4 * 1024 * 1024);
+
+    DirectoryReader reader = DirectoryReader.open(w);
+    w.close();
+    IndexSearcher searcher = newSearcher(reader);
+    assertEquals(numDocs, reader.numDocs());
+    for (int i = 0; i < 7; ++i) {
+      assertEquals((numDocs - i + 6) / 7, searcher.count(new TermQuery(new Term("body", Integer.toString(i)))));
+    }
+    for (int i = 0; i < numDocs; i += 13) {
+      assertEquals(1, searcher.count(new TermQuery(new Term("id", Integer.toString(i)))));
+    }
+    reader.close();
+    dir.close();
+  }
+}
@@ -20,6 +20,7 @@ package org.apache.lucene.index;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.HashMap;
+import java.util.Locale;
 
 import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.document.Document;
@@ -96,4 +97,46 @@ public class TestOrdinalMap extends LuceneTestCase {
     dir.close();
   }
 
+  public void testNearIdentity() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig cfg = new IndexWriterConfig(new MockAnalyzer(random()))
+        .setMergePolicy(NoMergePolicy.INSTANCE)
+        .setCodec(TestUtil.alwaysDocValuesFormat(TestUtil.getDefaultDocValuesFormat()));
+    IndexWriter iw = new IndexWriter(dir, cfg);
+    // a large segment that has most terms
+    final int numTerms = atLeast(10000);
+    for (int i = 0; i < numTerms; ++i) {
+      Document d = new Document();
+      d.add(new SortedDocValuesField("sdv", new BytesRef(String.format(Locale.ROOT, "%06d", 2 * i))));
+      iw.addDocument(d);
+    }
+    iw.commit();
+    // small segments with a few more terms, or the same terms
+    final int numSmallSegments = TestUtil.nextInt(random(), 1, 3);
+    for (int s = 0; s < numSmallSegments; ++s) {
+      final int numDocs = TestUtil.nextInt(random(), 1, 5);
+      for (int i = 0; i < numDocs; ++i) {
+        Document d = new Document();
+        d.add(new SortedDocValuesField("sdv", new BytesRef(String.format(Locale.ROOT, "%06d", random().nextInt(2 * numTerms)))));
+        iw.addDocument(d);
+      }
+      iw.commit();
+    }
+    DirectoryReader r = DirectoryReader.open(iw);
+    SortedDocValues sdv = MultiDocValues.getSortedValues(r, "sdv");
+    assertTrue(sdv instanceof MultiDocValues.MultiSortedDocValues);
+    OrdinalMap map = ((MultiDocValues.MultiSortedDocValues) sdv).mapping;
+    assertEquals(RamUsageTester.sizeOf(map, ORDINAL_MAP_ACCUMULATOR), map.ramBytesUsed());
+    for (LeafReaderContext context : r.leaves()) {
+      SortedDocValues values = context.reader().getSortedDocValues("sdv");
+      LongValues globalOrds = map.getGlobalOrds(context.ord);
+      for (int ord = 0; ord < values.getValueCount(); ++ord) {
+        assertEquals(values.lookupOrd(ord), sdv.lookupOrd((int) globalOrds.get(ord)));
+      }
+    }
+    iw.close();
+    r.close();
+    dir.close();
+  }
+
 }
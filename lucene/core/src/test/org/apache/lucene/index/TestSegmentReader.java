@@ -23,6 +23,9 @@ import java.util.HashSet;
 import java.util.List;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.TextField;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
@@ -222,4 +225,67 @@ public class TestSegmentReader extends LuceneTestCase {
       reader.getTermVectors(numDocs);
     });    
   }
+
+  public void testLazyNormsAndPoints() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig().setUseCompoundFile(true);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    Document doc = new Document();
+    doc.add(new TextField("body", "some text", Store.NO));
+    doc.add(new IntPoint("int", 42));
+    w.addDocument(doc);
+    w.commit();
+    w.close();
+
+    DirectoryReader reader = DirectoryReader.open(dir);
+    SegmentReader segmentReader = (SegmentReader) getOnlyLeafReader(reader);
+    assertTrue(segmentReader.getSegmentInfo().info.getUseCompoundFile());
+    assertTrue(segmentReader.getNormsReader() instanceof LazyNormsProducer);
+    assertTrue(segmentReader.getPointsReader() instanceof LazyPointsReader);
+    // nothing is loaded yet
+    assertEquals(0, segmentReader.getNormsReader().ramBytesUsed());
+    assertEquals(0, segmentReader.getPointsReader().ramBytesUsed());
+
+    // producers may be opened concurrently
+    Thread[] threads = new Thread[TestUtil.nextInt(random(), 2, 5)];
+    for (int i = 0; i < threads.length; ++i) {
+      threads[i] = new Thread(() -> {
+        try {
+          NumericDocValues norms = segmentReader.getNormValues("body");
+          assertEquals(0, norms.nextDoc());
+          assertEquals(1, segmentReader.getPointValues("int").size());
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    segmentReader.checkIntegrity();
+    reader.close();
+    dir.close();
+  }
+
+  public void testEagerNormsAndPointsWithoutCompoundFile() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig().setUseCompoundFile(false);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    Document doc = new Document();
+    doc.add(new TextField("body", "some text", Store.NO));
+    doc.add(new IntPoint("int", 42));
+    w.addDocument(doc);
+    w.commit();
+    // files of non-compound segments could be deleted before they are opened
+    DirectoryReader reader = DirectoryReader.open(dir);
+    SegmentReader segmentReader = (SegmentReader) getOnlyLeafReader(reader);
+    assertFalse(segmentReader.getNormsReader() instanceof LazyNormsProducer);
+    assertFalse(segmentReader.getPointsReader() instanceof LazyPointsReader);
+    w.close();
+    reader.close();
+    dir.close();
+  }
 }
@@ -19,6 +19,7 @@ package org.apache.lucene.index;
 
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -29,6 +30,7 @@ import org.apache.lucene.document.StringField;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LuceneTestCase;
 
@@ -196,4 +198,128 @@ public class TestSoftDeletesDirectoryReaderWrapper extends LuceneTestCase {
     assertEquals(1, leafCalled.get());
     IOUtils.close(reader, writer, dir);
   }
+
+  private static void assertSameLiveDocs(DirectoryReader expected, DirectoryReader actual) {
+    assertEquals(expected.maxDoc(), actual.maxDoc());
+    assertEquals(expected.numDocs(), actual.numDocs());
+    List<LeafReaderContext> expectedLeaves = expected.leaves();
+    List<LeafReaderContext> actualLeaves = actual.leaves();
+    assertEquals(expectedLeaves.size(), actualLeaves.size());
+    for (int i = 0; i < expectedLeaves.size(); ++i) {
+      LeafReader expectedLeaf = expectedLeaves.get(i).reader();
+      LeafReader actualLeaf = actualLeaves.get(i).reader();
+      assertEquals(expectedLeaf.numDocs(), actualLeaf.numDocs());
+      Bits expectedLiveDocs = expectedLeaf.getLiveDocs();
+      Bits actualLiveDocs = actualLeaf.getLiveDocs();
+      for (int doc = 0; doc < expectedLeaf.maxDoc(); ++doc) {
+        assertEquals(expectedLiveDocs == null || expectedLiveDocs.get(doc),
+            actualLiveDocs == null || actualLiveDocs.get(doc));
+      }
+    }
+  }
+
+  public void testIncrementalReopen() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig indexWriterConfig = newIndexWriterConfig();
+    String softDeletesField = "soft_delete";
+    indexWriterConfig.setSoftDeletesField(softDeletesField);
+    indexWriterConfig.setMergePolicy(NoMergePolicy.INSTANCE);
+    // keep all commits so that we can also reopen on older commits
+    indexWriterConfig.setIndexDeletionPolicy(NoDeletionPolicy.INSTANCE);
+    IndexWriter writer = new IndexWriter(dir, indexWriterConfig);
+    int numIds = atLeast(50);
+    for (int i = 0; i < numIds; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+      writer.addDocument(doc);
+    }
+    writer.commit();
+
+    DirectoryReader reader = new SoftDeletesDirectoryReaderWrapper(DirectoryReader.open(dir), softDeletesField);
+    int numIters = atLeast(10);
+    for (int iter = 0; iter < numIters; ++iter) {
+      int numUpdates = random().nextInt(10);
+      for (int i = 0; i < numUpdates; ++i) {
+        Term id = new Term("id", Integer.toString(random().nextInt(numIds)));
+        if (random().nextInt(5) == 0) {
+          writer.deleteDocuments(id);
+        } else {
+          Document doc = new Document();
+          doc.add(new StringField("id", id.text(), Field.Store.YES));
+          writer.softUpdateDocument(id, doc, new NumericDocValuesField(softDeletesField, 1));
+        }
+      }
+      writer.commit();
+
+      DirectoryReader newReader;
+      DirectoryReader expected;
+      if (random().nextInt(5) == 0) {
+        // older commits have fewer deletes
+        List<IndexCommit> commits = DirectoryReader.listCommits(dir);
+        IndexCommit commit = commits.get(random().nextInt(commits.size()));
+        newReader = DirectoryReader.openIfChanged(reader, commit);
+        expected = new SoftDeletesDirectoryReaderWrapper(DirectoryReader.open(commit), softDeletesField);
+      } else {
+        newReader = DirectoryReader.openIfChanged(reader);
+        expected = new SoftDeletesDirectoryReaderWrapper(DirectoryReader.open(dir), softDeletesField);
+      }
+      if (newReader != null) {
+        reader.close();
+        reader = newReader;
+      }
+      assertSameLiveDocs(expected, reader);
+      expected.close();
+    }
+    IOUtils.close(reader, writer, dir);
+  }
+
+  public void testIncrementalReopenAfterRollback() throws IOException {
+    Directory dir = newDirectory();
+    String softDeletesField = "soft_delete";
+    IndexWriterConfig indexWriterConfig = newIndexWriterConfig();
+    indexWriterConfig.setSoftDeletesField(softDeletesField);
+    indexWriterConfig.setMergePolicy(NoMergePolicy.INSTANCE);
+    IndexWriter writer = new IndexWriter(dir, indexWriterConfig);
+    for (int i = 0; i < 10; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+      writer.addDocument(doc);
+    }
+    Document doc = new Document();
+    doc.add(new StringField("id", "0", Field.Store.YES));
+    writer.softUpdateDocument(new Term("id", "0"), doc, new NumericDocValuesField(softDeletesField, 1));
+    writer.commit();
+
+    // the NRT reader sees a hard delete that is never committed
+    writer.deleteDocuments(new Term("id", "5"));
+    DirectoryReader reader = new SoftDeletesDirectoryReaderWrapper(DirectoryReader.open(writer), softDeletesField);
+    assertEquals(0, new IndexSearcher(reader).count(new TermQuery(new Term("id", "5"))));
+    writer.rollback();
+
+    indexWriterConfig = newIndexWriterConfig();
+    indexWriterConfig.setSoftDeletesField(softDeletesField);
+    indexWriterConfig.setMergePolicy(NoMergePolicy.INSTANCE);
+    writer = new IndexWriter(dir, indexWriterConfig);
+    // as many deletes as the NRT reader, which also counts the soft delete
+    writer.deleteDocuments(new Term("id", "7"), new Term("id", "8"));
+    if (random().nextBoolean()) {
+      doc = new Document();
+      doc.add(new StringField("id", "3", Field.Store.YES));
+      writer.softUpdateDocument(new Term("id", "3"), doc, new NumericDocValuesField(softDeletesField, 1));
+    }
+    writer.commit();
+
+    List<IndexCommit> commits = DirectoryReader.listCommits(dir);
+    DirectoryReader newReader = DirectoryReader.openIfChanged(reader, commits.get(commits.size() - 1));
+    assertNotNull(newReader);
+    reader.close();
+    reader = newReader;
+    IndexSearcher searcher = new IndexSearcher(reader);
+    assertEquals(1, searcher.count(new TermQuery(new Term("id", "5"))));
+    assertEquals(0, searcher.count(new TermQuery(new Term("id", "7"))));
+    assertEquals(0, searcher.count(new TermQuery(new Term("id", "8"))));
+    DirectoryReader expected = new SoftDeletesDirectoryReaderWrapper(DirectoryReader.open(dir), softDeletesField);
+    assertSameLiveDocs(expected, reader);
+    IOUtils.close(expected, reader, writer, dir);
+  }
 }
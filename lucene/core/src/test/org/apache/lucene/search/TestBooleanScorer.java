@@ -18,7 +18,9 @@ package org.apache.lucene.search;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.lucene.document.Document;
@@ -284,4 +286,106 @@ public class TestBooleanScorer extends LuceneTestCase {
     w.close();
     dir.close();
   }
+
+  public void testDocIdStream() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(5000);
+    for (int d = 0; d < numDocs; ++d) {
+      Document doc = new Document();
+      for (String value : Arrays.asList("foo", "bar", "baz")) {
+        if (random().nextInt(3) == 0) {
+          doc.add(new StringField("field", value, Store.NO));
+        }
+      }
+      w.addDocument(doc);
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+    IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setQueryCache(null);
+
+    for (int minShouldMatch = 1; minShouldMatch <= 2; ++minShouldMatch) {
+      Query query = new BooleanQuery.Builder()
+          .add(new TermQuery(new Term("field", "foo")), Occur.SHOULD)
+          .add(new BoostQuery(new TermQuery(new Term("field", "bar")), 2), Occur.SHOULD)
+          .add(new TermQuery(new Term("field", "baz")), Occur.SHOULD)
+          .setMinimumNumberShouldMatch(minShouldMatch)
+          .build();
+      BooleanWeight weight = (BooleanWeight) searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE, 1);
+      for (LeafReaderContext ctx : reader.leaves()) {
+        if (weight.optionalBulkScorer(ctx) instanceof BooleanScorer == false) {
+          continue;
+        }
+        // collect one doc at a time
+        List<Integer> expectedDocs = new ArrayList<>();
+        List<Float> expectedScores = new ArrayList<>();
+        BulkScorer scorer = new DefaultBulkScorer(weight.scorer(ctx));
+        scorer.score(new SimpleCollector() {
+          Scorer scorer;
+
+          @Override
+          public void setScorer(Scorer scorer) {
+            this.scorer = scorer;
+          }
+
+          @Override
+          public void collect(int doc) throws IOException {
+            expectedDocs.add(doc);
+            expectedScores.add(scorer.score());
+          }
+
+          @Override
+          public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE;
+          }
+        }, null);
+
+        // collect through streams of doc IDs
+        List<Integer> actualDocs = new ArrayList<>();
+        List<Float> actualScores = new ArrayList<>();
+        scorer = weight.optionalBulkScorer(ctx);
+        scorer.score(new LeafCollector() {
+          Scorer scorer;
+
+          @Override
+          public void setScorer(Scorer scorer) {
+            this.scorer = scorer;
+          }
+
+          @Override
+          public void collect(int doc) throws IOException {
+            actualDocs.add(doc);
+            actualScores.add(scorer.score());
+          }
+
+          @Override
+          public void collect(DocIdStream stream) throws IOException {
+            if (random().nextInt(10) == 0) {
+              // streams may be ignored
+              return;
+            }
+            stream.forEach(doc -> {
+              assertEquals(doc, scorer.docID());
+              actualDocs.add(doc);
+              actualScores.add(scorer.score());
+            });
+          }
+        }, null);
+        assertTrue(expectedDocs.containsAll(actualDocs));
+        for (int i = 0; i < actualDocs.size(); ++i) {
+          int expectedIndex = expectedDocs.indexOf(actualDocs.get(i));
+          assertEquals(expectedScores.get(expectedIndex), actualScores.get(i), 0f);
+        }
+
+        // count
+        TotalHitCountCollector countCollector = new TotalHitCountCollector();
+        weight.optionalBulkScorer(ctx).score(countCollector.getLeafCollector(ctx), null);
+        assertEquals(expectedDocs.size(), countCollector.getTotalHits());
+      }
+    }
+
+    reader.close();
+    dir.close();
+  }
 }
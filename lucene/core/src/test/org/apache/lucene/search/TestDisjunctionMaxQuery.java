@@ -27,7 +27,9 @@ import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
@@ -41,6 +43,7 @@ import org.apache.lucene.search.similarities.Similarity;
 import org.apache.lucene.search.spans.SpanTermQuery;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
 
 /**
  * Test of the DisjunctionMaxQuery.
@@ -548,4 +551,53 @@ public class TestDisjunctionMaxQuery extends LuceneTestCase {
           .println("#" + i + ": " + f.format(score) + " - " + d.get("id"));
     }
   }
+
+  public void testRandomTopScores() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      for (String field : new String[] {"foo", "bar"}) {
+        int numValues = random().nextInt(1 << random().nextInt(5));
+        int start = random().nextInt(10);
+        for (int j = 0; j < numValues; ++j) {
+          doc.add(new StringField(field, Integer.toString(start + j), Store.NO));
+        }
+      }
+      w.addDocument(doc);
+    }
+    IndexReader reader = DirectoryReader.open(w);
+    w.close();
+    IndexSearcher searcher = newSearcher(reader);
+
+    for (int iter = 0; iter < 100; ++iter) {
+      int numClauses = TestUtil.nextInt(random(), 2, 5);
+      float tieBreaker = random().nextBoolean() ? 0f : random().nextFloat();
+      Query[] clauses = new Query[numClauses];
+      for (int i = 0; i < numClauses; ++i) {
+        String field = random().nextBoolean() ? "foo" : "bar";
+        Query clause = new TermQuery(new Term(field, Integer.toString(random().nextInt(15))));
+        if (random().nextBoolean()) {
+          clause = new BlockScoreQueryWrapper(clause, TestUtil.nextInt(random(), 2, 8));
+          clause = new AssertingQuery(random(), clause);
+        }
+        if (random().nextInt(4) == 0) {
+          clause = new BoostQuery(clause, 1 + random().nextInt(3));
+        }
+        clauses[i] = clause;
+      }
+      Query query = new DisjunctionMaxQuery(Arrays.asList(clauses), tieBreaker);
+
+      CheckHits.checkTopScores(random(), query, searcher);
+
+      Query filteredQuery = new BooleanQuery.Builder()
+          .add(query, BooleanClause.Occur.MUST)
+          .add(new TermQuery(new Term("foo", Integer.toString(random().nextInt(15)))), BooleanClause.Occur.FILTER)
+          .build();
+      CheckHits.checkTopScores(random(), filteredQuery, searcher);
+    }
+    reader.close();
+    dir.close();
+  }
 }
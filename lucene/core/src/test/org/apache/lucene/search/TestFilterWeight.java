@@ -36,7 +36,7 @@ public class TestFilterWeight extends LuceneTestCase {
       final int modifiers = superClassMethod.getModifiers();
       if (Modifier.isFinal(modifiers)) continue;
       if (Modifier.isStatic(modifiers)) continue;
-      if (Arrays.asList("bulkScorer", "scorerSupplier").contains(superClassMethod.getName())) {
+      if (Arrays.asList("bulkScorer", "scorerSupplier", "count").contains(superClassMethod.getName())) {
         try {
           final Method subClassMethod = subClass.getDeclaredMethod(
               superClassMethod.getName(),
@@ -48,6 +48,8 @@ public class TestFilterWeight extends LuceneTestCase {
            * since as of July 2016 not all deriving classes use the
            * {code}return in.bulkScorer(content);{code}
            * implementation that FilterWeight.bulkScorer would use.
+           * Likewise, it must not override count since deriving
+           * classes may match different documents than the wrapped weight.
            */
           continue;
         }
@@ -32,16 +32,21 @@ import org.apache.lucene.document.Field;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiFields;
 import org.apache.lucene.index.MultiReader;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.similarities.ClassicSimilarity;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.AttributeSource;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.IntsRef;
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.TestUtil;
+import org.apache.lucene.util.automaton.AutomatonCache;
+import org.apache.lucene.util.automaton.CompiledAutomaton;
 import org.apache.lucene.util.automaton.LevenshteinAutomata;
 
 /**
@@ -65,6 +70,48 @@ public class TestFuzzyQuery extends LuceneTestCase {
     directory.close();
   }
 
+  public void testAutomatonCache() throws Exception {
+    Directory directory = newDirectory();
+    RandomIndexWriter writer = new RandomIndexWriter(random(), directory);
+    addDoc("aaaaa", writer);
+    addDoc("aaaab", writer);
+    addDoc("aaabb", writer);
+    IndexReader reader = writer.getReader();
+    IndexSearcher searcher = newSearcher(reader);
+    writer.close();
+
+    AutomatonCache cache = new AutomatonCache(10);
+    for (int i = 0; i < 3; ++i) {
+      FuzzyQuery query = new FuzzyQuery(new Term("field", "aaaaa"), 1, 0, 50, true, cache);
+      assertEquals(2, searcher.search(query, 10).scoreDocs.length);
+    }
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.getCacheSize());
+    assertTrue(cache.getHitCount() >= 2);
+
+    // different parameters use different automata
+    FuzzyQuery query = new FuzzyQuery(new Term("field", "aaaaa"), 2, 0, 50, true, cache);
+    assertEquals(3, searcher.search(query, 10).scoreDocs.length);
+    assertEquals(2, cache.getCacheSize());
+
+    // terms enums do not share the cached automata
+    Terms terms = MultiFields.getTerms(reader, "field");
+    AttributeSource atts1 = new AttributeSource();
+    new FuzzyTermsEnum(terms, atts1, new Term("field", "aaaaa"), 1, 0, true, cache);
+    CompiledAutomaton[] automata1 = atts1.getAttribute(FuzzyTermsEnum.LevenshteinAutomataAttribute.class).automata();
+    AttributeSource atts2 = new AttributeSource();
+    new FuzzyTermsEnum(terms, atts2, new Term("field", "aaaaa"), 1, 0, true, cache);
+    CompiledAutomaton[] automata2 = atts2.getAttribute(FuzzyTermsEnum.LevenshteinAutomataAttribute.class).automata();
+    assertNotSame(automata1, automata2);
+    assertArrayEquals(automata1, automata2);
+    automata1[0] = null;
+    FuzzyQuery query2 = new FuzzyQuery(new Term("field", "aaaaa"), 1, 0, 50, true, cache);
+    assertEquals(2, searcher.search(query2, 10).scoreDocs.length);
+
+    reader.close();
+    directory.close();
+  }
+
   public void testFuzziness() throws Exception {
     Directory directory = newDirectory();
     RandomIndexWriter writer = new RandomIndexWriter(random(), directory);
@@ -1189,6 +1189,78 @@ public class TestLRUQueryCache extends LuceneTestCase {
     dir.close();
   }
 
+  /** Matches all documents, but returns a count of 0 from {@link Weight#count}. */
+  private static class WrongCountQuery extends Query {
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+      return new ConstantScoreWeight(this, boost) {
+        @Override
+        public Scorer scorer(LeafReaderContext context) throws IOException {
+          return new ConstantScoreScorer(this, score(), DocIdSetIterator.all(context.reader().maxDoc()));
+        }
+
+        @Override
+        public int count(LeafReaderContext context) throws IOException {
+          return 0;
+        }
+
+        @Override
+        public boolean isCacheable(LeafReaderContext ctx) {
+          return true;
+        }
+      };
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return sameClassAs(other);
+    }
+
+    @Override
+    public int hashCode() {
+      return classHash();
+    }
+
+    @Override
+    public String toString(String field) {
+      return "WrongCountQuery";
+    }
+  }
+
+  public void testCount() throws IOException {
+    Directory dir = newDirectory();
+    final RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(10);
+    for (int i = 0; i < numDocs; ++i) {
+      w.addDocument(new Document());
+    }
+    final DirectoryReader reader = w.getReader();
+    final IndexSearcher searcher = new IndexSearcher(reader);
+    final LRUQueryCache queryCache = new LRUQueryCache(2, 100000, context -> true);
+    searcher.setQueryCache(queryCache);
+    final Query query = new WrongCountQuery();
+
+    // the query is not cached, so the count comes from Weight#count
+    searcher.setQueryCachingPolicy(NEVER_CACHE);
+    assertEquals(0, searcher.count(query));
+    assertEquals(0, queryCache.getCacheSize());
+
+    // the query should be cached, so matches are iterated in order to cache them
+    searcher.setQueryCachingPolicy(QueryCachingPolicy.ALWAYS_CACHE);
+    assertEquals(numDocs, searcher.count(query));
+    assertEquals(Collections.singletonList(query), queryCache.cachedQueries());
+    assertEquals(0, queryCache.getHitCount());
+
+    // then counted from the cache
+    assertEquals(numDocs, searcher.count(query));
+    assertEquals(reader.leaves().size(), queryCache.getHitCount());
+
+    reader.close();
+    w.close();
+    dir.close();
+  }
+
   public void testMinSegmentSizePredicate() throws IOException {
     Directory dir = newDirectory();
     IndexWriterConfig iwc = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
@@ -1923,6 +1923,38 @@ public class TestPointQueries extends LuceneTestCase {
     dir.close();
   }
 
+  public void testRangeOutsideOfSegmentValues() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    for (int i = 0; i < 10; ++i) {
+      Document doc = new Document();
+      doc.add(new LongPoint("value", 100 + i));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    IndexReader r = DirectoryReader.open(w);
+    w.close();
+    IndexSearcher s = newSearcher(r, false);
+    LeafReaderContext ctx = r.leaves().get(0);
+
+    for (Query q : new Query[] {
+        LongPoint.newRangeQuery("value", 0, 99),
+        LongPoint.newRangeQuery("value", 110, 200),
+        LongPoint.newExactQuery("value", 50)}) {
+      Weight weight = s.createWeight(s.rewrite(q), ScoreMode.COMPLETE_NO_SCORES, 1f);
+      assertNull(weight.scorerSupplier(ctx));
+      assertEquals(0, s.count(q));
+    }
+
+    Query q = LongPoint.newRangeQuery("value", 0, 100);
+    Weight weight = s.createWeight(s.rewrite(q), ScoreMode.COMPLETE_NO_SCORES, 1f);
+    assertNotNull(weight.scorerSupplier(ctx));
+    assertEquals(1, s.count(q));
+
+    r.close();
+    dir.close();
+  }
+
   public void testPointRangeEquals() {
     Query q1, q2;
 
@@ -29,6 +29,7 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.automaton.Automata;
 import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.AutomatonCache;
 import org.apache.lucene.util.automaton.AutomatonProvider;
 import org.apache.lucene.util.automaton.Operations;
 import org.apache.lucene.util.automaton.RegExp;
@@ -73,6 +74,26 @@ public class TestRegexpQuery extends LuceneTestCase {
     return searcher.search(query, 5).totalHits;
   }
   
+  public void testAutomatonCache() throws IOException {
+    AutomatonCache cache = new AutomatonCache(10);
+    RegexpQuery q1 = new RegexpQuery(newTerm("q.[aeiou]c.*"), RegExp.ALL, DEFAULT_MAX_DETERMINIZED_STATES, cache);
+    RegexpQuery q2 = new RegexpQuery(newTerm("q.[aeiou]c.*"), RegExp.ALL, DEFAULT_MAX_DETERMINIZED_STATES, cache);
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(q1, q2);
+    assertEquals(new RegexpQuery(newTerm("q.[aeiou]c.*")), q1);
+    assertEquals(1, searcher.search(q1, 5).totalHits);
+    assertEquals(1, searcher.search(q2, 5).totalHits);
+    // a different field shares the compiled automaton
+    RegexpQuery q3 = new RegexpQuery(new Term("other", "q.[aeiou]c.*"), RegExp.ALL, DEFAULT_MAX_DETERMINIZED_STATES, cache);
+    assertEquals(2, cache.getHitCount());
+    assertFalse(q1.equals(q3));
+    // no cache
+    RegexpQuery q4 = new RegexpQuery(newTerm("q.[aeiou]c.*"), RegExp.ALL, DEFAULT_MAX_DETERMINIZED_STATES, null);
+    assertEquals(q1, q4);
+    assertEquals(1, searcher.search(q4, 5).totalHits);
+  }
+
   public void testRegex1() throws IOException {
     assertEquals(1, regexQueryNrHits("q.[aeiou]c.*"));
   }
@@ -31,6 +31,9 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.LuceneTestCase;
 
@@ -121,6 +124,38 @@ public class TestTermRangeQuery extends LuceneTestCase {
     reader.close();
   }
 
+  public void testRangeOutsideOfTerms() throws Exception {
+    initializeIndex(new String[]{"C", "D", "E"});
+    IndexReader reader = DirectoryReader.open(dir);
+    IndexSearcher searcher = newSearcher(reader);
+    Terms terms = MultiFields.getTerms(reader, "content");
+
+    TermRangeQuery query = TermRangeQuery.newStringRange("content", "A", "B", true, true);
+    assertSame(TermsEnum.EMPTY, query.getTermsEnum(terms));
+    assertEquals(0, searcher.count(query));
+
+    query = TermRangeQuery.newStringRange("content", "F", "Z", true, true);
+    assertSame(TermsEnum.EMPTY, query.getTermsEnum(terms));
+    assertEquals(0, searcher.count(query));
+
+    query = TermRangeQuery.newStringRange("content", "A", "C", true, false);
+    assertSame(TermsEnum.EMPTY, query.getTermsEnum(terms));
+    assertEquals(0, searcher.count(query));
+
+    query = TermRangeQuery.newStringRange("content", "E", null, false, true);
+    assertSame(TermsEnum.EMPTY, query.getTermsEnum(terms));
+    assertEquals(0, searcher.count(query));
+
+    query = TermRangeQuery.newStringRange("content", "A", "C", true, true);
+    assertNotSame(TermsEnum.EMPTY, query.getTermsEnum(terms));
+    assertEquals(1, searcher.count(query));
+
+    query = TermRangeQuery.newStringRange("content", "E", null, true, true);
+    assertNotSame(TermsEnum.EMPTY, query.getTermsEnum(terms));
+    assertEquals(1, searcher.count(query));
+    reader.close();
+  }
+
   /** This test should not be here, but it tests the fuzzy query rewrite mode (TOP_TERMS_SCORING_BOOLEAN_REWRITE)
    * with constant score and checks, that only the lower end of terms is put into the range */
   public void testTopTermsRewrite() throws Exception {
@@ -21,14 +21,19 @@ import java.io.IOException;
 import java.util.Arrays;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
 
 public class TestTopDocsCollector extends LuceneTestCase {
 
@@ -406,4 +411,115 @@ public class TestTopDocsCollector extends LuceneTestCase {
     dir.close();
   }
 
+
+  public void testTotalHitsThreshold() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+    Document doc = new Document();
+    w.addDocuments(Arrays.asList(doc, doc, doc, doc, doc));
+    w.flush();
+    w.addDocuments(Arrays.asList(doc, doc));
+    w.flush();
+    IndexReader reader = DirectoryReader.open(w);
+    assertEquals(2, reader.leaves().size());
+    w.close();
+
+    TopScoreDocCollector collector = TopScoreDocCollector.create(2, null, 3);
+    assertEquals(ScoreMode.TOP_SCORES, collector.scoreMode());
+    FakeScorer scorer = new FakeScorer();
+
+    LeafCollector leafCollector = collector.getLeafCollector(reader.leaves().get(0));
+    leafCollector.setScorer(scorer);
+    assertNull(scorer.minCompetitiveScore);
+
+    scorer.doc = 0;
+    scorer.score = 1;
+    leafCollector.collect(0);
+    assertNull(scorer.minCompetitiveScore);
+
+    scorer.doc = 1;
+    scorer.score = 2;
+    leafCollector.collect(1);
+    // the queue is full but the threshold is not reached yet
+    assertNull(scorer.minCompetitiveScore);
+
+    scorer.doc = 2;
+    scorer.score = 0.5f;
+    leafCollector.collect(2);
+    assertNull(scorer.minCompetitiveScore);
+    assertEquals(TopDocs.TotalHitsRelation.EQUAL_TO, collector.getTotalHitsRelation());
+
+    scorer.doc = 3;
+    scorer.score = 0.5f;
+    leafCollector.collect(3);
+    // more than 3 hits, even non-competitive hits trigger skipping
+    assertEquals(Math.nextUp(1f), scorer.minCompetitiveScore, 0f);
+    assertEquals(TopDocs.TotalHitsRelation.GREATER_THAN_OR_EQUAL_TO, collector.getTotalHitsRelation());
+
+    scorer.doc = 4;
+    scorer.score = 4;
+    leafCollector.collect(4);
+    assertEquals(Math.nextUp(2f), scorer.minCompetitiveScore, 0f);
+
+    // Make sure the min score is set on scorers on new segments
+    scorer = new FakeScorer();
+    leafCollector = collector.getLeafCollector(reader.leaves().get(1));
+    leafCollector.setScorer(scorer);
+    assertEquals(Math.nextUp(2f), scorer.minCompetitiveScore, 0f);
+
+    TopDocs topDocs = collector.topDocs();
+    assertEquals(5, topDocs.totalHits);
+    assertEquals(TopDocs.TotalHitsRelation.GREATER_THAN_OR_EQUAL_TO, topDocs.totalHitsRelation);
+
+    collector = TopScoreDocCollector.create(2, null, Integer.MAX_VALUE);
+    assertEquals(ScoreMode.COMPLETE, collector.scoreMode());
+    expectThrows(IllegalArgumentException.class, () -> TopScoreDocCollector.create(2, null, -1));
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testRandomTotalHitsThreshold() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      for (int j = random().nextInt(4); j >= 0; --j) {
+        doc.add(new StringField("f", Integer.toString(random().nextInt(5)), Store.NO));
+      }
+      w.addDocument(doc);
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+    IndexSearcher searcher = newSearcher(reader);
+
+    for (int iter = 0; iter < 20; ++iter) {
+      Query query = new BooleanQuery.Builder()
+          .add(new TermQuery(new Term("f", Integer.toString(random().nextInt(5)))), Occur.SHOULD)
+          .add(new TermQuery(new Term("f", Integer.toString(random().nextInt(5)))), Occur.SHOULD)
+          .build();
+      int numHits = TestUtil.nextInt(random(), 1, 20);
+      int threshold = random().nextInt(numDocs);
+
+      TopScoreDocCollector exactCollector = TopScoreDocCollector.create(numHits, null, Integer.MAX_VALUE);
+      searcher.search(query, exactCollector);
+      TopDocs exact = exactCollector.topDocs();
+      assertEquals(TopDocs.TotalHitsRelation.EQUAL_TO, exact.totalHitsRelation);
+
+      TopScoreDocCollector collector = TopScoreDocCollector.create(numHits, null, threshold);
+      searcher.search(query, collector);
+      TopDocs topDocs = collector.topDocs();
+
+      CheckHits.checkEqual(query, exact.scoreDocs, topDocs.scoreDocs);
+      assertTrue(topDocs.totalHits <= exact.totalHits);
+      assertTrue(topDocs.totalHits >= Math.min(threshold, exact.totalHits));
+      if (topDocs.totalHitsRelation == TopDocs.TotalHitsRelation.EQUAL_TO) {
+        assertEquals(exact.totalHits, topDocs.totalHits);
+      }
+    }
+
+    reader.close();
+    dir.close();
+  }
 }
@@ -17,11 +17,17 @@
 package org.apache.lucene.search;
 
 
+import java.io.IOException;
+
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.LuceneTestCase;
 
@@ -46,4 +52,114 @@ public class TestTotalHitCountCollector extends LuceneTestCase {
     reader.close();
     indexStore.close();
   }
+
+  public void testWeightCount() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(200);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Field.Store.NO));
+      if (random().nextInt(5) != 0) {
+        doc.add(new StringField("string", random().nextBoolean() ? "a" : "b", Field.Store.NO));
+      }
+      if (random().nextInt(10) != 0) {
+        doc.add(new IntPoint("int", random().nextInt(100)));
+      }
+      if (random().nextBoolean()) {
+        doc.add(new NumericDocValuesField("dv", i));
+      }
+      w.addDocument(doc);
+    }
+    if (random().nextBoolean()) {
+      for (int i = random().nextInt(10); i >= 0; --i) {
+        w.deleteDocuments(new Term("id", Integer.toString(random().nextInt(numDocs))));
+      }
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+    IndexSearcher searcher = newSearcher(reader);
+
+    Query[] queries = new Query[] {
+        new MatchAllDocsQuery(),
+        new TermQuery(new Term("string", "a")),
+        new TermQuery(new Term("string", "c")),
+        new ConstantScoreQuery(new TermQuery(new Term("string", "b"))),
+        IntPoint.newRangeQuery("int", 0, 99),
+        IntPoint.newRangeQuery("int", 10, 50),
+        IntPoint.newRangeQuery("int", 200, 300),
+        new DocValuesFieldExistsQuery("dv"),
+        new DocValuesFieldExistsQuery("string"),
+    };
+    for (Query query : queries) {
+      final int expected = slowCount(searcher, query);
+      TotalHitCountCollector collector = new TotalHitCountCollector();
+      searcher.search(query, collector);
+      assertEquals(query.toString(), expected, collector.getTotalHits());
+      assertEquals(query.toString(), expected, searcher.count(query));
+
+      Weight weight = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1);
+      for (LeafReaderContext ctx : reader.leaves()) {
+        int count = weight.count(ctx);
+        if (count != -1) {
+          assertEquals(query.toString(), slowCount(weight, ctx), count);
+        }
+      }
+    }
+
+    // fast paths, the query cache would hide them for queries that it decides to cache
+    searcher.setQueryCache(null);
+    Weight weight = searcher.createWeight(new MatchAllDocsQuery(), ScoreMode.COMPLETE_NO_SCORES, 1);
+    for (LeafReaderContext ctx : reader.leaves()) {
+      assertEquals(ctx.reader().numDocs(), weight.count(ctx));
+    }
+    weight = searcher.createWeight(searcher.rewrite(new TermQuery(new Term("string", "a"))), ScoreMode.COMPLETE_NO_SCORES, 1);
+    for (LeafReaderContext ctx : reader.leaves()) {
+      if (ctx.reader().hasDeletions() == false) {
+        assertEquals(ctx.reader().docFreq(new Term("string", "a")), weight.count(ctx));
+      }
+    }
+    weight = searcher.createWeight(IntPoint.newRangeQuery("int", 200, 300), ScoreMode.COMPLETE_NO_SCORES, 1);
+    for (LeafReaderContext ctx : reader.leaves()) {
+      assertEquals(0, weight.count(ctx));
+    }
+    weight = searcher.createWeight(new DocValuesFieldExistsQuery("string"), ScoreMode.COMPLETE_NO_SCORES, 1);
+    for (LeafReaderContext ctx : reader.leaves()) {
+      assertEquals(0, weight.count(ctx));
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  private static int slowCount(IndexSearcher searcher, Query query) throws IOException {
+    int[] count = new int[1];
+    searcher.search(query, new SimpleCollector() {
+      @Override
+      public void collect(int doc) {
+        count[0]++;
+      }
+
+      @Override
+      public ScoreMode scoreMode() {
+        return ScoreMode.COMPLETE_NO_SCORES;
+      }
+    });
+    return count[0];
+  }
+
+  private static int slowCount(Weight weight, LeafReaderContext ctx) throws IOException {
+    Scorer scorer = weight.scorer(ctx);
+    if (scorer == null) {
+      return 0;
+    }
+    int count = 0;
+    DocIdSetIterator it = scorer.iterator();
+    for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+      if (ctx.reader().getLiveDocs() == null || ctx.reader().getLiveDocs().get(doc)) {
+        count++;
+      }
+    }
+    return count;
+  }
 }
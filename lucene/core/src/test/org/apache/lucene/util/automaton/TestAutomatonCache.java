@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.automaton;
+
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.lucene.util.LuceneTestCase;
+
+public class TestAutomatonCache extends LuceneTestCase {
+
+  public void testHitsAndMisses() {
+    AutomatonCache cache = new AutomatonCache(2);
+    AtomicInteger builds = new AtomicInteger();
+    CompiledAutomaton a = cache.get("a", () -> {
+      builds.incrementAndGet();
+      return new CompiledAutomaton(Automata.makeString("a"));
+    });
+    assertSame(a, cache.get("a", () -> {
+      throw new AssertionError("should be cached");
+    }));
+    assertEquals(1, builds.get());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.getCacheSize());
+
+    cache.get("b", () -> new CompiledAutomaton(Automata.makeString("b")));
+    // "a" is the most recently used entry, so "b" is evicted
+    cache.get("a", () -> null);
+    cache.get("c", () -> new CompiledAutomaton(Automata.makeString("c")));
+    assertEquals(2, cache.getCacheSize());
+    assertEquals(1, cache.getEvictionCount());
+    assertSame(a, cache.get("a", () -> null));
+    cache.get("b", () -> new CompiledAutomaton(Automata.makeString("b")));
+    assertEquals(2, cache.getEvictionCount());
+    assertEquals(3, cache.getHitCount());
+    assertEquals(4, cache.getMissCount());
+
+    cache.clear();
+    assertEquals(0, cache.getCacheSize());
+  }
+
+  public void testIllegalMaxSize() {
+    expectThrows(IllegalArgumentException.class, () -> new AutomatonCache(0));
+  }
+
+  public void testConcurrentAccess() throws Exception {
+    AutomatonCache cache = new AutomatonCache(1 + random().nextInt(30));
+    final int numKeys = 20;
+    Thread[] threads = new Thread[4];
+    CountDownLatch start = new CountDownLatch(1);
+    for (int i = 0; i < threads.length; ++i) {
+      threads[i] = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+        for (int iter = 0; iter < 500; ++iter) {
+          String key = Integer.toString(iter % numKeys);
+          CompiledAutomaton compiled = cache.get(key, () -> new CompiledAutomaton(Automata.makeString(key)));
+          assertEquals(key, compiled.term.utf8ToString());
+        }
+      });
+      threads[i].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(threads.length * 500, cache.getHitCount() + cache.getMissCount());
+    assertTrue(cache.getCacheSize() <= cache.getMaxSize());
+  }
+}
@@ -32,11 +32,15 @@ import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
 import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
 import org.apache.lucene.facet.taxonomy.FastTaxonomyFacetCounts;
 import org.apache.lucene.facet.taxonomy.TaxonomyReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.FilterCollector;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MultiCollector;
 import org.apache.lucene.search.MultiCollectorManager;
@@ -48,6 +52,7 @@ import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldCollector;
 import org.apache.lucene.search.TopFieldDocs;
 import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.ThreadInterruptedException;
 
 /**
@@ -330,6 +335,19 @@ public class DrillSideways {
     return false;
   }
 
+  /**
+   * Override this and return true to make searches that
+   * use a {@link CollectorManager} evaluate the base query
+   * only once, collecting drill down and all drill sideways
+   * counts in a single pass over each segment, and searching
+   * segments concurrently using the executor.  By default,
+   * one search is run concurrently per drill down dimension
+   * instead, each evaluating the base query again.
+   */
+  protected boolean searchConcurrentlyInSinglePass() {
+    return false;
+  }
+
   /**
    * Result of a drill sideways search, including the
    * {@link Facets} and {@link TopDocs}.
@@ -399,6 +417,10 @@ public class DrillSideways {
   public <R> ConcurrentDrillSidewaysResult<R> search(final DrillDownQuery query,
           final CollectorManager<?, R> hitCollectorManager) throws IOException {
 
+    if (searchConcurrentlyInSinglePass()) {
+      return searchInSinglePass(query, hitCollectorManager);
+    }
+
     final Map<String, Integer> drillDownDims = query.getDims();
     final List<CallableCollector> callableCollectors = new ArrayList<>(drillDownDims.size() + 1);
 
@@ -443,6 +465,134 @@ public class DrillSideways {
             drillDownDims.keySet().toArray(new String[drillDownDims.size()])), null, collectorResult);
   }
 
+  /**
+   * Searches every segment concurrently with a single {@link DrillSidewaysQuery} whose
+   * drill down and drill sideways collectors dispatch to one {@link FacetsCollector}
+   * per segment, and reduces the per-segment collectors in the end.
+   */
+  private <C extends Collector, R> ConcurrentDrillSidewaysResult<R> searchInSinglePass(final DrillDownQuery query,
+          final CollectorManager<C, R> hitCollectorManager) throws IOException {
+
+    final Map<String, Integer> drillDownDims = query.getDims();
+    final int numDims = drillDownDims.size();
+    final List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+
+    final List<C> hitCollectors = new ArrayList<>(leaves.size());
+    final List<FacetsCollector> drillDownCollectors = new ArrayList<>(leaves.size());
+    final List<List<FacetsCollector>> drillSidewaysCollectors = new ArrayList<>(numDims);
+    for (int dim = 0; dim < numDims; dim++) {
+      drillSidewaysCollectors.add(new ArrayList<>(leaves.size()));
+    }
+    for (int i = 0; i < leaves.size(); i++) {
+      hitCollectors.add(hitCollectorManager.newCollector());
+      drillDownCollectors.add(new FacetsCollector());
+      for (int dim = 0; dim < numDims; dim++) {
+        drillSidewaysCollectors.get(dim).add(new FacetsCollector());
+      }
+    }
+
+    // The collector that receives the hits of each segment
+    final List<Collector> leafCollectors = new ArrayList<>(leaves.size());
+    final Query searchQuery;
+    ScoreMode scoreMode;
+    if (numDims == 0) {
+      // There are no drill-down dims, so there is no
+      // drill-sideways to compute:
+      for (int i = 0; i < leaves.size(); i++) {
+        leafCollectors.add(MultiCollector.wrap(hitCollectors.get(i), drillDownCollectors.get(i)));
+      }
+      searchQuery = query;
+      scoreMode = leafCollectors.isEmpty() ? ScoreMode.COMPLETE : leafCollectors.get(0).scoreMode();
+    } else {
+      leafCollectors.addAll(hitCollectors);
+      Query baseQuery = query.getBaseQuery();
+      if (baseQuery == null) {
+        baseQuery = new MatchAllDocsQuery();
+      }
+      final Collector[] perLeafDrillSidewaysCollectors = new Collector[numDims];
+      for (int dim = 0; dim < numDims; dim++) {
+        perLeafDrillSidewaysCollectors[dim] = new PerLeafCollector(drillSidewaysCollectors.get(dim));
+      }
+      searchQuery = new DrillSidewaysQuery(baseQuery, new PerLeafCollector(drillDownCollectors),
+              perLeafDrillSidewaysCollectors, query.getDrillDownQueries(), scoreSubDocsAtOnce());
+      scoreMode = leafCollectors.isEmpty() ? ScoreMode.COMPLETE : leafCollectors.get(0).scoreMode();
+      if (scoreMode.needsScores() == false) {
+        // make sure IndexSearcher will not attempt to cache the DrillSidewaysQuery
+        scoreMode = ScoreMode.COMPLETE;
+      }
+    }
+
+    final Weight weight = searcher.createWeight(searcher.rewrite(searchQuery), scoreMode, 1);
+    final List<Future<Void>> futures = new ArrayList<>(leaves.size());
+    for (int i = 0; i < leaves.size(); i++) {
+      final LeafReaderContext context = leaves.get(i);
+      final Collector collector = leafCollectors.get(i);
+      collector.setWeight(weight);
+      futures.add(executor.submit(() -> {
+        searchLeaf(context, weight, collector);
+        return null;
+      }));
+    }
+    try {
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      throw new ThreadInterruptedException(e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e);
+    }
+
+    final FacetsCollectorManager facetsCollectorManager = new FacetsCollectorManager();
+    final FacetsCollector mainFacetsCollector = facetsCollectorManager.reduce(drillDownCollectors);
+    final FacetsCollector[] facetsCollectors = new FacetsCollector[numDims];
+    for (int dim = 0; dim < numDims; dim++) {
+      facetsCollectors[dim] = facetsCollectorManager.reduce(drillSidewaysCollectors.get(dim));
+    }
+    final R collectorResult = hitCollectorManager.reduce(hitCollectors);
+
+    return new ConcurrentDrillSidewaysResult<>(buildFacetsResult(mainFacetsCollector, facetsCollectors,
+            drillDownDims.keySet().toArray(new String[numDims])), null, collectorResult);
+  }
+
+  private static void searchLeaf(LeafReaderContext context, Weight weight, Collector collector) throws IOException {
+    final LeafCollector leafCollector;
+    try {
+      leafCollector = collector.getLeafCollector(context);
+    } catch (CollectionTerminatedException e) {
+      // there is no doc of interest in this reader context
+      return;
+    }
+    BulkScorer scorer = weight.bulkScorer(context);
+    if (scorer != null) {
+      try {
+        scorer.score(leafCollector, context.reader().getLiveDocs());
+      } catch (CollectionTerminatedException e) {
+        // collection was terminated prematurely
+      }
+    }
+  }
+
+  /** Collects each segment into its own collector, so that segments can be collected concurrently. */
+  private static class PerLeafCollector implements Collector {
+
+    private final List<? extends Collector> collectors;
+
+    private PerLeafCollector(List<? extends Collector> collectors) {
+      this.collectors = collectors;
+    }
+
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+      return collectors.get(context.ord).getLeafCollector(context);
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+      return collectors.isEmpty() ? ScoreMode.COMPLETE_NO_SCORES : collectors.get(0).scoreMode();
+    }
+  }
+
   /**
    * Result of a concurrent drill sideways search, including the
    * {@link Facets} and {@link TopDocs}.
@@ -38,7 +38,18 @@ import org.apache.lucene.util.FixedBitSet;
  * If you require the original set of hits, you can call
  * {@link #getOriginalMatchingDocs()}. Also, since the counts of the top-facets
  * is based on the sampled set, you can amortize the counts by calling
- * {@link #amortizeFacetCounts}.
+ * {@link #amortizeFacetCounts}, and get the error of the amortized counts by
+ * calling {@link #getErrorBounds}.
+ * <p>
+ * Sampling works with any counting {@link Facets} implementation that consumes
+ * the {@link #getMatchingDocs() matching docs}, e.g. both
+ * {@link org.apache.lucene.facet.taxonomy.FastTaxonomyFacetCounts} and
+ * {@link org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts}.
+ * <p>
+ * The sample size is either fixed, or, when created with
+ * {@link #RandomSamplingFacetsCollector(double, double, long)}, computed from
+ * the number of hits so that the counts of all labels that match at least a
+ * given fraction of the hits are within a target relative error.
  */
 public class RandomSamplingFacetsCollector extends FacetsCollector {
   
@@ -76,9 +87,15 @@ public class RandomSamplingFacetsCollector extends FacetsCollector {
   
   private final static int NOT_CALCULATED = -1;
   
-  private final int sampleSize;
+  /** Two-sided z-score of the 95% confidence level used for error bounds. */
+  public static final double Z_95 = 1.96;
+  
+  private final double maxRelativeError;
+  private final double minFraction;
+  private int sampleSize;
   private final XORShift64Random random;
   
+  private int binSize;
   private double samplingRate;
   private List<MatchingDocs> sampledDocs;
   private int totalHits = NOT_CALCULATED;
@@ -109,10 +126,62 @@ public class RandomSamplingFacetsCollector extends FacetsCollector {
   public RandomSamplingFacetsCollector(int sampleSize, long seed) {
     super(false);
     this.sampleSize = sampleSize;
+    this.maxRelativeError = 0;
+    this.minFraction = 0;
+    this.random = new XORShift64Random(seed);
+    this.sampledDocs = null;
+  }
+  
+  /**
+   * Constructor with an adaptive sample size.
+   * 
+   * @param maxRelativeError
+   *          The target relative error of the amortized counts, at the 95%
+   *          confidence level. For example {@code 0.05} for 5%.
+   * @param minFraction
+   *          The fraction of the hits that a label must at least match for its
+   *          amortized count to be within {@code maxRelativeError}. Labels that
+   *          match fewer hits have larger relative errors.
+   * @param seed
+   *          The random seed. If {@code 0} then a seed will be chosen for you.
+   * @see #computeSampleSize(int, double, double)
+   */
+  public RandomSamplingFacetsCollector(double maxRelativeError, double minFraction, long seed) {
+    super(false);
+    if (maxRelativeError <= 0) {
+      throw new IllegalArgumentException("maxRelativeError must be > 0, got " + maxRelativeError);
+    }
+    if (minFraction <= 0 || minFraction > 1) {
+      throw new IllegalArgumentException("minFraction must be in (0, 1], got " + minFraction);
+    }
+    this.sampleSize = NOT_CALCULATED;
+    this.maxRelativeError = maxRelativeError;
+    this.minFraction = minFraction;
     this.random = new XORShift64Random(seed);
     this.sampledDocs = null;
   }
   
+  /**
+   * Returns the number of hits to sample out of {@code totalHits} so that the
+   * amortized count of a label that matches at least {@code minFraction} of
+   * the hits is within {@code maxRelativeError} of its actual count, at the
+   * 95% confidence level.
+   * <p>
+   * A label matching {@code c} hits has {@code c * rate} sampled hits on
+   * average, with a relative standard error of
+   * {@code sqrt((1 - rate) / (c * rate))}, so the sampling rate must be at
+   * least {@code 1 / (1 + maxRelativeError^2 * c / Z_95^2)}. The sample size
+   * hence stops growing with the number of hits once these are large enough.
+   */
+  public static int computeSampleSize(int totalHits, double maxRelativeError, double minFraction) {
+    if (totalHits <= 0) {
+      return 1;
+    }
+    double minCount = minFraction * totalHits;
+    double rate = 1.0 / (1.0 + maxRelativeError * maxRelativeError * minCount / (Z_95 * Z_95));
+    return (int) Math.max(1, Math.min(totalHits, Math.ceil(rate * totalHits)));
+  }
+  
   /**
    * Returns the sampled list of the matching documents. Note that a
    * {@link FacetsCollector.MatchingDocs} instance is returned per segment, even
@@ -133,6 +202,9 @@ public class RandomSamplingFacetsCollector extends FacetsCollector {
       for (MatchingDocs md : matchingDocs) {
         totalHits += md.totalHits;
       }
+      if (sampleSize == NOT_CALCULATED) {
+        sampleSize = computeSampleSize(totalHits, maxRelativeError, minFraction);
+      }
     }
     
     if (totalHits <= sampleSize) {
@@ -140,7 +212,9 @@ public class RandomSamplingFacetsCollector extends FacetsCollector {
     }
     
     if (sampledDocs == null) {
-      samplingRate = (1.0 * sampleSize) / totalHits;
+      // one doc is sampled per bin of binSize hits, so this is the rate that is actually sampled at
+      binSize = (int) (totalHits / (1.0 * sampleSize));
+      samplingRate = 1.0 / binSize;
       sampledDocs = createSampledDocs(matchingDocs);
     }
     return sampledDocs;
@@ -167,8 +241,6 @@ public class RandomSamplingFacetsCollector extends FacetsCollector {
     // TODO: we could try the WAH8DocIdSet here as well, as the results will be sparse
     FixedBitSet sampleDocs = new FixedBitSet(maxdoc);
     
-    int binSize = (int) (1.0 / samplingRate);
-    
     try {
       int counter = 0;
       int limit, randomIndex;
@@ -256,9 +328,40 @@ public class RandomSamplingFacetsCollector extends FacetsCollector {
     return new FacetResult(res.dim, res.path, correctedTotalCount, fixedLabelValues, res.childCount);
   }
   
+  /**
+   * Returns the half-width of the 95% confidence interval of the count
+   * amortized from {@code sampledCount} sampled hits, i.e. the actual count is
+   * likely within {@code sampledCount / getSamplingRate() +/- bound}. This is
+   * {@code 0} if no sampling was done.
+   */
+  public double getErrorBound(double sampledCount) {
+    if (totalHits == NOT_CALCULATED || totalHits <= sampleSize || sampledCount <= 0) {
+      return 0;
+    }
+    return Z_95 * Math.sqrt(sampledCount * (1 - samplingRate)) / samplingRate;
+  }
+  
+  /**
+   * Returns the {@link #getErrorBound error bound} of each label of the given
+   * result, which must hold sampled counts (i.e. not be amortized yet), in the
+   * order of its {@link FacetResult#labelValues}.
+   */
+  public double[] getErrorBounds(FacetResult res) {
+    double[] bounds = new double[res.labelValues.length];
+    for (int i = 0; i < bounds.length; i++) {
+      bounds[i] = getErrorBound(res.labelValues[i].value.doubleValue());
+    }
+    return bounds;
+  }
+  
   /** Returns the sampling rate that was used. */
   public double getSamplingRate() {
     return samplingRate;
   }
   
+  /** Returns the sample size that was used, which is computed from the number of hits when adaptive. */
+  public int getSampleSize() {
+    return sampleSize;
+  }
+  
 }
@@ -32,6 +32,8 @@ final class LongRangeCounter {
   final LongRangeNode root;
   final long[] boundaries;
   final int[] leafCounts;
+  // whether each elementary interval is included in at least one range
+  private final boolean[] coveredLeaves;
 
   // Used during rollup
   private int leafUpto;
@@ -125,6 +127,18 @@ final class LongRangeCounter {
 
     leafCounts = new int[boundaries.length];
 
+    // Elementary intervals are either fully included in a range, or
+    // do not intersect it:
+    coveredLeaves = new boolean[boundaries.length];
+    for(int i=0;i<boundaries.length;i++) {
+      for(LongRange range : ranges) {
+        if (range.accept(boundaries[i])) {
+          coveredLeaves[i] = true;
+          break;
+        }
+      }
+    }
+
     //System.out.println("ranges: " + Arrays.toString(ranges));
     //System.out.println("intervals: " + elementaryIntervals);
     //System.out.println("boundaries: " + Arrays.toString(boundaries));
@@ -132,8 +146,11 @@ final class LongRangeCounter {
   }
 
   public void add(long v) {
-    //System.out.println("add v=" + v);
+    leafCounts[findLeaf(v)]++;
+  }
 
+  /** Returns the index of the elementary interval that contains {@code v}. */
+  int findLeaf(long v) {
     // NOTE: this works too, but it's ~6% slower on a simple
     // test with a high-freq TermQuery w/ range faceting on
     // wikimediumall:
@@ -142,7 +159,7 @@ final class LongRangeCounter {
     if (index < 0) {
       index = -index-1;
     }
-    leafCounts[index]++;
+    return index;
     */
 
     // Binary search to find matched elementary range; we
@@ -156,21 +173,24 @@ final class LongRangeCounter {
       //System.out.println("  cycle lo=" + lo + " hi=" + hi + " mid=" + mid + " boundary=" + boundaries[mid] + " to " + boundaries[mid+1]);
       if (v <= boundaries[mid]) {
         if (mid == 0) {
-          leafCounts[0]++;
-          return;
+          return 0;
         } else {
           hi = mid - 1;
         }
       } else if (v > boundaries[mid+1]) {
         lo = mid + 1;
       } else {
-        leafCounts[mid+1]++;
-        //System.out.println("  incr @ " + (mid+1) + "; now " + leafCounts[mid+1]);
-        return;
+        return mid+1;
       }
     }
   }
 
+  /** Returns true if the given elementary interval is
+   *  included in at least one of the input ranges. */
+  boolean isCovered(int leaf) {
+    return coveredLeaves[leaf];
+  }
+
   /** Fills counts corresponding to the original input
    *  ranges, returning the missing count (how many hits
    *  didn't match any ranges). */
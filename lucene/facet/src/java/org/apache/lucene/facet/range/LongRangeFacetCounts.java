@@ -19,16 +19,23 @@ package org.apache.lucene.facet.range;
 import java.io.IOException;
 import java.util.List;
 
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.facet.Facets;
 import org.apache.lucene.facet.FacetsCollector;
 import org.apache.lucene.facet.FacetsCollector.MatchingDocs;
 import org.apache.lucene.index.IndexReaderContext;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.PointValues.IntersectVisitor;
+import org.apache.lucene.index.PointValues.Relation;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.LongValues;
 import org.apache.lucene.search.LongValuesSource;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
@@ -51,6 +58,20 @@ public class LongRangeFacetCounts extends RangeFacetCounts {
     this(field, LongValuesSource.fromLongField(field), hits, ranges);
   }
 
+  /** Create {@code LongRangeFacetCounts}, using {@link
+   *  LongValuesSource} from the specified field.  If {@code
+   *  useIndexedPoints} is true, the field must have been indexed
+   *  both as a {@link LongPoint} and as a {@link NumericDocValuesField}
+   *  with the same value; segments without deletions whose documents
+   *  all match, such as when searching with {@link MatchAllDocsQuery},
+   *  are then counted by traversing the points index, which skips whole
+   *  cells that fall outside of all ranges, instead of reading the doc
+   *  value of every hit. */
+  public LongRangeFacetCounts(String field, FacetsCollector hits, boolean useIndexedPoints, LongRange... ranges) throws IOException {
+    super(field, ranges, null);
+    count(LongValuesSource.fromLongField(field), hits.getMatchingDocs(), useIndexedPoints);
+  }
+
   /** Create {@code LongRangeFacetCounts}, using the provided
    *  {@link LongValuesSource}. */
   public LongRangeFacetCounts(String field, LongValuesSource valueSource, FacetsCollector hits, LongRange... ranges) throws IOException {
@@ -66,17 +87,27 @@ public class LongRangeFacetCounts extends RangeFacetCounts {
    *  random access (implement {@link DocIdSet#bits}). */
   public LongRangeFacetCounts(String field, LongValuesSource valueSource, FacetsCollector hits, Query fastMatchQuery, LongRange... ranges) throws IOException {
     super(field, ranges, fastMatchQuery);
-    count(valueSource, hits.getMatchingDocs());
+    count(valueSource, hits.getMatchingDocs(), false);
   }
 
-  private void count(LongValuesSource valueSource, List<MatchingDocs> matchingDocs) throws IOException {
+  private void count(LongValuesSource valueSource, List<MatchingDocs> matchingDocs, boolean useIndexedPoints) throws IOException {
 
     LongRange[] ranges = (LongRange[]) this.ranges;
 
     LongRangeCounter counter = new LongRangeCounter(ranges);
 
     int missingCount = 0;
+    // number of documents counted from points, that matched at least one range
+    int pointsCount = 0;
     for (MatchingDocs hits : matchingDocs) {
+      if (useIndexedPoints && fastMatchQuery == null) {
+        int count = countPoints(hits, counter);
+        if (count != -1) {
+          pointsCount += count;
+          continue;
+        }
+      }
+
       LongValues fv = valueSource.getValues(hits.context, null);
       
       totCount += hits.totalHits;
@@ -125,5 +156,63 @@ public class LongRangeFacetCounts extends RangeFacetCounts {
 
     //System.out.println("totCount " + totCount + " x " + x + " missingCount " + missingCount);
     totCount -= missingCount;
+    totCount += pointsCount;
+  }
+
+  /** Counts the values of all documents of the segment by
+   *  traversing its points, and returns how many documents
+   *  matched at least one range, or -1 if this segment can't be
+   *  counted this way, because it has deletions, not all its
+   *  documents matched, or it doesn't have a single long point
+   *  per document. */
+  private int countPoints(MatchingDocs hits, final LongRangeCounter counter) throws IOException {
+    LeafReader reader = hits.context.reader();
+    if (reader.getLiveDocs() != null || hits.totalHits != reader.maxDoc()) {
+      return -1;
+    }
+    PointValues points = reader.getPointValues(field);
+    if (points == null
+        || points.getNumDimensions() != 1
+        || points.getBytesPerDimension() != Long.BYTES
+        || points.size() != points.getDocCount()) {
+      return -1;
+    }
+
+    final int[] count = new int[1];
+    points.intersect(new IntersectVisitor() {
+
+      // elementary interval that contains the cell of the docs visited without values
+      int leaf;
+
+      @Override
+      public void visit(int docID) {
+        counter.leafCounts[leaf]++;
+        count[0]++;
+      }
+
+      @Override
+      public void visit(int docID, byte[] packedValue) {
+        int leaf = counter.findLeaf(LongPoint.decodeDimension(packedValue, 0));
+        if (counter.isCovered(leaf)) {
+          counter.leafCounts[leaf]++;
+          count[0]++;
+        }
+      }
+
+      @Override
+      public Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+        int minLeaf = counter.findLeaf(LongPoint.decodeDimension(minPackedValue, 0));
+        int maxLeaf = counter.findLeaf(LongPoint.decodeDimension(maxPackedValue, 0));
+        if (minLeaf != maxLeaf) {
+          return Relation.CELL_CROSSES_QUERY;
+        } else if (counter.isCovered(minLeaf)) {
+          leaf = minLeaf;
+          return Relation.CELL_INSIDE_QUERY;
+        } else {
+          return Relation.CELL_OUTSIDE_QUERY;
+        }
+      }
+    });
+    return count[0];
   }
 }
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.lucene.facet.FacetsConfig;
@@ -50,6 +51,9 @@ public class DefaultSortedSetDocValuesReaderState extends SortedSetDocValuesRead
   /** {@link IndexReader} passed to the constructor. */
   public final IndexReader reader;
 
+  /** Core cache keys of the leaves of {@link #reader}, or null if a leaf does not have a core cache helper. */
+  private final IndexReader.CacheKey[] coreKeys;
+
   private final Map<String,OrdinalMap> cachedOrdMaps = new HashMap<>();
 
   private final Map<String,OrdRange> prefixToOrdRange = new HashMap<>();
@@ -63,8 +67,35 @@ public class DefaultSortedSetDocValuesReaderState extends SortedSetDocValuesRead
   /** Creates this, pulling doc values from the specified
    *  field. */
   public DefaultSortedSetDocValuesReaderState(IndexReader reader, String field) throws IOException {
+    this(reader, field, null);
+  }
+
+  /** Creates this, pulling doc values from the specified
+   *  field, and reusing the global ordinals and dimension ranges
+   *  of {@code previous} if it was created on a reader that has
+   *  exactly the same segments as {@code reader}, ie. if the reader
+   *  was reopened after deletions only.  Reopens that add or merge
+   *  segments rebuild the global ordinals from scratch, like
+   *  {@link #DefaultSortedSetDocValuesReaderState(IndexReader, String)}.
+   *  {@code previous} may be null, and its reader may already be closed. */
+  public DefaultSortedSetDocValuesReaderState(IndexReader reader, String field, DefaultSortedSetDocValuesReaderState previous) throws IOException {
     this.field = field;
     this.reader = reader;
+    this.coreKeys = getCoreKeys(reader);
+
+    if (previous != null && previous.field.equals(field) && coreKeys != null && Arrays.equals(coreKeys, previous.coreKeys)) {
+      // Same segments, hence same terms: the global ordinals and
+      // dimension ranges of the previous state still apply
+      synchronized (previous.cachedOrdMaps) {
+        OrdinalMap map = previous.cachedOrdMaps.get(field);
+        if (map != null) {
+          cachedOrdMaps.put(field, map);
+        }
+      }
+      valueCount = previous.valueCount;
+      prefixToOrdRange.putAll(previous.prefixToOrdRange);
+      return;
+    }
 
     // We need this to create thread-safe MultiSortedSetDV
     // per collector:
@@ -107,6 +138,19 @@ public class DefaultSortedSetDocValuesReaderState extends SortedSetDocValuesRead
     }
   }
 
+  private static IndexReader.CacheKey[] getCoreKeys(IndexReader reader) {
+    List<LeafReaderContext> leaves = reader.leaves();
+    IndexReader.CacheKey[] coreKeys = new IndexReader.CacheKey[leaves.size()];
+    for (int i = 0; i < coreKeys.length; i++) {
+      IndexReader.CacheHelper cacheHelper = leaves.get(i).reader().getCoreCacheHelper();
+      if (cacheHelper == null) {
+        return null;
+      }
+      coreKeys[i] = cacheHelper.getKey();
+    }
+    return coreKeys;
+  }
+
   /**
    * Return the memory usage of this object in bytes. Negative values are illegal.
    */
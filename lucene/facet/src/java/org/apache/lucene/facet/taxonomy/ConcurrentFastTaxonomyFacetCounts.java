@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.facet.taxonomy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.lucene.facet.FacetsCollector.MatchingDocs;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsConfig.DimConfig;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.ConjunctionDISI;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+
+/** Like {@link FastTaxonomyFacetCounts}, but decodes ordinals of
+ *  several segments concurrently.  Each task counts into its own
+ *  int[], and the per-task arrays are then summed and rolled up
+ *  concurrently as well.  This always uses dense counts, so it
+ *  needs one int[] of {@link TaxonomyReader#getSize()} per
+ *  concurrent task.
+ *
+ * @lucene.experimental */
+public class ConcurrentFastTaxonomyFacetCounts extends IntTaxonomyFacets {
+
+  private final ExecutorService exec;
+
+  /** Create {@code ConcurrentFastTaxonomyFacetCounts}, which
+   *  also counts all facet labels. */
+  public ConcurrentFastTaxonomyFacetCounts(TaxonomyReader taxoReader, FacetsConfig config, FacetsCollector fc, ExecutorService exec)
+      throws IOException, InterruptedException {
+    this(FacetsConfig.DEFAULT_INDEX_FIELD_NAME, taxoReader, config, fc, exec);
+  }
+
+  /** Create {@code ConcurrentFastTaxonomyFacetCounts}, using
+   *  the specified {@code indexFieldName} for ordinals.  Use
+   *  this if you had set {@link
+   *  FacetsConfig#setIndexFieldName} to change the index
+   *  field name for certain dimensions. */
+  public ConcurrentFastTaxonomyFacetCounts(String indexFieldName, TaxonomyReader taxoReader, FacetsConfig config, FacetsCollector fc,
+      ExecutorService exec) throws IOException, InterruptedException {
+    super(indexFieldName, taxoReader, config, fc);
+    this.exec = exec;
+    List<MatchingDocs> matchingDocs = fc.getMatchingDocs();
+    List<LeafReaderContext> leaves = new ArrayList<>(matchingDocs.size());
+    for (MatchingDocs hits : matchingDocs) {
+      leaves.add(hits.context);
+    }
+    count(leaves, matchingDocs);
+  }
+
+  /** Create {@code ConcurrentFastTaxonomyFacetCounts}, using
+   *  the specified {@code indexFieldName} for ordinals, and
+   *  counting all non-deleted documents in the index.  This is
+   *  the same result as searching on {@link MatchAllDocsQuery},
+   *  but faster */
+  public ConcurrentFastTaxonomyFacetCounts(String indexFieldName, IndexReader reader, TaxonomyReader taxoReader, FacetsConfig config,
+      ExecutorService exec) throws IOException, InterruptedException {
+    super(indexFieldName, taxoReader, config, null);
+    this.exec = exec;
+    count(reader.leaves(), null);
+  }
+
+  @Override
+  protected boolean useHashTable(FacetsCollector fc, TaxonomyReader taxoReader) {
+    // per-task counts are summed position by position
+    return false;
+  }
+
+  /** Counts the given segments concurrently, {@code matchingDocs} is null to count all live docs. */
+  private void count(List<LeafReaderContext> leaves, List<MatchingDocs> matchingDocs) throws IOException, InterruptedException {
+    if (leaves.isEmpty()) {
+      return;
+    }
+    final int size = taxoReader.getSize();
+
+    // Count: each task pulls the next segment to count until all segments are done
+    int numTasks = Math.min(leaves.size(), Runtime.getRuntime().availableProcessors());
+    AtomicInteger nextSegment = new AtomicInteger();
+    List<Future<int[]>> countResults = new ArrayList<>(numTasks);
+    for (int i = 0; i < numTasks; i++) {
+      countResults.add(exec.submit(new CountSegments(indexFieldName, leaves, matchingDocs, nextSegment, size)));
+    }
+    final List<int[]> taskCounts = new ArrayList<>(numTasks);
+    for (Future<int[]> result : countResults) {
+      taskCounts.add(getResult(result));
+    }
+    final int[] counts = taskCounts.get(0);
+
+    // Reduce: sum all task counts into the first one, one slice of ordinals per task
+    if (numTasks > 1) {
+      List<Future<Void>> sumResults = new ArrayList<>(numTasks);
+      int sliceSize = (size + numTasks - 1) / numTasks;
+      for (int start = 0; start < size; start += sliceSize) {
+        final int from = start;
+        final int to = Math.min(size, start + sliceSize);
+        sumResults.add(exec.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            for (int i = 1; i < taskCounts.size(); i++) {
+              int[] other = taskCounts.get(i);
+              for (int ord = from; ord < to; ord++) {
+                counts[ord] += other[ord];
+              }
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> result : sumResults) {
+        getResult(result);
+      }
+    }
+
+    // Rollup: the trees of distinct dimensions are disjoint, so they can be rolled up concurrently
+    List<Future<Void>> rollupResults = new ArrayList<>();
+    for (Map.Entry<String,DimConfig> ent : config.getDimConfigs().entrySet()) {
+      String dim = ent.getKey();
+      DimConfig ft = ent.getValue();
+      if (ft.hierarchical && ft.multiValued == false) {
+        final int dimRootOrd = taxoReader.getOrdinal(new FacetLabel(dim));
+        // It can be -1 if this field was declared in the
+        // config but never indexed:
+        if (dimRootOrd > 0) {
+          final int[] children = getChildren();
+          final int[] siblings = getSiblings();
+          rollupResults.add(exec.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+              counts[dimRootOrd] += rollup(counts, children, siblings, children[dimRootOrd]);
+              return null;
+            }
+          }));
+        }
+      }
+    }
+    for (Future<Void> result : rollupResults) {
+      getResult(result);
+    }
+
+    for (int ord = 0; ord < size; ord++) {
+      if (counts[ord] != 0) {
+        increment(ord, counts[ord]);
+      }
+    }
+  }
+
+  private static int rollup(int[] counts, int[] children, int[] siblings, int ord) {
+    int sum = 0;
+    while (ord != TaxonomyReader.INVALID_ORDINAL) {
+      counts[ord] += rollup(counts, children, siblings, children[ord]);
+      sum += counts[ord];
+      ord = siblings[ord];
+    }
+    return sum;
+  }
+
+  private static <T> T getResult(Future<T> result) throws IOException, InterruptedException {
+    try {
+      return result.get();
+    } catch (ExecutionException ee) {
+      // Theoretically cause can be null; guard against that.
+      Throwable cause = ee.getCause();
+      throw IOUtils.rethrowAlways(cause != null ? cause : ee);
+    }
+  }
+
+  /** Counts segments into a private int[] until no segment is left to count. */
+  private static class CountSegments implements Callable<int[]> {
+    final String indexFieldName;
+    final List<LeafReaderContext> leaves;
+    final List<MatchingDocs> matchingDocs;
+    final AtomicInteger nextSegment;
+    final int size;
+
+    CountSegments(String indexFieldName, List<LeafReaderContext> leaves, List<MatchingDocs> matchingDocs,
+        AtomicInteger nextSegment, int size) {
+      this.indexFieldName = indexFieldName;
+      this.leaves = leaves;
+      this.matchingDocs = matchingDocs;
+      this.nextSegment = nextSegment;
+      this.size = size;
+    }
+
+    @Override
+    public int[] call() throws IOException {
+      final int[] counts = new int[size];
+      for (int i = nextSegment.getAndIncrement(); i < leaves.size(); i = nextSegment.getAndIncrement()) {
+        LeafReaderContext context = leaves.get(i);
+        BinaryDocValues dv = context.reader().getBinaryDocValues(indexFieldName);
+        if (dv == null) { // this reader does not have DocValues for the requested category list
+          continue;
+        }
+
+        DocIdSetIterator it;
+        Bits liveDocs;
+        if (matchingDocs == null) {
+          it = dv;
+          liveDocs = context.reader().getLiveDocs();
+        } else {
+          it = ConjunctionDISI.intersectIterators(Arrays.asList(matchingDocs.get(i).bits.iterator(), dv));
+          liveDocs = null;
+        }
+
+        for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+          if (liveDocs != null && liveDocs.get(doc) == false) {
+            continue;
+          }
+          final BytesRef bytesRef = dv.binaryValue();
+          byte[] bytes = bytesRef.bytes;
+          int end = bytesRef.offset + bytesRef.length;
+          int ord = 0;
+          int offset = bytesRef.offset;
+          int prev = 0;
+          while (offset < end) {
+            byte b = bytes[offset++];
+            if (b >= 0) {
+              prev = ord = ((ord << 7) | b) + prev;
+              counts[ord]++;
+              ord = 0;
+            } else {
+              ord = (ord << 7) | (b & 0x7F);
+            }
+          }
+        }
+      }
+      return counts;
+    }
+  }
+}
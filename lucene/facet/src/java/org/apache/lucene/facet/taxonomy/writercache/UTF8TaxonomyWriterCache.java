@@ -29,55 +29,79 @@ import org.apache.lucene.util.Counter;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.lucene.util.UnicodeUtil;
 
-/** A "cache" that never frees memory, and stores labels in a BytesRefHash (utf-8 encoding). */
+/** A "cache" that never frees memory, and stores labels in a BytesRefHash (utf-8 encoding).
+ *  Labels are spread over several stripes by hash, each with its own lock, so that
+ *  concurrent lookups and additions of different labels rarely contend. */
 public final class UTF8TaxonomyWriterCache implements TaxonomyWriterCache, Accountable {
+
+  /** Default number of stripes. */
+  public static final int DEFAULT_NUM_STRIPES = 16;
+
   private final ThreadLocal<BytesRefBuilder> bytes = new ThreadLocal<BytesRefBuilder>() {
       @Override
       protected BytesRefBuilder initialValue() {
         return new BytesRefBuilder();
       }
     };
-  private final Counter bytesUsed = Counter.newCounter();
-  private final BytesRefHash map = new BytesRefHash(new ByteBlockPool(new DirectTrackingAllocator(bytesUsed)));
 
-  private final static int ORDINALS_PAGE_SIZE = 65536;
+  private final static int ORDINALS_PAGE_SHIFT = 12;
+  private final static int ORDINALS_PAGE_SIZE = 1 << ORDINALS_PAGE_SHIFT;
   private final static int ORDINALS_PAGE_MASK = ORDINALS_PAGE_SIZE - 1;
-    
-  private volatile int[][] ordinals;
-
-  // How many labels we are storing:
-  private int count;
 
-  // How many pages in ordinals we've allocated:
-  private int pageCount;
+  private final Stripe[] stripes;
 
-  /** Sole constructor. */
+  /** Creates this with {@link #DEFAULT_NUM_STRIPES} stripes. */
   public UTF8TaxonomyWriterCache() {
-    ordinals = new int[1][];
-    ordinals[0] = new int[ORDINALS_PAGE_SIZE];
+    this(DEFAULT_NUM_STRIPES);
+  }
+
+  /** Creates this with the given number of stripes, ie. the number of
+   *  threads that may access the cache without contending for a lock. */
+  public UTF8TaxonomyWriterCache(int numStripes) {
+    if (numStripes <= 0) {
+      throw new IllegalArgumentException("numStripes must be > 0 (got: " + numStripes + ")");
+    }
+    stripes = new Stripe[numStripes];
+    for (int i = 0; i < numStripes; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  /** Holds the labels whose hash maps to one stripe; all access must be synchronized on the stripe. */
+  private static final class Stripe {
+    final Counter bytesUsed = Counter.newCounter();
+    final BytesRefHash map = new BytesRefHash(new ByteBlockPool(new DirectTrackingAllocator(bytesUsed)));
+    // ordinal of each id of map, allocated page by page:
+    int[][] ordinals = new int[0][];
+    // How many pages in ordinals we've allocated:
+    int pageCount;
+    // How many labels we are storing:
+    int count;
+  }
+
+  private Stripe getStripe(FacetLabel label) {
+    int hash = label.hashCode();
+    hash ^= hash >>> 16;
+    return stripes[(hash & 0x7FFFFFFF) % stripes.length];
   }
 
   @Override
   public int get(FacetLabel label) {
     BytesRef bytes = toBytes(label);
-    int id;
-    synchronized (this) {
-      id = map.find(bytes);
-    }
-    if (id == -1) {
-      return LabelToOrdinal.INVALID_ORDINAL;
+    Stripe stripe = getStripe(label);
+    synchronized (stripe) {
+      int id = stripe.map.find(bytes);
+      if (id == -1) {
+        return LabelToOrdinal.INVALID_ORDINAL;
+      }
+      return stripe.ordinals[id >>> ORDINALS_PAGE_SHIFT][id & ORDINALS_PAGE_MASK];
     }
-    int page = id / ORDINALS_PAGE_SIZE;
-    int offset = id % ORDINALS_PAGE_MASK;
-    return ordinals[page][offset];
   }
 
   // Called only from assert
-  private boolean assertSameOrdinal(FacetLabel label, int id, int ord) {
+  private static boolean assertSameOrdinal(Stripe stripe, FacetLabel label, int id, int ord) {
     id = -id - 1;
-    int page = id / ORDINALS_PAGE_SIZE;
-    int offset = id % ORDINALS_PAGE_MASK;
-    int oldOrd = ordinals[page][offset];
+    int oldOrd = stripe.ordinals[id >>> ORDINALS_PAGE_SHIFT][id & ORDINALS_PAGE_MASK];
     if (oldOrd != ord) {
       throw new IllegalArgumentException("label " + label + " was already cached, with old ord=" + oldOrd + " versus new ord=" + ord);
     }
@@ -87,27 +111,24 @@ public final class UTF8TaxonomyWriterCache implements TaxonomyWriterCache, Accou
   @Override
   public boolean put(FacetLabel label, int ord) {
     BytesRef bytes = toBytes(label);
-    int id;
-    synchronized (this) {
-      id = map.add(bytes);
+    Stripe stripe = getStripe(label);
+    synchronized (stripe) {
+      int id = stripe.map.add(bytes);
       if (id < 0) {
-        assert assertSameOrdinal(label, id, ord);
+        assert assertSameOrdinal(stripe, label, id, ord);
         return false;
       }
-      assert id == count;
-      int page = id / ORDINALS_PAGE_SIZE;
-      int offset = id % ORDINALS_PAGE_MASK;
-      if (page == pageCount) {
-        if (page == ordinals.length) {
-          int[][] newOrdinals = new int[ArrayUtil.oversize(page+1, RamUsageEstimator.NUM_BYTES_OBJECT_REF)][];
-          System.arraycopy(ordinals, 0, newOrdinals, 0, ordinals.length);
-          ordinals = newOrdinals;
+      assert id == stripe.count;
+      int page = id >>> ORDINALS_PAGE_SHIFT;
+      if (page == stripe.pageCount) {
+        if (page == stripe.ordinals.length) {
+          stripe.ordinals = ArrayUtil.grow(stripe.ordinals, page + 1);
         }
-        ordinals[page] = new int[ORDINALS_PAGE_MASK];
-        pageCount++;
+        stripe.ordinals[page] = new int[ORDINALS_PAGE_SIZE];
+        stripe.pageCount++;
       }
-      ordinals[page][offset] = ord;
-      count++;
+      stripe.ordinals[page][id & ORDINALS_PAGE_MASK] = ord;
+      stripe.count++;
 
       // we never prune from the cache
       return false;
@@ -121,32 +142,48 @@ public final class UTF8TaxonomyWriterCache implements TaxonomyWriterCache, Accou
   }
 
   @Override
-  public synchronized void clear() {
-    map.clear();
-    map.reinit();
-    ordinals = new int[1][];
-    ordinals[0] = new int[ORDINALS_PAGE_SIZE];
-    count = 0;
-    pageCount = 0;
-    assert bytesUsed.get() == 0;
+  public void clear() {
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        stripe.map.clear();
+        stripe.map.reinit();
+        stripe.ordinals = new int[0][];
+        stripe.count = 0;
+        stripe.pageCount = 0;
+        assert stripe.bytesUsed.get() == 0;
+      }
+    }
   }
-    
+
   /** How many labels are currently stored in the cache. */
+  @Override
   public int size() {
-    return count;
+    int size = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        size += stripe.count;
+      }
+    }
+    return size;
   }
-  
+
   @Override
-  public synchronized long ramBytesUsed() {
-    return bytesUsed.get() + pageCount * ORDINALS_PAGE_SIZE * RamUsageEstimator.NUM_BYTES_INT;
+  public long ramBytesUsed() {
+    long bytesUsed = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        bytesUsed += stripe.bytesUsed.get() + (long) stripe.pageCount * ORDINALS_PAGE_SIZE * RamUsageEstimator.NUM_BYTES_INT;
+      }
+    }
+    return bytesUsed;
   }
-    
+
   @Override
   public void close() {
   }
 
   private static final byte DELIM_CHAR = (byte) 0x1F;
-    
+
   private BytesRef toBytes(FacetLabel label) {
     BytesRefBuilder bytes = this.bytes.get();
     bytes.clear();
@@ -23,6 +23,10 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.facet.FacetsCollector.MatchingDocs;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
 import org.apache.lucene.facet.taxonomy.FastTaxonomyFacetCounts;
 import org.apache.lucene.facet.taxonomy.TaxonomyReader;
 import org.apache.lucene.facet.taxonomy.directory.DirectoryTaxonomyReader;
@@ -31,6 +35,7 @@ import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MultiCollector;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.store.Directory;
@@ -146,4 +151,126 @@ public class TestRandomSamplingFacetsCollector extends FacetTestCase {
     IOUtils.close(searcher.getIndexReader(), taxoReader, dir, taxoDir);
   }
   
+  public void testComputeSampleSize() {
+    assertEquals(1, RandomSamplingFacetsCollector.computeSampleSize(0, 0.1, 0.1));
+    // small hit counts are (nearly) not sampled
+    assertTrue(RandomSamplingFacetsCollector.computeSampleSize(100, 0.1, 0.1) > 90);
+    int previous = 0;
+    for (int totalHits = 1000; totalHits > 0 && totalHits < 1000000000; totalHits *= 10) {
+      int sampleSize = RandomSamplingFacetsCollector.computeSampleSize(totalHits, 0.05, 0.01);
+      assertTrue(sampleSize <= totalHits);
+      assertTrue(sampleSize >= previous);
+      previous = sampleSize;
+      // a label matching 1% of the hits has ~sampleSize/100 sampled hits, its relative error must be within 5%
+      double rate = (double) sampleSize / totalHits;
+      double count = 0.01 * totalHits;
+      assertTrue(RandomSamplingFacetsCollector.Z_95 * Math.sqrt((1 - rate) / (count * rate)) <= 0.05 + 1e-9);
+    }
+    // the sample size converges to Z_95^2 / (maxRelativeError^2 * minFraction)
+    double limit = RandomSamplingFacetsCollector.Z_95 * RandomSamplingFacetsCollector.Z_95 / (0.05 * 0.05 * 0.01);
+    assertTrue(previous <= limit + 1);
+    assertTrue(previous > 0.99 * limit);
+    // a smaller target error needs larger samples
+    assertTrue(RandomSamplingFacetsCollector.computeSampleSize(1000000, 0.01, 0.01) > RandomSamplingFacetsCollector.computeSampleSize(1000000, 0.05, 0.01));
+
+    expectThrows(IllegalArgumentException.class, () -> new RandomSamplingFacetsCollector(0d, 0.1, 0));
+    expectThrows(IllegalArgumentException.class, () -> new RandomSamplingFacetsCollector(0.1, 0d, 0));
+    expectThrows(IllegalArgumentException.class, () -> new RandomSamplingFacetsCollector(0.1, 1.5, 0));
+  }
+
+  public void testErrorBounds() throws Exception {
+    Directory dir = newDirectory();
+    Directory taxoDir = newDirectory();
+
+    Random random = random();
+    DirectoryTaxonomyWriter taxoWriter = new DirectoryTaxonomyWriter(taxoDir);
+    RandomIndexWriter writer = new RandomIndexWriter(random, dir);
+
+    FacetsConfig config = new FacetsConfig();
+    config.setIndexFieldName("ssdv", "$ssdv");
+
+    final int numCategories = 10;
+    int numDocs = atLeast(20000);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      // skewed label distribution: label k is roughly twice as frequent as label k+1
+      int label = Math.min(numCategories - 1, Integer.numberOfTrailingZeros(random.nextInt() | (1 << (numCategories - 1))));
+      doc.add(new FacetField("taxo", Integer.toString(label)));
+      doc.add(new SortedSetDocValuesFacetField("ssdv", Integer.toString(label)));
+      writer.addDocument(config.build(taxoWriter, doc));
+    }
+
+    IndexSearcher searcher = newSearcher(writer.getReader());
+    TaxonomyReader taxoReader = new DirectoryTaxonomyReader(taxoWriter);
+    IOUtils.close(writer, taxoWriter);
+
+    SortedSetDocValuesReaderState state = new DefaultSortedSetDocValuesReaderState(searcher.getIndexReader(), "$ssdv");
+
+    FacetsCollector fc = new FacetsCollector();
+    RandomSamplingFacetsCollector sampling = new RandomSamplingFacetsCollector(0.1, 0.05, random.nextLong());
+    searcher.search(new MatchAllDocsQuery(), MultiCollector.wrap(fc, sampling));
+    // sampling must happen, the sample size does not depend on the number of hits much
+    assertTrue(sampling.getMatchingDocs() != sampling.getOriginalMatchingDocs());
+    assertEquals(RandomSamplingFacetsCollector.computeSampleSize(numDocs, 0.1, 0.05), sampling.getSampleSize());
+    assertEquals(1.0 / (int) ((double) numDocs / sampling.getSampleSize()), sampling.getSamplingRate(), 0d);
+    // one doc is sampled per bin, so the number of sampled docs agrees with the sampling rate, up to
+    // a partial bin per segment
+    int sampledDocs = 0;
+    for (MatchingDocs md : sampling.getMatchingDocs()) {
+      DocIdSetIterator it = md.bits.iterator();
+      while (it.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
+        sampledDocs++;
+      }
+    }
+    assertEquals(numDocs * sampling.getSamplingRate(), sampledDocs, searcher.getIndexReader().leaves().size() + 1);
+
+    FacetResult[] exactResults = new FacetResult[] {
+        new FastTaxonomyFacetCounts(taxoReader, config, fc).getTopChildren(numCategories, "taxo"),
+        new SortedSetDocValuesFacetCounts(state, fc).getTopChildren(numCategories, "ssdv")
+    };
+    FacetResult[] sampledResults = new FacetResult[] {
+        new FastTaxonomyFacetCounts(taxoReader, config, sampling).getTopChildren(numCategories, "taxo"),
+        new SortedSetDocValuesFacetCounts(state, sampling).getTopChildren(numCategories, "ssdv")
+    };
+    for (int i = 0; i < exactResults.length; i++) {
+      FacetResult sampled = sampledResults[i];
+      FacetResult amortized = sampling.amortizeFacetCounts(sampled, config, searcher);
+      double[] bounds = sampling.getErrorBounds(sampled);
+      assertEquals(sampled.labelValues.length, bounds.length);
+      for (int j = 0; j < sampled.labelValues.length; j++) {
+        String label = sampled.labelValues[j].label;
+        assertEquals(amortized.labelValues[j].label, label);
+        int actual = exactCount(exactResults[i], label);
+        int estimate = amortized.labelValues[j].value.intValue();
+        assertTrue(bounds[j] > 0);
+        // leave a lot of slack so that the test does not fail on unlucky samples
+        assertTrue(sampled.dim + "/" + label + ": actual=" + actual + " estimate=" + estimate + " bound=" + bounds[j],
+            Math.abs(actual - estimate) <= 3 * bounds[j] + 1 / sampling.getSamplingRate());
+        if (actual >= 0.05 * numDocs) {
+          // labels matching at least minFraction of the hits are expected to be within the target error
+          double expectedBound = sampling.getErrorBound(actual * sampling.getSamplingRate());
+          assertTrue(sampled.dim + "/" + label + ": actual=" + actual + " expectedBound=" + expectedBound,
+              expectedBound <= 0.1 * actual);
+        }
+      }
+    }
+
+    // no sampling, no error
+    RandomSamplingFacetsCollector noSampling = new RandomSamplingFacetsCollector(numDocs, random.nextLong());
+    searcher.search(new MatchAllDocsQuery(), noSampling);
+    assertSame(noSampling.getOriginalMatchingDocs(), noSampling.getMatchingDocs());
+    assertEquals(0, noSampling.getErrorBound(42), 0d);
+
+    IOUtils.close(searcher.getIndexReader(), taxoReader, dir, taxoDir);
+  }
+
+  private static int exactCount(FacetResult result, String label) {
+    for (LabelAndValue labelValue : result.labelValues) {
+      if (labelValue.label.equals(label)) {
+        return labelValue.value.intValue();
+      }
+    }
+    return 0;
+  }
+
 }
@@ -25,8 +25,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.DoubleDocValuesField;
 import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.Field;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.facet.DrillDownQuery;
 import org.apache.lucene.facet.DrillSideways;
 import org.apache.lucene.facet.DrillSideways.DrillSidewaysResult;
@@ -45,6 +47,7 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.search.DoubleValues;
 import org.apache.lucene.search.DoubleValuesSource;
 import org.apache.lucene.search.Explanation;
@@ -100,6 +103,119 @@ public class TestRangeFacetCounts extends FacetTestCase {
     d.close();
   }
 
+  public void testIndexedPoints() throws Exception {
+    Directory d = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), d);
+    for(long l=0;l<100;l++) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Long.toString(l), Field.Store.NO));
+      doc.add(new LongPoint("field", l));
+      doc.add(new NumericDocValuesField("field", l));
+      w.addDocument(doc);
+    }
+    // the point and the doc value disagree, which tells which one was counted:
+    Document doc = new Document();
+    doc.add(new StringField("id", "points_only", Field.Store.NO));
+    doc.add(new LongPoint("field", 5L));
+    doc.add(new NumericDocValuesField("field", 1000L));
+    w.addDocument(doc);
+    // a doc without value
+    w.addDocument(new Document());
+    w.forceMerge(1);
+
+    IndexReader r = w.getReader();
+    IndexSearcher s = newSearcher(r);
+    FacetsCollector fc = new FacetsCollector();
+    s.search(new MatchAllDocsQuery(), fc);
+
+    LongRange[] ranges = new LongRange[] {
+        new LongRange("less than 10", 0L, true, 10L, false),
+        new LongRange("less than or equal to 10", 0L, true, 10L, true),
+        new LongRange("over 90", 90L, false, 100L, false),
+        new LongRange("over 1000", 1000L, true, Long.MAX_VALUE, true)};
+    Facets facets = new LongRangeFacetCounts("field", fc, true, ranges);
+    assertEquals("dim=field path=[] value=21 childCount=4\n  less than 10 (11)\n  less than or equal to 10 (12)\n  over 90 (9)\n  over 1000 (0)\n",
+                 facets.getTopChildren(10, "field").toString());
+    facets = new LongRangeFacetCounts("field", fc, false, ranges);
+    assertEquals("dim=field path=[] value=21 childCount=4\n  less than 10 (10)\n  less than or equal to 10 (11)\n  over 90 (9)\n  over 1000 (1)\n",
+                 facets.getTopChildren(10, "field").toString());
+
+    // doc values are used when not all documents match, or with deletions
+    fc = new FacetsCollector();
+    s.search(LongPoint.newRangeQuery("field", 0L, 1000L), fc);
+    facets = new LongRangeFacetCounts("field", fc, true, ranges);
+    assertEquals("dim=field path=[] value=21 childCount=4\n  less than 10 (10)\n  less than or equal to 10 (11)\n  over 90 (9)\n  over 1000 (1)\n",
+                 facets.getTopChildren(10, "field").toString());
+    w.deleteDocuments(new Term("id", "0"));
+    r.close();
+    r = w.getReader();
+    s = newSearcher(r);
+    fc = new FacetsCollector();
+    s.search(new MatchAllDocsQuery(), fc);
+    facets = new LongRangeFacetCounts("field", fc, true, ranges);
+    assertEquals("dim=field path=[] value=20 childCount=4\n  less than 10 (9)\n  less than or equal to 10 (10)\n  over 90 (9)\n  over 1000 (1)\n",
+                 facets.getTopChildren(10, "field").toString());
+
+    w.close();
+    IOUtils.close(r, d);
+  }
+
+  public void testRandomLongsWithIndexedPoints() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    int numDocs = atLeast(1000);
+    long minValue = Long.MAX_VALUE;
+    long maxValue = Long.MIN_VALUE;
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      if (random().nextInt(10) != 0) {
+        long v = random().nextBoolean() ? random().nextInt(1000) : random().nextLong();
+        doc.add(new LongPoint("field", v));
+        doc.add(new NumericDocValuesField("field", v));
+        minValue = Math.min(minValue, v);
+        maxValue = Math.max(maxValue, v);
+      }
+      w.addDocument(doc);
+    }
+    if (random().nextBoolean()) {
+      w.forceMerge(1);
+    }
+    IndexReader r = w.getReader();
+    w.close();
+    IndexSearcher s = newSearcher(r, false);
+
+    int numIters = atLeast(10);
+    for (int iter = 0; iter < numIters; iter++) {
+      int numRanges = TestUtil.nextInt(random(), 1, 10);
+      LongRange[] ranges = new LongRange[numRanges];
+      for (int rangeID = 0; rangeID < numRanges; rangeID++) {
+        long min;
+        long max;
+        if (random().nextBoolean()) {
+          min = random().nextInt(1000);
+          max = random().nextInt(1000);
+        } else {
+          min = random().nextLong();
+          max = random().nextLong();
+        }
+        if (min > max) {
+          long x = min;
+          min = max;
+          max = x;
+        }
+        ranges[rangeID] = new LongRange("r" + rangeID, min, true, max, true);
+      }
+
+      FacetsCollector fc = new FacetsCollector();
+      s.search(new MatchAllDocsQuery(), fc);
+      FacetResult expected = new LongRangeFacetCounts("field", fc, false, ranges).getTopChildren(10, "field");
+      FacetResult actual = new LongRangeFacetCounts("field", fc, true, ranges).getTopChildren(10, "field");
+      assertEquals(expected, actual);
+    }
+
+    IOUtils.close(r, dir);
+  }
+
   public void testLongGetAllDims() throws Exception {
     Directory d = newDirectory();
     RandomIndexWriter w = new RandomIndexWriter(random(), d);
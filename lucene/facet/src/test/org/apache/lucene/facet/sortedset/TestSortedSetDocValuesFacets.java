@@ -36,7 +36,11 @@ import org.apache.lucene.facet.Facets;
 import org.apache.lucene.facet.FacetsCollector;
 import org.apache.lucene.facet.FacetsConfig;
 import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.MultiDocValues.MultiSortedSetDocValues;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
@@ -101,6 +105,63 @@ public class TestSortedSetDocValuesFacets extends FacetTestCase {
     IOUtils.close(searcher.getIndexReader(), dir);
   }
 
+  public void testReuseStateOnReopen() throws Exception {
+    Directory dir = newDirectory();
+    FacetsConfig config = new FacetsConfig();
+    IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+
+    for (String[] segment : new String[][] {{"foo", "bar"}, {"foo"}}) {
+      for (String value : segment) {
+        Document doc = new Document();
+        doc.add(newStringField("id", value, Field.Store.NO));
+        doc.add(new SortedSetDocValuesFacetField("a", value));
+        writer.addDocument(config.build(doc));
+      }
+      writer.commit();
+    }
+
+    DirectoryReader reader = DirectoryReader.open(writer);
+    DefaultSortedSetDocValuesReaderState state = new DefaultSortedSetDocValuesReaderState(reader, FacetsConfig.DEFAULT_INDEX_FIELD_NAME, null);
+    assertEquals("dim=a path=[] value=3 childCount=2\n  foo (2)\n  bar (1)\n",
+        countAllLiveDocs(state).getTopChildren(10, "a").toString());
+
+    // only deletions: the global ordinals are reused
+    writer.deleteDocuments(new Term("id", "bar"));
+    DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
+    assertNotNull(newReader);
+    DefaultSortedSetDocValuesReaderState newState = new DefaultSortedSetDocValuesReaderState(newReader, FacetsConfig.DEFAULT_INDEX_FIELD_NAME, state);
+    assertSame(((MultiSortedSetDocValues) state.getDocValues()).mapping, ((MultiSortedSetDocValues) newState.getDocValues()).mapping);
+    assertEquals(state.getSize(), newState.getSize());
+    assertEquals(state.getPrefixToOrdRange().keySet(), newState.getPrefixToOrdRange().keySet());
+    reader.close();
+    reader = newReader;
+    state = newState;
+    assertEquals("dim=a path=[] value=2 childCount=1\n  foo (2)\n",
+        countAllLiveDocs(state).getTopChildren(10, "a").toString());
+
+    // a new segment: the global ordinals are rebuilt
+    Document doc = new Document();
+    doc.add(new SortedSetDocValuesFacetField("a", "baz"));
+    writer.addDocument(config.build(doc));
+    newReader = DirectoryReader.openIfChanged(reader);
+    assertNotNull(newReader);
+    newState = new DefaultSortedSetDocValuesReaderState(newReader, FacetsConfig.DEFAULT_INDEX_FIELD_NAME, state);
+    assertNotSame(((MultiSortedSetDocValues) state.getDocValues()).mapping, ((MultiSortedSetDocValues) newState.getDocValues()).mapping);
+    reader.close();
+    reader = newReader;
+    state = newState;
+    assertEquals("dim=a path=[] value=3 childCount=2\n  foo (2)\n  baz (1)\n",
+        countAllLiveDocs(state).getTopChildren(10, "a").toString());
+
+    IOUtils.close(reader, writer, dir);
+  }
+
+  private static Facets countAllLiveDocs(SortedSetDocValuesReaderState state) throws IOException {
+    FacetsCollector c = new FacetsCollector();
+    new IndexSearcher(state.getReader()).search(new MatchAllDocsQuery(), c);
+    return new SortedSetDocValuesFacetCounts(state, c);
+  }
+
   // LUCENE-5090
   @SuppressWarnings("unused")
   public void testStaleState() throws Exception {
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.facet.taxonomy;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.facet.FacetField;
+import org.apache.lucene.facet.FacetTestCase;
+import org.apache.lucene.facet.Facets;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.taxonomy.directory.DirectoryTaxonomyReader;
+import org.apache.lucene.facet.taxonomy.directory.DirectoryTaxonomyWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.NamedThreadFactory;
+import org.apache.lucene.util.TestUtil;
+
+public class TestConcurrentFastTaxonomyFacetCounts extends FacetTestCase {
+
+  public void testBasic() throws Exception {
+    Directory dir = newDirectory();
+    Directory taxoDir = newDirectory();
+    DirectoryTaxonomyWriter taxoWriter = new DirectoryTaxonomyWriter(taxoDir, IndexWriterConfig.OpenMode.CREATE);
+    FacetsConfig config = new FacetsConfig();
+    config.setHierarchical("Publish Date", true);
+    RandomIndexWriter writer = new RandomIndexWriter(random(), dir);
+
+    String[][] docs = new String[][] {
+      {"Bob", "2010", "10", "15"},
+      {"Lisa", "2010", "10", "20"},
+      {"Lisa", "2012", "1", "1"},
+      {"Susan", "2012", "1", "7"},
+      {"Frank", "1999", "5", "5"}
+    };
+    for (String[] values : docs) {
+      Document doc = new Document();
+      doc.add(new FacetField("Author", values[0]));
+      doc.add(new FacetField("Publish Date", values[1], values[2], values[3]));
+      writer.addDocument(config.build(taxoWriter, doc));
+      if (random().nextBoolean()) {
+        // create more segments
+        writer.commit();
+      }
+    }
+
+    IndexSearcher searcher = newSearcher(writer.getReader());
+    TaxonomyReader taxoReader = new DirectoryTaxonomyReader(taxoWriter);
+    ExecutorService exec = newExecutor();
+    try {
+      FacetsCollector c = new FacetsCollector();
+      searcher.search(new MatchAllDocsQuery(), c);
+      Facets facets = new ConcurrentFastTaxonomyFacetCounts(taxoReader, config, c, exec);
+      assertEquals("dim=Publish Date path=[] value=5 childCount=3\n  2010 (2)\n  2012 (2)\n  1999 (1)\n", facets.getTopChildren(10, "Publish Date").toString());
+      assertEquals("dim=Author path=[] value=5 childCount=4\n  Lisa (2)\n  Bob (1)\n  Susan (1)\n  Frank (1)\n", facets.getTopChildren(10, "Author").toString());
+      assertEquals(2, facets.getSpecificValue("Publish Date", "2012", "1"));
+      assertEquals(5, facets.getSpecificValue("Publish Date"));
+
+      facets = new ConcurrentFastTaxonomyFacetCounts(FacetsConfig.DEFAULT_INDEX_FIELD_NAME, searcher.getIndexReader(), taxoReader, config, exec);
+      assertEquals("dim=Publish Date path=[] value=5 childCount=3\n  2010 (2)\n  2012 (2)\n  1999 (1)\n", facets.getTopChildren(10, "Publish Date").toString());
+      assertEquals(2, facets.getSpecificValue("Author", "Lisa"));
+    } finally {
+      exec.shutdownNow();
+    }
+
+    writer.close();
+    IOUtils.close(taxoWriter, searcher.getIndexReader(), taxoReader, taxoDir, dir);
+  }
+
+  public void testRandom() throws Exception {
+    String[] tokens = getRandomTokens(5);
+    Directory indexDir = newDirectory();
+    Directory taxoDir = newDirectory();
+
+    RandomIndexWriter w = new RandomIndexWriter(random(), indexDir);
+    DirectoryTaxonomyWriter tw = new DirectoryTaxonomyWriter(taxoDir);
+    FacetsConfig config = new FacetsConfig();
+    config.setHierarchical("hier", true);
+    config.setMultiValued("multi", true);
+    int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      doc.add(newStringField("content", tokens[random().nextInt(tokens.length)], Field.Store.NO));
+      if (random().nextInt(10) != 0) {
+        doc.add(new FacetField("flat", Integer.toString(random().nextInt(20))));
+      }
+      if (random().nextInt(10) != 0) {
+        doc.add(new FacetField("hier", Integer.toString(random().nextInt(3)), Integer.toString(random().nextInt(5)),
+            Integer.toString(random().nextInt(10))));
+      }
+      int numMulti = random().nextInt(3);
+      for (int j = 0; j < numMulti; j++) {
+        doc.add(new FacetField("multi", Integer.toString(random().nextInt(10))));
+      }
+      w.addDocument(config.build(tw, doc));
+      if (random().nextInt(200) == 0) {
+        w.commit();
+      }
+    }
+    if (random().nextBoolean()) {
+      w.deleteDocuments(new Term("content", tokens[0]));
+    }
+
+    IndexSearcher searcher = newSearcher(w.getReader());
+    TaxonomyReader tr = new DirectoryTaxonomyReader(tw);
+    ExecutorService exec = newExecutor();
+    try {
+      int iters = atLeast(20);
+      for (int iter = 0; iter < iters; iter++) {
+        Facets expected;
+        Facets actual;
+        if (random().nextInt(5) == 0) {
+          expected = new FastTaxonomyFacetCounts(FacetsConfig.DEFAULT_INDEX_FIELD_NAME, searcher.getIndexReader(), tr, config);
+          actual = new ConcurrentFastTaxonomyFacetCounts(FacetsConfig.DEFAULT_INDEX_FIELD_NAME, searcher.getIndexReader(), tr, config, exec);
+        } else {
+          FacetsCollector fc = new FacetsCollector();
+          String searchToken = tokens[random().nextInt(tokens.length)];
+          FacetsCollector.search(searcher, new TermQuery(new Term("content", searchToken)), 10, fc);
+          expected = new FastTaxonomyFacetCounts(tr, config, fc);
+          actual = new ConcurrentFastTaxonomyFacetCounts(tr, config, fc, exec);
+        }
+
+        assertEquals(expected.getAllDims(10), actual.getAllDims(10));
+        for (int ord = 1; ord < tr.getSize(); ord++) {
+          FacetLabel label = tr.getPath(ord);
+          if (label.length > 1) {
+            String[] path = Arrays.copyOfRange(label.components, 1, label.length);
+            assertEquals(label.toString(), expected.getSpecificValue(label.components[0], path),
+                actual.getSpecificValue(label.components[0], path));
+          }
+        }
+        assertEquals(expected.getSpecificValue("hier"), actual.getSpecificValue("hier"));
+      }
+    } finally {
+      exec.shutdownNow();
+    }
+
+    w.close();
+    IOUtils.close(tw, searcher.getIndexReader(), tr, indexDir, taxoDir);
+  }
+
+  private static ExecutorService newExecutor() {
+    return new ThreadPoolExecutor(1, TestUtil.nextInt(random(), 2, 6), Long.MAX_VALUE, TimeUnit.MILLISECONDS,
+                                  new LinkedBlockingQueue<Runnable>(),
+                                  new NamedThreadFactory("TestConcurrentFastTaxonomyFacetCounts"));
+  }
+}
@@ -22,6 +22,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 import org.apache.lucene.facet.FacetTestCase;
 import org.apache.lucene.facet.taxonomy.FacetLabel;
@@ -101,6 +102,64 @@ public class TestUTF8TaxonomyWriterCache extends FacetTestCase {
     }
   }
 
+  public void testManyPages() throws Exception {
+    // a single stripe so that ids cross several ordinal pages
+    UTF8TaxonomyWriterCache cache = new UTF8TaxonomyWriterCache(1);
+    final int numLabels = atLeast(20 * 1000);
+    for (int i = 0; i < numLabels; i++) {
+      assertFalse(cache.put(new FacetLabel("dim", Integer.toString(i)), i));
+    }
+    assertEquals(numLabels, cache.size());
+    for (int i = 0; i < numLabels; i++) {
+      assertEquals(i, cache.get(new FacetLabel("dim", Integer.toString(i))));
+    }
+    assertEquals(LabelToOrdinal.INVALID_ORDINAL, cache.get(new FacetLabel("dim", Integer.toString(numLabels))));
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertEquals(LabelToOrdinal.INVALID_ORDINAL, cache.get(new FacetLabel("dim", "0")));
+    cache.put(new FacetLabel("dim", "0"), 42);
+    assertEquals(42, cache.get(new FacetLabel("dim", "0")));
+  }
+
+  public void testConcurrentAccess() throws Exception {
+    final UTF8TaxonomyWriterCache cache = new UTF8TaxonomyWriterCache(TestUtil.nextInt(random(), 1, 8));
+    final int numThreads = TestUtil.nextInt(random(), 2, 5);
+    final int numLabelsPerThread = atLeast(2000);
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[numThreads];
+    for (int t = 0; t < numThreads; t++) {
+      final int thread = t;
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+          for (int i = 0; i < numLabelsPerThread; i++) {
+            int ord = thread * numLabelsPerThread + i;
+            FacetLabel label = new FacetLabel("dim", Integer.toString(ord));
+            assertEquals(LabelToOrdinal.INVALID_ORDINAL, cache.get(label));
+            cache.put(label, ord);
+            assertEquals(ord, cache.get(label));
+          }
+        }
+      };
+      threads[t].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(numThreads * numLabelsPerThread, cache.size());
+    for (int ord = 0; ord < numThreads * numLabelsPerThread; ord++) {
+      assertEquals(ord, cache.get(new FacetLabel("dim", Integer.toString(ord))));
+    }
+  }
+
   private static class LabelToOrdinalMap extends LabelToOrdinal {
     private Map<FacetLabel, Integer> map = new HashMap<>();
 
@@ -59,6 +59,7 @@ public class GroupingSearch {
   private boolean cacheScores;
   private boolean allGroups;
   private boolean allGroupHeads;
+  private boolean singlePass;
 
   private Collection<?> matchingGroups;
   private Bits matchingGroupHeads;
@@ -124,12 +125,23 @@ public class GroupingSearch {
   protected TopGroups groupByFieldOrFunction(IndexSearcher searcher, Query query, int groupOffset, int groupLimit) throws IOException {
     int topN = groupOffset + groupLimit;
 
-    final FirstPassGroupingCollector firstPassCollector = new FirstPassGroupingCollector(grouper, groupSort, topN);
+    int topNInsideGroup = groupDocsOffset + groupDocsLimit;
+    final FirstPassGroupingCollector firstPassCollector;
+    final SinglePassGroupingCollector singlePassCollector;
+    if (singlePass) {
+      firstPassCollector = null;
+      singlePassCollector = new SinglePassGroupingCollector(grouper, groupSort, topN, sortWithinGroup, topNInsideGroup,
+                                                            includeScores, includeMaxScore, fillSortFields);
+    } else {
+      firstPassCollector = new FirstPassGroupingCollector(grouper, groupSort, topN);
+      singlePassCollector = null;
+    }
     final AllGroupsCollector allGroupsCollector = allGroups ? new AllGroupsCollector(grouper) : null;
     final AllGroupHeadsCollector allGroupHeadsCollector
         = allGroupHeads ? AllGroupHeadsCollector.newCollector(grouper, sortWithinGroup) : null;
 
-    final Collector firstRound = MultiCollector.wrap(firstPassCollector, allGroupsCollector, allGroupHeadsCollector);
+    final Collector firstRound = MultiCollector.wrap(singlePass ? singlePassCollector : firstPassCollector,
+                                                     allGroupsCollector, allGroupHeadsCollector);
 
     CachingCollector cachedCollector = null;
     if (maxCacheRAMMB != null || maxDocsToCache != null) {
@@ -147,12 +159,17 @@ public class GroupingSearch {
     matchingGroupHeads = allGroupHeads ? allGroupHeadsCollector.retrieveGroupHeads(searcher.getIndexReader().maxDoc())
         : new Bits.MatchNoBits(searcher.getIndexReader().maxDoc());
 
-    Collection<SearchGroup> topSearchGroups = firstPassCollector.getTopGroups(groupOffset, fillSortFields);
+    Collection<SearchGroup> topSearchGroups = singlePass ? singlePassCollector.getSearchGroups(groupOffset, fillSortFields)
+        : firstPassCollector.getTopGroups(groupOffset, fillSortFields);
     if (topSearchGroups == null) {
       return new TopGroups(new SortField[0], new SortField[0], 0, 0, new GroupDocs[0], Float.NaN);
     }
 
-    int topNInsideGroup = groupDocsOffset + groupDocsLimit;
+    if (singlePass && singlePassCollector.isComplete(groupOffset)) {
+      TopGroups topGroups = singlePassCollector.getTopGroups(groupOffset, groupDocsOffset);
+      return allGroups ? new TopGroups(topGroups, matchingGroups.size()) : topGroups;
+    }
+
     TopGroupsCollector secondPassCollector
         = new TopGroupsCollector(grouper, topSearchGroups, groupSort, sortWithinGroup, topNInsideGroup,
                                          includeScores, includeMaxScore, fillSortFields);
@@ -223,6 +240,22 @@ public class GroupingSearch {
     return this;
   }
 
+  /**
+   * Whether to collect the top documents of the top groups while finding the top groups, using a
+   * {@link SinglePassGroupingCollector}. The second pass search then only runs if documents of some
+   * of the top groups had to be dropped during the first pass, ie. if a group made it into the top
+   * groups after some of its documents had been skipped.  The result is the same either way.
+   * <p>
+   * Defaults to <code>false</code>. This feature isn't used when grouping by doc block.
+   *
+   * @param singlePass Whether to try to perform the grouped search in a single pass
+   * @return <code>this</code>
+   */
+  public GroupingSearch setSinglePass(boolean singlePass) {
+    this.singlePass = singlePass;
+    return this;
+  }
+
   /**
    * Specifies how groups are sorted.
    * Defaults to {@link Sort#RELEVANCE}.
@@ -0,0 +1,535 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search.grouping;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.FieldComparator;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.LeafFieldComparator;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopDocsCollector;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TopScoreDocCollector;
+
+/** SinglePassGroupingCollector gathers the top N sorted groups, like
+ *  {@link FirstPassGroupingCollector}, and at the same time collects
+ *  the top documents of each of the current top groups, like
+ *  {@link TopGroupsCollector}, so that grouped hits can be computed
+ *  in a single pass over the matching documents.
+ *
+ *  <p>Memory is bounded by the top N groups: a group that falls out
+ *  of the top N drops the documents that were collected for it.  If
+ *  such a group later makes it back into the top N, or was seen
+ *  before it first entered the top N, its documents are incomplete
+ *  and {@link #isComplete(int)} returns false.  In that case, run
+ *  a {@link TopGroupsCollector} over the {@link #getSearchGroups
+ *  search groups} as a second pass.  Otherwise, {@link #getTopGroups}
+ *  returns the same result as the second pass would.</p>
+ *
+ *  <p>The values of groups that had documents dropped are tracked
+ *  up to {@code maxDroppedGroups} values.  Once more groups were
+ *  dropped, the tracked values are released and every group that
+ *  enters the top N from then on is considered incomplete.</p>
+ *
+ * @lucene.experimental
+ */
+public class SinglePassGroupingCollector<T> extends SimpleCollector {
+
+  /** Default maximum number of dropped groups that are tracked. */
+  public static final int DEFAULT_MAX_DROPPED_GROUPS = 1024;
+
+  private final GroupSelector<T> groupSelector;
+
+  private final FieldComparator<?>[] comparators;
+  private final LeafFieldComparator[] leafComparators;
+  private final int[] reversed;
+  private final int topNGroups;
+  private final boolean needsScores;
+  private final HashMap<T, GroupHead<T>> groupMap;
+  private final int maxDroppedGroups;
+  // groups that had documents dropped while they were not in the top N,
+  // or null if more than maxDroppedGroups groups were dropped
+  private Set<T> droppedGroups = new HashSet<>();
+  private final int compIDXEnd;
+
+  private final Sort groupSort;
+  private final Sort withinGroupSort;
+  private final int maxDocsPerGroup;
+  private final boolean getScores;
+  private final boolean getMaxScores;
+  private final boolean fillSortFields;
+
+  // Set once we reach topNGroups unique groups:
+  private TreeSet<GroupHead<T>> orderedGroups;
+  private LeafReaderContext context;
+  private Scorer scorer;
+  private int docBase;
+  private int spareSlot;
+  private int totalHitCount;
+
+  /**
+   * Create the single pass collector, tracking up to {@link #DEFAULT_MAX_DROPPED_GROUPS}
+   * dropped groups.
+   *
+   * @see #SinglePassGroupingCollector(GroupSelector, Sort, int, Sort, int, boolean, boolean, boolean, int)
+   */
+  public SinglePassGroupingCollector(GroupSelector<T> groupSelector, Sort groupSort, int topNGroups, Sort withinGroupSort,
+                                     int maxDocsPerGroup, boolean getScores, boolean getMaxScores, boolean fillSortFields) {
+    this(groupSelector, groupSort, topNGroups, withinGroupSort, maxDocsPerGroup, getScores, getMaxScores, fillSortFields,
+        DEFAULT_MAX_DROPPED_GROUPS);
+  }
+
+  /**
+   * Create the single pass collector.
+   *
+   * @param groupSelector     a GroupSelector used to defined groups
+   * @param groupSort         the {@link Sort} used to sort the groups, see
+   *                          {@link FirstPassGroupingCollector#FirstPassGroupingCollector}
+   * @param topNGroups        how many top groups to keep
+   * @param withinGroupSort   the order in which documents are sorted in each group
+   * @param maxDocsPerGroup   the maximum number of docs to collect for each group
+   * @param getScores         if true, record the scores of all docs in each group
+   * @param getMaxScores      if true, record the maximum score for each group
+   * @param fillSortFields    if true, record the sort field values for all docs
+   * @param maxDroppedGroups  the maximum number of dropped groups to track, beyond which
+   *                          groups entering the top N are considered incomplete
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public SinglePassGroupingCollector(GroupSelector<T> groupSelector, Sort groupSort, int topNGroups, Sort withinGroupSort,
+                                     int maxDocsPerGroup, boolean getScores, boolean getMaxScores, boolean fillSortFields,
+                                     int maxDroppedGroups) {
+    this.groupSelector = groupSelector;
+    if (topNGroups < 1) {
+      throw new IllegalArgumentException("topNGroups must be >= 1 (got " + topNGroups + ")");
+    }
+    if (maxDroppedGroups < 0) {
+      throw new IllegalArgumentException("maxDroppedGroups must be >= 0 (got " + maxDroppedGroups + ")");
+    }
+    this.maxDroppedGroups = maxDroppedGroups;
+
+    this.topNGroups = topNGroups;
+    this.groupSort = groupSort;
+    this.withinGroupSort = withinGroupSort;
+    this.maxDocsPerGroup = maxDocsPerGroup;
+    this.getScores = getScores;
+    this.getMaxScores = getMaxScores;
+    this.fillSortFields = fillSortFields;
+    this.needsScores = groupSort.needsScores() || getScores || getMaxScores || withinGroupSort.needsScores();
+    final SortField[] sortFields = groupSort.getSort();
+    comparators = new FieldComparator[sortFields.length];
+    leafComparators = new LeafFieldComparator[sortFields.length];
+    compIDXEnd = comparators.length - 1;
+    reversed = new int[sortFields.length];
+    for (int i = 0; i < sortFields.length; i++) {
+      final SortField sortField = sortFields[i];
+
+      // use topNGroups + 1 so we have a spare slot to use for comparing (tracked by this.spareSlot):
+      comparators[i] = sortField.getComparator(topNGroups + 1, i);
+      reversed[i] = sortField.getReverse() ? -1 : 1;
+    }
+
+    spareSlot = topNGroups;
+    groupMap = new HashMap<>(topNGroups);
+  }
+
+  @Override
+  public ScoreMode scoreMode() {
+    return needsScores ? ScoreMode.COMPLETE : ScoreMode.COMPLETE_NO_SCORES;
+  }
+
+  /**
+   * Returns top groups, starting from offset, as {@link FirstPassGroupingCollector#getTopGroups}
+   * would.  This may return null, if no groups were collected, or if the number of unique groups
+   * collected is &lt;= offset.
+   *
+   * @param groupOffset The offset in the collected groups
+   * @param fillFields Whether to fill to {@link SearchGroup#sortValues}
+   * @return top groups, starting from offset
+   */
+  public Collection<SearchGroup<T>> getSearchGroups(int groupOffset, boolean fillFields) throws IOException {
+    final Collection<GroupHead<T>> groups = getGroupHeads(groupOffset);
+    if (groups == null) {
+      return null;
+    }
+    final Collection<SearchGroup<T>> result = new ArrayList<>(groups.size());
+    for (GroupHead<T> group : groups) {
+      result.add(toSearchGroup(group, fillFields));
+    }
+    return result;
+  }
+
+  /**
+   * Returns true if all documents of the top groups, starting from offset, were collected,
+   * ie. if {@link #getTopGroups} can be used instead of a second pass.
+   */
+  public boolean isComplete(int groupOffset) throws IOException {
+    final Collection<GroupHead<T>> groups = getGroupHeads(groupOffset);
+    if (groups != null) {
+      for (GroupHead<T> group : groups) {
+        if (group.complete == false) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the top groups, starting from offset, with their top documents.  This is the same result as
+   * {@link TopGroupsCollector#getTopGroups} of a second pass over the {@link #getSearchGroups search groups}
+   * would return.  This may return null, if no groups were collected, or if the number of unique groups
+   * collected is &lt;= offset.
+   *
+   * @param groupOffset       the offset in the collected groups
+   * @param withinGroupOffset the offset within each group to start collecting documents
+   * @throws IllegalStateException if some of the top groups are not {@link #isComplete(int) complete}
+   */
+  public TopGroups<T> getTopGroups(int groupOffset, int withinGroupOffset) throws IOException {
+    final Collection<GroupHead<T>> groups = getGroupHeads(groupOffset);
+    if (groups == null) {
+      return null;
+    }
+
+    @SuppressWarnings({"unchecked","rawtypes"})
+    final GroupDocs<T>[] groupDocsResult = (GroupDocs<T>[]) new GroupDocs[groups.size()];
+
+    int groupIDX = 0;
+    int totalGroupedHitCount = 0;
+    float maxScore = Float.MIN_VALUE;
+    for (GroupHead<T> group : groups) {
+      if (group.complete == false) {
+        throw new IllegalStateException("documents of group " + group.groupValue + " were dropped, a second pass is required");
+      }
+      final TopDocs topDocs = group.collector.topDocs(withinGroupOffset, maxDocsPerGroup);
+      final SearchGroup<T> searchGroup = toSearchGroup(group, fillSortFields);
+      groupDocsResult[groupIDX++] = new GroupDocs<>(Float.NaN,
+          topDocs.getMaxScore(),
+          topDocs.totalHits,
+          topDocs.scoreDocs,
+          searchGroup.groupValue,
+          searchGroup.sortValues);
+      totalGroupedHitCount += topDocs.totalHits;
+      maxScore = Math.max(maxScore, topDocs.getMaxScore());
+    }
+
+    return new TopGroups<>(groupSort.getSort(),
+        withinGroupSort.getSort(),
+        totalHitCount, totalGroupedHitCount, groupDocsResult,
+        maxScore);
+  }
+
+  /** Returns the total number of collected documents. */
+  public int getTotalHitCount() {
+    return totalHitCount;
+  }
+
+  private Collection<GroupHead<T>> getGroupHeads(int groupOffset) throws IOException {
+    if (groupOffset < 0) {
+      throw new IllegalArgumentException("groupOffset must be >= 0 (got " + groupOffset + ")");
+    }
+
+    if (groupMap.size() <= groupOffset) {
+      return null;
+    }
+
+    if (orderedGroups == null) {
+      buildSortedSet();
+    }
+
+    final Collection<GroupHead<T>> result = new ArrayList<>();
+    int upto = 0;
+    for (GroupHead<T> group : orderedGroups) {
+      if (upto++ >= groupOffset) {
+        result.add(group);
+      }
+    }
+    return result;
+  }
+
+  private SearchGroup<T> toSearchGroup(GroupHead<T> group, boolean fillFields) {
+    SearchGroup<T> searchGroup = new SearchGroup<>();
+    searchGroup.groupValue = group.groupValue;
+    if (fillFields) {
+      searchGroup.sortValues = new Object[comparators.length];
+      for (int sortFieldIDX = 0; sortFieldIDX < comparators.length; sortFieldIDX++) {
+        searchGroup.sortValues[sortFieldIDX] = comparators[sortFieldIDX].value(group.comparatorSlot);
+      }
+    }
+    return searchGroup;
+  }
+
+  @Override
+  public void setScorer(Scorer scorer) throws IOException {
+    this.scorer = scorer;
+    for (LeafFieldComparator comparator : leafComparators) {
+      comparator.setScorer(scorer);
+    }
+    for (GroupHead<T> group : groupMap.values()) {
+      group.leafCollector.setScorer(scorer);
+    }
+  }
+
+  private boolean isCompetitive(int doc) throws IOException {
+    // Only called for documents of groups that are not in the top N yet,
+    // once we already collected N groups
+    for (int compIDX = 0;; compIDX++) {
+      final int c = reversed[compIDX] * leafComparators[compIDX].compareBottom(doc);
+      if (c < 0) {
+        // Definitely not competitive. So don't even bother to continue
+        return false;
+      } else if (c > 0) {
+        // Definitely competitive.
+        return true;
+      } else if (compIDX == compIDXEnd) {
+        // Here c=0. If we're at the last comparator, this doc is not
+        // competitive, since docs are visited in doc Id order, which means
+        // this doc cannot compete with any other document in the queue.
+        return false;
+      }
+    }
+  }
+
+  @Override
+  public void collect(int doc) throws IOException {
+    totalHitCount++;
+
+    // Unlike the first pass, we always need to know the group of the
+    // document, since all documents of the top groups are collected
+    groupSelector.advanceTo(doc);
+    T groupValue = groupSelector.currentValue();
+
+    final GroupHead<T> group = groupMap.get(groupValue);
+
+    if (group == null) {
+
+      // First time we are seeing this group, or, we've seen
+      // it before but it fell out of the top N and is now
+      // coming back
+
+      if (groupMap.size() < topNGroups) {
+
+        // Still in startup transient: we have not
+        // seen enough unique groups to start pruning them;
+        // just keep collecting them
+
+        GroupHead<T> sg = new GroupHead<>();
+        sg.groupValue = groupSelector.copyValue();
+        sg.comparatorSlot = groupMap.size();
+        sg.topDoc = docBase + doc;
+        for (LeafFieldComparator fc : leafComparators) {
+          fc.copy(sg.comparatorSlot, doc);
+        }
+        startCollecting(sg);
+        groupMap.put(sg.groupValue, sg);
+        sg.leafCollector.collect(doc);
+
+        if (groupMap.size() == topNGroups) {
+          // End of startup transient: we now have max
+          // number of groups; from here on we will drop
+          // bottom group when we insert new one:
+          buildSortedSet();
+        }
+
+        return;
+      }
+
+      if (isCompetitive(doc) == false) {
+        // remember that this group misses documents, should it make it into the top N later
+        if (droppedGroups != null && droppedGroups.contains(groupValue) == false) {
+          addDroppedGroup(groupSelector.copyValue());
+        }
+        return;
+      }
+
+      // Replace the bottom group with this new group.
+      final GroupHead<T> bottomGroup = orderedGroups.pollLast();
+      assert orderedGroups.size() == topNGroups -1;
+
+      groupMap.remove(bottomGroup.groupValue);
+      if (droppedGroups != null) {
+        addDroppedGroup(bottomGroup.groupValue);
+      }
+
+      // reuse the removed GroupHead
+      bottomGroup.groupValue = groupSelector.copyValue();
+      bottomGroup.topDoc = docBase + doc;
+
+      for (LeafFieldComparator fc : leafComparators) {
+        fc.copy(bottomGroup.comparatorSlot, doc);
+      }
+      startCollecting(bottomGroup);
+
+      groupMap.put(bottomGroup.groupValue, bottomGroup);
+      orderedGroups.add(bottomGroup);
+      assert orderedGroups.size() == topNGroups;
+      bottomGroup.leafCollector.collect(doc);
+
+      final int lastComparatorSlot = orderedGroups.last().comparatorSlot;
+      for (LeafFieldComparator fc : leafComparators) {
+        fc.setBottom(lastComparatorSlot);
+      }
+
+      return;
+    }
+
+    group.leafCollector.collect(doc);
+
+    // Update existing group:
+    for (int compIDX = 0;; compIDX++) {
+      leafComparators[compIDX].copy(spareSlot, doc);
+
+      final int c = reversed[compIDX] * comparators[compIDX].compare(group.comparatorSlot, spareSlot);
+      if (c < 0) {
+        // Definitely not competitive.
+        return;
+      } else if (c > 0) {
+        // Definitely competitive; set remaining comparators:
+        for (int compIDX2=compIDX+1; compIDX2<comparators.length; compIDX2++) {
+          leafComparators[compIDX2].copy(spareSlot, doc);
+        }
+        break;
+      } else if (compIDX == compIDXEnd) {
+        // Here c=0. If we're at the last comparator, this doc is not
+        // competitive, since docs are visited in doc Id order, which means
+        // this doc cannot compete with any other document in the queue.
+        return;
+      }
+    }
+
+    // Remove before updating the group since lookup is done via comparators
+
+    final GroupHead<T> prevLast;
+    if (orderedGroups != null) {
+      prevLast = orderedGroups.last();
+      orderedGroups.remove(group);
+      assert orderedGroups.size() == topNGroups-1;
+    } else {
+      prevLast = null;
+    }
+
+    group.topDoc = docBase + doc;
+
+    // Swap slots
+    final int tmp = spareSlot;
+    spareSlot = group.comparatorSlot;
+    group.comparatorSlot = tmp;
+
+    // Re-add the changed group
+    if (orderedGroups != null) {
+      orderedGroups.add(group);
+      assert orderedGroups.size() == topNGroups;
+      final GroupHead<T> newLast = orderedGroups.last();
+      // If we changed the value of the last group, or changed which group was last, then update bottom:
+      if (group == newLast || prevLast != newLast) {
+        for (LeafFieldComparator fc : leafComparators) {
+          fc.setBottom(newLast.comparatorSlot);
+        }
+      }
+    }
+  }
+
+  private void addDroppedGroup(T groupValue) {
+    if (droppedGroups.size() >= maxDroppedGroups) {
+      // stop tracking, any group that enters the top N from now on may have missed documents
+      droppedGroups = null;
+    } else {
+      droppedGroups.add(groupValue);
+    }
+  }
+
+  /** Starts collecting the documents of a group that just entered the top N. */
+  private void startCollecting(GroupHead<T> group) throws IOException {
+    group.complete = droppedGroups != null && droppedGroups.contains(group.groupValue) == false;
+    if (withinGroupSort == Sort.RELEVANCE) {
+      group.collector = TopScoreDocCollector.create(maxDocsPerGroup);
+    } else {
+      group.collector = TopFieldCollector.create(withinGroupSort, maxDocsPerGroup, fillSortFields, getScores, getMaxScores, true);
+    }
+    group.leafCollector = group.collector.getLeafCollector(context);
+    if (scorer != null) {
+      group.leafCollector.setScorer(scorer);
+    }
+  }
+
+  private void buildSortedSet() throws IOException {
+    final Comparator<GroupHead<?>> comparator = new Comparator<GroupHead<?>>() {
+      @Override
+      public int compare(GroupHead<?> o1, GroupHead<?> o2) {
+        for (int compIDX = 0;; compIDX++) {
+          FieldComparator<?> fc = comparators[compIDX];
+          final int c = reversed[compIDX] * fc.compare(o1.comparatorSlot, o2.comparatorSlot);
+          if (c != 0) {
+            return c;
+          } else if (compIDX == compIDXEnd) {
+            return o1.topDoc - o2.topDoc;
+          }
+        }
+      }
+    };
+
+    orderedGroups = new TreeSet<>(comparator);
+    orderedGroups.addAll(groupMap.values());
+    assert orderedGroups.size() > 0;
+
+    for (LeafFieldComparator fc : leafComparators) {
+      fc.setBottom(orderedGroups.last().comparatorSlot);
+    }
+  }
+
+  @Override
+  protected void doSetNextReader(LeafReaderContext readerContext) throws IOException {
+    context = readerContext;
+    docBase = readerContext.docBase;
+    for (int i=0; i<comparators.length; i++) {
+      leafComparators[i] = comparators[i].getLeafComparator(readerContext);
+    }
+    groupSelector.setNextReader(readerContext);
+    for (GroupHead<T> group : groupMap.values()) {
+      group.leafCollector = group.collector.getLeafCollector(readerContext);
+    }
+  }
+
+  /**
+   * @return the GroupSelector used for this Collector
+   */
+  public GroupSelector<T> getGroupSelector() {
+    return groupSelector;
+  }
+
+  /** A top group, with the collector of its top documents. */
+  private static class GroupHead<T> extends CollectedSearchGroup<T> {
+    TopDocsCollector<?> collector;
+    LeafCollector leafCollector;
+    // false if documents of this group were dropped before it entered the top N
+    boolean complete;
+  }
+
+}
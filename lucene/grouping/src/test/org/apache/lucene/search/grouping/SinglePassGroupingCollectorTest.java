@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search.grouping;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
+
+public class SinglePassGroupingCollectorTest extends AbstractGroupingTestCase {
+
+  public void testFewGroups() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    String[] groups = new String[] {"a", "b", "c"};
+    int numDocs = atLeast(100);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      doc.add(new SortedDocValuesField("group", new BytesRef(groups[i % groups.length])));
+      doc.add(new NumericDocValuesField("sort", random().nextInt(50)));
+      w.addDocument(doc);
+    }
+    IndexSearcher searcher = newSearcher(w.getReader());
+    w.close();
+
+    Sort groupSort = new Sort(new SortField("sort", SortField.Type.INT));
+    SinglePassGroupingCollector<BytesRef> c = new SinglePassGroupingCollector<>(new TermGroupSelector("group"),
+        groupSort, 5, groupSort, 3, false, false, true);
+    searcher.search(new MatchAllDocsQuery(), c);
+
+    // no group was ever evicted
+    assertTrue(c.isComplete(0));
+    TopGroups<BytesRef> topGroups = c.getTopGroups(0, 0);
+    assertEquals(numDocs, topGroups.totalHitCount);
+    assertEquals(numDocs, topGroups.totalGroupedHitCount);
+    assertEquals(3, topGroups.groups.length);
+    assertNull(c.getTopGroups(3, 0));
+    assertNull(c.getSearchGroups(3, true));
+    assertEquals(1, c.getTopGroups(2, 0).groups.length);
+
+    assertEquals(compute(searcher, new MatchAllDocsQuery(), groupSort, groupSort, 5, 0, 0, 3, true, false),
+        topGroups, true, false);
+
+    searcher.getIndexReader().close();
+    dir.close();
+  }
+
+  public void testMaxDroppedGroups() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(newLogMergePolicy()));
+    // with a single top group, b is dropped when a is seen, and a is dropped when c is seen
+    String[] groups = new String[] {"b", "a", "c"};
+    int[] sortValues = new int[] {5, 3, 1};
+    for (int i = 0; i < groups.length; i++) {
+      Document doc = new Document();
+      doc.add(new SortedDocValuesField("group", new BytesRef(groups[i])));
+      doc.add(new NumericDocValuesField("sort", sortValues[i]));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    IndexSearcher searcher = newSearcher(DirectoryReader.open(w));
+    w.close();
+
+    Sort groupSort = new Sort(new SortField("sort", SortField.Type.INT));
+    SinglePassGroupingCollector<BytesRef> c = new SinglePassGroupingCollector<>(new TermGroupSelector("group"),
+        groupSort, 1, groupSort, 1, false, false, true, 2);
+    searcher.search(new MatchAllDocsQuery(), c);
+    assertTrue(c.isComplete(0));
+    assertEquals(new BytesRef("c"), c.getTopGroups(0, 0).groups[0].groupValue);
+
+    // c was never dropped, but is not known to be complete since dropped groups are no longer tracked
+    c = new SinglePassGroupingCollector<>(new TermGroupSelector("group"),
+        groupSort, 1, groupSort, 1, false, false, true, 1);
+    searcher.search(new MatchAllDocsQuery(), c);
+    assertFalse(c.isComplete(0));
+    assertEquals(new BytesRef("c"), c.getSearchGroups(0, false).iterator().next().groupValue);
+
+    expectThrows(IllegalArgumentException.class, () -> new SinglePassGroupingCollector<>(new TermGroupSelector("group"),
+        groupSort, 1, groupSort, 1, false, false, true, -1));
+
+    searcher.getIndexReader().close();
+    dir.close();
+  }
+
+  public void testRandom() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    int numGroups = TestUtil.nextInt(random(), 1, 200);
+    String[] groups = new String[numGroups];
+    for (int i = 0; i < numGroups; i++) {
+      groups[i] = generateRandomNonEmptyString();
+    }
+    int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      if (random().nextInt(20) != 0) {
+        doc.add(new SortedDocValuesField("group", new BytesRef(groups[random().nextInt(numGroups)])));
+      }
+      doc.add(new NumericDocValuesField("sort", random().nextInt(100)));
+      int freq = TestUtil.nextInt(random(), 1, 5);
+      StringBuilder content = new StringBuilder();
+      for (int j = 0; j < freq; j++) {
+        content.append("foo ");
+      }
+      if (random().nextBoolean()) {
+        content.append("bar");
+      }
+      doc.add(newTextField("content", content.toString(), Field.Store.NO));
+      w.addDocument(doc);
+      if (random().nextInt(200) == 0) {
+        w.commit();
+      }
+    }
+    IndexSearcher searcher = newSearcher(w.getReader());
+    w.close();
+
+    int iters = atLeast(50);
+    int numComplete = 0;
+    for (int iter = 0; iter < iters; iter++) {
+      Query query = random().nextBoolean() ? new TermQuery(new Term("content", "foo")) : new TermQuery(new Term("content", "bar"));
+      Sort groupSort = randomSort();
+      Sort withinGroupSort = randomSort();
+      int topN = TestUtil.nextInt(random(), 1, 20);
+      int groupOffset = random().nextInt(topN);
+      int withinGroupOffset = random().nextInt(3);
+      int docsPerGroup = withinGroupOffset + TestUtil.nextInt(random(), 1, 5);
+      boolean getScores = random().nextBoolean();
+      boolean fillFields = random().nextBoolean();
+
+      TermGroupSelector firstPassSelector = new TermGroupSelector("group");
+      FirstPassGroupingCollector<BytesRef> firstPass = new FirstPassGroupingCollector<>(firstPassSelector, groupSort, topN);
+      searcher.search(query, firstPass);
+      Collection<SearchGroup<BytesRef>> expectedSearchGroups = firstPass.getTopGroups(groupOffset, fillFields);
+
+      int maxDroppedGroups = random().nextBoolean() ? SinglePassGroupingCollector.DEFAULT_MAX_DROPPED_GROUPS : random().nextInt(10);
+      SinglePassGroupingCollector<BytesRef> singlePass = new SinglePassGroupingCollector<>(new TermGroupSelector("group"),
+          groupSort, topN, withinGroupSort, docsPerGroup, getScores, getScores, fillFields, maxDroppedGroups);
+      searcher.search(query, singlePass);
+      Collection<SearchGroup<BytesRef>> actualSearchGroups = singlePass.getSearchGroups(groupOffset, fillFields);
+      assertEquals(expectedSearchGroups, actualSearchGroups, fillFields);
+
+      TopGroups<BytesRef> expected = compute(searcher, query, groupSort, withinGroupSort, topN, groupOffset, withinGroupOffset,
+          docsPerGroup, fillFields, getScores);
+      if (singlePass.isComplete(groupOffset)) {
+        numComplete++;
+        assertEquals(expected, singlePass.getTopGroups(groupOffset, withinGroupOffset), fillFields, getScores);
+      } else {
+        expectThrows(IllegalStateException.class, () -> singlePass.getTopGroups(groupOffset, withinGroupOffset));
+      }
+
+      // GroupingSearch falls back to a second pass if needed
+      GroupingSearch groupingSearch = new GroupingSearch("group")
+          .setSinglePass(true)
+          .setGroupSort(groupSort)
+          .setSortWithinGroup(withinGroupSort)
+          .setGroupDocsOffset(withinGroupOffset)
+          .setGroupDocsLimit(docsPerGroup - withinGroupOffset)
+          .setFillSortFields(fillFields)
+          .setIncludeScores(getScores)
+          .setIncludeMaxScore(getScores);
+      if (random().nextBoolean()) {
+        groupingSearch.setCaching(numDocs, true);
+      }
+      TopGroups<BytesRef> actual = groupingSearch.search(searcher, query, groupOffset, topN - groupOffset);
+      if (expected == null) {
+        assertEquals(0, actual.groups.length);
+      } else {
+        assertEquals(expected, actual, fillFields, getScores);
+      }
+    }
+    if (VERBOSE) {
+      System.out.println("complete single pass: " + numComplete + "/" + iters);
+    }
+
+    searcher.getIndexReader().close();
+    dir.close();
+  }
+
+  private static Sort randomSort() {
+    switch (random().nextInt(4)) {
+      case 0:
+        return Sort.RELEVANCE;
+      case 1:
+        return new Sort(new SortField("sort", SortField.Type.INT));
+      case 2:
+        return new Sort(new SortField("sort", SortField.Type.INT, true), SortField.FIELD_SCORE);
+      default:
+        return new Sort(SortField.FIELD_SCORE, new SortField("sort", SortField.Type.INT));
+    }
+  }
+
+  /** Two-pass grouping */
+  private static TopGroups<BytesRef> compute(IndexSearcher searcher, Query query, Sort groupSort, Sort withinGroupSort, int topN,
+                                             int groupOffset, int withinGroupOffset, int docsPerGroup, boolean fillFields,
+                                             boolean getScores) throws Exception {
+    FirstPassGroupingCollector<BytesRef> firstPass = new FirstPassGroupingCollector<>(new TermGroupSelector("group"), groupSort, topN);
+    searcher.search(query, firstPass);
+    Collection<SearchGroup<BytesRef>> searchGroups = firstPass.getTopGroups(groupOffset, fillFields);
+    if (searchGroups == null) {
+      return null;
+    }
+    TopGroupsCollector<BytesRef> secondPass = new TopGroupsCollector<>(new TermGroupSelector("group"), searchGroups,
+        groupSort, withinGroupSort, docsPerGroup, getScores, getScores, fillFields);
+    searcher.search(query, secondPass);
+    return secondPass.getTopGroups(withinGroupOffset);
+  }
+
+  private static void assertEquals(Collection<SearchGroup<BytesRef>> expected, Collection<SearchGroup<BytesRef>> actual,
+                                   boolean fillFields) {
+    if (expected == null) {
+      assertNull(actual);
+      return;
+    }
+    assertEquals(expected.size(), actual.size());
+    Iterator<SearchGroup<BytesRef>> it = actual.iterator();
+    for (SearchGroup<BytesRef> expectedGroup : expected) {
+      SearchGroup<BytesRef> actualGroup = it.next();
+      assertEquals(expectedGroup.groupValue, actualGroup.groupValue);
+      if (fillFields) {
+        assertArrayEquals(expectedGroup.sortValues, actualGroup.sortValues);
+      }
+    }
+  }
+
+  private static void assertEquals(TopGroups<BytesRef> expected, TopGroups<BytesRef> actual, boolean fillFields, boolean getScores) {
+    if (expected == null) {
+      assertNull(actual);
+      return;
+    }
+    assertNotNull(actual);
+    assertEquals(expected.totalHitCount, actual.totalHitCount);
+    assertEquals(expected.totalGroupedHitCount, actual.totalGroupedHitCount);
+    assertEquals(expected.groups.length, actual.groups.length);
+    for (int i = 0; i < expected.groups.length; i++) {
+      GroupDocs<BytesRef> expectedGroup = expected.groups[i];
+      GroupDocs<BytesRef> actualGroup = actual.groups[i];
+      assertEquals(expectedGroup.groupValue, actualGroup.groupValue);
+      assertArrayEquals(expectedGroup.groupSortValues, actualGroup.groupSortValues);
+      assertEquals(expectedGroup.totalHits, actualGroup.totalHits);
+      if (getScores) {
+        assertEquals(expectedGroup.maxScore, actualGroup.maxScore, 0f);
+      }
+      assertEquals(toString(expectedGroup.scoreDocs), toString(actualGroup.scoreDocs));
+    }
+  }
+
+  private static List<String> toString(ScoreDoc[] scoreDocs) {
+    List<String> result = new ArrayList<>();
+    for (ScoreDoc scoreDoc : scoreDocs) {
+      String s = scoreDoc.doc + ":" + scoreDoc.score;
+      if (scoreDoc instanceof FieldDoc && ((FieldDoc) scoreDoc).fields != null) {
+        for (Object field : ((FieldDoc) scoreDoc).fields) {
+          s += ":" + field;
+        }
+      }
+      result.add(s);
+    }
+    return result;
+  }
+}
@@ -17,14 +17,19 @@
 package org.apache.lucene.search.join;
 
 import java.io.IOException;
+import java.util.Collection;
 
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.Scorer;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.LongBitSet;
 import org.apache.lucene.util.LongValues;
 
@@ -39,16 +44,67 @@ final class GlobalOrdinalsCollector implements Collector {
   final LongBitSet collectedOrds;
   final OrdinalMap ordinalMap;
 
+  // ordinals of the segment that is being collected, that still need to be merged into collectedOrds
+  private FixedBitSet segmentOrds;
+  private LongValues segmentOrdToGlobalOrdLookup;
+
   GlobalOrdinalsCollector(String field, OrdinalMap ordinalMap, long valueCount) {
+    this(field, ordinalMap, new LongBitSet(valueCount));
+  }
+
+  private GlobalOrdinalsCollector(String field, OrdinalMap ordinalMap, LongBitSet collectedOrds) {
     this.field = field;
     this.ordinalMap = ordinalMap;
-    this.collectedOrds = new LongBitSet(valueCount);
+    this.collectedOrds = collectedOrds;
   }
 
   public LongBitSet getCollectorOrdinals() {
+    mergeSegmentOrds();
     return collectedOrds;
   }
 
+  /**
+   * Returns a {@link CollectorManager} whose collectors all collect ordinals into the
+   * same {@link LongBitSet}, so that segments can be searched concurrently.
+   * <p>
+   * Each collector collects the ordinals of the segment that it is searching into a
+   * {@link FixedBitSet} of the size of the segment's value count, and merges them into
+   * the shared {@link LongBitSet} once it moves to the next segment. Memory usage is thus
+   * {@code valueCount} bits, plus the value count of every segment that is being
+   * searched concurrently, rather than {@code valueCount} bits per slice.
+   */
+  static CollectorManager<GlobalOrdinalsCollector, LongBitSet> createManager(String field, OrdinalMap ordinalMap, long valueCount) {
+    final LongBitSet collectedOrds = new LongBitSet(valueCount);
+    return new CollectorManager<GlobalOrdinalsCollector, LongBitSet>() {
+      @Override
+      public GlobalOrdinalsCollector newCollector() {
+        return new GlobalOrdinalsCollector(field, ordinalMap, collectedOrds);
+      }
+
+      @Override
+      public LongBitSet reduce(Collection<GlobalOrdinalsCollector> collectors) {
+        for (GlobalOrdinalsCollector collector : collectors) {
+          collector.mergeSegmentOrds();
+        }
+        return collectedOrds;
+      }
+    };
+  }
+
+  /** Merge the ordinals of the last collected segment into the shared bit set. */
+  private void mergeSegmentOrds() {
+    if (segmentOrds != null) {
+      synchronized (collectedOrds) {
+        BitSetIterator it = new BitSetIterator(segmentOrds, 0L);
+        for (int ord = it.nextDoc(); ord != DocIdSetIterator.NO_MORE_DOCS; ord = it.nextDoc()) {
+          collectedOrds.set(segmentOrdToGlobalOrdLookup.get(ord));
+        }
+      }
+      segmentOrds = null;
+      segmentOrdToGlobalOrdLookup = null;
+    }
+  }
+
   @Override
   public org.apache.lucene.search.ScoreMode scoreMode() {
     return org.apache.lucene.search.ScoreMode.COMPLETE_NO_SCORES;
@@ -56,11 +112,14 @@ final class GlobalOrdinalsCollector implements Collector {
 
   @Override
   public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+    mergeSegmentOrds();
     SortedDocValues docTermOrds = DocValues.getSorted(context.reader(), field);
     if (ordinalMap != null) {
-      LongValues segmentOrdToGlobalOrdLookup = ordinalMap.getGlobalOrds(context.ord);
-      return new OrdinalMapCollector(docTermOrds, segmentOrdToGlobalOrdLookup);
+      segmentOrds = new FixedBitSet(docTermOrds.getValueCount());
+      segmentOrdToGlobalOrdLookup = ordinalMap.getGlobalOrds(context.ord);
+      return new OrdinalMapCollector(docTermOrds, segmentOrds);
     } else {
+      // a single segment, so segment ordinals are global ordinals and no other collector is writing concurrently
       return new SegmentOrdinalCollector(docTermOrds);
     }
   }
@@ -68,19 +127,17 @@ final class GlobalOrdinalsCollector implements Collector {
   final class OrdinalMapCollector implements LeafCollector {
 
     private final SortedDocValues docTermOrds;
-    private final LongValues segmentOrdToGlobalOrdLookup;
+    private final FixedBitSet segmentOrds;
 
-    OrdinalMapCollector(SortedDocValues docTermOrds, LongValues segmentOrdToGlobalOrdLookup) {
+    OrdinalMapCollector(SortedDocValues docTermOrds, FixedBitSet segmentOrds) {
       this.docTermOrds = docTermOrds;
-      this.segmentOrdToGlobalOrdLookup = segmentOrdToGlobalOrdLookup;
+      this.segmentOrds = segmentOrds;
     }
 
     @Override
     public void collect(int doc) throws IOException {
       if (docTermOrds.advanceExact(doc)) {
-        long segmentOrd = docTermOrds.ordValue();
-        long globalOrd = segmentOrdToGlobalOrdLookup.get(segmentOrd);
-        collectedOrds.set(globalOrd);
+        segmentOrds.set(docTermOrds.ordValue());
       }
     }
 
@@ -48,6 +48,7 @@ import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.SimpleCollector;
 import org.apache.lucene.search.join.DocValuesTermsCollector.Function;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongBitSet;
 
 /**
  * Utility for query time joining.
@@ -434,6 +435,11 @@ public final class JoinUtil {
    * Note: min and max filtering and the avg score mode will require this join to keep track of the number of times
    * a document matches per join value. This will increase the per join cost in terms of execution time and memory.
    *
+   * Note: with {@link ScoreMode#None} and no min and max filtering, the "from" documents are collected
+   * concurrently if the searcher was created with an {@link java.util.concurrent.ExecutorService}. All slices
+   * collect into a single bit set of one bit per global ordinal, each search thread additionally needs one bit per
+   * ordinal of the segment that it is searching.
+   *
    * @param joinField   The {@link SortedDocValues} field containing the join values
    * @param fromQuery   The query containing the actual user query. Also the fromQuery can only match "from" documents.
    * @param toQuery     The query identifying all documents on the "to" side.
@@ -497,9 +503,10 @@ public final class JoinUtil {
         break;
       case None:
         if (min <= 0 && max == Integer.MAX_VALUE) {
-          GlobalOrdinalsCollector globalOrdinalsCollector = new GlobalOrdinalsCollector(joinField, ordinalMap, valueCount);
-          searcher.search(rewrittenFromQuery, globalOrdinalsCollector);
-          return new GlobalOrdinalsQuery(globalOrdinalsCollector.getCollectorOrdinals(), joinField, ordinalMap, rewrittenToQuery,
+          // slices of segments run concurrently if the searcher has an executor, they all collect into the same bitset
+          LongBitSet collectedOrds = searcher.search(rewrittenFromQuery,
+              GlobalOrdinalsCollector.createManager(joinField, ordinalMap, valueCount));
+          return new GlobalOrdinalsQuery(collectedOrds, joinField, ordinalMap, rewrittenToQuery,
               rewrittenFromQuery, searcher.getTopReaderContext().id());
         } else {
           globalOrdinalsWithScoreCollector = new GlobalOrdinalsWithScoreCollector.NoScore(joinField, ordinalMap, valueCount, min, max);
@@ -31,14 +31,27 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BitDocIdSet;
 import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.RamUsageEstimator;
 
 /**
  * A {@link BitSetProducer} that wraps a query and caches matching
- * {@link BitSet}s per segment.
+ * {@link BitSet}s per segment. Sparse sets of matching documents are
+ * cached as {@link org.apache.lucene.util.SparseFixedBitSet}s.
+ * <p>
+ * Bitsets are computed the first time a segment is used, unless the
+ * producer is {@link #warm warmed} when opening a new reader. The memory
+ * usage of the cached bitsets is reported by {@link #ramBytesUsed()}.
  */
-public class QueryBitSetProducer implements BitSetProducer {
+public class QueryBitSetProducer implements BitSetProducer, Accountable {
+
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(QueryBitSetProducer.class);
+
+  // key + value, and hash tables need to be oversized to avoid collisions, assume 2x capacity
+  private static final long HASHTABLE_RAM_BYTES_PER_ENTRY = 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF * 2;
+
   private final Query query;
   final Map<IndexReader.CacheKey,DocIdSet> cache = Collections.synchronizedMap(new WeakHashMap<>());
 
@@ -67,24 +80,61 @@ public class QueryBitSetProducer implements BitSetProducer {
       docIdSet = cache.get(cacheHelper.getKey());
     }
     if (docIdSet == null) {
-      final IndexReaderContext topLevelContext = ReaderUtil.getTopLevelContext(context);
-      final IndexSearcher searcher = new IndexSearcher(topLevelContext);
-      searcher.setQueryCache(null);
-      final Query rewritten = searcher.rewrite(query);
-      final Weight weight = searcher.createWeight(rewritten, org.apache.lucene.search.ScoreMode.COMPLETE_NO_SCORES, 1);
-      final Scorer s = weight.scorer(context);
-
-      if (s == null) {
-        docIdSet = DocIdSet.EMPTY;
-      } else {
-        docIdSet = new BitDocIdSet(BitSet.of(s.iterator(), context.reader().maxDoc()));
-      }
+      docIdSet = computeBitSet(createWeight(context), context);
       if (cacheHelper != null) {
         cache.put(cacheHelper.getKey(), docIdSet);
       }
     }
     return docIdSet == DocIdSet.EMPTY ? null : ((BitDocIdSet) docIdSet).bits();
   }
+
+  /**
+   * Computes and caches the bitsets of all segments of the given reader that are not cached yet.
+   * Call this when opening a new reader, e.g. from a {@link org.apache.lucene.search.SearcherFactory}
+   * on NRT reopen, so that searches do not have to compute the bitsets of new segments. Segments
+   * that were already cached with a previous reader are not computed again.
+   */
+  public void warm(IndexReader reader) throws IOException {
+    Weight weight = null;
+    for (LeafReaderContext context : reader.leaves()) {
+      final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+      if (cacheHelper == null || cache.containsKey(cacheHelper.getKey())) {
+        continue;
+      }
+      if (weight == null) {
+        weight = createWeight(context);
+      }
+      cache.put(cacheHelper.getKey(), computeBitSet(weight, context));
+    }
+  }
+
+  private Weight createWeight(LeafReaderContext context) throws IOException {
+    final IndexReaderContext topLevelContext = ReaderUtil.getTopLevelContext(context);
+    final IndexSearcher searcher = new IndexSearcher(topLevelContext);
+    searcher.setQueryCache(null);
+    final Query rewritten = searcher.rewrite(query);
+    return searcher.createWeight(rewritten, org.apache.lucene.search.ScoreMode.COMPLETE_NO_SCORES, 1);
+  }
+
+  private static DocIdSet computeBitSet(Weight weight, LeafReaderContext context) throws IOException {
+    final Scorer s = weight.scorer(context);
+    if (s == null) {
+      return DocIdSet.EMPTY;
+    } else {
+      return new BitDocIdSet(BitSet.of(s.iterator(), context.reader().maxDoc()));
+    }
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    long ramBytesUsed = BASE_RAM_BYTES_USED;
+    synchronized (cache) {
+      for (DocIdSet docIdSet : cache.values()) {
+        ramBytesUsed += HASHTABLE_RAM_BYTES_PER_ENTRY + docIdSet.ramBytesUsed();
+      }
+    }
+    return ramBytesUsed;
+  }
   
   @Override
   public String toString() {
@@ -31,6 +31,8 @@ import java.util.Random;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.analysis.MockTokenizer;
@@ -72,7 +74,9 @@ import org.apache.lucene.util.BitSet;
 import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.LongBitSet;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.TestUtil;
 import org.apache.lucene.util.packed.PackedInts;
 import org.junit.Test;
@@ -281,6 +285,89 @@ public class TestJoinUtil extends LuceneTestCase {
     dir.close();
   }
 
+  public void testConcurrentOrdinalsJoin() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(
+        random(),
+        dir,
+        newIndexWriterConfig(new MockAnalyzer(random())).setMergePolicy(NoMergePolicy.INSTANCE));
+    int numKeys = TestUtil.nextInt(random(), 1, 500);
+    int numDocs = atLeast(1000);
+    int[] keys = new int[numDocs];
+    boolean[] isFrom = new boolean[numDocs];
+    boolean[] matches = new boolean[numDocs];
+    for (int i = 0; i < numDocs; i++) {
+      keys[i] = random().nextInt(numKeys);
+      isFrom[i] = random().nextBoolean();
+      matches[i] = random().nextInt(10) == 0;
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+      doc.add(new StringField("type", isFrom[i] ? "from" : "to", Field.Store.NO));
+      doc.add(new StringField("value", matches[i] ? "yes" : "no", Field.Store.NO));
+      doc.add(new SortedDocValuesField("join_field", new BytesRef(Integer.toString(keys[i]))));
+      w.addDocument(doc);
+      if (random().nextInt(50) == 0) {
+        w.commit();
+      }
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+
+    SortedDocValues[] values = new SortedDocValues[reader.leaves().size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = DocValues.getSorted(reader.leaves().get(i).reader(), "join_field");
+    }
+    OrdinalMap ordinalMap = OrdinalMap.build(null, values, PackedInts.DEFAULT);
+
+    boolean[] joinedKeys = new boolean[numKeys];
+    for (int i = 0; i < numDocs; i++) {
+      if (isFrom[i] && matches[i]) {
+        joinedKeys[keys[i]] = true;
+      }
+    }
+    Set<String> expectedIds = new HashSet<>();
+    for (int i = 0; i < numDocs; i++) {
+      if (isFrom[i] == false && joinedKeys[keys[i]]) {
+        expectedIds.add(Integer.toString(i));
+      }
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(TestUtil.nextInt(random(), 2, 4),
+        new NamedThreadFactory("TestJoinUtil"));
+    try {
+      IndexSearcher searcher = new IndexSearcher(reader, executor);
+      BooleanQuery.Builder fromQuery = new BooleanQuery.Builder();
+      fromQuery.add(new TermQuery(new Term("type", "from")), BooleanClause.Occur.FILTER);
+      fromQuery.add(new TermQuery(new Term("value", "yes")), BooleanClause.Occur.FILTER);
+      Query toQuery = new TermQuery(new Term("type", "to"));
+      Query joinQuery = JoinUtil.createJoinQuery("join_field", fromQuery.build(), toQuery, searcher, ScoreMode.None,
+          values.length > 1 ? ordinalMap : null);
+
+      TopDocs topDocs = searcher.search(joinQuery, numDocs);
+      assertEquals(expectedIds.size(), topDocs.totalHits);
+      Set<String> actualIds = new HashSet<>();
+      for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+        actualIds.add(searcher.doc(scoreDoc.doc).get("id"));
+      }
+      assertEquals(expectedIds, actualIds);
+    } finally {
+      executor.shutdown();
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testOrdinalsCollectorManagerSharesBitSet() throws Exception {
+    CollectorManager<GlobalOrdinalsCollector, LongBitSet> manager = GlobalOrdinalsCollector.createManager("join_field", null, 42);
+    GlobalOrdinalsCollector collector1 = manager.newCollector();
+    GlobalOrdinalsCollector collector2 = manager.newCollector();
+    // collectors of the same manager must not allocate one bit set each
+    assertSame(collector1.collectedOrds, collector2.collectedOrds);
+    assertSame(collector1.collectedOrds, manager.reduce(Arrays.asList(collector1, collector2)));
+    assertEquals(42, collector1.collectedOrds.length());
+  }
+
   public void testOrdinalsJoinExplainNoMatches() throws Exception {
     final String idField = "id";
     final String productIdField = "productId";
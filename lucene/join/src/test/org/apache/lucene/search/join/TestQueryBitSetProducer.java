@@ -17,21 +17,30 @@
 package org.apache.lucene.search.join;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FilterDirectoryReader;
 import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.SparseFixedBitSet;
 
 public class TestQueryBitSetProducer extends LuceneTestCase {
 
@@ -75,6 +84,82 @@ public class TestQueryBitSetProducer extends LuceneTestCase {
     IOUtils.close(reader, w, dir);
   }
 
+  public void testWarm() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    addBlocks(w, 10);
+    w.commit();
+    addBlocks(w, 10);
+    DirectoryReader reader = DirectoryReader.open(w);
+
+    QueryBitSetProducer producer = new QueryBitSetProducer(new TermQuery(new Term("type", "parent")));
+    long emptyRamBytesUsed = producer.ramBytesUsed();
+    producer.warm(reader);
+    assertEquals(reader.leaves().size(), producer.cache.size());
+    assertTrue(producer.ramBytesUsed() > emptyRamBytesUsed);
+    BitSet[] bitSets = new BitSet[reader.leaves().size()];
+    int numParents = 0;
+    for (int i = 0; i < bitSets.length; i++) {
+      bitSets[i] = producer.getBitSet(reader.leaves().get(i));
+      numParents += bitSets[i].cardinality();
+    }
+    assertEquals(20, numParents);
+
+    // NRT reopen: only the new segment is computed
+    addBlocks(w, 5);
+    DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
+    assertNotNull(newReader);
+    long ramBytesUsed = producer.ramBytesUsed();
+    producer.warm(newReader);
+    assertEquals(newReader.leaves().size(), producer.cache.size());
+    assertTrue(producer.ramBytesUsed() > ramBytesUsed);
+    int numNewParents = 0;
+    for (LeafReaderContext context : newReader.leaves()) {
+      BitSet bitSet = producer.getBitSet(context);
+      if (context.ord < bitSets.length) {
+        assertSame(bitSets[context.ord], bitSet);
+      } else {
+        numNewParents += bitSet.cardinality();
+      }
+    }
+    assertEquals(5, numNewParents);
+
+    IOUtils.close(reader, newReader, w, dir);
+  }
+
+  public void testSparseParents() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    Document parent = new Document();
+    parent.add(new StringField("type", "parent", Store.NO));
+    w.addDocument(parent);
+    for (int i = 0; i < 20000; i++) {
+      w.addDocument(new Document());
+    }
+    w.forceMerge(1);
+    DirectoryReader reader = w.getReader();
+
+    QueryBitSetProducer producer = new QueryBitSetProducer(new TermQuery(new Term("type", "parent")));
+    BitSet bitSet = producer.getBitSet(reader.leaves().get(0));
+    assertTrue(bitSet instanceof SparseFixedBitSet);
+    assertEquals(1, bitSet.cardinality());
+    // much smaller than a FixedBitSet over all docs
+    assertTrue(producer.ramBytesUsed() < new FixedBitSet(reader.maxDoc()).ramBytesUsed() / 2);
+
+    IOUtils.close(reader, w, dir);
+  }
+
+  private static void addBlocks(IndexWriter w, int numBlocks) throws IOException {
+    for (int i = 0; i < numBlocks; i++) {
+      Document child = new Document();
+      child.add(new StringField("type", "child", Store.NO));
+      Document parent = new Document();
+      parent.add(new StringField("type", "parent", Store.NO));
+      w.addDocuments(Arrays.asList(child, child, parent));
+    }
+  }
+
   // a reader whose sole purpose is to not be cacheable
   private static class DummyDirectoryReader extends FilterDirectoryReader {
 
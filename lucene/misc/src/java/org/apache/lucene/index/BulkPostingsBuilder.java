@@ -0,0 +1,718 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.codecs.FieldsProducer;
+import org.apache.lucene.codecs.NormsProducer;
+import org.apache.lucene.codecs.PointsReader;
+import org.apache.lucene.codecs.StoredFieldsReader;
+import org.apache.lucene.codecs.TermVectorsReader;
+import org.apache.lucene.search.similarities.Similarity.SimScorer;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.FutureArrays;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.OfflineSorter;
+import org.apache.lucene.util.SameThreadExecutorService;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.apache.lucene.util.Version;
+
+/**
+ * Builds a segment's postings from an external stream of {@code (field, term, docID)}
+ * tuples, bypassing the in-memory indexing chain entirely.
+ * <p>
+ * Tuples are appended to one temporary file per field, in any order. {@link #finish(ExecutorService)}
+ * then sorts every field with an {@link OfflineSorter}, concurrently if an executor is
+ * provided, and returns a {@link CodecReader} that streams the sorted postings. Passing
+ * this reader to {@link IndexWriter#addIndexes(CodecReader...)} writes a single segment
+ * directly through the codec's {@link org.apache.lucene.codecs.FieldsConsumer}:
+ * <pre class="prettyprint">
+ *   int createdVersionMajor = SegmentInfos.readLatestCommit(dir).getIndexCreatedVersionMajor();
+ *   try (BulkPostingsBuilder builder = new BulkPostingsBuilder(tempDir, "bulk", maxDoc, createdVersionMajor)) {
+ *     for (...) {
+ *       builder.add(field, term, docID);
+ *     }
+ *     writer.addIndexes(builder.finish(executor));
+ *   }
+ * </pre>
+ * <p>
+ * Fields are indexed with {@link IndexOptions#DOCS_AND_FREQS} and omit norms: the
+ * frequency of a term in a document is the number of times the {@code (field, term, docID)}
+ * tuple was added. Positions, stored fields, doc values and points are not supported.
+ * <p>
+ * <b>NOTE</b>: this class is not thread-safe.
+ * @lucene.experimental
+ */
+public final class BulkPostingsBuilder implements Closeable {
+
+  /** Maximum length of a term, in bytes. */
+  public static final int MAX_TERM_LENGTH = Short.MAX_VALUE - Integer.BYTES;
+
+  /** Sorts entries by term, then by doc ID. */
+  private static final Comparator<BytesRef> COMPARATOR = (a, b) -> {
+    int cmp = FutureArrays.compareUnsigned(
+        a.bytes, a.offset, a.offset + a.length - Integer.BYTES,
+        b.bytes, b.offset, b.offset + b.length - Integer.BYTES);
+    if (cmp != 0) {
+      return cmp;
+    }
+    return Integer.compare(readDocID(a), readDocID(b));
+  };
+
+  private final Directory tempDir;
+  private final String tempFileNamePrefix;
+  private final int maxDoc;
+  private final int createdVersionMajor;
+  private final OfflineSorter.BufferSize ramBufferSize;
+  private final Map<String,FieldBuffer> fields = new TreeMap<>();
+  private final Set<String> tempFiles = new HashSet<>();
+  private final List<Closeable> openInputs = Collections.synchronizedList(new ArrayList<>());
+  private byte[] scratch = new byte[16];
+  private boolean finished;
+
+  /**
+   * Create a new builder that stores temporary files in {@code tempDir}, and
+   * which uses {@link OfflineSorter.BufferSize#automatic() automatic} sort buffers.
+   * @param tempDir directory where to store temporary files
+   * @param tempFileNamePrefix prefix of temporary file names
+   * @param maxDoc number of documents of the segment to build
+   * @param createdVersionMajor the major version that the index that the segment
+   *        will be added to was created with, see {@link SegmentInfos#getIndexCreatedVersionMajor()}
+   */
+  public BulkPostingsBuilder(Directory tempDir, String tempFileNamePrefix, int maxDoc, int createdVersionMajor) {
+    this(tempDir, tempFileNamePrefix, maxDoc, createdVersionMajor, OfflineSorter.BufferSize.automatic());
+  }
+
+  /**
+   * Create a new builder that stores temporary files in {@code tempDir}.
+   * @param tempDir directory where to store temporary files
+   * @param tempFileNamePrefix prefix of temporary file names
+   * @param maxDoc number of documents of the segment to build
+   * @param createdVersionMajor the major version that the index that the segment
+   *        will be added to was created with, see {@link SegmentInfos#getIndexCreatedVersionMajor()}
+   * @param ramBufferSize sort buffer size of each field, note that up to
+   *        one buffer per thread of the executor may be in use at the same time
+   */
+  public BulkPostingsBuilder(Directory tempDir, String tempFileNamePrefix, int maxDoc, int createdVersionMajor,
+      OfflineSorter.BufferSize ramBufferSize) {
+    if (maxDoc < 0 || maxDoc > IndexWriter.MAX_DOCS) {
+      throw new IllegalArgumentException("maxDoc must be >= 0 and <= " + IndexWriter.MAX_DOCS + ", got " + maxDoc);
+    }
+    if (createdVersionMajor < 6 || createdVersionMajor > Version.LATEST.major) {
+      throw new IllegalArgumentException("createdVersionMajor must be >= 6 and <= " + Version.LATEST.major + ", got " + createdVersionMajor);
+    }
+    this.tempDir = tempDir;
+    this.tempFileNamePrefix = tempFileNamePrefix;
+    this.maxDoc = maxDoc;
+    this.createdVersionMajor = createdVersionMajor;
+    this.ramBufferSize = ramBufferSize;
+  }
+
+  /** Record that {@code term} occurs in {@code docID} for {@code field}. */
+  public void add(String field, BytesRef term, int docID) throws IOException {
+    if (finished) {
+      throw new IllegalStateException("finish() has already been called");
+    }
+    if (docID < 0 || docID >= maxDoc) {
+      throw new IllegalArgumentException("docID must be >= 0 and < maxDoc=" + maxDoc + ", got " + docID);
+    }
+    if (term.length > MAX_TERM_LENGTH) {
+      throw new IllegalArgumentException("term length must be <= " + MAX_TERM_LENGTH + ", got " + term.length);
+    }
+    FieldBuffer buffer = fields.get(field);
+    if (buffer == null) {
+      IndexOutput out = tempDir.createTempOutput(tempFileNamePrefix, "bulkpostings", IOContext.DEFAULT);
+      tempFiles.add(out.getName());
+      buffer = new FieldBuffer(out);
+      fields.put(field, buffer);
+    }
+    final int length = term.length + Integer.BYTES;
+    scratch = ArrayUtil.grow(scratch, length);
+    System.arraycopy(term.bytes, term.offset, scratch, 0, term.length);
+    writeDocID(scratch, term.length, docID);
+    buffer.writer.write(scratch, 0, length);
+  }
+
+  /**
+   * Sort the postings of every field and return a {@link CodecReader} over them,
+   * which can be passed to {@link IndexWriter#addIndexes(CodecReader...)}.
+   * Fields are sorted concurrently on {@code executor}, or on the current thread
+   * if it is {@code null}. The returned reader is only usable until this builder
+   * is closed.
+   */
+  public CodecReader finish(ExecutorService executor) throws IOException {
+    if (finished) {
+      throw new IllegalStateException("finish() has already been called");
+    }
+    finished = true;
+
+    for (FieldBuffer buffer : fields.values()) {
+      buffer.close();
+    }
+
+    if (executor == null) {
+      executor = new SameThreadExecutorService();
+    }
+    final List<Future<SortedTerms>> futures = new ArrayList<>();
+    for (FieldBuffer buffer : fields.values()) {
+      futures.add(executor.submit(() -> sort(buffer.unsortedFileName)));
+    }
+
+    final FieldInfo[] infos = new FieldInfo[fields.size()];
+    final Map<String,SortedTerms> terms = new TreeMap<>();
+    int fieldNumber = 0;
+    for (String field : fields.keySet()) {
+      final SortedTerms sortedTerms;
+      try {
+        sortedTerms = futures.get(fieldNumber).get();
+      } catch (InterruptedException e) {
+        throw new ThreadInterruptedException(e);
+      } catch (ExecutionException e) {
+        throw IOUtils.rethrowAlways(e.getCause());
+      }
+      terms.put(field, sortedTerms);
+      infos[fieldNumber] = new FieldInfo(field, fieldNumber, false, true, false, IndexOptions.DOCS_AND_FREQS,
+          DocValuesType.NONE, -1, Collections.emptyMap(), 0, 0);
+      fieldNumber++;
+    }
+
+    return new BulkPostingsReader(new FieldInfos(infos), new SortedFieldsProducer(terms), maxDoc, createdVersionMajor);
+  }
+
+  /** Sort the entries of a single field, and compute its statistics. */
+  private SortedTerms sort(String unsortedFileName) throws IOException {
+    final OfflineSorter sorter = new OfflineSorter(tempDir, tempFileNamePrefix, COMPARATOR,
+        ramBufferSize, OfflineSorter.MAX_TEMPFILES, -1, null, 0);
+    final String sortedFileName = sorter.sort(unsortedFileName);
+    synchronized (tempFiles) {
+      tempFiles.add(sortedFileName);
+    }
+
+    final SortedTerms terms = new SortedTerms(sortedFileName);
+    final FixedBitSet docsWithField = new FixedBitSet(maxDoc);
+    final SortedTermsEnum termsEnum = (SortedTermsEnum) terms.iterator();
+    long size = 0, sumDocFreq = 0, sumTotalTermFreq = 0;
+    while (termsEnum.next() != null) {
+      size++;
+      sumDocFreq += termsEnum.docFreq;
+      sumTotalTermFreq += termsEnum.totalTermFreq;
+      for (int i = 0; i < termsEnum.docFreq; ++i) {
+        docsWithField.set(termsEnum.docs[i]);
+      }
+    }
+    terms.size = size;
+    terms.sumDocFreq = sumDocFreq;
+    terms.sumTotalTermFreq = sumTotalTermFreq;
+    terms.docCount = docsWithField.cardinality();
+    return terms;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      IOUtils.close(fields.values());
+      IOUtils.close(openInputs);
+    } finally {
+      synchronized (tempFiles) {
+        IOUtils.deleteFilesIgnoringExceptions(tempDir, tempFiles);
+      }
+    }
+  }
+
+  private static void writeDocID(byte[] bytes, int offset, int docID) {
+    bytes[offset] = (byte) (docID >> 24);
+    bytes[offset + 1] = (byte) (docID >> 16);
+    bytes[offset + 2] = (byte) (docID >> 8);
+    bytes[offset + 3] = (byte) docID;
+  }
+
+  private static int readDocID(BytesRef entry) {
+    final int offset = entry.offset + entry.length - Integer.BYTES;
+    return ((entry.bytes[offset] & 0xFF) << 24) | ((entry.bytes[offset + 1] & 0xFF) << 16)
+        | ((entry.bytes[offset + 2] & 0xFF) << 8) | (entry.bytes[offset + 3] & 0xFF);
+  }
+
+  /** Unsorted entries of a single field. */
+  private static class FieldBuffer implements Closeable {
+    final IndexOutput out;
+    final OfflineSorter.ByteSequencesWriter writer;
+    final String unsortedFileName;
+    boolean closed;
+
+    FieldBuffer(IndexOutput out) {
+      this.out = out;
+      this.writer = new OfflineSorter.ByteSequencesWriter(out);
+      this.unsortedFileName = out.getName();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed == false) {
+        closed = true;
+        boolean success = false;
+        try {
+          CodecUtil.writeFooter(out);
+          success = true;
+        } finally {
+          if (success) {
+            writer.close();
+          } else {
+            IOUtils.closeWhileHandlingException(writer);
+          }
+        }
+      }
+    }
+  }
+
+  /** Terms of a single field, which are streamed from a sorted temporary file. */
+  private class SortedTerms extends Terms {
+    final String fileName;
+    long size = -1, sumDocFreq, sumTotalTermFreq;
+    int docCount;
+
+    SortedTerms(String fileName) {
+      this.fileName = fileName;
+    }
+
+    @Override
+    public TermsEnum iterator() throws IOException {
+      return new SortedTermsEnum(fileName);
+    }
+
+    @Override
+    public long size() {
+      return size;
+    }
+
+    @Override
+    public long getSumTotalTermFreq() {
+      return sumTotalTermFreq;
+    }
+
+    @Override
+    public long getSumDocFreq() {
+      return sumDocFreq;
+    }
+
+    @Override
+    public int getDocCount() {
+      return docCount;
+    }
+
+    @Override
+    public boolean hasFreqs() {
+      return true;
+    }
+
+    @Override
+    public boolean hasOffsets() {
+      return false;
+    }
+
+    @Override
+    public boolean hasPositions() {
+      return false;
+    }
+
+    @Override
+    public boolean hasPayloads() {
+      return false;
+    }
+  }
+
+  /**
+   * A {@link TermsEnum} that streams terms from a sorted temporary file and buffers
+   * the postings of the current term. Seeking forward reads terms up to the target,
+   * while seeking backward reads the file again from the start, so seeks are linear
+   * in the number of terms.
+   */
+  private class SortedTermsEnum extends TermsEnum {
+    final String fileName;
+    final BytesRefBuilder term = new BytesRefBuilder();
+    final BytesRefBuilder pending = new BytesRefBuilder();
+    ChecksumIndexInput in;
+    OfflineSorter.ByteSequencesReader reader;
+    boolean hasPending, exhausted;
+    long ord;
+    int[] docs = new int[8];
+    int[] freqs = new int[8];
+    int docFreq;
+    long totalTermFreq;
+
+    SortedTermsEnum(String fileName) throws IOException {
+      this.fileName = fileName;
+      reset();
+    }
+
+    /** Position this enum before the first term. */
+    private void reset() throws IOException {
+      if (hasPending) {
+        // the input of the previous iteration is still open
+        reader.close();
+        openInputs.remove(in);
+      }
+      in = tempDir.openChecksumInput(fileName, IOContext.READONCE);
+      openInputs.add(in);
+      reader = new OfflineSorter.ByteSequencesReader(in, fileName);
+      exhausted = false;
+      ord = -1;
+      readPending();
+    }
+
+    private void readPending() throws IOException {
+      final BytesRef next = reader.next();
+      if (next == null) {
+        hasPending = false;
+        CodecUtil.checkFooter(in);
+        reader.close();
+        openInputs.remove(in);
+      } else {
+        hasPending = true;
+        pending.copyBytes(next);
+      }
+    }
+
+    @Override
+    public BytesRef next() throws IOException {
+      if (hasPending == false) {
+        exhausted = true;
+        return null;
+      }
+      ord++;
+      final BytesRef entry = pending.get();
+      term.copyBytes(entry.bytes, entry.offset, entry.length - Integer.BYTES);
+      docFreq = 0;
+      totalTermFreq = 0;
+      int lastDoc = -1;
+      do {
+        final int doc = readDocID(pending.get());
+        if (doc == lastDoc) {
+          freqs[docFreq - 1]++;
+        } else {
+          if (docFreq == docs.length) {
+            docs = ArrayUtil.grow(docs, docFreq + 1);
+            freqs = ArrayUtil.grow(freqs, docs.length);
+          }
+          docs[docFreq] = doc;
+          freqs[docFreq] = 1;
+          docFreq++;
+          lastDoc = doc;
+        }
+        totalTermFreq++;
+        readPending();
+      } while (hasPending && sameTerm(pending.get()));
+      return term.get();
+    }
+
+    private boolean sameTerm(BytesRef entry) {
+      return FutureArrays.equals(entry.bytes, entry.offset, entry.offset + entry.length - Integer.BYTES,
+          term.bytes(), 0, term.length());
+    }
+
+    @Override
+    public BytesRef term() {
+      return exhausted ? null : term.get();
+    }
+
+    @Override
+    public int docFreq() {
+      return docFreq;
+    }
+
+    @Override
+    public long totalTermFreq() {
+      return totalTermFreq;
+    }
+
+    @Override
+    public PostingsEnum postings(PostingsEnum reuse, int flags) {
+      // copy since docs and freqs are overwritten by the next call to next()
+      return new BufferedPostingsEnum(Arrays.copyOf(docs, docFreq), Arrays.copyOf(freqs, docFreq), docFreq);
+    }
+
+    @Override
+    public ImpactsEnum impacts(SimScorer scorer, int flags) {
+      return new SlowImpactsEnum(postings(null, flags), scorer.score(Float.MAX_VALUE, 1));
+    }
+
+    @Override
+    public SeekStatus seekCeil(BytesRef text) throws IOException {
+      if (exhausted || (ord >= 0 && term.get().compareTo(text) > 0)) {
+        reset();
+      }
+      for (BytesRef t = ord >= 0 ? term.get() : next(); t != null; t = next()) {
+        final int cmp = t.compareTo(text);
+        if (cmp == 0) {
+          return SeekStatus.FOUND;
+        } else if (cmp > 0) {
+          return SeekStatus.NOT_FOUND;
+        }
+      }
+      return SeekStatus.END;
+    }
+
+    @Override
+    public void seekExact(long ord) throws IOException {
+      if (ord < 0) {
+        throw new IllegalArgumentException("ord must be >= 0, got " + ord);
+      }
+      if (exhausted || ord < this.ord) {
+        reset();
+      }
+      while (this.ord < ord) {
+        if (next() == null) {
+          throw new IllegalArgumentException("ord must be < " + (this.ord + 1) + ", got " + ord);
+        }
+      }
+    }
+
+    @Override
+    public long ord() {
+      return ord;
+    }
+  }
+
+  /** Postings of a single term. */
+  private static class BufferedPostingsEnum extends PostingsEnum {
+    final int[] docs, freqs;
+    final int docFreq;
+    int i = -1;
+    int doc = -1;
+
+    BufferedPostingsEnum(int[] docs, int[] freqs, int docFreq) {
+      this.docs = docs;
+      this.freqs = freqs;
+      this.docFreq = docFreq;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() {
+      if (++i >= docFreq) {
+        return doc = NO_MORE_DOCS;
+      }
+      return doc = docs[i];
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+      return slowAdvance(target);
+    }
+
+    @Override
+    public long cost() {
+      return docFreq;
+    }
+
+    @Override
+    public int freq() {
+      return freqs[i];
+    }
+
+    @Override
+    public int nextPosition() {
+      return -1;
+    }
+
+    @Override
+    public int startOffset() {
+      return -1;
+    }
+
+    @Override
+    public int endOffset() {
+      return -1;
+    }
+
+    @Override
+    public BytesRef getPayload() {
+      return null;
+    }
+  }
+
+  private static class SortedFieldsProducer extends FieldsProducer {
+    final Map<String,SortedTerms> terms;
+
+    SortedFieldsProducer(Map<String,SortedTerms> terms) {
+      this.terms = terms;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return Collections.unmodifiableSet(terms.keySet()).iterator();
+    }
+
+    @Override
+    public Terms terms(String field) {
+      return terms.get(field);
+    }
+
+    @Override
+    public int size() {
+      return terms.size();
+    }
+
+    @Override
+    public void checkIntegrity() {
+      // checksums are verified when sorted files are fully consumed
+    }
+
+    @Override
+    public void close() {
+      // inputs are owned by the builder
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return 0;
+    }
+  }
+
+  private static final StoredFieldsReader EMPTY_STORED_FIELDS = new StoredFieldsReader() {
+    @Override
+    public void visitDocument(int docID, StoredFieldVisitor visitor) {
+    }
+
+    @Override
+    public StoredFieldsReader clone() {
+      return this;
+    }
+
+    @Override
+    public void checkIntegrity() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return 0;
+    }
+  };
+
+  /** A {@link CodecReader} that only exposes postings. */
+  private static class BulkPostingsReader extends CodecReader {
+    final FieldInfos fieldInfos;
+    final FieldsProducer postings;
+    final int maxDoc;
+    final int createdVersionMajor;
+
+    BulkPostingsReader(FieldInfos fieldInfos, FieldsProducer postings, int maxDoc, int createdVersionMajor) {
+      this.fieldInfos = fieldInfos;
+      this.postings = postings;
+      this.maxDoc = maxDoc;
+      this.createdVersionMajor = createdVersionMajor;
+    }
+
+    @Override
+    public StoredFieldsReader getFieldsReader() {
+      return EMPTY_STORED_FIELDS;
+    }
+
+    @Override
+    public TermVectorsReader getTermVectorsReader() {
+      return null;
+    }
+
+    @Override
+    public NormsProducer getNormsReader() {
+      return null;
+    }
+
+    @Override
+    public DocValuesProducer getDocValuesReader() {
+      return null;
+    }
+
+    @Override
+    public FieldsProducer getPostingsReader() {
+      return postings;
+    }
+
+    @Override
+    public PointsReader getPointsReader() {
+      return null;
+    }
+
+    @Override
+    public FieldInfos getFieldInfos() {
+      return fieldInfos;
+    }
+
+    @Override
+    public Bits getLiveDocs() {
+      return null;
+    }
+
+    @Override
+    public LeafMetaData getMetaData() {
+      return new LeafMetaData(createdVersionMajor, Version.LATEST, null);
+    }
+
+    @Override
+    public int numDocs() {
+      return maxDoc;
+    }
+
+    @Override
+    public int maxDoc() {
+      return maxDoc;
+    }
+
+    @Override
+    public CacheHelper getCoreCacheHelper() {
+      return null;
+    }
+
+    @Override
+    public CacheHelper getReaderCacheHelper() {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,340 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.RateLimiter;
+import org.apache.lucene.util.InfoStream;
+import org.apache.lucene.util.ThreadInterruptedException;
+
+/**
+ * A thread that periodically verifies the checksums of all files of the
+ * latest commit of a {@link Directory}, in order to detect silent corruption
+ * of segments that are neither merged nor checked otherwise.
+ * <p>
+ * Every file that is referenced by the latest commit is read entirely and its
+ * checksum is compared to the one that is recorded in its footer, like
+ * {@link CheckIndex} with {@code -fast} or {@link CodecReader#checkIntegrity()}
+ * do. Reads are throttled with a {@link RateLimiter} so that verification
+ * doesn't compete with searches for IO. Files that get deleted while they are
+ * being verified, because a newer commit replaced them, are skipped.
+ * <p>
+ * A file is only reported as corrupt if its checksum doesn't match, or if it
+ * is truncated or otherwise malformed, ie. if reading it throws a
+ * {@link CorruptIndexException} or an {@link EOFException}. Other
+ * {@link IOException}s, such as permission or transient IO errors, don't say
+ * anything about the content of the file and are reported as errors instead.
+ * <p>
+ * Results are reported to the {@link InfoStream} under the
+ * {@value #INFO_STREAM_COMPONENT} component, and can be read with
+ * {@link #getLastResult()} and the counters of this class.
+ *
+ * @lucene.experimental
+ */
+public class IndexIntegrityVerifier extends Thread implements Closeable {
+
+  /** The {@link InfoStream} component that this verifier reports to. */
+  public static final String INFO_STREAM_COMPONENT = "IIV";
+
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  /** The result of a verification pass. */
+  public static final class Result {
+
+    private final String segmentsFileName;
+    private final int numFiles;
+    private final long numBytes;
+    private final int numSkippedFiles;
+    private final List<String> corruptFiles;
+    private final List<String> errorFiles;
+    private final boolean complete;
+
+    Result(String segmentsFileName, int numFiles, long numBytes, int numSkippedFiles,
+        List<String> corruptFiles, List<String> errorFiles, boolean complete) {
+      this.segmentsFileName = segmentsFileName;
+      this.numFiles = numFiles;
+      this.numBytes = numBytes;
+      this.numSkippedFiles = numSkippedFiles;
+      this.corruptFiles = Collections.unmodifiableList(corruptFiles);
+      this.errorFiles = Collections.unmodifiableList(errorFiles);
+      this.complete = complete;
+    }
+
+    /** Return the name of the segments file of the commit that was verified. */
+    public String getSegmentsFileName() {
+      return segmentsFileName;
+    }
+
+    /** Return the number of files whose checksum was verified. */
+    public int getNumFiles() {
+      return numFiles;
+    }
+
+    /** Return the number of bytes that were verified. */
+    public long getNumBytes() {
+      return numBytes;
+    }
+
+    /** Return the number of files that were deleted before they could be verified. */
+    public int getNumSkippedFiles() {
+      return numSkippedFiles;
+    }
+
+    /** Return the names of the files that failed verification because their content is corrupt. */
+    public List<String> getCorruptFiles() {
+      return corruptFiles;
+    }
+
+    /** Return the names of the files that could not be verified because of an IO error that is not a corruption. */
+    public List<String> getErrorFiles() {
+      return errorFiles;
+    }
+
+    /** Return whether all files of the commit were considered, ie. the verifier was not closed in the meantime. */
+    public boolean isComplete() {
+      return complete;
+    }
+
+    @Override
+    public String toString() {
+      return "Result(segmentsFileName=" + segmentsFileName + ",numFiles=" + numFiles + ",numBytes=" + numBytes
+          + ",numSkippedFiles=" + numSkippedFiles + ",corruptFiles=" + corruptFiles + ",errorFiles=" + errorFiles + ",complete=" + complete + ")";
+    }
+  }
+
+  private final Directory dir;
+  private final RateLimiter rateLimiter;
+  private final InfoStream infoStream;
+  private final long intervalNS;
+
+  private volatile boolean finish;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition finishCond = lock.newCondition();
+
+  private final AtomicLong passCount = new AtomicLong();
+  private final AtomicLong verifiedBytes = new AtomicLong();
+  private final AtomicLong corruptFileCount = new AtomicLong();
+  private final AtomicLong errorFileCount = new AtomicLong();
+  private volatile Result lastResult;
+
+  /**
+   * Create a new verifier.
+   *
+   * @param dir the directory whose latest commit should be verified
+   * @param rateLimiter limits the rate at which files are read
+   * @param infoStream where to report progress and corruptions
+   * @param interval the time to wait between the end of a pass and the start of the next one
+   * @param unit the unit of {@code interval}
+   */
+  public IndexIntegrityVerifier(Directory dir, RateLimiter rateLimiter, InfoStream infoStream, long interval, TimeUnit unit) {
+    if (interval < 0) {
+      throw new IllegalArgumentException("interval must be >= 0, got " + interval);
+    }
+    this.dir = Objects.requireNonNull(dir);
+    this.rateLimiter = Objects.requireNonNull(rateLimiter);
+    this.infoStream = Objects.requireNonNull(infoStream);
+    this.intervalNS = unit.toNanos(interval);
+    setName("IndexIntegrityVerifier(" + dir + ")");
+    setDaemon(true);
+  }
+
+  /**
+   * Stop verifying, and wait for the verifier to notice: the file that is
+   * being read, if any, is not verified entirely.
+   */
+  @Override
+  public synchronized void close() {
+    finish = true;
+
+    // So thread wakes up and notices it should finish:
+    lock.lock();
+    try {
+      finishCond.signal();
+    } finally {
+      lock.unlock();
+    }
+
+    if (isAlive()) {
+      try {
+        join();
+      } catch (InterruptedException ie) {
+        throw new ThreadInterruptedException(ie);
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    while (!finish) {
+      try {
+        verify();
+      } catch (IOException e) {
+        // the latest commit could not be read, eg. because it got replaced concurrently: try again next time
+        message("could not verify the latest commit: " + e);
+      }
+
+      final long nextPassStartNS = System.nanoTime() + intervalNS;
+      lock.lock();
+      try {
+        while (!finish) {
+          final long sleepNS = nextPassStartNS - System.nanoTime();
+          if (sleepNS <= 0) {
+            break;
+          }
+          finishCond.awaitNanos(sleepNS);
+        }
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+        return;
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Verify the checksums of all files of the latest commit once, and return
+   * the result. This may be called without starting this thread.
+   */
+  public Result verify() throws IOException {
+    final SegmentInfos infos = SegmentInfos.readLatestCommit(dir);
+    final String segmentsFileName = infos.getSegmentsFileName();
+    message("start verifying " + segmentsFileName);
+    final long startNS = System.nanoTime();
+
+    int numFiles = 0;
+    long numBytes = 0;
+    int numSkippedFiles = 0;
+    final List<String> corruptFiles = new ArrayList<>();
+    final List<String> errorFiles = new ArrayList<>();
+    boolean complete = true;
+    for (String file : infos.files(true)) {
+      if (finish) {
+        complete = false;
+        break;
+      }
+      try {
+        final long length = verifyFile(file);
+        if (length == -1) {
+          complete = false;
+          break;
+        }
+        numFiles++;
+        numBytes += length;
+        verifiedBytes.addAndGet(length);
+      } catch (NoSuchFileException | FileNotFoundException e) {
+        message("skip " + file + ": file was deleted");
+        numSkippedFiles++;
+      } catch (CorruptIndexException | EOFException e) {
+        message("corruption detected in " + file + ": " + e);
+        corruptFiles.add(file);
+        corruptFileCount.incrementAndGet();
+      } catch (IOException e) {
+        message("could not verify " + file + ": " + e);
+        errorFiles.add(file);
+        errorFileCount.incrementAndGet();
+      }
+    }
+
+    final Result result = new Result(segmentsFileName, numFiles, numBytes, numSkippedFiles, corruptFiles, errorFiles, complete);
+    message(String.format(Locale.ROOT, "done verifying %s in %.1f msec: %s",
+        segmentsFileName, (System.nanoTime() - startNS) / 1000000., result));
+    passCount.incrementAndGet();
+    lastResult = result;
+    return result;
+  }
+
+  /**
+   * Verify the checksum of the given file and return its length, or -1 if
+   * this verifier got closed before the file could be read entirely.
+   */
+  private long verifyFile(String file) throws IOException {
+    try (ChecksumIndexInput in = dir.openChecksumInput(file, IOContext.READONCE)) {
+      final long length = in.length();
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      long remaining = length - CodecUtil.footerLength();
+      long bytesSinceLastPause = 0;
+      while (remaining > 0) {
+        if (finish) {
+          message("abort verifying " + file + ": verifier is closed");
+          return -1;
+        }
+        final int len = (int) Math.min(buffer.length, remaining);
+        in.readBytes(buffer, 0, len);
+        remaining -= len;
+        bytesSinceLastPause += len;
+        if (bytesSinceLastPause > rateLimiter.getMinPauseCheckBytes()) {
+          rateLimiter.pause(bytesSinceLastPause);
+          bytesSinceLastPause = 0;
+        }
+      }
+      // also checks that the file is not truncated
+      CodecUtil.checkFooter(in);
+      return length;
+    }
+  }
+
+  private void message(String message) {
+    if (infoStream.isEnabled(INFO_STREAM_COMPONENT)) {
+      infoStream.message(INFO_STREAM_COMPONENT, message);
+    }
+  }
+
+  /** Return the result of the last completed verification pass, or {@code null} if no pass completed yet. */
+  public Result getLastResult() {
+    return lastResult;
+  }
+
+  /** Return the number of verification passes that have been completed. */
+  public long getPassCount() {
+    return passCount.get();
+  }
+
+  /** Return the total number of bytes that have been verified. */
+  public long getVerifiedBytes() {
+    return verifiedBytes.get();
+  }
+
+  /** Return the total number of times that a file failed verification because its content is corrupt. */
+  public long getCorruptFileCount() {
+    return corruptFileCount.get();
+  }
+
+  /** Return the total number of times that a file could not be verified because of an IO error that is not a corruption. */
+  public long getErrorFileCount() {
+    return errorFileCount.get();
+  }
+}
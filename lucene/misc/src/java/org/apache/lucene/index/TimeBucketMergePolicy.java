@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.PointsReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.util.NumericUtils;
+
+/**
+ * A {@link MergePolicy} for append-mostly, time-based indices such as logs or
+ * metrics. Segments are grouped into time buckets based on the range of
+ * values of a timestamp field that is indexed with {@link org.apache.lucene.document.LongPoint}
+ * or {@link org.apache.lucene.document.IntPoint}, and the wrapped {@code MergePolicy}
+ * is only ever asked to merge segments that belong to the same bucket.
+ * <p>
+ * Old buckets are typically not written to anymore, so once they have been
+ * merged they are not rewritten again together with fresh segments, which
+ * reduces write amplification. Merged segments also keep narrow timestamp
+ * ranges, which allows range queries on the timestamp field to skip them
+ * entirely.
+ * <p>
+ * A segment is assigned to the bucket of its maximum timestamp, see
+ * {@link #getBucket(long, long)}. Segments that have no points for the
+ * timestamp field are merged together, in a dedicated bucket. Note that
+ * {@link IndexWriter#forceMerge(int)} applies the maximum segment count
+ * to every bucket, so {@code forceMerge(1)} leaves one segment per bucket.
+ * <p>
+ * The timestamp range of a segment is read from the points index of the
+ * segment the first time the segment is seen, and cached until the segment
+ * gets merged away.
+ * @lucene.experimental
+ */
+public class TimeBucketMergePolicy extends FilterMergePolicy {
+
+  /** Sentinel for segments that have no points for the timestamp field. */
+  private static final long[] NO_RANGE = new long[0];
+
+  private final String field;
+  private final long bucketSize;
+  private final Map<String,long[]> rangeCache = new ConcurrentHashMap<>();
+
+  /**
+   * Create a new {@link TimeBucketMergePolicy}.
+   * @param in the wrapped merge policy, which is used to select merges within each bucket
+   * @param field the timestamp field, which must be indexed as a 1-dimension {@code long} or {@code int} point
+   * @param bucketSize the width of a time bucket, in the unit of the timestamp field
+   */
+  public TimeBucketMergePolicy(MergePolicy in, String field, long bucketSize) {
+    super(in);
+    this.field = Objects.requireNonNull(field, "field must not be null");
+    if (bucketSize <= 0) {
+      throw new IllegalArgumentException("bucketSize must be > 0, got " + bucketSize);
+    }
+    this.bucketSize = bucketSize;
+  }
+
+  /** Return the timestamp field. */
+  public String getField() {
+    return field;
+  }
+
+  /** Return the width of a time bucket. */
+  public long getBucketSize() {
+    return bucketSize;
+  }
+
+  /**
+   * Return the bucket of a segment given the minimum and maximum values of
+   * its timestamp field. The default implementation returns
+   * {@code Math.floorDiv(maxTimestamp, bucketSize)}.
+   */
+  protected long getBucket(long minTimestamp, long maxTimestamp) {
+    return Math.floorDiv(maxTimestamp, bucketSize);
+  }
+
+  @Override
+  public MergeSpecification findMerges(MergeTrigger mergeTrigger, SegmentInfos segmentInfos, IndexWriter writer) throws IOException {
+    MergeSpecification spec = null;
+    for (SegmentInfos bucket : splitIntoBuckets(segmentInfos, writer)) {
+      spec = union(spec, in.findMerges(mergeTrigger, bucket, writer));
+    }
+    return spec;
+  }
+
+  @Override
+  public MergeSpecification findForcedMerges(SegmentInfos segmentInfos, int maxSegmentCount,
+      Map<SegmentCommitInfo,Boolean> segmentsToMerge, IndexWriter writer) throws IOException {
+    MergeSpecification spec = null;
+    for (SegmentInfos bucket : splitIntoBuckets(segmentInfos, writer)) {
+      final Map<SegmentCommitInfo,Boolean> bucketSegmentsToMerge = new HashMap<>();
+      for (SegmentCommitInfo info : bucket) {
+        final Boolean v = segmentsToMerge.get(info);
+        if (v != null) {
+          bucketSegmentsToMerge.put(info, v);
+        }
+      }
+      if (bucketSegmentsToMerge.isEmpty() == false) {
+        spec = union(spec, in.findForcedMerges(bucket, maxSegmentCount, bucketSegmentsToMerge, writer));
+      }
+    }
+    return spec;
+  }
+
+  @Override
+  public MergeSpecification findForcedDeletesMerges(SegmentInfos segmentInfos, IndexWriter writer) throws IOException {
+    MergeSpecification spec = null;
+    for (SegmentInfos bucket : splitIntoBuckets(segmentInfos, writer)) {
+      spec = union(spec, in.findForcedDeletesMerges(bucket, writer));
+    }
+    return spec;
+  }
+
+  private static MergeSpecification union(MergeSpecification spec, MergeSpecification other) {
+    if (other == null || other.merges.isEmpty()) {
+      return spec;
+    }
+    if (spec == null) {
+      return other;
+    }
+    for (OneMerge merge : other.merges) {
+      spec.add(merge);
+    }
+    return spec;
+  }
+
+  /** Split the given segments into buckets, preserving the order of segments within each bucket. */
+  private List<SegmentInfos> splitIntoBuckets(SegmentInfos segmentInfos, IndexWriter writer) throws IOException {
+    final TreeMap<Long,SegmentInfos> buckets = new TreeMap<>();
+    SegmentInfos noRange = null;
+    final Set<String> segmentNames = new HashSet<>();
+    for (SegmentCommitInfo info : segmentInfos) {
+      segmentNames.add(info.info.name);
+      final long[] range = getTimestampRange(info);
+      final SegmentInfos bucket;
+      if (range == NO_RANGE) {
+        if (noRange == null) {
+          noRange = new SegmentInfos(segmentInfos.getIndexCreatedVersionMajor());
+        }
+        bucket = noRange;
+      } else {
+        bucket = buckets.computeIfAbsent(getBucket(range[0], range[1]),
+            b -> new SegmentInfos(segmentInfos.getIndexCreatedVersionMajor()));
+      }
+      bucket.add(info);
+    }
+    // forget about segments that have been merged away
+    rangeCache.keySet().retainAll(segmentNames);
+
+    if (verbose(writer)) {
+      message("buckets=" + buckets.keySet() + " segmentsWithoutTimestamps=" + (noRange == null ? 0 : noRange.size()), writer);
+    }
+
+    final List<SegmentInfos> result = new ArrayList<>(buckets.values());
+    if (noRange != null) {
+      result.add(noRange);
+    }
+    return result;
+  }
+
+  private long[] getTimestampRange(SegmentCommitInfo info) throws IOException {
+    long[] range = rangeCache.get(info.info.name);
+    if (range == null) {
+      range = readTimestampRange(info);
+      rangeCache.put(info.info.name, range);
+    }
+    return range;
+  }
+
+  private long[] readTimestampRange(SegmentCommitInfo info) throws IOException {
+    final FieldInfos fieldInfos = IndexWriter.readFieldInfos(info);
+    final FieldInfo fieldInfo = fieldInfos.fieldInfo(field);
+    if (fieldInfo == null || fieldInfo.getPointDimensionCount() != 1) {
+      return NO_RANGE;
+    }
+    final int numBytes = fieldInfo.getPointNumBytes();
+    if (numBytes != Long.BYTES && numBytes != Integer.BYTES) {
+      throw new IllegalArgumentException("field \"" + field + "\" must be indexed as a long or int point, but has "
+          + numBytes + " bytes per dimension");
+    }
+
+    final Codec codec = info.info.getCodec();
+    final Directory cfs;
+    final Directory dir;
+    if (info.info.getUseCompoundFile()) {
+      dir = cfs = codec.compoundFormat().getCompoundReader(info.info.dir, info.info, IOContext.READ);
+    } else {
+      cfs = null;
+      dir = info.info.dir;
+    }
+    try (PointsReader reader = codec.pointsFormat().fieldsReader(new SegmentReadState(dir, info.info, fieldInfos, IOContext.READ))) {
+      final PointValues values = reader.getValues(field);
+      if (values == null || values.size() == 0) {
+        return NO_RANGE;
+      }
+      if (numBytes == Long.BYTES) {
+        return new long[] {
+            NumericUtils.sortableBytesToLong(values.getMinPackedValue(), 0),
+            NumericUtils.sortableBytesToLong(values.getMaxPackedValue(), 0)
+        };
+      } else {
+        return new long[] {
+            NumericUtils.sortableBytesToInt(values.getMinPackedValue(), 0),
+            NumericUtils.sortableBytesToInt(values.getMaxPackedValue(), 0)
+        };
+      }
+    } finally {
+      if (cfs != null) {
+        cfs.close();
+      }
+    }
+  }
+
+  private boolean verbose(IndexWriter writer) {
+    return writer != null && writer.infoStream.isEnabled("TBMP");
+  }
+
+  private void message(String message, IndexWriter writer) {
+    writer.infoStream.message("TBMP", message);
+  }
+
+  @Override
+  public String toString() {
+    return "[" + getClass().getSimpleName() + ": field=" + field + ", bucketSize=" + bucketSize + ", in=" + in + "]";
+  }
+}
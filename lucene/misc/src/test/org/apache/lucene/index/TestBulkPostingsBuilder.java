@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.search.CollectionStatistics;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.TermStatistics;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
+import org.apache.lucene.util.TestUtil;
+import org.apache.lucene.util.Version;
+
+public class TestBulkPostingsBuilder extends LuceneTestCase {
+
+  private static final FieldType TYPE = new FieldType();
+  static {
+    TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS);
+    TYPE.setOmitNorms(true);
+    TYPE.setTokenized(false);
+    TYPE.freeze();
+  }
+
+  public void testSameAsIndexWriter() throws Exception {
+    final int numDocs = atLeast(200);
+    final String[] fields = new String[] {"f1", "f2", "f3"};
+    final String[][][] values = new String[numDocs][fields.length][];
+    for (int doc = 0; doc < numDocs; ++doc) {
+      for (int field = 0; field < fields.length; ++field) {
+        values[doc][field] = new String[random().nextInt(4)];
+        for (int i = 0; i < values[doc][field].length; ++i) {
+          values[doc][field][i] = TestUtil.randomSimpleString(random(), 1, 3);
+        }
+      }
+    }
+
+    Directory expectedDir = newDirectory();
+    IndexWriter w = new IndexWriter(expectedDir, newIndexWriterConfig());
+    for (int doc = 0; doc < numDocs; ++doc) {
+      Document document = new Document();
+      for (int field = 0; field < fields.length; ++field) {
+        for (String value : values[doc][field]) {
+          document.add(new Field(fields[field], value, TYPE));
+        }
+      }
+      w.addDocument(document);
+    }
+    w.forceMerge(1);
+    w.close();
+
+    Directory tempDir = newDirectory();
+    Directory actualDir = newDirectory();
+    ExecutorService executor = random().nextBoolean() ? null
+        : Executors.newFixedThreadPool(2, new NamedThreadFactory("TestBulkPostingsBuilder"));
+    try (BulkPostingsBuilder builder = new BulkPostingsBuilder(tempDir, "bulk", numDocs, Version.LATEST.major)) {
+      // shuffle the order of tuples, the builder sorts them
+      for (int doc = numDocs - 1; doc >= 0; --doc) {
+        for (int field = fields.length - 1; field >= 0; --field) {
+          for (String value : values[doc][field]) {
+            builder.add(fields[field], new BytesRef(value), doc);
+          }
+        }
+      }
+      w = new IndexWriter(actualDir, newIndexWriterConfig());
+      w.addIndexes(builder.finish(executor));
+      w.close();
+    } finally {
+      if (executor != null) {
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+      }
+    }
+    assertEquals(0, tempDir.listAll().length);
+
+    DirectoryReader expected = DirectoryReader.open(expectedDir);
+    DirectoryReader actual = DirectoryReader.open(actualDir);
+    assertEquals(1, actual.leaves().size());
+    assertEquals(expected.maxDoc(), actual.maxDoc());
+    for (String field : fields) {
+      Terms expectedTerms = MultiFields.getTerms(expected, field);
+      Terms actualTerms = MultiFields.getTerms(actual, field);
+      if (expectedTerms == null) {
+        assertNull(actualTerms);
+        continue;
+      }
+      assertEquals(expectedTerms.size(), actualTerms.size());
+      assertEquals(expectedTerms.getDocCount(), actualTerms.getDocCount());
+      assertEquals(expectedTerms.getSumDocFreq(), actualTerms.getSumDocFreq());
+      assertEquals(expectedTerms.getSumTotalTermFreq(), actualTerms.getSumTotalTermFreq());
+      TermsEnum expectedTermsEnum = expectedTerms.iterator();
+      TermsEnum actualTermsEnum = actualTerms.iterator();
+      for (BytesRef term = expectedTermsEnum.next(); term != null; term = expectedTermsEnum.next()) {
+        assertEquals(term, actualTermsEnum.next());
+        assertEquals(expectedTermsEnum.docFreq(), actualTermsEnum.docFreq());
+        PostingsEnum expectedPostings = expectedTermsEnum.postings(null, PostingsEnum.FREQS);
+        PostingsEnum actualPostings = actualTermsEnum.postings(null, PostingsEnum.FREQS);
+        for (int doc = expectedPostings.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = expectedPostings.nextDoc()) {
+          assertEquals(doc, actualPostings.nextDoc());
+          assertEquals(expectedPostings.freq(), actualPostings.freq());
+        }
+        assertEquals(DocIdSetIterator.NO_MORE_DOCS, actualPostings.nextDoc());
+      }
+      assertNull(actualTermsEnum.next());
+    }
+    IOUtils.close(expected, actual, expectedDir, actualDir, tempDir);
+  }
+
+  public void testSeek() throws Exception {
+    final int numDocs = atLeast(100);
+    final TreeMap<BytesRef,FixedBitSet> expected = new TreeMap<>();
+    Directory tempDir = newDirectory();
+    try (BulkPostingsBuilder builder = new BulkPostingsBuilder(tempDir, "bulk", numDocs, Version.LATEST.major)) {
+      for (int doc = 0; doc < numDocs; ++doc) {
+        for (int i = random().nextInt(3); i >= 0; --i) {
+          BytesRef term = new BytesRef(TestUtil.randomSimpleString(random(), 1, 3));
+          expected.computeIfAbsent(term, t -> new FixedBitSet(numDocs)).set(doc);
+          builder.add("f", term, doc);
+        }
+      }
+      CodecReader reader = builder.finish(null);
+      List<BytesRef> terms = new ArrayList<>(expected.keySet());
+      TermsEnum termsEnum = reader.terms("f").iterator();
+      for (int iter = 0; iter < 100; ++iter) {
+        if (random().nextBoolean()) {
+          int ord = random().nextInt(terms.size());
+          termsEnum.seekExact(ord);
+          assertEquals(terms.get(ord), termsEnum.term());
+        } else {
+          BytesRef target = new BytesRef(TestUtil.randomSimpleString(random(), 1, 4));
+          BytesRef ceil = expected.ceilingKey(target);
+          TermsEnum.SeekStatus status = termsEnum.seekCeil(target);
+          if (ceil == null) {
+            assertEquals(TermsEnum.SeekStatus.END, status);
+            continue;
+          }
+          assertEquals(ceil.equals(target) ? TermsEnum.SeekStatus.FOUND : TermsEnum.SeekStatus.NOT_FOUND, status);
+          assertEquals(ceil, termsEnum.term());
+        }
+        assertEquals(terms.indexOf(termsEnum.term()), termsEnum.ord());
+        FixedBitSet docs = expected.get(termsEnum.term());
+        assertEquals(docs.cardinality(), termsEnum.docFreq());
+        ImpactsEnum impacts = termsEnum.impacts(new BM25Similarity().scorer(1f,
+            new CollectionStatistics("f", numDocs, numDocs, numDocs, numDocs),
+            new TermStatistics(termsEnum.term(), 1, 1)), PostingsEnum.FREQS);
+        int doc = -1;
+        for (int i = 0; i < termsEnum.docFreq(); ++i) {
+          doc = docs.nextSetBit(doc + 1);
+          assertEquals(doc, impacts.nextDoc());
+        }
+        assertEquals(DocIdSetIterator.NO_MORE_DOCS, impacts.nextDoc());
+      }
+      expectThrows(IllegalArgumentException.class, () -> termsEnum.seekExact(terms.size()));
+    }
+    tempDir.close();
+  }
+
+  public void testIllegalArguments() throws Exception {
+    Directory tempDir = newDirectory();
+    try (BulkPostingsBuilder builder = new BulkPostingsBuilder(tempDir, "bulk", 10, Version.LATEST.major)) {
+      IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+          () -> builder.add("f", new BytesRef("a"), 10));
+      assertEquals("docID must be >= 0 and < maxDoc=10, got 10", e.getMessage());
+      builder.finish(null);
+      expectThrows(IllegalStateException.class, () -> builder.add("f", new BytesRef("a"), 0));
+      expectThrows(IllegalStateException.class, () -> builder.finish(null));
+    }
+    IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+        () -> new BulkPostingsBuilder(tempDir, "bulk", 10, 5));
+    assertEquals("createdVersionMajor must be >= 6 and <= " + Version.LATEST.major + ", got 5", e.getMessage());
+    expectThrows(IllegalArgumentException.class, () -> new BulkPostingsBuilder(tempDir, "bulk", 10, Version.LATEST.major + 1));
+    tempDir.close();
+  }
+
+  public void testOlderCreatedVersionMajor() throws Exception {
+    Directory dir = newDirectory();
+    // an index that was created with the previous major version
+    final int createdVersionMajor = Version.LATEST.major - 1;
+    new SegmentInfos(createdVersionMajor).commit(dir);
+    Directory tempDir = newDirectory();
+    try (BulkPostingsBuilder builder = new BulkPostingsBuilder(tempDir, "bulk", 10, Version.LATEST.major);
+         IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+      builder.add("f", new BytesRef("a"), 3);
+      expectThrows(IllegalArgumentException.class, () -> w.addIndexes(builder.finish(null)));
+    }
+    try (BulkPostingsBuilder builder = new BulkPostingsBuilder(tempDir, "bulk", 10,
+        SegmentInfos.readLatestCommit(dir).getIndexCreatedVersionMajor());
+         IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+      builder.add("f", new BytesRef("a"), 3);
+      w.addIndexes(builder.finish(null));
+    }
+    assertEquals(createdVersionMajor, SegmentInfos.readLatestCommit(dir).getIndexCreatedVersionMajor());
+    try (DirectoryReader reader = DirectoryReader.open(dir)) {
+      assertEquals(10, reader.maxDoc());
+      assertEquals(1, reader.docFreq(new Term("f", "a")));
+    }
+    IOUtils.close(tempDir, dir);
+  }
+
+  public void testPostingsOutliveNext() throws Exception {
+    Directory tempDir = newDirectory();
+    try (BulkPostingsBuilder builder = new BulkPostingsBuilder(tempDir, "bulk", 10, Version.LATEST.major)) {
+      builder.add("f", new BytesRef("a"), 1);
+      builder.add("f", new BytesRef("a"), 1);
+      builder.add("f", new BytesRef("a"), 4);
+      builder.add("f", new BytesRef("b"), 2);
+      TermsEnum termsEnum = builder.finish(null).terms("f").iterator();
+      assertEquals(new BytesRef("a"), termsEnum.next());
+      PostingsEnum postings = termsEnum.postings(null, PostingsEnum.FREQS);
+      // moving to the next term must not change postings that are still in use
+      assertEquals(new BytesRef("b"), termsEnum.next());
+      assertEquals(1, postings.nextDoc());
+      assertEquals(2, postings.freq());
+      assertEquals(4, postings.nextDoc());
+      assertEquals(1, postings.freq());
+      assertEquals(DocIdSetIterator.NO_MORE_DOCS, postings.nextDoc());
+    }
+    tempDir.close();
+  }
+}
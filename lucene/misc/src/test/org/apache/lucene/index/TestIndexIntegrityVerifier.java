@@ -0,0 +1,311 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.MockDirectoryWrapper;
+import org.apache.lucene.store.RateLimiter;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.InfoStream;
+import org.apache.lucene.util.LuceneTestCase;
+
+public class TestIndexIntegrityVerifier extends LuceneTestCase {
+
+  private static void indexDocs(Directory dir) throws IOException {
+    IndexWriter w = new IndexWriter(dir, new IndexWriterConfig(new MockAnalyzer(random())));
+    final int numCommits = 1 + random().nextInt(3);
+    for (int i = 0; i < numCommits; ++i) {
+      final int numDocs = 1 + random().nextInt(100);
+      for (int j = 0; j < numDocs; ++j) {
+        Document doc = new Document();
+        doc.add(new StringField("id", Integer.toString(j), Store.YES));
+        doc.add(new TextField("body", "some text " + random().nextInt(10), Store.NO));
+        w.addDocument(doc);
+      }
+      w.commit();
+    }
+    w.close();
+  }
+
+  private static class CountingRateLimiter extends RateLimiter {
+    final AtomicLong pausedBytes = new AtomicLong();
+
+    @Override
+    public void setMBPerSec(double mbPerSec) {}
+
+    @Override
+    public double getMBPerSec() {
+      return Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public long pause(long bytes) {
+      pausedBytes.addAndGet(bytes);
+      return 0;
+    }
+
+    @Override
+    public long getMinPauseCheckBytes() {
+      return 128;
+    }
+  }
+
+  public void testCleanIndex() throws IOException {
+    Directory dir = newDirectory();
+    indexDocs(dir);
+
+    CountingRateLimiter rateLimiter = new CountingRateLimiter();
+    IndexIntegrityVerifier verifier = new IndexIntegrityVerifier(dir, rateLimiter, InfoStream.NO_OUTPUT, 1, TimeUnit.HOURS);
+    IndexIntegrityVerifier.Result result = verifier.verify();
+
+    SegmentInfos infos = SegmentInfos.readLatestCommit(dir);
+    long expectedBytes = 0;
+    for (String file : infos.files(true)) {
+      expectedBytes += dir.fileLength(file);
+    }
+    assertEquals(infos.getSegmentsFileName(), result.getSegmentsFileName());
+    assertEquals(infos.files(true).size(), result.getNumFiles());
+    assertEquals(expectedBytes, result.getNumBytes());
+    assertEquals(0, result.getNumSkippedFiles());
+    assertTrue(result.getCorruptFiles().isEmpty());
+    assertTrue(result.getErrorFiles().isEmpty());
+    assertTrue(result.isComplete());
+    assertSame(result, verifier.getLastResult());
+    assertEquals(1, verifier.getPassCount());
+    assertEquals(expectedBytes, verifier.getVerifiedBytes());
+    assertEquals(0, verifier.getCorruptFileCount());
+    assertEquals(0, verifier.getErrorFileCount());
+    // all bytes but footers go through the rate limiter
+    assertTrue(rateLimiter.pausedBytes.get() > 0);
+    assertTrue(rateLimiter.pausedBytes.get() <= expectedBytes);
+
+    verifier.close();
+    dir.close();
+  }
+
+  public void testCorruptFile() throws IOException {
+    Directory dir = newDirectory();
+    indexDocs(dir);
+
+    // copy the index and flip a byte in the middle of the largest file
+    Directory corruptDir = newDirectory();
+    if (corruptDir instanceof MockDirectoryWrapper) {
+      // the index is corrupt on purpose
+      ((MockDirectoryWrapper) corruptDir).setCheckIndexOnClose(false);
+    }
+    String largestFile = null;
+    for (String file : dir.listAll()) {
+      if (file.startsWith(IndexFileNames.SEGMENTS) == false && file.equals(IndexWriter.WRITE_LOCK_NAME) == false
+          && (largestFile == null || dir.fileLength(file) > dir.fileLength(largestFile))) {
+        largestFile = file;
+      }
+    }
+    for (String file : dir.listAll()) {
+      if (file.equals(IndexWriter.WRITE_LOCK_NAME)) {
+        continue;
+      }
+      try (IndexInput in = dir.openInput(file, IOContext.READONCE);
+          IndexOutput out = corruptDir.createOutput(file, IOContext.DEFAULT)) {
+        final long flipAt = file.equals(largestFile) ? in.length() / 2 : -1;
+        for (long i = 0; i < in.length(); ++i) {
+          byte b = in.readByte();
+          if (i == flipAt) {
+            b ^= 1;
+          }
+          out.writeByte(b);
+        }
+      }
+    }
+
+    IndexIntegrityVerifier verifier = new IndexIntegrityVerifier(corruptDir, new CountingRateLimiter(),
+        InfoStream.NO_OUTPUT, 1, TimeUnit.HOURS);
+    IndexIntegrityVerifier.Result result = verifier.verify();
+    assertEquals(1, result.getCorruptFiles().size());
+    assertEquals(largestFile, result.getCorruptFiles().get(0));
+    assertEquals(1, verifier.getCorruptFileCount());
+    assertTrue(result.getErrorFiles().isEmpty());
+    assertEquals(0, verifier.getErrorFileCount());
+    assertTrue(result.isComplete());
+
+    verifier.close();
+    IOUtils.close(dir, corruptDir);
+  }
+
+  public void testIOErrorIsNotCorruption() throws IOException {
+    Directory dir = newDirectory();
+    indexDocs(dir);
+
+    SegmentInfos infos = SegmentInfos.readLatestCommit(dir);
+    final String failingFile = infos.info(0).files().iterator().next();
+    Directory failingDir = new FilterDirectory(dir) {
+      @Override
+      public IndexInput openInput(String name, IOContext context) throws IOException {
+        if (name.equals(failingFile)) {
+          throw new IOException("simulated IO error");
+        }
+        return super.openInput(name, context);
+      }
+    };
+
+    IndexIntegrityVerifier verifier = new IndexIntegrityVerifier(failingDir, new CountingRateLimiter(),
+        InfoStream.NO_OUTPUT, 1, TimeUnit.HOURS);
+    IndexIntegrityVerifier.Result result = verifier.verify();
+    assertTrue(result.getCorruptFiles().isEmpty());
+    assertEquals(0, verifier.getCorruptFileCount());
+    assertEquals(1, result.getErrorFiles().size());
+    assertEquals(failingFile, result.getErrorFiles().get(0));
+    assertEquals(1, verifier.getErrorFileCount());
+    assertEquals(infos.files(true).size() - 1, result.getNumFiles());
+    assertTrue(result.isComplete());
+
+    verifier.close();
+    dir.close();
+  }
+
+  public void testTruncatedFile() throws IOException {
+    Directory dir = newDirectory();
+    if (dir instanceof MockDirectoryWrapper) {
+      // the index is corrupt on purpose
+      ((MockDirectoryWrapper) dir).setCheckIndexOnClose(false);
+    }
+    indexDocs(dir);
+
+    SegmentInfos infos = SegmentInfos.readLatestCommit(dir);
+    final String truncatedFile = infos.info(0).files().iterator().next();
+    final byte[] bytes;
+    try (IndexInput in = dir.openInput(truncatedFile, IOContext.READONCE)) {
+      bytes = new byte[(int) in.length() - 1 - random().nextInt((int) in.length())];
+      in.readBytes(bytes, 0, bytes.length);
+    }
+    dir.deleteFile(truncatedFile);
+    try (IndexOutput out = dir.createOutput(truncatedFile, IOContext.DEFAULT)) {
+      out.writeBytes(bytes, bytes.length);
+    }
+
+    IndexIntegrityVerifier verifier = new IndexIntegrityVerifier(dir, new CountingRateLimiter(),
+        InfoStream.NO_OUTPUT, 1, TimeUnit.HOURS);
+    IndexIntegrityVerifier.Result result = verifier.verify();
+    assertEquals(1, result.getCorruptFiles().size());
+    assertEquals(truncatedFile, result.getCorruptFiles().get(0));
+    assertTrue(result.getErrorFiles().isEmpty());
+
+    verifier.close();
+    dir.close();
+  }
+
+  public void testBackgroundThread() throws Exception {
+    Directory dir = newDirectory();
+    indexDocs(dir);
+
+    IndexIntegrityVerifier verifier = new IndexIntegrityVerifier(dir, new CountingRateLimiter(),
+        InfoStream.NO_OUTPUT, 1, TimeUnit.MILLISECONDS);
+    verifier.start();
+    while (verifier.getPassCount() < 2) {
+      Thread.sleep(1);
+    }
+    verifier.close();
+    assertFalse(verifier.isAlive());
+    assertNotNull(verifier.getLastResult());
+    assertTrue(verifier.getLastResult().getCorruptFiles().isEmpty());
+    dir.close();
+  }
+
+  public void testCloseWhileWaiting() throws Exception {
+    Directory dir = newDirectory();
+    indexDocs(dir);
+
+    IndexIntegrityVerifier verifier = new IndexIntegrityVerifier(dir, new CountingRateLimiter(),
+        InfoStream.NO_OUTPUT, 1, TimeUnit.DAYS);
+    verifier.start();
+    while (verifier.getPassCount() < 1) {
+      Thread.sleep(1);
+    }
+    // must not wait for the next pass
+    verifier.close();
+    assertFalse(verifier.isAlive());
+    assertEquals(1, verifier.getPassCount());
+    dir.close();
+  }
+
+  public void testCloseWhileReadingFile() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setUseCompoundFile(false);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    Document doc = new Document();
+    byte[] bytes = new byte[1 << 21];
+    random().nextBytes(bytes);
+    doc.add(new StoredField("bytes", bytes));
+    w.addDocument(doc);
+    w.commit();
+    w.close();
+
+    SegmentInfos infos = SegmentInfos.readLatestCommit(dir);
+    long maxFileLength = 0;
+    for (String file : infos.files(true)) {
+      maxFileLength = Math.max(maxFileLength, dir.fileLength(file));
+    }
+    assertTrue(maxFileLength > 1 << 20);
+
+    // slow enough for the large file to take several seconds to verify
+    final CountDownLatch readingLargeFile = new CountDownLatch(1);
+    CountingRateLimiter rateLimiter = new CountingRateLimiter() {
+      @Override
+      public long pause(long bytes) {
+        if (pausedBytes.addAndGet(bytes) > 64 * 1024) {
+          readingLargeFile.countDown();
+        }
+        try {
+          Thread.sleep(20);
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+        return 20_000_000L;
+      }
+    };
+    IndexIntegrityVerifier verifier = new IndexIntegrityVerifier(dir, rateLimiter, InfoStream.NO_OUTPUT, 1, TimeUnit.DAYS);
+    verifier.start();
+    readingLargeFile.await();
+    // must not wait for the current file to be read entirely
+    verifier.close();
+    assertFalse(verifier.isAlive());
+    assertTrue(rateLimiter.pausedBytes.get() < maxFileLength / 2);
+    IndexIntegrityVerifier.Result result = verifier.getLastResult();
+    assertNotNull(result);
+    assertFalse(result.isComplete());
+    assertTrue(result.getNumFiles() < infos.files(true).size());
+    assertTrue(result.getCorruptFiles().isEmpty());
+    assertTrue(result.getErrorFiles().isEmpty());
+    assertEquals(0, verifier.getCorruptFileCount());
+    dir.close();
+  }
+}
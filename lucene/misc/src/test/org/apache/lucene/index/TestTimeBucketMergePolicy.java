@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NumericUtils;
+
+public class TestTimeBucketMergePolicy extends LuceneTestCase {
+
+  public void testForceMergeKeepsBuckets() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setMergePolicy(new TimeBucketMergePolicy(newMergePolicy(), "ts", 100));
+    IndexWriter w = new IndexWriter(dir, iwc);
+
+    final int numBuckets = 3;
+    for (int segment = 0; segment < 10; ++segment) {
+      final long bucket = segment % numBuckets;
+      final int numDocs = 1 + random().nextInt(20);
+      for (int i = 0; i < numDocs; ++i) {
+        Document doc = new Document();
+        doc.add(new LongPoint("ts", bucket * 100 + random().nextInt(100)));
+        w.addDocument(doc);
+      }
+      w.commit();
+    }
+    // segments without timestamps go to their own bucket
+    Document doc = new Document();
+    doc.add(new StringField("id", "0", Store.NO));
+    w.addDocument(doc);
+    w.commit();
+
+    w.forceMerge(1);
+    DirectoryReader reader = DirectoryReader.open(w);
+    assertEquals(numBuckets + 1, reader.leaves().size());
+    Set<Long> seenBuckets = new HashSet<>();
+    for (LeafReaderContext ctx : reader.leaves()) {
+      PointValues values = ctx.reader().getPointValues("ts");
+      if (values == null) {
+        assertEquals(1, ctx.reader().maxDoc());
+        continue;
+      }
+      long min = NumericUtils.sortableBytesToLong(values.getMinPackedValue(), 0);
+      long max = NumericUtils.sortableBytesToLong(values.getMaxPackedValue(), 0);
+      assertEquals(min / 100, max / 100);
+      assertTrue(seenBuckets.add(max / 100));
+    }
+    reader.close();
+    w.close();
+    dir.close();
+  }
+
+  public void testFindMergesWithinBuckets() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()));
+    LogDocMergePolicy mp = new LogDocMergePolicy();
+    mp.setMergeFactor(2);
+    mp.setMinMergeDocs(1);
+    iwc.setMergePolicy(new TimeBucketMergePolicy(mp, "ts", 10));
+    IndexWriter w = new IndexWriter(dir, iwc);
+
+    for (int segment = 0; segment < 20; ++segment) {
+      Document doc = new Document();
+      doc.add(new LongPoint("ts", (segment % 2) * 10 + random().nextInt(10)));
+      w.addDocument(doc);
+      w.commit();
+    }
+    w.waitForMerges();
+
+    DirectoryReader reader = DirectoryReader.open(w);
+    assertTrue(reader.leaves().size() < 20);
+    for (LeafReaderContext ctx : reader.leaves()) {
+      PointValues values = ctx.reader().getPointValues("ts");
+      long min = NumericUtils.sortableBytesToLong(values.getMinPackedValue(), 0);
+      long max = NumericUtils.sortableBytesToLong(values.getMaxPackedValue(), 0);
+      assertEquals(min / 10, max / 10);
+    }
+    reader.close();
+    w.close();
+    dir.close();
+  }
+
+  public void testIllegalBucketSize() {
+    IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+        () -> new TimeBucketMergePolicy(newMergePolicy(), "ts", 0));
+    assertEquals("bucketSize must be > 0, got 0", e.getMessage());
+  }
+}
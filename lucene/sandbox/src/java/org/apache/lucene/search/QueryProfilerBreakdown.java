@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.lucene.index.LeafReaderContext;
+
+/**
+ * The timings of a single query node. Operations that happen on a given leaf
+ * are recorded on a per-leaf breakdown, so that different leaves may be
+ * searched concurrently.
+ */
+final class QueryProfilerBreakdown {
+
+  private final QueryProfilerTimer[] timers;
+  private final Map<Integer,QueryProfilerBreakdown> leafBreakdowns; // null on leaf breakdowns
+
+  QueryProfilerBreakdown() {
+    this(true);
+  }
+
+  private QueryProfilerBreakdown(boolean hasLeaves) {
+    timers = new QueryProfilerTimer[QueryProfilerTimingType.values().length];
+    for (int i = 0; i < timers.length; ++i) {
+      timers[i] = new QueryProfilerTimer();
+    }
+    leafBreakdowns = hasLeaves ? new TreeMap<>() : null;
+  }
+
+  /** Return the timer for the given operation. */
+  QueryProfilerTimer getTimer(QueryProfilerTimingType type) {
+    return timers[type.ordinal()];
+  }
+
+  /** Return the breakdown that records operations on the given leaf. */
+  synchronized QueryProfilerBreakdown getLeafBreakdown(LeafReaderContext context) {
+    assert leafBreakdowns != null;
+    return leafBreakdowns.computeIfAbsent(context.ord, ord -> new QueryProfilerBreakdown(false));
+  }
+
+  /** Return the total time of this node, in nanoseconds. */
+  synchronized long getTotalTime() {
+    long total = 0;
+    for (QueryProfilerTimer timer : timers) {
+      total += timer.getTime();
+    }
+    if (leafBreakdowns != null) {
+      for (QueryProfilerBreakdown leafBreakdown : leafBreakdowns.values()) {
+        total += leafBreakdown.getTotalTime();
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Return the time and count of each operation, summed over all leaves. Keys
+   * are the operation names for times and the operation names followed by
+   * {@code _count} for invocation counts.
+   */
+  synchronized Map<String,Long> toBreakdownMap() {
+    final Map<String,Long> map = new LinkedHashMap<>();
+    for (QueryProfilerTimingType type : QueryProfilerTimingType.values()) {
+      long time = getTimer(type).getTime();
+      long count = getTimer(type).getCount();
+      for (QueryProfilerBreakdown leafBreakdown : leafBreakdowns.values()) {
+        time += leafBreakdown.getTimer(type).getTime();
+        count += leafBreakdown.getTimer(type).getCount();
+      }
+      map.put(type.toString(), time);
+      map.put(type.toString() + "_count", count);
+    }
+    return Collections.unmodifiableMap(map);
+  }
+
+  /** Return the total time spent on each leaf, keyed by leaf ordinal. */
+  synchronized Map<Integer,Long> toLeafTimeMap() {
+    final Map<Integer,Long> map = new TreeMap<>();
+    for (Map.Entry<Integer,QueryProfilerBreakdown> entry : leafBreakdowns.entrySet()) {
+      map.put(entry.getKey(), entry.getValue().getTotalTime());
+    }
+    return Collections.unmodifiableMap(map);
+  }
+}
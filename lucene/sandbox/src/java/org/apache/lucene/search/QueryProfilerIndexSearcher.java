@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.lucene.index.IndexReader;
+
+/**
+ * An {@link IndexSearcher} that records where time is spent while running
+ * queries: rewriting, creating weights, building scorers, iterating and
+ * scoring. Timings are recorded for every node of the query tree and every
+ * leaf, and can be retrieved with {@link #getProfileResult()} once the search
+ * is done.
+ * <p>
+ * Profiling adds a significant overhead to every call to the scorers, so
+ * this searcher should only be used to debug slow queries. It does not use
+ * the {@link QueryCache} so that the profile reflects the actual cost of
+ * running the query. Instances may be used by several threads at once, and
+ * with an executor, but results accumulate over all the searches that they
+ * run, so a new instance should usually be created for every search.
+ *
+ * @lucene.experimental
+ */
+public class QueryProfilerIndexSearcher extends IndexSearcher {
+
+  private final QueryProfilerTree profiler = new QueryProfilerTree();
+  private long rewriteTime; // guarded by this
+
+  /** Create a new profiling searcher over the provided reader. */
+  public QueryProfilerIndexSearcher(IndexReader reader) {
+    this(reader, null);
+  }
+
+  /**
+   * Create a new profiling searcher over the provided reader, which searches
+   * leaves concurrently using the provided executor.
+   */
+  public QueryProfilerIndexSearcher(IndexReader reader, ExecutorService executor) {
+    super(reader, executor);
+    setQueryCache(null);
+  }
+
+  @Override
+  public Query rewrite(Query original) throws IOException {
+    final long start = System.nanoTime();
+    try {
+      return super.rewrite(original);
+    } finally {
+      final long time = System.nanoTime() - start;
+      synchronized (this) {
+        rewriteTime += time;
+      }
+    }
+  }
+
+  @Override
+  public Weight createWeight(Query query, ScoreMode scoreMode, float boost) throws IOException {
+    final QueryProfilerBreakdown profile = profiler.push(query);
+    final QueryProfilerTimer timer = profile.getTimer(QueryProfilerTimingType.CREATE_WEIGHT);
+    final Weight weight;
+    final long start = timer.start();
+    try {
+      weight = super.createWeight(query, scoreMode, boost);
+    } finally {
+      timer.stop(start);
+      profiler.pollLast();
+    }
+    return new QueryProfilerWeight(query, weight, profile);
+  }
+
+  /**
+   * Return the profiles of the queries that have been run by this searcher,
+   * in the order in which their weights were created.
+   */
+  public List<QueryProfilerResult> getProfileResult() {
+    return profiler.getResults();
+  }
+
+  /** Return the total time spent rewriting queries, in nanoseconds. */
+  public synchronized long getRewriteTime() {
+    return rewriteTime;
+  }
+}
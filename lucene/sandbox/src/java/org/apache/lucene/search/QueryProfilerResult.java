@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The profile of a query node, as computed by a {@link QueryProfilerIndexSearcher}.
+ * Times are in nanoseconds and include the time spent in child nodes.
+ *
+ * @lucene.experimental
+ */
+public final class QueryProfilerResult {
+
+  private final String type;
+  private final String description;
+  private final long time;
+  private final Map<String,Long> breakdown;
+  private final Map<Integer,Long> timeByLeaf;
+  private final List<QueryProfilerResult> children;
+
+  QueryProfilerResult(String type, String description, long time,
+      Map<String,Long> breakdown, Map<Integer,Long> timeByLeaf, List<QueryProfilerResult> children) {
+    this.type = type;
+    this.description = description;
+    this.time = time;
+    this.breakdown = breakdown;
+    this.timeByLeaf = timeByLeaf;
+    this.children = children;
+  }
+
+  /** Return the simple class name of the query. */
+  public String getQueryType() {
+    return type;
+  }
+
+  /** Return the {@link Query#toString() string representation} of the query. */
+  public String getLuceneDescription() {
+    return description;
+  }
+
+  /** Return the total time spent in this node, in nanoseconds. */
+  public long getTimeInNanos() {
+    return time;
+  }
+
+  /**
+   * Return the time in nanoseconds and the number of invocations of each
+   * {@link QueryProfilerTimingType operation}, summed over all leaves.
+   * Counts are reported under the name of the operation followed by
+   * {@code _count}.
+   */
+  public Map<String,Long> getTimeBreakdown() {
+    return breakdown;
+  }
+
+  /**
+   * Return the time spent in this node on each leaf, keyed by
+   * {@link org.apache.lucene.index.LeafReaderContext#ord leaf ordinal}.
+   * Leaves on which no scorer was built for this node are missing.
+   */
+  public Map<Integer,Long> getTimeByLeaf() {
+    return timeByLeaf;
+  }
+
+  /** Return the profiles of the sub queries of this node. */
+  public List<QueryProfilerResult> getProfiledChildren() {
+    return children;
+  }
+
+  @Override
+  public String toString() {
+    return "QueryProfilerResult(type=" + type + ",description=" + description
+        + ",time=" + time + ",children=" + children.size() + ")";
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * A {@link Scorer} that times the calls to a wrapped scorer, its iterators
+ * and its two-phase iterator.
+ */
+final class QueryProfilerScorer extends Scorer {
+
+  private final Scorer scorer;
+  private final QueryProfilerTimer nextDocTimer, advanceTimer, matchTimer, scoreTimer;
+  private final QueryProfilerTimer shallowAdvanceTimer, computeMaxScoreTimer, setMinCompetitiveScoreTimer;
+
+  QueryProfilerScorer(Weight weight, Scorer scorer, QueryProfilerBreakdown profile) {
+    super(weight);
+    this.scorer = scorer;
+    nextDocTimer = profile.getTimer(QueryProfilerTimingType.NEXT_DOC);
+    advanceTimer = profile.getTimer(QueryProfilerTimingType.ADVANCE);
+    matchTimer = profile.getTimer(QueryProfilerTimingType.MATCH);
+    scoreTimer = profile.getTimer(QueryProfilerTimingType.SCORE);
+    shallowAdvanceTimer = profile.getTimer(QueryProfilerTimingType.SHALLOW_ADVANCE);
+    computeMaxScoreTimer = profile.getTimer(QueryProfilerTimingType.COMPUTE_MAX_SCORE);
+    setMinCompetitiveScoreTimer = profile.getTimer(QueryProfilerTimingType.SET_MIN_COMPETITIVE_SCORE);
+  }
+
+  @Override
+  public int docID() {
+    return scorer.docID();
+  }
+
+  @Override
+  public float score() throws IOException {
+    final long start = scoreTimer.start();
+    try {
+      return scorer.score();
+    } finally {
+      scoreTimer.stop(start);
+    }
+  }
+
+  @Override
+  public Collection<ChildScorer> getChildren() throws IOException {
+    return scorer.getChildren();
+  }
+
+  @Override
+  public DocIdSetIterator iterator() {
+    return new ProfilingIterator(scorer.iterator());
+  }
+
+  @Override
+  public TwoPhaseIterator twoPhaseIterator() {
+    final TwoPhaseIterator in = scorer.twoPhaseIterator();
+    if (in == null) {
+      return null;
+    }
+    return new TwoPhaseIterator(new ProfilingIterator(in.approximation())) {
+      @Override
+      public boolean matches() throws IOException {
+        final long start = matchTimer.start();
+        try {
+          return in.matches();
+        } finally {
+          matchTimer.stop(start);
+        }
+      }
+
+      @Override
+      public float matchCost() {
+        return in.matchCost();
+      }
+    };
+  }
+
+  @Override
+  public int advanceShallow(int target) throws IOException {
+    final long start = shallowAdvanceTimer.start();
+    try {
+      return scorer.advanceShallow(target);
+    } finally {
+      shallowAdvanceTimer.stop(start);
+    }
+  }
+
+  @Override
+  public float getMaxScore(int upTo) throws IOException {
+    final long start = computeMaxScoreTimer.start();
+    try {
+      return scorer.getMaxScore(upTo);
+    } finally {
+      computeMaxScoreTimer.stop(start);
+    }
+  }
+
+  @Override
+  public void setMinCompetitiveScore(float minScore) {
+    final long start = setMinCompetitiveScoreTimer.start();
+    try {
+      scorer.setMinCompetitiveScore(minScore);
+    } finally {
+      setMinCompetitiveScoreTimer.stop(start);
+    }
+  }
+
+  private class ProfilingIterator extends DocIdSetIterator {
+
+    private final DocIdSetIterator in;
+
+    ProfilingIterator(DocIdSetIterator in) {
+      this.in = in;
+    }
+
+    @Override
+    public int docID() {
+      return in.docID();
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+      final long start = nextDocTimer.start();
+      try {
+        return in.nextDoc();
+      } finally {
+        nextDocTimer.stop(start);
+      }
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+      final long start = advanceTimer.start();
+      try {
+        return in.advance(target);
+      } finally {
+        advanceTimer.stop(start);
+      }
+    }
+
+    @Override
+    public long cost() {
+      return in.cost();
+    }
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the total time and the number of invocations of an operation.
+ * This class is thread-safe: the start time of an invocation is returned to
+ * the caller rather than stored, so that the same operation may be timed by
+ * several threads at once, eg. when leaves are searched concurrently.
+ */
+final class QueryProfilerTimer {
+
+  private final AtomicLong time = new AtomicLong();
+  private final AtomicLong count = new AtomicLong();
+
+  /** Start timing an invocation, and return the value to pass to {@link #stop(long)}. */
+  long start() {
+    count.incrementAndGet();
+    return System.nanoTime();
+  }
+
+  /** Stop timing the invocation that was started at {@code start}. */
+  void stop(long start) {
+    // count at least 1ns so that invoked operations never report a time of 0
+    time.addAndGet(Math.max(System.nanoTime() - start, 1L));
+  }
+
+  /** Return the total time spent in this operation, in nanoseconds. */
+  long getTime() {
+    return time.get();
+  }
+
+  /** Return the number of times this operation was invoked. */
+  long getCount() {
+    return count.get();
+  }
+}
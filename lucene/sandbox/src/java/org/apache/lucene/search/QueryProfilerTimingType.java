@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.util.Locale;
+
+/**
+ * The operations that are timed by a {@link QueryProfilerIndexSearcher}.
+ *
+ * @lucene.experimental
+ */
+public enum QueryProfilerTimingType {
+  /** {@link Query#createWeight} */
+  CREATE_WEIGHT,
+  /** {@link Weight#scorerSupplier} and {@link ScorerSupplier#get} */
+  BUILD_SCORER,
+  /** {@link DocIdSetIterator#nextDoc} */
+  NEXT_DOC,
+  /** {@link DocIdSetIterator#advance} */
+  ADVANCE,
+  /** {@link TwoPhaseIterator#matches} */
+  MATCH,
+  /** {@link Scorer#score} */
+  SCORE,
+  /** {@link Scorer#advanceShallow} */
+  SHALLOW_ADVANCE,
+  /** {@link Scorer#getMaxScore} */
+  COMPUTE_MAX_SCORE,
+  /** {@link Scorer#setMinCompetitiveScore} */
+  SET_MIN_COMPETITIVE_SCORE;
+
+  @Override
+  public String toString() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the tree of profiled query nodes. Nodes are created as weights are
+ * created: a query whose weight is created while the weight of another query
+ * is being created is a child of this other query.
+ * <p>
+ * Every thread has its own stack of nodes whose weight is being created, so
+ * that weights may be created concurrently, eg. when the same searcher runs
+ * several queries at once.
+ */
+final class QueryProfilerTree {
+
+  private final List<Query> queries = new ArrayList<>();
+  private final List<QueryProfilerBreakdown> breakdowns = new ArrayList<>();
+  private final List<List<Integer>> children = new ArrayList<>();
+  private final List<Integer> roots = new ArrayList<>();
+  private final Map<Thread,Deque<Integer>> stacks = new HashMap<>();
+
+  /**
+   * Register a new node for the given query and make it the current node,
+   * until {@link #pollLast()} is called. Return its breakdown.
+   */
+  synchronized QueryProfilerBreakdown push(Query query) {
+    final Deque<Integer> stack = stacks.computeIfAbsent(Thread.currentThread(), t -> new ArrayDeque<>());
+    final int token = queries.size();
+    queries.add(query);
+    final QueryProfilerBreakdown breakdown = new QueryProfilerBreakdown();
+    breakdowns.add(breakdown);
+    children.add(new ArrayList<>());
+    if (stack.isEmpty()) {
+      roots.add(token);
+    } else {
+      children.get(stack.peek()).add(token);
+    }
+    stack.push(token);
+    return breakdown;
+  }
+
+  /** Mark the weight of the current node of the current thread as created. */
+  synchronized void pollLast() {
+    final Thread thread = Thread.currentThread();
+    final Deque<Integer> stack = stacks.get(thread);
+    stack.pop();
+    if (stack.isEmpty()) {
+      stacks.remove(thread);
+    }
+  }
+
+  /** Return the profiles of the root nodes. */
+  synchronized List<QueryProfilerResult> getResults() {
+    final List<QueryProfilerResult> results = new ArrayList<>(roots.size());
+    for (int root : roots) {
+      results.add(toResult(root));
+    }
+    return Collections.unmodifiableList(results);
+  }
+
+  private QueryProfilerResult toResult(int token) {
+    final List<QueryProfilerResult> childResults = new ArrayList<>();
+    for (int child : children.get(token)) {
+      childResults.add(toResult(child));
+    }
+    final Query query = queries.get(token);
+    final QueryProfilerBreakdown breakdown = breakdowns.get(token);
+    return new QueryProfilerResult(query.getClass().getSimpleName(), query.toString(),
+        breakdown.getTotalTime(), breakdown.toBreakdownMap(), breakdown.toLeafTimeMap(),
+        Collections.unmodifiableList(childResults));
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import java.util.Set;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+
+/**
+ * A {@link Weight} that times the creation of its scorers and wraps them
+ * in order to time iteration and scoring.
+ */
+final class QueryProfilerWeight extends Weight {
+
+  private final Weight subQueryWeight;
+  private final QueryProfilerBreakdown profile;
+
+  QueryProfilerWeight(Query query, Weight subQueryWeight, QueryProfilerBreakdown profile) {
+    super(query);
+    this.subQueryWeight = subQueryWeight;
+    this.profile = profile;
+  }
+
+  @Override
+  public Scorer scorer(LeafReaderContext context) throws IOException {
+    final ScorerSupplier supplier = scorerSupplier(context);
+    if (supplier == null) {
+      return null;
+    }
+    return supplier.get(Long.MAX_VALUE);
+  }
+
+  @Override
+  public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+    final QueryProfilerBreakdown leafProfile = profile.getLeafBreakdown(context);
+    final QueryProfilerTimer timer = leafProfile.getTimer(QueryProfilerTimingType.BUILD_SCORER);
+    final ScorerSupplier subQueryScorerSupplier;
+    final long start = timer.start();
+    try {
+      subQueryScorerSupplier = subQueryWeight.scorerSupplier(context);
+    } finally {
+      timer.stop(start);
+    }
+    if (subQueryScorerSupplier == null) {
+      return null;
+    }
+
+    final Weight weight = this;
+    return new ScorerSupplier() {
+      @Override
+      public Scorer get(long leadCost) throws IOException {
+        final long start = timer.start();
+        try {
+          return new QueryProfilerScorer(weight, subQueryScorerSupplier.get(leadCost), leafProfile);
+        } finally {
+          timer.stop(start);
+        }
+      }
+
+      @Override
+      public long cost() {
+        final long start = timer.start();
+        try {
+          return subQueryScorerSupplier.cost();
+        } finally {
+          timer.stop(start);
+        }
+      }
+    };
+  }
+
+  // bulkScorer is not overridden on purpose: the default implementation
+  // iterates over the profiled scorer, so that iteration is timed too
+
+  // count is not overridden on purpose: counting without iterating would
+  // leave nothing to profile
+
+  @Override
+  public Matches matches(LeafReaderContext context, int doc) throws IOException {
+    return subQueryWeight.matches(context, doc);
+  }
+
+  @Override
+  public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+    return subQueryWeight.explain(context, doc);
+  }
+
+  @Override
+  public void extractTerms(Set<Term> terms) {
+    subQueryWeight.extractTerms(terms);
+  }
+
+  @Override
+  public boolean isCacheable(LeafReaderContext ctx) {
+    // caching would hide the cost of the profiled queries
+    return false;
+  }
+}
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
+import org.apache.lucene.util.TestUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+
+public class TestQueryProfilerIndexSearcher extends LuceneTestCase {
+
+  private static Directory dir;
+  private static IndexReader reader;
+
+  @BeforeClass
+  public static void beforeClass() throws IOException {
+    dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = TestUtil.nextInt(random(), 1, 20);
+    for (int i = 0; i < numDocs; ++i) {
+      final int numHoles = random().nextInt(5);
+      for (int j = 0; j < numHoles; ++j) {
+        w.addDocument(new Document());
+      }
+      Document doc = new Document();
+      doc.add(new StringField("foo", "bar", Store.NO));
+      doc.add(new TextField("body", "quick brown fox", Store.NO));
+      w.addDocument(doc);
+    }
+    reader = w.getReader();
+    w.close();
+  }
+
+  @AfterClass
+  public static void afterClass() throws IOException {
+    IOUtils.close(reader, dir);
+    dir = null;
+    reader = null;
+  }
+
+  private static QueryProfilerIndexSearcher newProfilerSearcher() {
+    QueryProfilerIndexSearcher searcher = new QueryProfilerIndexSearcher(reader);
+    searcher.setSimilarity(newSearcher(reader).getSimilarity());
+    return searcher;
+  }
+
+  public void testBasic() throws IOException {
+    QueryProfilerIndexSearcher searcher = newProfilerSearcher();
+    Query query = new BooleanQuery.Builder()
+        .add(new TermQuery(new Term("foo", "bar")), Occur.MUST)
+        .add(new TermQuery(new Term("foo", "baz")), Occur.SHOULD)
+        .build();
+    TopDocs topDocs = searcher.search(query, 1);
+    assertEquals(newSearcher(reader).count(query), topDocs.totalHits);
+
+    List<QueryProfilerResult> results = searcher.getProfileResult();
+    assertEquals(1, results.size());
+    QueryProfilerResult root = results.get(0);
+    assertEquals("BooleanQuery", root.getQueryType());
+    assertEquals(query.toString(), root.getLuceneDescription());
+    assertEquals(2, root.getProfiledChildren().size());
+
+    Map<String,Long> breakdown = root.getTimeBreakdown();
+    assertEquals(1L, (long) breakdown.get("create_weight_count"));
+    assertTrue(breakdown.get("create_weight") > 0);
+    assertTrue(breakdown.get("build_scorer_count") > 0);
+    assertTrue(breakdown.get("next_doc_count") + breakdown.get("advance_count") > 0);
+    assertTrue(root.getTimeInNanos() >= breakdown.get("create_weight"));
+
+    long leafTime = 0;
+    for (Map.Entry<Integer,Long> entry : root.getTimeByLeaf().entrySet()) {
+      assertTrue(entry.getKey() >= 0 && entry.getKey() < reader.leaves().size());
+      leafTime += entry.getValue();
+    }
+    assertEquals(root.getTimeInNanos(), breakdown.get("create_weight") + leafTime);
+
+    for (QueryProfilerResult child : root.getProfiledChildren()) {
+      assertEquals("TermQuery", child.getQueryType());
+      assertEquals(1L, (long) child.getTimeBreakdown().get("create_weight_count"));
+      assertTrue(child.getProfiledChildren().isEmpty());
+    }
+    assertTrue(searcher.getRewriteTime() > 0);
+  }
+
+  public void testTwoPhase() throws IOException {
+    QueryProfilerIndexSearcher searcher = newProfilerSearcher();
+    Query query = new PhraseQuery("body", "quick", "brown");
+    TopDocs topDocs = searcher.search(query, 3);
+    TopDocs expected = newSearcher(reader).search(query, 3);
+    CheckHits.checkEqual(query, expected.scoreDocs, topDocs.scoreDocs);
+
+    QueryProfilerResult root = searcher.getProfileResult().get(0);
+    Map<String,Long> breakdown = root.getTimeBreakdown();
+    assertEquals(topDocs.totalHits, (long) breakdown.get("match_count"));
+    assertTrue(breakdown.get("score_count") > 0);
+  }
+
+  public void testNoScores() throws IOException {
+    QueryProfilerIndexSearcher searcher = newProfilerSearcher();
+    Query query = new BooleanQuery.Builder()
+        .add(new TermQuery(new Term("foo", "bar")), Occur.FILTER)
+        .add(new TermQuery(new Term("body", "fox")), Occur.FILTER)
+        .build();
+    TotalHitCountCollector collector = new TotalHitCountCollector();
+    searcher.search(query, collector);
+    assertEquals(newSearcher(reader).count(query), collector.getTotalHits());
+    QueryProfilerResult root = searcher.getProfileResult().get(0);
+    assertEquals(0L, (long) root.getTimeBreakdown().get("score_count"));
+    // the weight does not count matches without iterating
+    assertTrue(root.getTimeBreakdown().get("next_doc_count") + root.getTimeBreakdown().get("advance_count") > 0);
+  }
+
+  public void testMultipleSearches() throws IOException {
+    QueryProfilerIndexSearcher searcher = newProfilerSearcher();
+    searcher.search(new TermQuery(new Term("foo", "bar")), 1);
+    searcher.search(new MatchAllDocsQuery(), 1);
+    List<QueryProfilerResult> results = searcher.getProfileResult();
+    assertEquals(2, results.size());
+    assertEquals("TermQuery", results.get(0).getQueryType());
+    assertEquals("MatchAllDocsQuery", results.get(1).getQueryType());
+  }
+
+  public void testSameResultsAsRegularSearcher() throws IOException {
+    IndexSearcher regular = newSearcher(reader);
+    for (int iter = 0; iter < 10; ++iter) {
+      QueryProfilerIndexSearcher searcher = newProfilerSearcher();
+      Query query = new BooleanQuery.Builder()
+          .add(new TermQuery(new Term("body", random().nextBoolean() ? "quick" : "fox")), Occur.SHOULD)
+          .add(new PhraseQuery("body", "brown", "fox"), random().nextBoolean() ? Occur.SHOULD : Occur.MUST)
+          .build();
+      TopScoreDocCollector collector = TopScoreDocCollector.create(2, null, random().nextInt(3));
+      searcher.search(query, collector);
+      TopDocs expected = regular.search(query, 2);
+      CheckHits.checkEqual(query, expected.scoreDocs, collector.topDocs().scoreDocs);
+    }
+  }
+
+  public void testExecutor() throws Exception {
+    ExecutorService executor = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("TestQueryProfilerIndexSearcher"));
+    try {
+      QueryProfilerIndexSearcher searcher = new QueryProfilerIndexSearcher(reader, executor);
+      searcher.setSimilarity(newSearcher(reader).getSimilarity());
+      Query query = new BooleanQuery.Builder()
+          .add(new TermQuery(new Term("foo", "bar")), Occur.MUST)
+          .add(new TermQuery(new Term("body", "fox")), Occur.SHOULD)
+          .build();
+      TopDocs topDocs = searcher.search(query, 3);
+      TopDocs expected = newSearcher(reader).search(query, 3);
+      CheckHits.checkEqual(query, expected.scoreDocs, topDocs.scoreDocs);
+
+      List<QueryProfilerResult> results = searcher.getProfileResult();
+      assertEquals(1, results.size());
+      QueryProfilerResult root = results.get(0);
+      assertEquals(2, root.getProfiledChildren().size());
+      Map<String,Long> breakdown = root.getTimeBreakdown();
+      assertEquals(1L, (long) breakdown.get("create_weight_count"));
+      assertTrue(breakdown.get("next_doc_count") + breakdown.get("advance_count") > 0);
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+  }
+
+  public void testConcurrentSearches() throws Exception {
+    final QueryProfilerIndexSearcher searcher = newProfilerSearcher();
+    final Query query = new BooleanQuery.Builder()
+        .add(new TermQuery(new Term("foo", "bar")), Occur.MUST)
+        .add(new TermQuery(new Term("body", "fox")), Occur.SHOULD)
+        .build();
+    final int expectedCount = newSearcher(reader).count(query);
+    final int numThreads = TestUtil.nextInt(random(), 2, 5);
+    final int numSearches = TestUtil.nextInt(random(), 1, 10);
+    final CountDownLatch start = new CountDownLatch(1);
+    final Thread[] threads = new Thread[numThreads];
+    final Throwable[] failures = new Throwable[numThreads];
+    for (int i = 0; i < numThreads; ++i) {
+      final int threadId = i;
+      threads[i] = new Thread(() -> {
+        try {
+          start.await();
+          for (int j = 0; j < numSearches; ++j) {
+            assertEquals(expectedCount, searcher.count(query));
+          }
+        } catch (Throwable t) {
+          failures[threadId] = t;
+        }
+      });
+      threads[i].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    for (Throwable failure : failures) {
+      if (failure != null) {
+        throw new AssertionError(failure);
+      }
+    }
+
+    // weights that are created concurrently must not be mixed up
+    List<QueryProfilerResult> results = searcher.getProfileResult();
+    assertEquals(numThreads * numSearches, results.size());
+    for (QueryProfilerResult root : results) {
+      assertEquals("BooleanQuery", root.getQueryType());
+      assertEquals(1L, (long) root.getTimeBreakdown().get("create_weight_count"));
+      assertEquals(2, root.getProfiledChildren().size());
+      for (QueryProfilerResult child : root.getProfiledChildren()) {
+        assertEquals("TermQuery", child.getQueryType());
+        assertTrue(child.getProfiledChildren().isEmpty());
+      }
+    }
+  }
+}
@@ -18,8 +18,9 @@ package org.apache.lucene.search.suggest.document;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 import org.apache.lucene.analysis.Analyzer;
@@ -32,6 +33,7 @@ import org.apache.lucene.util.IntsRef;
 import org.apache.lucene.util.UnicodeUtil;
 import org.apache.lucene.util.automaton.Automata;
 import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.AutomatonCache;
 import org.apache.lucene.util.automaton.FiniteStringsIterator;
 import org.apache.lucene.util.automaton.LevenshteinAutomata;
 import org.apache.lucene.util.automaton.Operations;
@@ -89,6 +91,7 @@ public class FuzzyCompletionQuery extends PrefixCompletionQuery {
   private final int minFuzzyLength;
   private final boolean unicodeAware;
   private final int maxDeterminizedStates;
+  private final AutomatonCache automatonCache;
 
   /**
    * Calls {@link FuzzyCompletionQuery#FuzzyCompletionQuery(Analyzer, Term, BitsProducer)}
@@ -133,6 +136,30 @@ public class FuzzyCompletionQuery extends PrefixCompletionQuery {
   public FuzzyCompletionQuery(Analyzer analyzer, Term term, BitsProducer filter, int maxEdits,
                               boolean transpositions, int nonFuzzyPrefix, int minFuzzyLength,
                               boolean unicodeAware, int maxDeterminizedStates) {
+    this(analyzer, term, filter, maxEdits, transpositions, nonFuzzyPrefix, minFuzzyLength,
+        unicodeAware, maxDeterminizedStates, null);
+  }
+
+  /**
+   * Constructs an analyzed fuzzy prefix completion query that looks up its
+   * Levenshtein automata in the given {@link AutomatonCache}
+   *
+   * @param analyzer used to analyze the provided {@link Term#text()}
+   * @param term query is run against {@link Term#field()} and {@link Term#text()}
+   *             is analyzed with <code>analyzer</code>
+   * @param filter used to query on a sub set of documents
+   * @param maxEdits maximum number of acceptable edits
+   * @param transpositions value passed to {@link LevenshteinAutomata}
+   * @param nonFuzzyPrefix prefix length where edits are not allowed
+   * @param minFuzzyLength minimum prefix length before any edits are allowed
+   * @param unicodeAware treat prefix as unicode rather than bytes
+   * @param maxDeterminizedStates maximum automaton states allowed for {@link LevenshteinAutomata}
+   * @param automatonCache cache of automata that is shared across queries, or
+   *                       <code>null</code> to build automata for every query
+   */
+  public FuzzyCompletionQuery(Analyzer analyzer, Term term, BitsProducer filter, int maxEdits,
+                              boolean transpositions, int nonFuzzyPrefix, int minFuzzyLength,
+                              boolean unicodeAware, int maxDeterminizedStates, AutomatonCache automatonCache) {
     super(analyzer, term, filter);
     this.maxEdits = maxEdits;
     this.transpositions = transpositions;
@@ -140,29 +167,42 @@ public class FuzzyCompletionQuery extends PrefixCompletionQuery {
     this.minFuzzyLength = minFuzzyLength;
     this.unicodeAware = unicodeAware;
     this.maxDeterminizedStates = maxDeterminizedStates;
+    this.automatonCache = automatonCache;
   }
 
   @Override
   public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
     CompletionTokenStream stream = (CompletionTokenStream) analyzer.tokenStream(getField(), getTerm().text());
-    Set<IntsRef> refs = new HashSet<>();
-    Automaton automaton = toLevenshteinAutomata(stream.toAutomaton(unicodeAware), refs);
+    // TODO Accumulating all refs is bad, because the resulting set may be very big.
+    // TODO Better iterate over automaton again inside FuzzyCompletionWeight?
+    Set<IntsRef> refs = new LinkedHashSet<>();
+    FiniteStringsIterator finiteStrings = new FiniteStringsIterator(stream.toAutomaton(unicodeAware));
+    for (IntsRef string; (string = finiteStrings.next()) != null;) {
+      refs.add(IntsRef.deepCopyOf(string));
+    }
+    final Automaton automaton;
+    if (automatonCache == null) {
+      automaton = toFuzzyAutomaton(refs);
+    } else {
+      automaton = automatonCache.get(new FuzzyAutomatonKey(refs, maxEdits, transpositions, nonFuzzyPrefix,
+          minFuzzyLength, unicodeAware, maxDeterminizedStates), () -> toFuzzyAutomaton(refs));
+    }
+    return new FuzzyCompletionWeight(this, automaton, refs);
+  }
+
+  private Automaton toFuzzyAutomaton(Set<IntsRef> refs) {
+    Automaton automaton = toLevenshteinAutomata(refs);
     if (unicodeAware) {
       Automaton utf8automaton = new UTF32ToUTF8().convert(automaton);
       utf8automaton = Operations.determinize(utf8automaton, maxDeterminizedStates);
       automaton = utf8automaton;
     }
-    // TODO Accumulating all refs is bad, because the resulting set may be very big.
-    // TODO Better iterate over automaton again inside FuzzyCompletionWeight?
-    return new FuzzyCompletionWeight(this, automaton, refs);
+    return automaton;
   }
 
-  private Automaton toLevenshteinAutomata(Automaton automaton, Set<IntsRef> refs) {
+  private Automaton toLevenshteinAutomata(Set<IntsRef> refs) {
     List<Automaton> subs = new ArrayList<>();
-    FiniteStringsIterator finiteStrings = new FiniteStringsIterator(automaton);
-    for (IntsRef string; (string = finiteStrings.next()) != null;) {
-      refs.add(IntsRef.deepCopyOf(string));
-
+    for (IntsRef string : refs) {
       if (string.length <= nonFuzzyPrefix || string.length < minFuzzyLength) {
         subs.add(Automata.makeString(string.ints, string.offset, string.length));
       } else {
@@ -197,6 +237,48 @@ public class FuzzyCompletionQuery extends PrefixCompletionQuery {
     }
   }
 
+  /** Key of the fuzzy automaton of a set of analyzed prefixes in an {@link AutomatonCache}. */
+  private static final class FuzzyAutomatonKey {
+    private final Set<IntsRef> refs;
+    private final int maxEdits;
+    private final boolean transpositions;
+    private final int nonFuzzyPrefix;
+    private final int minFuzzyLength;
+    private final boolean unicodeAware;
+    private final int maxDeterminizedStates;
+
+    FuzzyAutomatonKey(Set<IntsRef> refs, int maxEdits, boolean transpositions, int nonFuzzyPrefix,
+                      int minFuzzyLength, boolean unicodeAware, int maxDeterminizedStates) {
+      this.refs = refs;
+      this.maxEdits = maxEdits;
+      this.transpositions = transpositions;
+      this.nonFuzzyPrefix = nonFuzzyPrefix;
+      this.minFuzzyLength = minFuzzyLength;
+      this.unicodeAware = unicodeAware;
+      this.maxDeterminizedStates = maxDeterminizedStates;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == null || obj.getClass() != getClass()) {
+        return false;
+      }
+      FuzzyAutomatonKey other = (FuzzyAutomatonKey) obj;
+      return refs.equals(other.refs)
+          && maxEdits == other.maxEdits
+          && transpositions == other.transpositions
+          && nonFuzzyPrefix == other.nonFuzzyPrefix
+          && minFuzzyLength == other.minFuzzyLength
+          && unicodeAware == other.unicodeAware
+          && maxDeterminizedStates == other.maxDeterminizedStates;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(refs, maxEdits, transpositions, nonFuzzyPrefix, minFuzzyLength, unicodeAware, maxDeterminizedStates);
+    }
+  }
+
   /**
    * Get the maximum edit distance for fuzzy matches
    */
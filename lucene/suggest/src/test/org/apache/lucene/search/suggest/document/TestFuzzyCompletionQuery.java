@@ -24,6 +24,8 @@ import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.automaton.AutomatonCache;
+import org.apache.lucene.util.automaton.Operations;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -78,6 +80,36 @@ public class TestFuzzyCompletionQuery extends LuceneTestCase {
     iw.close();
   }
 
+  @Test
+  public void testAutomatonCache() throws Exception {
+    Analyzer analyzer = new MockAnalyzer(random());
+    RandomIndexWriter iw = new RandomIndexWriter(random(), dir, iwcWithSuggestField(analyzer, "suggest_field"));
+    Document document = new Document();
+    document.add(new SuggestField("suggest_field", "suggestion", 2));
+    document.add(new SuggestField("suggest_field", "sugfoo", 1));
+    iw.addDocument(document);
+
+    DirectoryReader reader = iw.getReader();
+    SuggestIndexSearcher suggestIndexSearcher = new SuggestIndexSearcher(reader);
+    AutomatonCache cache = new AutomatonCache(10);
+    for (int i = 0; i < 3; ++i) {
+      CompletionQuery query = new FuzzyCompletionQuery(analyzer, new Term("suggest_field", "sugg"), null,
+          FuzzyCompletionQuery.DEFAULT_MAX_EDITS, FuzzyCompletionQuery.DEFAULT_TRANSPOSITIONS,
+          FuzzyCompletionQuery.DEFAULT_NON_FUZZY_PREFIX, FuzzyCompletionQuery.DEFAULT_MIN_FUZZY_LENGTH,
+          FuzzyCompletionQuery.DEFAULT_UNICODE_AWARE, Operations.DEFAULT_MAX_DETERMINIZED_STATES, cache);
+      TopSuggestDocs suggest = suggestIndexSearcher.suggest(query, 4, false);
+      assertSuggestions(suggest,
+          new Entry("suggestion", 2 * 3),
+          new Entry("sugfoo", 1 * 3)
+      );
+    }
+    assertEquals(1, cache.getMissCount());
+    assertEquals(2, cache.getHitCount());
+
+    reader.close();
+    iw.close();
+  }
+
   @Test
   public void testFuzzyContextQuery() throws Exception {
     Analyzer analyzer = new MockAnalyzer(random());
@@ -42,6 +42,12 @@ class AssertingCollector extends FilterCollector {
     this.random = random;
   }
 
+  @Override
+  public void setWeight(Weight weight) {
+    // forward: this collector does not filter matches
+    in.setWeight(weight);
+  }
+
   @Override
   public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
     final LeafCollector in = super.getLeafCollector(context);
@@ -39,6 +39,13 @@ class AssertingWeight extends FilterWeight {
     return new AssertingMatches(matches);
   }
 
+  @Override
+  public int count(LeafReaderContext context) throws IOException {
+    final int count = in.count(context);
+    assert count >= -1 && count <= context.reader().numDocs() : count;
+    return count;
+  }
+
   @Override
   public Scorer scorer(LeafReaderContext context) throws IOException {
     if (random.nextBoolean()) {
@@ -30,6 +30,8 @@ import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryProfilerIndexSearcher;
+import org.apache.lucene.search.QueryProfilerResult;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
@@ -39,6 +41,8 @@ import org.apache.solr.common.util.SuppressForbidden;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.search.DocList;
 import org.apache.solr.search.QueryParsing;
+import org.apache.solr.search.QueryUtils;
+import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.search.facet.FacetDebugInfo;
 import org.apache.solr.util.SolrPluginUtils;
 
@@ -123,6 +127,10 @@ public class DebugComponent extends SearchComponent
         info.add(JSON, rb.req.getJSON());
       }
 
+      if (rb.req.getParams().getBool(CommonParams.DEBUG_PROFILE, false) && rb.getQuery() != null) {
+        info.add("profile", getProfile(rb));
+      }
+
       if (rb.isDebugQuery() && rb.getQparser() != null) {
         rb.getQparser().addDebugInfo(rb.getDebugInfo());
       }
@@ -144,6 +152,61 @@ public class DebugComponent extends SearchComponent
   }
 
 
+  /**
+   * Runs the main query again with a {@link QueryProfilerIndexSearcher} and
+   * returns the time spent in every node of the query tree, in nanoseconds.
+   * Filters and sorts are not part of the profile. Queries that can only run
+   * against a {@link SolrIndexSearcher}, like joins, can not be profiled: the
+   * profile then only reports an error rather than failing the request.
+   */
+  private NamedList<Object> getProfile(ResponseBuilder rb) throws IOException {
+    final SolrIndexSearcher searcher = rb.req.getSearcher();
+    final QueryProfilerIndexSearcher profiler = new QueryProfilerIndexSearcher(searcher.getIndexReader());
+    profiler.setSimilarity(searcher.getSimilarity());
+    final long numHits = (long) rb.getSortSpec().getOffset() + rb.getSortSpec().getCount();
+    final NamedList<Object> profile = new SimpleOrderedMap<>();
+    try {
+      profiler.search(QueryUtils.makeQueryable(rb.getQuery()), (int) Math.max(1, Math.min(Integer.MAX_VALUE, numHits)));
+    } catch (RuntimeException e) {
+      // eg. a ClassCastException from queries that cast the searcher to a SolrIndexSearcher
+      profile.add("error", "profile unavailable: " + e);
+      return profile;
+    }
+
+    profile.add("rewrite_time", profiler.getRewriteTime());
+    final List<NamedList<Object>> queries = new ArrayList<>();
+    for (QueryProfilerResult result : profiler.getProfileResult()) {
+      queries.add(toNamedList(result));
+    }
+    profile.add("queries", queries);
+    return profile;
+  }
+
+  private static NamedList<Object> toNamedList(QueryProfilerResult result) {
+    final NamedList<Object> nl = new SimpleOrderedMap<>();
+    nl.add("type", result.getQueryType());
+    nl.add("description", result.getLuceneDescription());
+    nl.add("time", result.getTimeInNanos());
+    final NamedList<Long> breakdown = new SimpleOrderedMap<>();
+    for (Map.Entry<String,Long> entry : result.getTimeBreakdown().entrySet()) {
+      breakdown.add(entry.getKey(), entry.getValue());
+    }
+    nl.add("breakdown", breakdown);
+    final NamedList<Long> leaves = new SimpleOrderedMap<>();
+    for (Map.Entry<Integer,Long> entry : result.getTimeByLeaf().entrySet()) {
+      leaves.add(entry.getKey().toString(), entry.getValue());
+    }
+    nl.add("leaves", leaves);
+    if (result.getProfiledChildren().isEmpty() == false) {
+      final List<NamedList<Object>> children = new ArrayList<>();
+      for (QueryProfilerResult child : result.getProfiledChildren()) {
+        children.add(toNamedList(child));
+      }
+      nl.add("children", children);
+    }
+    return nl;
+  }
+
   private void doDebugTrack(ResponseBuilder rb) {
     SolrQueryRequest req = rb.req;
     String rid = req.getParams().get(CommonParams.REQUEST_ID);
@@ -349,6 +349,16 @@ public class QueryComponent extends SearchComponent
       result.setSegmentTerminatedEarly(Boolean.FALSE);
     }
 
+    final Integer minExactCount = params.getInt(CommonParams.MIN_EXACT_COUNT);
+    if (minExactCount != null) {
+      try {
+        cmd.setMinExactCount(minExactCount);
+      } catch (IllegalArgumentException e) {
+        throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, e.getMessage(), e);
+      }
+      result.setNumFoundExact(Boolean.TRUE);
+    }
+
     //
     // grouping / field collapsing
     //
@@ -810,6 +820,7 @@ public class QueryComponent extends SearchComponent
       Float maxScore=null;
       boolean partialResults = false;
       Boolean segmentTerminatedEarly = null;
+      Boolean numFoundExact = null;
       for (ShardResponse srsp : sreq.responses) {
         SolrDocumentList docs = null;
         NamedList<?> responseHeader = null;
@@ -873,6 +884,12 @@ public class QueryComponent extends SearchComponent
               segmentTerminatedEarly = Boolean.FALSE;
             }
           }
+          if (!Boolean.FALSE.equals(numFoundExact)) {
+            final Object nfe = responseHeader.get(SolrQueryResponse.RESPONSE_HEADER_NUM_FOUND_EXACT_KEY);
+            if (nfe != null) {
+              numFoundExact = (Boolean) nfe;
+            }
+          }
         }
         
         // calculate global maxScore and numDocsFound
@@ -973,6 +990,11 @@ public class QueryComponent extends SearchComponent
           rb.rsp.getResponseHeader().add(SolrQueryResponse.RESPONSE_HEADER_SEGMENT_TERMINATED_EARLY_KEY, segmentTerminatedEarly);
         }
       }
+      if (numFoundExact != null) {
+        // numFound is only exact if all shards counted their hits exactly
+        rb.rsp.getResponseHeader().remove(SolrQueryResponse.RESPONSE_HEADER_NUM_FOUND_EXACT_KEY);
+        rb.rsp.getResponseHeader().add(SolrQueryResponse.RESPONSE_HEADER_NUM_FOUND_EXACT_KEY, numFoundExact);
+      }
   }
 
   /**
@@ -1381,7 +1403,8 @@ public class QueryComponent extends SearchComponent
         .setDefaultTotalCount(defaultTotalCount)
         .setDocsPerGroupDefault(groupingSpec.getWithinGroupLimit())
         .setGroupOffsetDefault(groupingSpec.getWithinGroupOffset())
-        .setGetGroupedDocSet(groupingSpec.isTruncateGroups());
+        .setGetGroupedDocSet(groupingSpec.isTruncateGroups())
+        .setSinglePass(params.getBool(GroupParams.GROUP_SINGLE_PASS, false));
 
     if (groupingSpec.getFields() != null) {
       for (String field : groupingSpec.getFields()) {
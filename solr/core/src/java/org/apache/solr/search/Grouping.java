@@ -51,6 +51,7 @@ import org.apache.lucene.search.grouping.AllGroupsCollector;
 import org.apache.lucene.search.grouping.FirstPassGroupingCollector;
 import org.apache.lucene.search.grouping.GroupDocs;
 import org.apache.lucene.search.grouping.SearchGroup;
+import org.apache.lucene.search.grouping.SinglePassGroupingCollector;
 import org.apache.lucene.search.grouping.TermGroupSelector;
 import org.apache.lucene.search.grouping.TopGroups;
 import org.apache.lucene.search.grouping.TopGroupsCollector;
@@ -78,6 +79,13 @@ public class Grouping {
 
   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  /**
+   * The maximum number of documents per group (group offset + limit) for which single pass grouping is used. The single
+   * pass allocates a collector of that size every time a group enters the top groups, so it is only worth it for small
+   * groups.
+   */
+  public static final int MAX_SINGLE_PASS_DOCS_PER_GROUP = 100;
+
   private final SolrIndexSearcher searcher;
   private final QueryResult qr;
   private final QueryCommand cmd;
@@ -98,6 +106,7 @@ public class Grouping {
   private boolean needScores;
   private boolean getDocSet;
   private boolean getGroupedDocSet;
+  private boolean singlePass;
   private boolean getDocList; // doclist needed for debugging or highlighting
   private Query query;
   private DocSet filter;
@@ -282,6 +291,17 @@ public class Grouping {
     return this;
   }
 
+  /**
+   * Whether field commands should try to collect the top documents of their top groups in the first pass, and only
+   * run a second pass if some of the returned groups missed documents.
+   *
+   * @see #MAX_SINGLE_PASS_DOCS_PER_GROUP
+   */
+  public Grouping setSinglePass(boolean singlePass) {
+    this.singlePass = singlePass;
+    return this;
+  }
+
   public Grouping setGetGroupedDocSet(boolean getGroupedDocSet) {
     this.getGroupedDocSet = getGroupedDocSet;
     return this;
@@ -698,7 +718,10 @@ public class Grouping {
 
     public String groupBy;
     FirstPassGroupingCollector<BytesRef> firstPass;
+    // used instead of firstPass if single pass grouping is enabled, the second pass is only needed if some docs were dropped
+    SinglePassGroupingCollector<BytesRef> singlePassCollector;
     TopGroupsCollector<BytesRef> secondPass;
+    boolean singlePassComplete;
 
     AllGroupsCollector<BytesRef> allGroupsCollector;
 
@@ -720,6 +743,14 @@ public class Grouping {
       }
 
       groupSort = groupSort == null ? Sort.RELEVANCE : groupSort;
+      int groupedDocsToCollect = getMax(groupOffset, docsPerGroup, maxDoc);
+      groupedDocsToCollect = Math.max(groupedDocsToCollect, 1);
+      if (singlePass && groupedDocsToCollect <= MAX_SINGLE_PASS_DOCS_PER_GROUP) {
+        Sort withinGroupSort = this.withinGroupSort != null ? this.withinGroupSort : Sort.RELEVANCE;
+        singlePassCollector = new SinglePassGroupingCollector<>(new TermGroupSelector(groupBy), groupSort, actualGroupsToFind,
+            withinGroupSort, groupedDocsToCollect, needScores, needScores, false);
+        return singlePassCollector;
+      }
       firstPass = new FirstPassGroupingCollector<>(new TermGroupSelector(groupBy), groupSort, actualGroupsToFind);
       return firstPass;
     }
@@ -731,7 +762,9 @@ public class Grouping {
         return totalCount == TotalCount.grouped ? allGroupsCollector : null;
       }
 
-      topGroups = format == Format.grouped ? firstPass.getTopGroups(offset, false) : firstPass.getTopGroups(0, false);
+      int firstPassOffset = format == Format.grouped ? offset : 0;
+      topGroups = singlePassCollector != null ? singlePassCollector.getSearchGroups(firstPassOffset, false)
+          : firstPass.getTopGroups(firstPassOffset, false);
       if (topGroups == null) {
         if (totalCount == TotalCount.grouped) {
           allGroupsCollector = new AllGroupsCollector<>(new TermGroupSelector(groupBy));
@@ -743,6 +776,17 @@ public class Grouping {
         }
       }
 
+      if (singlePassCollector != null && singlePassCollector.isComplete(firstPassOffset)) {
+        singlePassComplete = true;
+        result = singlePassCollector.getTopGroups(firstPassOffset, 0);
+        if (totalCount == TotalCount.grouped) {
+          allGroupsCollector = new AllGroupsCollector<>(new TermGroupSelector(groupBy));
+          return allGroupsCollector;
+        } else {
+          return null;
+        }
+      }
+
       int groupedDocsToCollect = getMax(groupOffset, docsPerGroup, maxDoc);
       groupedDocsToCollect = Math.max(groupedDocsToCollect, 1);
       Sort withinGroupSort = this.withinGroupSort != null ? this.withinGroupSort : Sort.RELEVANCE;
@@ -766,7 +810,9 @@ public class Grouping {
 
     @Override
     protected void finish() throws IOException {
-      result = secondPass != null ? secondPass.getTopGroups(0) : null;
+      if (singlePassComplete == false) {
+        result = secondPass != null ? secondPass.getTopGroups(0) : null;
+      }
       if (main) {
         mainResult = createSimpleResponse();
         return;
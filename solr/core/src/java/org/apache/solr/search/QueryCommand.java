@@ -37,6 +37,7 @@ public class QueryCommand {
   private int supersetMaxDoc;
   private int flags;
   private long timeAllowed = -1;
+  private int minExactCount = Integer.MAX_VALUE;
   private CursorMark cursorMark;
   
   public CursorMark getCursorMark() {
@@ -207,6 +208,26 @@ public class QueryCommand {
     }
   }
 
+  public int getMinExactCount() {
+    return minExactCount;
+  }
+
+  /**
+   * Sets the minimum number of hits that need to be counted exactly. Results
+   * that are computed with a lower bound of the number of hits are not cached.
+   */
+  public QueryCommand setMinExactCount(int minExactCount) {
+    if (minExactCount < 0) {
+      throw new IllegalArgumentException("minExactCount must be >= 0, got " + minExactCount);
+    }
+    this.minExactCount = minExactCount;
+    if (minExactCount != Integer.MAX_VALUE) {
+      // the number of hits depends on the collector, cache keys don't know about it
+      this.flags |= (SolrIndexSearcher.NO_CHECK_QCACHE | SolrIndexSearcher.NO_SET_QCACHE);
+    }
+    return this;
+  }
+
   public boolean getSegmentTerminateEarly() {
     return (flags & SolrIndexSearcher.SEGMENT_TERMINATE_EARLY) != 0;
   }
@@ -23,6 +23,7 @@ public class QueryResult {
   
   private boolean partialResults;
   private Boolean segmentTerminatedEarly;
+  private Boolean numFoundExact;
   private DocListAndSet docListAndSet;
   private CursorMark nextCursorMark;
   
@@ -66,6 +67,14 @@ public class QueryResult {
     this.segmentTerminatedEarly = segmentTerminatedEarly;
   }
 
+  public Boolean getNumFoundExact() {
+    return numFoundExact;
+  }
+
+  public void setNumFoundExact(Boolean numFoundExact) {
+    this.numFoundExact = numFoundExact;
+  }
+
   public void setDocListAndSet(DocListAndSet listSet) {
     docListAndSet = listSet;
   }
@@ -1500,8 +1500,10 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
    *          the number of docs to return
    * @param cmd
    *          The Command whose properties should determine the type of TopDocsCollector to use.
+   * @param minExactCount
+   *          the minimum number of hits to count exactly when sorting by score
    */
-  private TopDocsCollector buildTopDocsCollector(int len, QueryCommand cmd) throws IOException {
+  private TopDocsCollector buildTopDocsCollector(int len, QueryCommand cmd, int minExactCount) throws IOException {
 
     Query q = cmd.getQuery();
     if (q instanceof RankQuery) {
@@ -1511,7 +1513,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
 
     if (null == cmd.getSort()) {
       assert null == cmd.getCursorMark() : "have cursor but no sort";
-      return TopScoreDocCollector.create(len);
+      return TopScoreDocCollector.create(len, null, minExactCount);
     } else {
       // we have a sort
       final boolean needScores = (cmd.getFlags() & GET_SCORES) != 0;
@@ -1598,11 +1600,14 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       // no docs on this page, so cursor doesn't change
       qr.setNextCursorMark(cmd.getCursorMark());
     } else {
-      final TopDocsCollector topCollector = buildTopDocsCollector(len, cmd);
+      final TopDocsCollector topCollector = buildTopDocsCollector(len, cmd, cmd.getMinExactCount());
       Collector collector = topCollector;
       buildAndRunCollectorChain(qr, query, collector, cmd, pf.postFilter);
 
       totalHits = topCollector.getTotalHits();
+      if (topCollector.getTotalHitsRelation() == TopDocs.TotalHitsRelation.GREATER_THAN_OR_EQUAL_TO) {
+        qr.setNumFoundExact(Boolean.FALSE);
+      }
       TopDocs topDocs = topCollector.topDocs(0, len);
       populateNextCursorMarkFromTopDocs(qr, cmd, topDocs);
 
@@ -1692,7 +1697,8 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       qr.setNextCursorMark(cmd.getCursorMark());
     } else {
 
-      final TopDocsCollector topCollector = buildTopDocsCollector(len, cmd);
+      // all matches are collected into the DocSet, so the count is always exact
+      final TopDocsCollector topCollector = buildTopDocsCollector(len, cmd, Integer.MAX_VALUE);
       DocSetCollector setCollector = new DocSetCollector(maxDoc);
       Collector collector = MultiCollector.wrap(topCollector, setCollector);
 
@@ -2001,7 +2007,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     // bit of a hack to tell if a set is sorted - do it better in the future.
     boolean inOrder = set instanceof BitDocSet || set instanceof SortedIntDocSet;
 
-    TopDocsCollector topCollector = buildTopDocsCollector(nDocs, cmd);
+    TopDocsCollector topCollector = buildTopDocsCollector(nDocs, cmd, Integer.MAX_VALUE);
 
     DocIterator iter = set.iterator();
     int base = 0;
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.join;
+
+import java.io.IOException;
+
+import org.apache.lucene.search.join.BitSetProducer;
+import org.apache.lucene.search.join.QueryBitSetProducer;
+import org.apache.solr.search.CacheRegenerator;
+import org.apache.solr.search.SolrCache;
+import org.apache.solr.search.SolrIndexSearcher;
+
+/**
+ * Cache regenerator for the {@link BlockJoinParentQParser#CACHE_NAME} cache.
+ * <p>
+ * Like {@link org.apache.solr.search.NoOpRegenerator}, this populates the new cache
+ * with the old parent filters, since their per-segment bitsets are not invalidated
+ * by the creation of a new searcher. In addition, the bitsets of the segments that
+ * are new in the new searcher are computed while autowarming, so that the first block
+ * join queries after a commit do not have to.
+ * <p>
+ * The new cache gets new filter wrappers that share the bitsets of the old ones, so
+ * that their memory usage, which the cache only reads when they are inserted, includes
+ * the bitsets that were computed since the previous searcher was opened.
+ */
+public class BlockJoinParentFilterRegenerator implements CacheRegenerator {
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  @Override
+  public boolean regenerateItem(SolrIndexSearcher newSearcher, SolrCache newCache, SolrCache oldCache, Object oldKey, Object oldVal) throws IOException {
+    Object newVal = oldVal;
+    if (oldVal instanceof BlockJoinParentQParser.BitDocIdSetFilterWrapper) {
+      BitSetProducer producer = ((BlockJoinParentQParser.BitDocIdSetFilterWrapper) oldVal).filter;
+      if (producer instanceof QueryBitSetProducer) {
+        ((QueryBitSetProducer) producer).warm(newSearcher.getIndexReader());
+      }
+      newVal = new BlockJoinParentQParser.BitDocIdSetFilterWrapper(producer);
+    }
+    newCache.put(oldKey, newVal);
+    return true;
+  }
+
+}
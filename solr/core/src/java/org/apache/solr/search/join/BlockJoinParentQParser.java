@@ -26,9 +26,11 @@ import org.apache.lucene.search.join.BitSetProducer;
 import org.apache.lucene.search.join.QueryBitSetProducer;
 import org.apache.lucene.search.join.ScoreMode;
 import org.apache.lucene.search.join.ToParentBlockJoinQuery;
+import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BitDocIdSet;
 import org.apache.lucene.util.BitSet;
 import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.search.BitsFilteredDocIdSet;
@@ -122,12 +124,20 @@ public class BlockJoinParentQParser extends FiltersQParser {
   }
 
   // We need this wrapper since BitDocIdSetFilter does not extend Filter
-  static class BitDocIdSetFilterWrapper extends Filter {
+  static class BitDocIdSetFilterWrapper extends Filter implements Accountable {
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(BitDocIdSetFilterWrapper.class);
 
     final BitSetProducer filter;
+    // the memory usage of the cached parent bitsets when this wrapper was created: caches account for the size of
+    // their values when they are inserted and removed, so it must not change in-between, even though the producer
+    // caches the bitsets of more segments over time. BlockJoinParentFilterRegenerator creates a new wrapper with
+    // an up-to-date size for the cache of every new searcher.
+    private final long ramBytesUsed;
 
     BitDocIdSetFilterWrapper(BitSetProducer filter) {
       this.filter = filter;
+      this.ramBytesUsed = BASE_RAM_BYTES_USED + (filter instanceof Accountable ? ((Accountable) filter).ramBytesUsed() : 0);
     }
 
     @Override
@@ -139,6 +149,11 @@ public class BlockJoinParentQParser extends FiltersQParser {
       return BitsFilteredDocIdSet.wrap(new BitDocIdSet(set), acceptDocs);
     }
 
+    @Override
+    public long ramBytesUsed() {
+      return ramBytesUsed;
+    }
+
     @Override
     public String toString(String field) {
       return getClass().getSimpleName() + "(" + filter + ")";
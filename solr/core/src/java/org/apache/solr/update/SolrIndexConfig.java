@@ -75,6 +75,8 @@ public class SolrIndexConfig implements MapSerializable {
   public final PluginInfo mergePolicyFactoryInfo;
   public final PluginInfo mergeSchedulerInfo;
   public final PluginInfo metricsInfo;
+  /** Configuration of the background integrity verifier, or null if it is disabled. */
+  public final PluginInfo integrityVerifierInfo;
   
   public final PluginInfo mergedSegmentWarmerInfo;
   
@@ -95,6 +97,7 @@ public class SolrIndexConfig implements MapSerializable {
     mergedSegmentWarmerInfo = null;
     // enable coarse-grained metrics by default
     metricsInfo = new PluginInfo("metrics", Collections.emptyMap(), null, null);
+    integrityVerifierInfo = null;
   }
   
   /**
@@ -144,6 +147,12 @@ public class SolrIndexConfig implements MapSerializable {
     } else {
       metricsInfo = infos.get(0);
     }
+    infos = solrConfig.readPluginInfos(prefix + "/integrityVerifier", false, false);
+    if (infos.isEmpty()) {
+      integrityVerifierInfo = def.integrityVerifierInfo;
+    } else {
+      integrityVerifierInfo = infos.get(0);
+    }
     mergeSchedulerInfo = getPluginInfo(prefix + "/mergeScheduler", solrConfig, def.mergeSchedulerInfo);
     mergePolicyFactoryInfo = getPluginInfo(prefix + "/mergePolicyFactory", solrConfig, def.mergePolicyFactoryInfo);
 
@@ -191,6 +200,9 @@ public class SolrIndexConfig implements MapSerializable {
     if (metricsInfo != null) {
       m.put("metrics", metricsInfo);
     }
+    if (integrityVerifierInfo != null) {
+      m.put("integrityVerifier", integrityVerifierInfo);
+    }
     if (mergePolicyFactoryInfo != null) {
       m.put("mergePolicyFactory", mergePolicyFactoryInfo);
     }
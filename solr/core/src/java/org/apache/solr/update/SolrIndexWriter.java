@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -28,11 +29,13 @@ import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.index.IndexDeletionPolicy;
+import org.apache.lucene.index.IndexIntegrityVerifier;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.SegmentCommitInfo;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RateLimiter;
 import org.apache.lucene.util.InfoStream;
 import org.apache.solr.common.util.IOUtils;
 import org.apache.solr.common.util.SuppressForbidden;
@@ -89,6 +92,11 @@ public class SolrIndexWriter extends IndexWriter {
   private final SolrMetricManager metricManager;
   private final String registryName;
 
+  // background verification of the checksums of committed files, may be null
+  private IndexIntegrityVerifier integrityVerifier;
+  public static final double DEFAULT_INTEGRITY_VERIFIER_MB_PER_SEC = 10;
+  public static final long DEFAULT_INTEGRITY_VERIFIER_INTERVAL_SECONDS = 24 * 60 * 60;
+
   public static SolrIndexWriter create(SolrCore core, String name, String path, DirectoryFactory directoryFactory, boolean create, IndexSchema schema, SolrIndexConfig config, IndexDeletionPolicy delPolicy, Codec codec) throws IOException {
 
     SolrIndexWriter w = null;
@@ -173,6 +181,41 @@ public class SolrIndexWriter extends IndexWriter {
         flushMeter = metricManager.meter(null, registryName, "flush", SolrInfoBean.Category.INDEX.toString());
       }
     }
+    if (config.integrityVerifierInfo != null) {
+      startIntegrityVerifier(core, config);
+    }
+  }
+
+  private void startIntegrityVerifier(SolrCore core, SolrIndexConfig config) {
+    double mbPerSec = DEFAULT_INTEGRITY_VERIFIER_MB_PER_SEC;
+    long intervalSeconds = DEFAULT_INTEGRITY_VERIFIER_INTERVAL_SECONDS;
+    if (config.integrityVerifierInfo.initArgs != null) {
+      Object v = config.integrityVerifierInfo.initArgs.get("maxMBPerSec");
+      if (v != null) {
+        try {
+          mbPerSec = Double.parseDouble(String.valueOf(v));
+        } catch (Exception e) {
+          log.warn("Invalid 'maxMBPerSec' argument, using default " + DEFAULT_INTEGRITY_VERIFIER_MB_PER_SEC, e);
+        }
+      }
+      v = config.integrityVerifierInfo.initArgs.get("intervalSeconds");
+      if (v != null) {
+        try {
+          intervalSeconds = Long.parseLong(String.valueOf(v));
+        } catch (Exception e) {
+          log.warn("Invalid 'intervalSeconds' argument, using default " + DEFAULT_INTEGRITY_VERIFIER_INTERVAL_SECONDS, e);
+        }
+      }
+    }
+    integrityVerifier = new IndexIntegrityVerifier(directory, new RateLimiter.SimpleRateLimiter(mbPerSec),
+        infoStream, intervalSeconds, TimeUnit.SECONDS);
+    String tag = core.getMetricTag();
+    final IndexIntegrityVerifier verifier = integrityVerifier;
+    metricManager.registerGauge(null, registryName, () -> verifier.getPassCount(), tag, true, "passes", SolrInfoBean.Category.INDEX.toString(), "integrity");
+    metricManager.registerGauge(null, registryName, () -> verifier.getVerifiedBytes(), tag, true, "bytes", SolrInfoBean.Category.INDEX.toString(), "integrity");
+    metricManager.registerGauge(null, registryName, () -> verifier.getCorruptFileCount(), tag, true, "corruptFiles", SolrInfoBean.Category.INDEX.toString(), "integrity");
+    metricManager.registerGauge(null, registryName, () -> verifier.getErrorFileCount(), tag, true, "errorFiles", SolrInfoBean.Category.INDEX.toString(), "integrity");
+    integrityVerifier.start();
   }
 
   @SuppressForbidden(reason = "Need currentTimeMillis, commit time should be used only for debugging purposes, " +
@@ -321,6 +364,11 @@ public class SolrIndexWriter extends IndexWriter {
       }
     }
     if (doClose) {
+
+      if (integrityVerifier != null) {
+        // before closing the info stream and releasing the directory, which the verifier uses
+        integrityVerifier.close();
+      }
       
       if (infoStream != null) {
         IOUtils.closeQuietly(infoStream);
@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
+import org.apache.lucene.util.TestUtil;
 import org.apache.solr.client.solrj.impl.BinaryResponseParser;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.GroupParams;
@@ -318,6 +319,60 @@ public class TestGroupingSearch extends SolrTestCaseJ4 {
     );
   }
 
+  @Test
+  public void testSinglePass() throws Exception {
+    final int numDocs = atLeast(100);
+    final int numGroups = TestUtil.nextInt(random(), 1, 20);
+    for (int i = 0; i < numDocs; i++) {
+      if (random().nextInt(10) == 0) {
+        assertU(add(doc("id", Integer.toString(i), "value_i", Integer.toString(random().nextInt(10)))));
+      } else {
+        assertU(add(doc("id", Integer.toString(i), "value_i", Integer.toString(random().nextInt(10)),
+            "group_s1", "g" + random().nextInt(numGroups))));
+      }
+      if (random().nextInt(20) == 0) {
+        assertU(commit());
+      }
+    }
+    assertU(commit());
+
+    final String[] queries = new String[] {"*:*", "{!func}value_i", "value_i:[3 TO 8]"};
+    final String[] sorts = new String[] {null, "value_i asc,id desc", "score desc,id asc"};
+    final String[] groupSorts = new String[] {null, "value_i desc,id asc", "id asc"};
+    for (int iter = 0; iter < 50; iter++) {
+      List<String> params = new ArrayList<>(Arrays.asList("q", queries[random().nextInt(queries.length)],
+          "group", "true", "group.field", "group_s1", "fl", "id,value_i,score", "omitHeader", "true", "wt", "json",
+          "rows", Integer.toString(random().nextInt(10)), "start", Integer.toString(random().nextInt(5)),
+          "group.limit", Integer.toString(random().nextInt(10) - 1), "group.offset", Integer.toString(random().nextInt(3))));
+      final String sort = sorts[random().nextInt(sorts.length)];
+      if (sort != null) {
+        params.addAll(Arrays.asList("sort", sort));
+      }
+      final String groupSort = groupSorts[random().nextInt(groupSorts.length)];
+      if (groupSort != null) {
+        params.addAll(Arrays.asList("group.sort", groupSort));
+      }
+      if (random().nextBoolean()) {
+        params.addAll(Arrays.asList("group.ngroups", "true"));
+      }
+      switch (random().nextInt(3)) {
+        case 0:
+          params.addAll(Arrays.asList("group.format", "simple"));
+          break;
+        case 1:
+          params.addAll(Arrays.asList("group.main", "true"));
+          break;
+        default:
+          break;
+      }
+
+      final String twoPass = h.query(req(params.toArray(new String[0])));
+      params.addAll(Arrays.asList(GroupParams.GROUP_SINGLE_PASS, "true"));
+      final String singlePass = h.query(req(params.toArray(new String[0])));
+      assertEquals(params.toString(), twoPass, singlePass);
+    }
+  }
+
   @Test
   public void testGroupingGroupedBasedFaceting() throws Exception {
     assertU(add(doc("id", "1", "value1_s1", "1", "value2_i", "1", "value3_s1", "a", "value4_i", "1")));
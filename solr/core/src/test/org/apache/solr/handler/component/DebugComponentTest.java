@@ -68,6 +68,36 @@ public class DebugComponentTest extends SolrTestCaseJ4 {
     );
   }
 
+  @Test
+  public void testProfile() throws Exception {
+    assertQ(req("q", "title:title OR title:lamb", CommonParams.DEBUG_QUERY, "true", CommonParams.DEBUG_PROFILE, "true"),
+            "//lst[@name='debug']/lst[@name='profile']/long[@name='rewrite_time']",
+            "count(//lst[@name='profile']/arr[@name='queries']/lst)=1",
+            "//lst[@name='profile']/arr[@name='queries']/lst/str[@name='type']='BooleanQuery'",
+            "//lst[@name='profile']/arr[@name='queries']/lst/long[@name='time']",
+            "//lst[@name='profile']/arr[@name='queries']/lst/lst[@name='breakdown']/long[@name='create_weight_count']=1",
+            "//lst[@name='profile']/arr[@name='queries']/lst/lst[@name='leaves']",
+            "count(//lst[@name='profile']/arr[@name='queries']/lst/arr[@name='children']/lst)=2",
+            "//lst[@name='profile']/arr[@name='queries']/lst/arr[@name='children']/lst[1]/str[@name='type']='TermQuery'",
+            "//lst[@name='profile']/arr[@name='queries']/lst/arr[@name='children']/lst[2]/str[@name='type']='TermQuery'"
+    );
+    // the profile is not computed by default
+    assertQ(req("q", "title:title OR title:lamb", CommonParams.DEBUG_QUERY, "true"),
+            "count(//lst[@name='profile'])=0"
+    );
+    // nor without debug
+    assertQ(req("q", "title:title OR title:lamb", CommonParams.DEBUG_PROFILE, "true"),
+            "count(//lst[@name='debug'])=0"
+    );
+    // queries that need a SolrIndexSearcher can not be profiled, but do not fail the request
+    assertQ(req("q", "{!join from=id to=id}id:3", CommonParams.DEBUG_QUERY, "true", CommonParams.DEBUG_PROFILE, "true"),
+            "//result[@name='response'][@numFound='1']",
+            "//result/doc/str[@name='id']='3'",
+            "starts-with(//lst[@name='debug']/lst[@name='profile']/str[@name='error'], 'profile unavailable')",
+            "count(//lst[@name='profile']/arr[@name='queries'])=0"
+    );
+  }
+
   // Test the ability to specify which pieces to include
 
   @Test
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import org.apache.solr.BaseDistributedSearchTestCase;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.params.ShardParams;
+import org.apache.solr.response.SolrQueryResponse;
+import org.junit.Test;
+
+/**
+ * Test for the distributed merge of {@link CommonParams#MIN_EXACT_COUNT} results
+ *
+ * @see org.apache.solr.handler.component.QueryComponent
+ */
+public class DistributedQueryComponentMinExactCountTest extends BaseDistributedSearchTestCase {
+
+  public DistributedQueryComponentMinExactCountTest() {
+    stress = 0;
+  }
+
+  @Test
+  @ShardsFixed(num = 2)
+  public void test() throws Exception {
+    del("*:*");
+
+    // 5 matches on the first shard, 20 on the second one
+    int docId = 0;
+    for (int shard = 0; shard < 2; shard++) {
+      final int numMatches = shard == 0 ? 5 : 20;
+      for (int i = 0; i < numMatches; i++) {
+        index_specific(shard, id, Integer.toString(docId++), "text", i % 2 == 0 ? "foo" : "foo foo bar");
+      }
+      index_specific(shard, id, Integer.toString(docId++), "text", "baz");
+    }
+    commit();
+
+    handle.clear();
+    handle.put("timestamp", SKIPVAL);
+    handle.put("maxScore", SKIPVAL);
+    handle.put("score", SKIPVAL);
+
+    // counts are exact if minExactCount is not set, or not lower than the number of matches of any shard
+    QueryResponse rsp = query("q", "text:foo", "fl", "id", "rows", "1");
+    assertEquals(25, rsp.getResults().getNumFound());
+    assertNull(rsp.getResponseHeader().get(SolrQueryResponse.RESPONSE_HEADER_NUM_FOUND_EXACT_KEY));
+
+    rsp = queryDistrib(params("q", "text:foo", "fl", "id", "rows", "1", CommonParams.MIN_EXACT_COUNT, "20"));
+    assertEquals(25, rsp.getResults().getNumFound());
+    assertEquals(Boolean.TRUE, rsp.getResponseHeader().get(SolrQueryResponse.RESPONSE_HEADER_NUM_FOUND_EXACT_KEY));
+
+    // the count is a lower bound as soon as one shard did not count exactly
+    rsp = queryDistrib(params("q", "text:foo", "fl", "id", "rows", "1", CommonParams.MIN_EXACT_COUNT, "5"));
+    assertEquals(Boolean.FALSE, rsp.getResponseHeader().get(SolrQueryResponse.RESPONSE_HEADER_NUM_FOUND_EXACT_KEY));
+    assertTrue(rsp.getResults().getNumFound() > 10);
+    assertTrue(rsp.getResults().getNumFound() <= 25);
+
+    rsp = queryDistrib(params("q", "text:foo", "fl", "id", "rows", "1", CommonParams.MIN_EXACT_COUNT, "0"));
+    assertEquals(Boolean.FALSE, rsp.getResponseHeader().get(SolrQueryResponse.RESPONSE_HEADER_NUM_FOUND_EXACT_KEY));
+
+    // the top hits are the same as when all hits are counted
+    QueryResponse expected = queryDistrib(params("q", "text:foo", "fl", "id", "rows", "3"));
+    rsp = queryDistrib(params("q", "text:foo", "fl", "id", "rows", "3", CommonParams.MIN_EXACT_COUNT, "0"));
+    assertEquals(expected.getResults().size(), rsp.getResults().size());
+    for (int i = 0; i < expected.getResults().size(); i++) {
+      assertEquals(expected.getResults().get(i).getFieldValue("id"), rsp.getResults().get(i).getFieldValue("id"));
+    }
+  }
+
+  /** Query a random shard, which distributes the request to all shards, without comparing with the control. */
+  private QueryResponse queryDistrib(ModifiableSolrParams params) throws Exception {
+    params.set(ShardParams.SHARDS, shards);
+    return queryServer(params);
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.Map;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.metrics.MetricsMap;
+import org.apache.solr.metrics.SolrMetricManager;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the {@link CommonParams#MIN_EXACT_COUNT} parameter.
+ */
+public class TestMinExactCount extends SolrTestCaseJ4 {
+
+  private static final int NUM_DOCS = 200;
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig.xml", "schema.xml");
+    for (int i = 0; i < NUM_DOCS; i++) {
+      // vary the term frequency so that scores differ
+      StringBuilder title = new StringBuilder("foo");
+      for (int j = i % 5; j > 0; j--) {
+        title.append(" foo");
+      }
+      assertU(adoc("id", Integer.toString(i), "title", title.toString(), "inStock_b1", i % 2 == 0 ? "true" : "false"));
+      if (i % 50 == 49) {
+        assertU(commit());
+      }
+    }
+    assertU(commit());
+  }
+
+  @Test
+  public void testExactCount() throws Exception {
+    // numFoundExact is only reported if minExactCount is set
+    assertQ(req("q", "title:foo", "rows", "1"),
+        "//result[@numFound='" + NUM_DOCS + "']",
+        "count(//lst[@name='responseHeader']/bool[@name='numFoundExact'])=0");
+
+    assertQ(req("q", "title:foo", "rows", "1", CommonParams.MIN_EXACT_COUNT, Integer.toString(NUM_DOCS)),
+        "//result[@numFound='" + NUM_DOCS + "']",
+        "//lst[@name='responseHeader']/bool[@name='numFoundExact']='true'");
+
+    assertQ(req("q", "title:foo", "rows", "1", CommonParams.MIN_EXACT_COUNT, Integer.toString(NUM_DOCS + random().nextInt(10))),
+        "//result[@numFound='" + NUM_DOCS + "']",
+        "//lst[@name='responseHeader']/bool[@name='numFoundExact']='true'");
+  }
+
+  @Test
+  public void testLowerBound() throws Exception {
+    final int minExactCount = random().nextInt(NUM_DOCS - 2);
+    final String response = h.query(req("q", "title:foo", "rows", "1", "fl", "id,score",
+        CommonParams.MIN_EXACT_COUNT, Integer.toString(minExactCount)));
+    assertNull(h.validateXPath(response,
+        "//lst[@name='responseHeader']/bool[@name='numFoundExact']='false'",
+        "count(//result/doc)=1"));
+    // at least minExactCount hits were counted, and not more than the actual number of hits
+    final int numFound = Integer.parseInt(response.replaceAll("(?s).*numFound=\"(\\d+)\".*", "$1"));
+    assertTrue(numFound + " < " + minExactCount, numFound > minExactCount);
+    assertTrue(numFound + " > " + NUM_DOCS, numFound <= NUM_DOCS);
+
+    // the top hit is the same as when counting all hits
+    final String expected = h.query(req("q", "title:foo", "rows", "1", "fl", "id,score"));
+    assertEquals(expected.replaceAll("(?s).*<doc>(.*)</doc>.*", "$1"), response.replaceAll("(?s).*<doc>(.*)</doc>.*", "$1"));
+  }
+
+  @Test
+  public void testCountIsExactIfNotSortedByScore() throws Exception {
+    // field sorts always count hits exactly
+    assertQ(req("q", "title:foo", "rows", "1", "sort", "id asc", CommonParams.MIN_EXACT_COUNT, "1"),
+        "//result[@numFound='" + NUM_DOCS + "']",
+        "//lst[@name='responseHeader']/bool[@name='numFoundExact']='true'");
+
+    // so do searches that need a DocSet, like faceting
+    assertQ(req("q", "title:foo", "rows", "1", "facet", "true", "facet.field", "inStock_b1", CommonParams.MIN_EXACT_COUNT, "1"),
+        "//result[@numFound='" + NUM_DOCS + "']",
+        "//lst[@name='responseHeader']/bool[@name='numFoundExact']='true'",
+        "//lst[@name='inStock_b1']/int[@name='true'][.='" + (NUM_DOCS / 2) + "']");
+  }
+
+  @Test
+  public void testQueryResultCacheIsSkipped() throws Exception {
+    final MetricsMap queryResultCache = (MetricsMap) ((SolrMetricManager.GaugeWrapper<?>) h.getCore().getCoreMetricManager()
+        .getRegistry().getMetrics().get("CACHE.searcher.queryResultCache")).getGauge();
+
+    Map<String,Object> before = queryResultCache.getValue();
+    assertQ(req("q", "title:foo", "rows", "1", CommonParams.MIN_EXACT_COUNT, "1"),
+        "//lst[@name='responseHeader']/bool[@name='numFoundExact']='false'");
+    assertQ(req("q", "title:foo", "rows", "1", CommonParams.MIN_EXACT_COUNT, Integer.toString(NUM_DOCS)),
+        "//lst[@name='responseHeader']/bool[@name='numFoundExact']='true'");
+    Map<String,Object> after = queryResultCache.getValue();
+    assertEquals(before.get("lookups"), after.get("lookups"));
+    assertEquals(before.get("inserts"), after.get("inserts"));
+
+    // a cached result with an exact count is not returned either
+    assertQ(req("q", "title:foo OR title:bar", "rows", "1"),
+        "//result[@numFound='" + NUM_DOCS + "']");
+    before = queryResultCache.getValue();
+    assertQ(req("q", "title:foo OR title:bar", "rows", "1", CommonParams.MIN_EXACT_COUNT, "1"),
+        "//lst[@name='responseHeader']/bool[@name='numFoundExact']='false'");
+    after = queryResultCache.getValue();
+    assertEquals(before.get("hits"), after.get("hits"));
+    assertEquals(before.get("lookups"), after.get("lookups"));
+  }
+
+  @Test
+  public void testInvalidMinExactCount() throws Exception {
+    assertQEx("negative minExactCount", req("q", "title:foo", CommonParams.MIN_EXACT_COUNT, "-1"),
+        SolrException.ErrorCode.BAD_REQUEST);
+  }
+}
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
@@ -29,6 +30,7 @@ import javax.xml.xpath.XPathConstants;
 
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.join.QueryBitSetProducer;
 import org.apache.lucene.search.join.ScoreMode;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.SolrException;
@@ -36,9 +38,13 @@ import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.metrics.MetricsMap;
 import org.apache.solr.metrics.SolrMetricManager;
 import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.search.LRUCache;
 import org.apache.solr.search.QParser;
+import org.apache.solr.search.SolrCache;
+import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.search.SyntaxError;
 import org.apache.solr.util.BaseTestHarness;
+import org.apache.solr.util.RefCounted;
 import org.junit.After;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -474,6 +480,67 @@ public class BJQParserTest extends SolrTestCaseJ4 {
     }
   }
 
+  @Test
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public void testParentFilterRegenerator() throws Exception {
+    // keep the old searcher open so that the bitsets of its segments stay cached
+    final RefCounted<SolrIndexSearcher> oldSearcher = h.getCore().getSearcher();
+    try {
+      final Query parentList;
+      final BlockJoinParentQParser.BitDocIdSetFilterWrapper oldWrapper;
+      try (SolrQueryRequest req = req()) {
+        parentList = QParser.getParser("parent_s:[* TO *]", req).getQuery();
+        oldWrapper = BlockJoinParentQParser.getCachedFilter(req, parentList);
+      }
+      final QueryBitSetProducer producer = (QueryBitSetProducer) oldWrapper.filter;
+      producer.warm(oldSearcher.get().getIndexReader());
+      final long oldRamBytesUsed = producer.ramBytesUsed();
+      final SolrCache oldCache = oldSearcher.get().getCache(BlockJoinParentQParser.CACHE_NAME);
+      assertSame(oldWrapper, oldCache.get(parentList));
+
+      // a new segment
+      assertU(adoc("id", "12275", "parent_s", "g"));
+      assertU(commit());
+
+      final Map<String,String> args = new HashMap<>();
+      args.put("size", "10");
+      args.put("autowarmCount", "10");
+      args.put("maxRamMB", "100");
+      final LRUCache newCache = new LRUCache();
+      newCache.init(args, null, new BlockJoinParentFilterRegenerator());
+      try (SolrQueryRequest req = req()) {
+        assertNotSame(oldSearcher.get(), req.getSearcher());
+        newCache.warm(req.getSearcher(), oldCache);
+      }
+      newCache.setState(SolrCache.State.LIVE);
+
+      final BlockJoinParentQParser.BitDocIdSetFilterWrapper newWrapper =
+          (BlockJoinParentQParser.BitDocIdSetFilterWrapper) newCache.get(parentList);
+      assertNotNull(newWrapper);
+      assertSame("bitsets must be shared with the old searcher", producer, newWrapper.filter);
+      assertTrue("the bitset of the new segment must be computed while warming",
+          producer.ramBytesUsed() > oldRamBytesUsed);
+
+      // the size of cached wrappers does not change after they have been inserted in a cache
+      final long newWrapperRamBytesUsed = newWrapper.ramBytesUsed();
+      assertTrue(newWrapperRamBytesUsed > producer.ramBytesUsed());
+      assertTrue(newWrapperRamBytesUsed > oldWrapper.ramBytesUsed());
+      assertU(adoc("id", "12276", "parent_s", "h"));
+      assertU(commit());
+      try (SolrQueryRequest req = req()) {
+        producer.warm(req.getSearcher().getIndexReader());
+      }
+      assertEquals(newWrapperRamBytesUsed, newWrapper.ramBytesUsed());
+      // so replacing a value releases exactly what it accounted for
+      final long cacheRamBytesUsed = newCache.ramBytesUsed();
+      newCache.put(parentList, newWrapper);
+      assertEquals(cacheRamBytesUsed, newCache.ramBytesUsed());
+    } finally {
+      oldSearcher.decref();
+      assertU(delI("12276"));
+    }
+  }
+
   @After
   public void cleanAfterTestFiltersCache(){
     assertU("should be noop", delI("12275"));
@@ -50,6 +50,7 @@ public class SolrIndexConfigTest extends SolrTestCaseJ4 {
   private static final String solrConfigFileNameTieredMergePolicyFactory = "solrconfig-tieredmergepolicyfactory.xml";
   private static final String solrConfigFileNameConnMSPolicyFactory = "solrconfig-concurrentmergescheduler.xml";
   private static final String solrConfigFileNameSortingMergePolicyFactory = "solrconfig-sortingmergepolicyfactory.xml";
+  private static final String solrConfigFileNameIntegrityVerifier = "solrconfig-integrityverifier.xml";
   private static final String schemaFileName = "schema.xml";
 
   @BeforeClass
@@ -98,6 +99,22 @@ public class SolrIndexConfigTest extends SolrTestCaseJ4 {
 
   }
 
+  @Test
+  public void testIntegrityVerifierConfig() throws Exception {
+    SolrConfig solrConfig = new SolrConfig(instanceDir, solrConfigFileNameIntegrityVerifier, null);
+    SolrIndexConfig solrIndexConfig = new SolrIndexConfig(solrConfig, null, null);
+    assertNotNull(solrIndexConfig.integrityVerifierInfo);
+    assertEquals(100d, solrIndexConfig.integrityVerifierInfo.initArgs.get("maxMBPerSec"));
+    assertEquals(1L, solrIndexConfig.integrityVerifierInfo.initArgs.get("intervalSeconds"));
+    assertTrue(solrIndexConfig.toMap(new LinkedHashMap<>()).containsKey("integrityVerifier"));
+
+    // disabled by default
+    solrConfig = new SolrConfig(instanceDir, solrConfigFileNameTieredMergePolicyFactory, null);
+    solrIndexConfig = new SolrIndexConfig(solrConfig, null, null);
+    assertNull(solrIndexConfig.integrityVerifierInfo);
+    assertFalse(solrIndexConfig.toMap(new LinkedHashMap<>()).containsKey("integrityVerifier"));
+  }
+
   @Test
   public void testConcurrentMergeSchedularSolrIndexConfigCreation() throws Exception {
     String solrConfigFileName = solrConfigFileNameConnMSPolicyFactory;
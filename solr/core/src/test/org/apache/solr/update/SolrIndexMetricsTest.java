@@ -17,14 +17,18 @@
 package org.apache.solr.update;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.TimeSource;
 import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.util.TimeOut;
 import org.junit.After;
 import org.junit.Test;
 
@@ -123,4 +127,40 @@ public class SolrIndexMetricsTest extends SolrTestCaseJ4 {
     meter = (Meter)metrics.get("INDEX.flush");
     assertTrue("flush: " + meter.getCount(), meter.getCount() > 10);
   }
+
+  @Test
+  public void testIntegrityVerifierMetrics() throws Exception {
+    initCore("solrconfig-integrityverifier.xml", "schema.xml");
+
+    addDocs();
+
+    MetricRegistry registry = h.getCoreContainer().getMetricManager().registry(h.getCore().getCoreMetricManager().getRegistryName());
+    assertNotNull(registry);
+
+    Map<String, Metric> metrics = registry.getMetrics();
+    Gauge<?> passes = (Gauge<?>) metrics.get("INDEX.integrity.passes");
+    assertNotNull(passes);
+    // the verifier runs every second
+    TimeOut timeOut = new TimeOut(30, TimeUnit.SECONDS, TimeSource.NANO_TIME);
+    while (((Number) passes.getValue()).longValue() < 1) {
+      assertFalse("no verification pass completed", timeOut.hasTimedOut());
+      Thread.sleep(50);
+    }
+    assertTrue(((Number) ((Gauge<?>) metrics.get("INDEX.integrity.bytes")).getValue()).longValue() > 0);
+    assertEquals(0L, ((Gauge<?>) metrics.get("INDEX.integrity.corruptFiles")).getValue());
+    assertEquals(0L, ((Gauge<?>) metrics.get("INDEX.integrity.errorFiles")).getValue());
+  }
+
+  @Test
+  public void testNoIntegrityVerifierByDefault() throws Exception {
+    System.setProperty("solr.tests.metrics.merge", "false");
+    System.setProperty("solr.tests.metrics.mergeDetails", "false");
+    initCore("solrconfig-indexmetrics.xml", "schema.xml");
+
+    addDocs();
+
+    MetricRegistry registry = h.getCoreContainer().getMetricManager().registry(h.getCore().getCoreMetricManager().getRegistryName());
+    assertNotNull(registry);
+    assertNull(registry.getMetrics().get("INDEX.integrity.passes"));
+  }
 }
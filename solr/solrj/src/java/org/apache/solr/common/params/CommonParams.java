@@ -134,6 +134,12 @@ public interface CommonParams {
    * or plain text (false)
    */
   String EXPLAIN_STRUCT = "debug.explain.structured";
+
+  /**
+   * boolean indicating whether the main query should be run again with a
+   * profiler in order to report the time spent in every node of the query
+   */
+  String DEBUG_PROFILE = "debug.profile";
   
   /** another query to explain against */
   String EXPLAIN_OTHER = "explainOther";
@@ -161,6 +167,13 @@ public interface CommonParams {
   String SEGMENT_TERMINATE_EARLY = "segmentTerminateEarly";
   boolean SEGMENT_TERMINATE_EARLY_DEFAULT = false;
 
+  /**
+   * Minimum number of hits that need to be counted exactly. If a search has more
+   * matches than this value, <code>numFound</code> may be a lower bound of the
+   * actual number of hits, which allows non-competitive documents to be skipped.
+   */
+  String MIN_EXACT_COUNT = "minExactCount";
+
   /**
    * Timeout value in milliseconds.  If not set, or the value is &gt;= 0, there is no timeout.
    */
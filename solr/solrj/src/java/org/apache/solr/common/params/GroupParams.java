@@ -45,6 +45,12 @@ public interface GroupParams {
    * The default is 0.*/
   public static final String GROUP_CACHE_PERCENTAGE = GROUP + ".cache.percent";
 
+  /**
+   * Whether to collect the top documents of the top groups while searching for the top groups, so that the second
+   * pass search can be skipped when none of the returned groups missed documents. Only applies to grouping on a
+   * string field when the number of documents to return per group is small. The default is false.*/
+  public static final String GROUP_SINGLE_PASS = GROUP + ".singlePass";
+
   // Note: Since you can supply multiple fields to group on, but only have a facets for the whole result. It only makes
   // sense to me to support these parameters for the first group.
   /** Whether the docSet (for example for faceting) should be based on plain documents (a.k.a UNGROUPED) or on the groups (a.k.a GROUPED).